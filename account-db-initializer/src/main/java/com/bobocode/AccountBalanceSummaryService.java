@@ -0,0 +1,329 @@
+package com.bobocode;
+
+import com.bobocode.util.JdbcException;
+import com.bobocode.util.JdbcUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link AccountBalanceSummaryService} maintains {@code account_balance_summary}, a small table with the number of
+ * accounts and their total balance per gender and creation month. Dashboards read it instead of aggregating the whole
+ * {@code account} table.
+ * <p>
+ * The summary is kept current by applying deltas in the same transaction that changes accounts: writers collect them
+ * in a {@link BalanceSummaryDelta}, or call {@link #balancesChanged(Connection, Map)} and
+ * {@link #accountsDeleting(Connection, Collection)}, before they commit. {@link AccountBulkLoader},
+ * {@link AccountTransferService} and {@link BalanceDeltaAccumulator} do that when a summary service is set. Summary
+ * rows are updated in a fixed order, so concurrent writers can't deadlock on them.
+ * <p>
+ * Writes that bypass the service make the summary drift, and {@link #reconcile(int)} rebuilds it. Accounts without
+ * balance count as zero balance.
+ */
+public class AccountBalanceSummaryService {
+    public static final int DEFAULT_RECONCILE_CHUNK_SIZE = 50_000;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AccountBalanceSummaryService.class);
+    private static final String CREATE_TABLE_SQL = "CREATE TABLE IF NOT EXISTS account_balance_summary(" +
+            "gender         VARCHAR(255) NOT NULL, " +
+            "creation_month DATE NOT NULL, " +
+            "account_count  BIGINT NOT NULL, " +
+            "total_balance  DECIMAL(19, 4) NOT NULL, " +
+            "CONSTRAINT account_balance_summary_pk PRIMARY KEY (gender, creation_month)" +
+            ")";
+    private static final String UPDATE_SQL = "UPDATE account_balance_summary " +
+            "SET account_count = account_count + ?, total_balance = total_balance + ? " +
+            "WHERE gender = ? AND creation_month = ?";
+    private static final String INSERT_SQL = "INSERT INTO account_balance_summary " +
+            "(account_count, total_balance, gender, creation_month) VALUES (?, ?, ?, ?)";
+    private static final String SELECT_ACCOUNTS_SQL = "SELECT id, gender, creation_time, balance FROM account " +
+            "WHERE id IN (%s)";
+    private static final String SELECT_ID_RANGE_SQL = "SELECT MIN(id), MAX(id) FROM account";
+    private static final String AGGREGATE_CHUNK_SQL = "SELECT gender, MIN(creation_time), COUNT(*), " +
+            "SUM(COALESCE(balance, 0)) FROM account WHERE id BETWEEN ? AND ? " +
+            "GROUP BY gender, EXTRACT(YEAR FROM creation_time), EXTRACT(MONTH FROM creation_time)";
+    private static final String SELECT_SUMMARIES_SQL = "SELECT gender, creation_month, account_count, total_balance " +
+            "FROM account_balance_summary ORDER BY gender, creation_month";
+    private static final String SUMMARIZE_BY_GENDER_SQL = "SELECT gender, SUM(account_count), SUM(total_balance) " +
+            "FROM account_balance_summary GROUP BY gender ORDER BY gender";
+    private static final String SUMMARIZE_BY_MONTH_SQL = "SELECT creation_month, SUM(account_count), " +
+            "SUM(total_balance) FROM account_balance_summary GROUP BY creation_month ORDER BY creation_month";
+    private static final String DUPLICATE_KEY_STATE = "23505";
+    private static final int IN_LIST_SIZE = 500;
+
+    private final DataSource dataSource;
+
+    public AccountBalanceSummaryService(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Creates {@code account_balance_summary} table if it does not exist. Call {@link #reconcile(int)} to fill it
+     * when {@code account} table already has rows.
+     */
+    public void createTable() {
+        JdbcUtil.consumeConnection(dataSource, connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_TABLE_SQL);
+            } catch (SQLException e) {
+                throw new JdbcException("Can't create account_balance_summary table", e);
+            }
+        });
+    }
+
+    /**
+     * Applies collected changes using the caller's connection, so they commit or roll back together with the caller
+     * transaction
+     *
+     * @param connection caller's connection
+     * @param delta      changes to apply
+     * @throws SQLException if the summary can't be updated
+     */
+    public void apply(Connection connection, BalanceSummaryDelta delta) throws SQLException {
+        if (delta.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<BalanceSummaryDelta.Group, BalanceSummaryDelta.Change>> missing = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(UPDATE_SQL)) {
+            List<Map.Entry<BalanceSummaryDelta.Group, BalanceSummaryDelta.Change>> entries =
+                    new ArrayList<>(delta.getChanges().entrySet());
+            for (Map.Entry<BalanceSummaryDelta.Group, BalanceSummaryDelta.Change> entry : entries) {
+                bind(statement, entry.getKey(), entry.getValue());
+                statement.addBatch();
+            }
+            int[] updateCounts = statement.executeBatch();
+            for (int i = 0; i < updateCounts.length; i++) {
+                if (updateCounts[i] == 0) {
+                    missing.add(entries.get(i));
+                }
+            }
+        }
+        for (Map.Entry<BalanceSummaryDelta.Group, BalanceSummaryDelta.Change> entry : missing) {
+            insertOrUpdate(connection, entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Applies balance changes of existing accounts using the caller's connection
+     *
+     * @param connection    caller's connection
+     * @param balanceDeltas balance change by account id
+     * @throws SQLException if the summary can't be updated
+     */
+    public void balancesChanged(Connection connection, Map<Long, BigDecimal> balanceDeltas) throws SQLException {
+        BalanceSummaryDelta delta = new BalanceSummaryDelta();
+        forEachAccount(connection, balanceDeltas.keySet(), (id, gender, creationTime, balance) ->
+                delta.add(gender, creationTime, 0, balanceDeltas.get(id)));
+        apply(connection, delta);
+    }
+
+    /**
+     * Removes accounts that are about to be deleted from the summary using the caller's connection. Must be called
+     * before the accounts are deleted, within the same transaction.
+     *
+     * @param connection caller's connection
+     * @param accountIds ids of accounts that will be deleted
+     * @throws SQLException if the summary can't be updated
+     */
+    public void accountsDeleting(Connection connection, Collection<Long> accountIds) throws SQLException {
+        BalanceSummaryDelta delta = new BalanceSummaryDelta();
+        forEachAccount(connection, accountIds, (id, gender, creationTime, balance) ->
+                delta.add(gender, creationTime, -1, balance == null ? null : balance.negate()));
+        apply(connection, delta);
+    }
+
+    public int reconcile() {
+        return reconcile(DEFAULT_RECONCILE_CHUNK_SIZE);
+    }
+
+    /**
+     * Rebuilds the summary from {@code account} table. Accounts are aggregated in id ranges of {@code chunkSize}, so
+     * each query touches a bounded number of rows, and the summary is replaced in one short transaction at the end.
+     * Accounts changed by other transactions during the scan may be counted before or after their change, so
+     * reconciliation should run when the table is quiet.
+     *
+     * @param chunkSize number of ids aggregated by one query
+     * @return number of summary rows
+     */
+    public int reconcile(int chunkSize) {
+        long start = System.nanoTime();
+        int rows = JdbcUtil.applyConnection(dataSource, connection -> {
+            try {
+                BalanceSummaryDelta summary = aggregateInChunks(connection, chunkSize);
+                return replaceSummary(connection, summary);
+            } catch (SQLException e) {
+                throw new JdbcException("Error reconciling account_balance_summary", e);
+            }
+        });
+        LOGGER.info("Account balance summary of {} rows reconciled in {} ms", rows,
+                (System.nanoTime() - start) / 1_000_000);
+        return rows;
+    }
+
+    /**
+     * Returns summary rows ordered by gender and creation month
+     *
+     * @return summaries
+     */
+    public List<BalanceSummary> getSummaries() {
+        return query(SELECT_SUMMARIES_SQL, rs -> new BalanceSummary(rs.getString(1), rs.getDate(2).toLocalDate(),
+                rs.getLong(3), rs.getBigDecimal(4)));
+    }
+
+    public List<BalanceSummary> summarizeByGender() {
+        return query(SUMMARIZE_BY_GENDER_SQL, rs -> new BalanceSummary(rs.getString(1), null, rs.getLong(2),
+                rs.getBigDecimal(3)));
+    }
+
+    public List<BalanceSummary> summarizeByMonth() {
+        return query(SUMMARIZE_BY_MONTH_SQL, rs -> new BalanceSummary(null, rs.getDate(1).toLocalDate(),
+                rs.getLong(2), rs.getBigDecimal(3)));
+    }
+
+    private static void bind(PreparedStatement statement, BalanceSummaryDelta.Group group,
+                             BalanceSummaryDelta.Change change) throws SQLException {
+        statement.setLong(1, change.countDelta);
+        statement.setBigDecimal(2, change.balanceDelta);
+        statement.setString(3, group.getGender());
+        statement.setDate(4, Date.valueOf(group.getCreationMonth()));
+    }
+
+    /**
+     * Inserts a new summary row, or updates it if a concurrent transaction has just inserted it. Within a transaction
+     * the insert runs under a savepoint, since databases like PostgreSQL abort the whole transaction on a failed
+     * statement unless it is rolled back to a savepoint.
+     */
+    static void insertOrUpdate(Connection connection, BalanceSummaryDelta.Group group,
+                               BalanceSummaryDelta.Change change) throws SQLException {
+        Savepoint savepoint = connection.getAutoCommit() ? null : connection.setSavepoint();
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+            bind(statement, group, change);
+            statement.executeUpdate();
+            if (savepoint != null) {
+                connection.releaseSavepoint(savepoint);
+            }
+        } catch (SQLException e) {
+            if (savepoint != null) {
+                connection.rollback(savepoint);
+            }
+            if (!DUPLICATE_KEY_STATE.equals(e.getSQLState())) {
+                throw e;
+            }
+            try (PreparedStatement statement = connection.prepareStatement(UPDATE_SQL)) {
+                bind(statement, group, change);
+                statement.executeUpdate();
+            }
+        }
+    }
+
+    private static void forEachAccount(Connection connection, Collection<Long> accountIds, AccountRowConsumer consumer)
+            throws SQLException {
+        List<Long> ids = new ArrayList<>(accountIds);
+        for (int from = 0; from < ids.size(); from += IN_LIST_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + IN_LIST_SIZE));
+            String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            try (PreparedStatement statement = connection.prepareStatement(
+                    String.format(SELECT_ACCOUNTS_SQL, placeholders))) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    statement.setLong(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        consumer.accept(rs.getLong(1), rs.getString(2), rs.getTimestamp(3).toLocalDateTime(),
+                                rs.getBigDecimal(4));
+                    }
+                }
+            }
+        }
+    }
+
+    private static BalanceSummaryDelta aggregateInChunks(Connection connection, int chunkSize) throws SQLException {
+        BalanceSummaryDelta summary = new BalanceSummaryDelta();
+        long minId;
+        long maxId;
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(SELECT_ID_RANGE_SQL)) {
+            rs.next();
+            minId = rs.getLong(1);
+            maxId = rs.getLong(2);
+            if (rs.wasNull()) {
+                return summary;
+            }
+        }
+        try (PreparedStatement statement = connection.prepareStatement(AGGREGATE_CHUNK_SQL)) {
+            for (long from = minId; from <= maxId; from += chunkSize) {
+                statement.setLong(1, from);
+                statement.setLong(2, Math.min(maxId, from + chunkSize - 1));
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        summary.add(rs.getString(1), rs.getTimestamp(2).toLocalDateTime(), rs.getLong(3),
+                                rs.getBigDecimal(4));
+                    }
+                }
+            }
+        }
+        return summary;
+    }
+
+    private static int replaceSummary(Connection connection, BalanceSummaryDelta summary) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (Statement delete = connection.createStatement();
+             PreparedStatement insert = connection.prepareStatement(INSERT_SQL)) {
+            delete.executeUpdate("DELETE FROM account_balance_summary");
+            for (Map.Entry<BalanceSummaryDelta.Group, BalanceSummaryDelta.Change> entry :
+                    summary.getChanges().entrySet()) {
+                bind(insert, entry.getKey(), entry.getValue());
+                insert.addBatch();
+            }
+            insert.executeBatch();
+            connection.commit();
+            return summary.getChanges().size();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private <T> List<T> query(String sql, RowMapper<T> mapper) {
+        return JdbcUtil.applyConnection(dataSource, connection -> {
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(sql)) {
+                List<T> result = new ArrayList<>();
+                while (rs.next()) {
+                    result.add(mapper.map(rs));
+                }
+                return result;
+            } catch (SQLException e) {
+                throw new JdbcException("Error reading account_balance_summary", e);
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface AccountRowConsumer {
+        void accept(long id, String gender, LocalDateTime creationTime, BigDecimal balance);
+    }
+
+    @FunctionalInterface
+    private interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+}
@@ -0,0 +1,353 @@
+package com.bobocode;
+
+import com.bobocode.model.Account;
+import com.bobocode.util.JdbcException;
+import com.bobocode.util.JdbcUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * {@link AccountBulkLoader} inserts large numbers of {@link Account}s into {@code account} table, which is created by
+ * {@link AccountDbInitializer}. Accounts are read from an iterator or a stream, so they do not have to be in memory at
+ * once. There are two strategies:
+ * <ul>
+ * <li>{@link Strategy#BATCHED_INSERT} binds many rows into one multi-row {@code INSERT} and sends such statements in
+ * JDBC batches, committing after each batch. The load is not atomic: when it fails, accounts of the batches committed
+ * before the failure stay in the table, and the exception message tells how many there are.</li>
+ * <li>{@link Strategy#CSV_READ} writes rows into a temporary CSV file and loads it with a single
+ * {@code INSERT ... SELECT FROM CSVREAD(...)} in one transaction, which avoids binding parameters altogether. The
+ * database must be able to read the local file, so it is used only for embedded H2 databases ({@code jdbc:h2:mem:}
+ * and {@code jdbc:h2:file:} URLs), and never for an H2 server.</li>
+ * </ul>
+ * The strategy is chosen by the number of rows. Accounts without id get consecutive ids after the current maximum,
+ * which is not safe if other sessions insert accounts at the same time. Missing creation time is set to the load
+ * start time. Each run is logged with its throughput. If a {@link AccountBalanceSummaryService} is set, the summary
+ * is updated in every transaction that inserts accounts.
+ */
+public class AccountBulkLoader {
+    public static final int DEFAULT_ROWS_PER_STATEMENT = 100;
+    public static final int DEFAULT_STATEMENTS_PER_BATCH = 50;
+    public static final long DEFAULT_CSV_THRESHOLD = 200_000;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AccountBulkLoader.class);
+    private static final String COLUMNS = "id, email, first_name, last_name, gender, birthday, balance, creation_time";
+    private static final int COLUMN_COUNT = 8;
+    private static final String INSERT_SQL_PREFIX = "INSERT INTO account (" + COLUMNS + ") VALUES ";
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String CSV_INSERT_SQL = "INSERT INTO account (" + COLUMNS + ") " +
+            "SELECT " + COLUMNS + " FROM CSVREAD('%s', NULL, 'charset=UTF-8 nullString=\\N')";
+    private static final String CSV_NULL = "\\N";
+    private static final String SELECT_MAX_ID_SQL = "SELECT COALESCE(MAX(id), 0) FROM account";
+
+    public enum Strategy {
+        BATCHED_INSERT,
+        CSV_READ
+    }
+
+    private final DataSource dataSource;
+    private final int rowsPerStatement;
+    private final int statementsPerBatch;
+    private final long csvThreshold;
+    private AccountBalanceSummaryService balanceSummary;
+
+    public AccountBulkLoader(DataSource dataSource) {
+        this(dataSource, DEFAULT_ROWS_PER_STATEMENT, DEFAULT_STATEMENTS_PER_BATCH, DEFAULT_CSV_THRESHOLD);
+    }
+
+    /**
+     * @param dataSource         a data source
+     * @param rowsPerStatement   number of rows in one multi-row {@code INSERT}
+     * @param statementsPerBatch number of statements in one JDBC batch and transaction
+     * @param csvThreshold       minimal number of rows loaded via CSV, use {@code Long.MAX_VALUE} to never use CSV
+     */
+    public AccountBulkLoader(DataSource dataSource, int rowsPerStatement, int statementsPerBatch, long csvThreshold) {
+        if (rowsPerStatement < 1 || statementsPerBatch < 1) {
+            throw new IllegalArgumentException("Rows per statement and statements per batch must be positive");
+        }
+        this.dataSource = dataSource;
+        this.rowsPerStatement = rowsPerStatement;
+        this.statementsPerBatch = statementsPerBatch;
+        this.csvThreshold = csvThreshold;
+    }
+
+    public void setBalanceSummary(AccountBalanceSummaryService balanceSummary) {
+        this.balanceSummary = balanceSummary;
+    }
+
+    /**
+     * Loads a collection of accounts. Generated ids and missing creation times are set to the accounts.
+     *
+     * @param accounts accounts to insert
+     * @return load summary
+     */
+    public BulkLoadResult load(Collection<Account> accounts) {
+        return load(accounts.iterator(), accounts.size());
+    }
+
+    /**
+     * Loads a stream of accounts, e.g. produced by {@link com.bobocode.data.AccountGenerator}
+     *
+     * @param accounts      accounts to insert
+     * @param expectedCount approximate number of accounts, used to choose the strategy
+     * @return load summary
+     */
+    public BulkLoadResult load(Stream<Account> accounts, long expectedCount) {
+        try (accounts) {
+            return load(accounts.iterator(), expectedCount);
+        }
+    }
+
+    private BulkLoadResult load(Iterator<Account> accounts, long expectedCount) {
+        Strategy strategy = chooseStrategy(expectedCount);
+        long start = System.nanoTime();
+        long rows = JdbcUtil.applyConnection(dataSource, connection -> {
+            try {
+                return strategy == Strategy.CSV_READ ? loadViaCsv(connection, accounts)
+                        : loadBatched(connection, accounts);
+            } catch (SQLException e) {
+                throw new JdbcException("Error loading accounts", e);
+            }
+        });
+        BulkLoadResult result = new BulkLoadResult(strategy, rows, System.nanoTime() - start);
+        LOGGER.info("{}", result);
+        return result;
+    }
+
+    private Strategy chooseStrategy(long expectedCount) {
+        if (expectedCount < csvThreshold) {
+            return Strategy.BATCHED_INSERT;
+        }
+        return JdbcUtil.applyConnection(dataSource, connection -> {
+            try {
+                return isEmbeddedH2(connection.getMetaData().getURL()) ? Strategy.CSV_READ : Strategy.BATCHED_INSERT;
+            } catch (SQLException e) {
+                throw new JdbcException("Can't read database metadata", e);
+            }
+        });
+    }
+
+    /**
+     * Tells whether a database runs in this JVM and reads files from the local file system
+     */
+    static boolean isEmbeddedH2(String url) {
+        return url.startsWith("jdbc:h2:mem:") || url.startsWith("jdbc:h2:file:");
+    }
+
+    private long loadBatched(Connection connection, Iterator<Account> accounts) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        long loaded = 0;
+        long committed = 0;
+        try (PreparedStatement fullStatement = connection.prepareStatement(insertSql(rowsPerStatement))) {
+            IdSequence ids = new IdSequence(connection);
+            LocalDateTime now = LocalDateTime.now();
+            BalanceSummaryDelta summaryDelta = balanceSummary == null ? null : new BalanceSummaryDelta();
+            Account[] rows = new Account[rowsPerStatement];
+            int batchedStatements = 0;
+            while (accounts.hasNext()) {
+                int rowCount = 0;
+                while (rowCount < rowsPerStatement && accounts.hasNext()) {
+                    rows[rowCount++] = accounts.next();
+                }
+                if (rowCount == rowsPerStatement) {
+                    bindRows(fullStatement, rows, rowCount, ids, now, summaryDelta);
+                    fullStatement.addBatch();
+                    if (++batchedStatements == statementsPerBatch) {
+                        fullStatement.executeBatch();
+                        applySummary(connection, summaryDelta);
+                        connection.commit();
+                        committed = loaded + rowCount;
+                        batchedStatements = 0;
+                    }
+                } else {
+                    try (PreparedStatement tailStatement = connection.prepareStatement(insertSql(rowCount))) {
+                        bindRows(tailStatement, rows, rowCount, ids, now, summaryDelta);
+                        tailStatement.executeUpdate();
+                    }
+                }
+                loaded += rowCount;
+            }
+            if (batchedStatements > 0) {
+                fullStatement.executeBatch();
+            }
+            applySummary(connection, summaryDelta);
+            connection.commit();
+            return loaded;
+        } catch (SQLException e) {
+            connection.rollback();
+            throw new JdbcException(String.format("Error loading accounts, %d accounts were committed before the " +
+                    "failure", committed), e);
+        } catch (RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static String insertSql(int rowCount) {
+        StringBuilder sql = new StringBuilder(INSERT_SQL_PREFIX.length() + rowCount * (ROW_PLACEHOLDERS.length() + 2));
+        sql.append(INSERT_SQL_PREFIX);
+        for (int i = 0; i < rowCount; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(ROW_PLACEHOLDERS);
+        }
+        return sql.toString();
+    }
+
+    private void applySummary(Connection connection, BalanceSummaryDelta summaryDelta) throws SQLException {
+        if (summaryDelta != null) {
+            balanceSummary.apply(connection, summaryDelta);
+            summaryDelta.clear();
+        }
+    }
+
+    private static void bindRows(PreparedStatement statement, Account[] rows, int rowCount, IdSequence ids,
+                                 LocalDateTime now, BalanceSummaryDelta summaryDelta) throws SQLException {
+        for (int i = 0; i < rowCount; i++) {
+            Account account = rows[i];
+            prepare(account, ids, now, summaryDelta);
+            int offset = i * COLUMN_COUNT;
+            statement.setLong(offset + 1, account.getId());
+            statement.setString(offset + 2, account.getEmail());
+            statement.setString(offset + 3, account.getFirstName());
+            statement.setString(offset + 4, account.getLastName());
+            statement.setString(offset + 5, account.getGender().name());
+            statement.setDate(offset + 6, Date.valueOf(account.getBirthday()));
+            statement.setBigDecimal(offset + 7, account.getBalance());
+            statement.setTimestamp(offset + 8, Timestamp.valueOf(account.getCreationTime()));
+            rows[i] = null;
+        }
+    }
+
+    private long loadViaCsv(Connection connection, Iterator<Account> accounts) throws SQLException {
+        Path csvFile = null;
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            csvFile = Files.createTempFile("account-bulk-load", ".csv");
+            BalanceSummaryDelta summaryDelta = balanceSummary == null ? null : new BalanceSummaryDelta();
+            writeCsv(csvFile, accounts, new IdSequence(connection), summaryDelta);
+            // H2 resolves CSVREAD columns while parsing, so the file name can't be a parameter
+            String fileName = csvFile.toAbsolutePath().toString().replace("'", "''");
+            try (Statement statement = connection.createStatement()) {
+                int loaded = statement.executeUpdate(String.format(CSV_INSERT_SQL, fileName));
+                applySummary(connection, summaryDelta);
+                connection.commit();
+                return loaded;
+            }
+        } catch (IOException e) {
+            connection.rollback();
+            throw new UncheckedIOException("Can't write accounts into a CSV file", e);
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+            deleteQuietly(csvFile);
+        }
+    }
+
+    private static void writeCsv(Path csvFile, Iterator<Account> accounts, IdSequence ids,
+                                 BalanceSummaryDelta summaryDelta) throws IOException {
+        LocalDateTime now = LocalDateTime.now();
+        try (Writer writer = new BufferedWriter(Files.newBufferedWriter(csvFile, StandardCharsets.UTF_8), 1 << 16)) {
+            writer.write(COLUMNS.replace(" ", ""));
+            writer.write('\n');
+            while (accounts.hasNext()) {
+                Account account = accounts.next();
+                prepare(account, ids, now, summaryDelta);
+                writer.write(Long.toString(account.getId()));
+                writer.write(',');
+                writeQuoted(writer, account.getEmail());
+                writer.write(',');
+                writeQuoted(writer, account.getFirstName());
+                writer.write(',');
+                writeQuoted(writer, account.getLastName());
+                writer.write(',');
+                writer.write(account.getGender().name());
+                writer.write(',');
+                writer.write(account.getBirthday().toString());
+                writer.write(',');
+                writer.write(account.getBalance() == null ? CSV_NULL : account.getBalance().toPlainString());
+                writer.write(',');
+                writer.write(Timestamp.valueOf(account.getCreationTime()).toString());
+                writer.write('\n');
+            }
+        }
+    }
+
+    /**
+     * Assigns missing id and creation time, and records the account in the summary delta
+     */
+    private static void prepare(Account account, IdSequence ids, LocalDateTime now,
+                                BalanceSummaryDelta summaryDelta) {
+        ids.assignIfMissing(account);
+        if (account.getCreationTime() == null) {
+            account.setCreationTime(now);
+        }
+        if (summaryDelta != null) {
+            summaryDelta.accountInserted(account);
+        }
+    }
+
+    private static void writeQuoted(Writer writer, String value) throws IOException {
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                LOGGER.warn("Can't delete temporary file {}", file, e);
+            }
+        }
+    }
+
+    /**
+     * Assigns consecutive ids after the current maximum id to accounts without id
+     */
+    private static class IdSequence {
+        private long lastId;
+
+        IdSequence(Connection connection) throws SQLException {
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(SELECT_MAX_ID_SQL)) {
+                rs.next();
+                lastId = rs.getLong(1);
+            }
+        }
+
+        long assignIfMissing(Account account) {
+            if (account.getId() == null) {
+                account.setId(++lastId);
+            }
+            return account.getId();
+        }
+    }
+}
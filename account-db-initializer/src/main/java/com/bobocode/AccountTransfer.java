@@ -0,0 +1,19 @@
+package com.bobocode;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+
+/**
+ * A request to move {@code amount} from one account balance to another
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class AccountTransfer {
+    private final long fromAccountId;
+    private final long toAccountId;
+    private final BigDecimal amount;
+}
@@ -0,0 +1,266 @@
+package com.bobocode;
+
+import com.bobocode.util.JdbcException;
+import com.bobocode.util.JdbcUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link AccountTransferService} moves money between balances of the {@code account} table.
+ * <p>
+ * Transfers are applied in batches, each batch in its own transaction. A transaction locks every account of the
+ * batch with a single {@code SELECT ... FOR UPDATE} ordered by id, so two transactions always acquire shared accounts
+ * in the same order and can't deadlock on each other. The balances are then changed in memory, and one
+ * {@code UPDATE} per account is sent as a JDBC batch. A batch is all-or-nothing: an unknown account, an account
+ * without balance ({@code NULL}) or insufficient funds rolls back the whole batch.
+ * <p>
+ * When a transaction fails because of a lock timeout, a deadlock or a serialization failure, it is rolled back and
+ * retried after a random backoff that grows with every attempt, so threads competing for hot accounts spread out
+ * instead of colliding again. Throughput and conflict rate are available via {@link #getStats()}. If a
+ * {@link AccountBalanceSummaryService} is set, the summary is updated within every transfer transaction.
+ */
+public class AccountTransferService {
+    public static final int DEFAULT_TRANSFERS_PER_TRANSACTION = 50;
+    public static final int DEFAULT_MAX_RETRIES = 10;
+    public static final Duration DEFAULT_BASE_BACKOFF = Duration.ofMillis(2);
+    public static final Duration DEFAULT_MAX_BACKOFF = Duration.ofMillis(200);
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AccountTransferService.class);
+    private static final String SELECT_FOR_UPDATE_SQL = "SELECT id, balance FROM account WHERE id IN (%s) " +
+            "ORDER BY id FOR UPDATE";
+    private static final String UPDATE_BALANCE_SQL = "UPDATE account SET balance = ? WHERE id = ?";
+    private static final String SERIALIZATION_FAILURE_STATE = "40001";
+    private static final String POSTGRES_DEADLOCK_STATE = "40P01";
+    private static final int H2_LOCK_TIMEOUT_CODE = 50200;
+    private static final int H2_CONCURRENT_UPDATE_CODE = 90131;
+
+    private final DataSource dataSource;
+    private final int transfersPerTransaction;
+    private final int maxRetries;
+    private final long baseBackoffNanos;
+    private final long maxBackoffNanos;
+    private AccountBalanceSummaryService balanceSummary;
+
+    private final LongAdder transfers = new LongAdder();
+    private final LongAdder transactions = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private volatile long statsStartNanos = System.nanoTime();
+
+    public AccountTransferService(DataSource dataSource) {
+        this(dataSource, DEFAULT_TRANSFERS_PER_TRANSACTION, DEFAULT_MAX_RETRIES, DEFAULT_BASE_BACKOFF,
+                DEFAULT_MAX_BACKOFF);
+    }
+
+    /**
+     * @param dataSource              a data source
+     * @param transfersPerTransaction maximum number of transfers applied in one transaction
+     * @param maxRetries              number of retries of a transaction that hit a conflict
+     * @param baseBackoff             backoff before the first retry, doubled with every next retry
+     * @param maxBackoff              upper bound of the backoff
+     */
+    public AccountTransferService(DataSource dataSource, int transfersPerTransaction, int maxRetries,
+                                  Duration baseBackoff, Duration maxBackoff) {
+        if (transfersPerTransaction < 1 || maxRetries < 0) {
+            throw new IllegalArgumentException("Invalid transfers per transaction or max retries");
+        }
+        this.dataSource = dataSource;
+        this.transfersPerTransaction = transfersPerTransaction;
+        this.maxRetries = maxRetries;
+        this.baseBackoffNanos = baseBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+    }
+
+    public void setBalanceSummary(AccountBalanceSummaryService balanceSummary) {
+        this.balanceSummary = balanceSummary;
+    }
+
+    /**
+     * Moves {@code amount} from one account to another in a separate transaction
+     *
+     * @param fromAccountId account to withdraw from
+     * @param toAccountId   account to deposit to
+     * @param amount        positive amount
+     */
+    public void transfer(long fromAccountId, long toAccountId, BigDecimal amount) {
+        transferAll(Collections.singletonList(new AccountTransfer(fromAccountId, toAccountId, amount)));
+    }
+
+    /**
+     * Applies transfers in the given order, in transactions of at most {@code transfersPerTransaction} transfers.
+     * If a transaction fails, the transactions committed before it stay committed.
+     *
+     * @param transferList transfers to apply
+     * @return number of applied transfers
+     */
+    public int transferAll(List<AccountTransfer> transferList) {
+        transferList.forEach(AccountTransferService::validate);
+        for (int from = 0; from < transferList.size(); from += transfersPerTransaction) {
+            List<AccountTransfer> batch = transferList.subList(from,
+                    Math.min(transferList.size(), from + transfersPerTransaction));
+            JdbcUtil.consumeConnection(dataSource, connection -> applyWithRetries(connection, batch));
+        }
+        return transferList.size();
+    }
+
+    public TransferStats getStats() {
+        return new TransferStats(transfers.sum(), transactions.sum(), conflicts.sum(), failures.sum(),
+                System.nanoTime() - statsStartNanos);
+    }
+
+    public void resetStats() {
+        transfers.reset();
+        transactions.reset();
+        conflicts.reset();
+        failures.reset();
+        statsStartNanos = System.nanoTime();
+    }
+
+    private static void validate(AccountTransfer transfer) {
+        if (transfer.getAmount() == null || transfer.getAmount().signum() <= 0) {
+            throw new IllegalArgumentException("Transfer amount must be positive: " + transfer);
+        }
+        if (transfer.getFromAccountId() == transfer.getToAccountId()) {
+            throw new IllegalArgumentException("Can't transfer to the same account: " + transfer);
+        }
+    }
+
+    private void applyWithRetries(Connection connection, List<AccountTransfer> batch) {
+        try {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                for (int attempt = 0; ; attempt++) {
+                    try {
+                        apply(connection, batch);
+                        connection.commit();
+                        transactions.increment();
+                        transfers.add(batch.size());
+                        return;
+                    } catch (SQLException e) {
+                        connection.rollback();
+                        if (!isRetryable(e) || attempt == maxRetries) {
+                            failures.increment();
+                            throw new JdbcException(String.format("Error applying %d transfers after %d attempts",
+                                    batch.size(), attempt + 1), e);
+                        }
+                        conflicts.increment();
+                        LOGGER.debug("Transfer conflict on attempt {}: {}", attempt + 1, e.getMessage());
+                        backOff(attempt);
+                    } catch (RuntimeException e) {
+                        connection.rollback();
+                        failures.increment();
+                        throw e;
+                    }
+                }
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new JdbcException("Error managing transfer transaction", e);
+        }
+    }
+
+    private void apply(Connection connection, List<AccountTransfer> batch) throws SQLException {
+        TreeSet<Long> accountIds = new TreeSet<>();
+        for (AccountTransfer transfer : batch) {
+            accountIds.add(transfer.getFromAccountId());
+            accountIds.add(transfer.getToAccountId());
+        }
+        Map<Long, BigDecimal> balances = lockBalances(connection, accountIds);
+        Map<Long, BigDecimal> initialBalances = new TreeMap<>(balances);
+        for (AccountTransfer transfer : batch) {
+            BigDecimal fromBalance = balances.get(transfer.getFromAccountId());
+            BigDecimal toBalance = balances.get(transfer.getToAccountId());
+            if (!balances.containsKey(transfer.getFromAccountId()) || !balances.containsKey(transfer.getToAccountId())) {
+                throw new IllegalArgumentException("Account not found: " + transfer);
+            }
+            if (fromBalance == null || toBalance == null) {
+                throw new IllegalStateException("Account has no balance: " + transfer);
+            }
+            if (fromBalance.compareTo(transfer.getAmount()) < 0) {
+                throw new IllegalStateException("Insufficient funds: " + transfer);
+            }
+            balances.put(transfer.getFromAccountId(), fromBalance.subtract(transfer.getAmount()));
+            balances.put(transfer.getToAccountId(), toBalance.add(transfer.getAmount()));
+        }
+        try (PreparedStatement statement = connection.prepareStatement(UPDATE_BALANCE_SQL)) {
+            for (Map.Entry<Long, BigDecimal> balance : balances.entrySet()) {
+                statement.setBigDecimal(1, balance.getValue());
+                statement.setLong(2, balance.getKey());
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+        if (balanceSummary != null) {
+            Map<Long, BigDecimal> deltas = new TreeMap<>();
+            balances.forEach((accountId, balance) ->
+                    deltas.put(accountId, balance.subtract(initialBalances.get(accountId))));
+            balanceSummary.balancesChanged(connection, deltas);
+        }
+    }
+
+    /**
+     * Locks accounts in ascending id order and returns their balances. An account without balance is mapped to
+     * {@code null}.
+     */
+    private static Map<Long, BigDecimal> lockBalances(Connection connection, TreeSet<Long> accountIds)
+            throws SQLException {
+        String placeholders = String.join(", ", Collections.nCopies(accountIds.size(), "?"));
+        Map<Long, BigDecimal> balances = new TreeMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(
+                String.format(SELECT_FOR_UPDATE_SQL, placeholders))) {
+            int index = 1;
+            for (Long accountId : accountIds) {
+                statement.setLong(index++, accountId);
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    balances.put(rs.getLong(1), rs.getBigDecimal(2));
+                }
+            }
+        }
+        return balances;
+    }
+
+    private static boolean isRetryable(SQLException e) {
+        for (SQLException current = e; current != null; current = current.getNextException()) {
+            String state = current.getSQLState();
+            int code = current.getErrorCode();
+            if (SERIALIZATION_FAILURE_STATE.equals(state) || POSTGRES_DEADLOCK_STATE.equals(state)
+                    || code == H2_LOCK_TIMEOUT_CODE || code == H2_CONCURRENT_UPDATE_CODE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sleeps for a random time between a half and a whole of the exponential backoff of the attempt
+     */
+    private void backOff(int attempt) {
+        long backoff = Math.min(maxBackoffNanos, baseBackoffNanos << Math.min(attempt, 20));
+        long sleepNanos = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        try {
+            Thread.sleep(sleepNanos / 1_000_000, (int) (sleepNanos % 1_000_000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JdbcException("Interrupted while backing off a transfer retry", e);
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.bobocode;
+
+import com.bobocode.util.JdbcException;
+import com.bobocode.util.JdbcUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * {@link BalanceDeltaAccumulator} is an opt-in write-behind buffer for balance increments of hot accounts. Instead of
+ * running {@code UPDATE account SET balance = balance + ?} for every increment, which makes all writers of an account
+ * wait for its row lock, deltas are summed in memory in a {@link LongAdder} per account, so concurrent writers of the
+ * same account don't contend on a single cell. Deltas are kept in minor units (cents).
+ * <p>
+ * Deltas belong to a generation. Every flush interval the current generation is swapped for an empty one and written
+ * as one batched update per account, in ascending id order, within a single transaction. Adding takes a read lock and
+ * the swap takes a write lock, so no delta can be added to a generation that is already being written.
+ * <p>
+ * With {@link AckMode#IMMEDIATE} a delta is acknowledged as soon as it is accumulated, and is lost if the JVM dies
+ * before the next flush. With {@link AckMode#DURABLE} the returned future completes only after the generation that
+ * contains the delta is committed. If an account accumulates more than {@code maxUnflushedMinorUnits} in either
+ * direction, the adding thread flushes right away, which bounds the unflushed value of any account (up to the deltas
+ * that are added concurrently). If a flush fails, its deltas are moved to the next generation and nothing is lost. If
+ * a {@link AccountBalanceSummaryService} is set, the summary is updated in the flush transaction.
+ * <p>
+ * A delta of an account that doesn't exist is not written. It is logged, and the durable acknowledgements of that
+ * account fail with a {@link JdbcException} that holds the delta. Deltas can't be added after {@link #close()}.
+ */
+public class BalanceDeltaAccumulator implements AutoCloseable {
+    public static final int MINOR_UNIT_SCALE = 2;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BalanceDeltaAccumulator.class);
+    private static final String UPDATE_BALANCE_SQL = "UPDATE account SET balance = COALESCE(balance, 0) + ? " +
+            "WHERE id = ?";
+    private static final CompletableFuture<Void> ACKNOWLEDGED = CompletableFuture.completedFuture(null);
+
+    public enum AckMode {
+        IMMEDIATE,
+        DURABLE
+    }
+
+    private final DataSource dataSource;
+    private final AckMode ackMode;
+    private final long maxUnflushedMinorUnits;
+    private final ScheduledExecutorService scheduler;
+
+    private final ReentrantReadWriteLock generationLock = new ReentrantReadWriteLock();
+    private final Lock flushLock = new ReentrantLock();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder forcedFlushes = new LongAdder();
+    private volatile Generation current = new Generation();
+    private volatile boolean closed;
+    private volatile AccountBalanceSummaryService balanceSummary;
+
+    /**
+     * Creates an accumulator and starts a daemon thread that flushes it periodically
+     *
+     * @param dataSource             a data source
+     * @param flushInterval          time between flushes
+     * @param ackMode                when a delta is acknowledged
+     * @param maxUnflushedMinorUnits absolute unflushed value of an account that triggers an immediate flush
+     */
+    public BalanceDeltaAccumulator(DataSource dataSource, Duration flushInterval, AckMode ackMode,
+                                   long maxUnflushedMinorUnits) {
+        if (maxUnflushedMinorUnits < 1) {
+            throw new IllegalArgumentException("Max unflushed value must be positive");
+        }
+        this.dataSource = dataSource;
+        this.ackMode = ackMode;
+        this.maxUnflushedMinorUnits = maxUnflushedMinorUnits;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "balance-delta-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalNanos = flushInterval.toNanos();
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void setBalanceSummary(AccountBalanceSummaryService balanceSummary) {
+        this.balanceSummary = balanceSummary;
+    }
+
+    /**
+     * Adds an amount to the account balance
+     *
+     * @param accountId account id
+     * @param amount    amount with at most {@link #MINOR_UNIT_SCALE} fraction digits, may be negative
+     * @return a future that completes when the delta is acknowledged according to the {@link AckMode}
+     * @throws IllegalStateException if the accumulator is closed
+     */
+    public CompletableFuture<Void> add(long accountId, BigDecimal amount) {
+        return add(accountId, amount.movePointRight(MINOR_UNIT_SCALE).longValueExact());
+    }
+
+    /**
+     * Adds a number of minor units to the account balance
+     *
+     * @param accountId       account id
+     * @param deltaMinorUnits delta in minor units, may be negative
+     * @return a future that completes when the delta is acknowledged according to the {@link AckMode}
+     * @throws IllegalStateException if the accumulator is closed
+     */
+    public CompletableFuture<Void> add(long accountId, long deltaMinorUnits) {
+        Cell cell;
+        long pending;
+        generationLock.readLock().lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Balance delta accumulator is closed");
+            }
+            cell = current.cell(accountId);
+            cell.delta.add(deltaMinorUnits);
+            pending = cell.delta.sum();
+        } finally {
+            generationLock.readLock().unlock();
+        }
+        if (Math.abs(pending) > maxUnflushedMinorUnits) {
+            forcedFlushes.increment();
+            flushQuietly();
+        }
+        return ackMode == AckMode.DURABLE ? cell.durable.copy() : ACKNOWLEDGED;
+    }
+
+    /**
+     * Returns the delta of the account that is accumulated but not yet being flushed
+     *
+     * @param accountId account id
+     * @return pending delta in minor units
+     */
+    public long getPendingMinorUnits(long accountId) {
+        Cell cell = current.cells.get(accountId);
+        return cell == null ? 0 : cell.delta.sum();
+    }
+
+    public long getFlushCount() {
+        return flushes.sum();
+    }
+
+    /**
+     * Returns the number of flushes triggered by the bound of unflushed value
+     *
+     * @return number of forced flushes
+     */
+    public long getForcedFlushCount() {
+        return forcedFlushes.sum();
+    }
+
+    /**
+     * Writes all accumulated deltas in one transaction. If writing fails for any reason, including a failing balance
+     * summary, the transaction is rolled back and the deltas are kept for the next flush. Deltas of missing accounts
+     * are dropped, and their durable acknowledgements fail.
+     *
+     * @throws JdbcException if deltas can't be written
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            Generation flushing;
+            generationLock.writeLock().lock();
+            try {
+                flushing = current;
+                current = new Generation();
+            } finally {
+                generationLock.writeLock().unlock();
+            }
+            Set<Long> missingAccountIds;
+            try {
+                missingAccountIds = write(flushing);
+            } catch (RuntimeException e) {
+                requeue(flushing);
+                throw e;
+            }
+            flushes.increment();
+            flushing.cells.forEach((accountId, cell) -> {
+                if (missingAccountIds.contains(accountId)) {
+                    cell.durable.completeExceptionally(new JdbcException(String.format(
+                            "Balance delta of %s was not written, account %d doesn't exist",
+                            BigDecimal.valueOf(cell.delta.sum(), MINOR_UNIT_SCALE), accountId)));
+                } else {
+                    cell.durable.complete(null);
+                }
+            });
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Stops periodic flushing and flushes the remaining deltas. Durable acknowledgements that are still pending fail
+     * if the last flush fails. Further calls of {@code add} are rejected.
+     */
+    @Override
+    public void close() {
+        generationLock.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            generationLock.writeLock().unlock();
+        }
+        scheduler.shutdown();
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            current.cells.values().forEach(cell -> cell.durable.completeExceptionally(e));
+            throw e;
+        }
+    }
+
+    /**
+     * Flushes without throwing, the delta of a failed flush stays accumulated, so the caller must not add it again
+     */
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Can't flush balance deltas, they will be retried with the next flush", e);
+        }
+    }
+
+    /**
+     * Writes non-zero deltas of a generation
+     *
+     * @return ids of accounts that don't exist
+     */
+    private Set<Long> write(Generation generation) {
+        Map<Long, Long> deltas = new TreeMap<>();
+        generation.cells.forEach((accountId, cell) -> {
+            long delta = cell.delta.sum();
+            if (delta != 0) {
+                deltas.put(accountId, delta);
+            }
+        });
+        if (deltas.isEmpty()) {
+            return new HashSet<>();
+        }
+        return JdbcUtil.applyConnection(dataSource, connection -> {
+            try {
+                return writeDeltas(connection, deltas);
+            } catch (SQLException e) {
+                throw new JdbcException(String.format("Error flushing balance deltas of %d accounts",
+                        deltas.size()), e);
+            }
+        });
+    }
+
+    private Set<Long> writeDeltas(Connection connection, Map<Long, Long> deltas) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (PreparedStatement statement = connection.prepareStatement(UPDATE_BALANCE_SQL)) {
+            for (Map.Entry<Long, Long> delta : deltas.entrySet()) {
+                statement.setBigDecimal(1, BigDecimal.valueOf(delta.getValue(), MINOR_UNIT_SCALE));
+                statement.setLong(2, delta.getKey());
+                statement.addBatch();
+            }
+            int[] updateCounts = statement.executeBatch();
+            Set<Long> missingAccountIds = new HashSet<>();
+            Map<Long, BigDecimal> balanceDeltas = new TreeMap<>();
+            int i = 0;
+            for (Map.Entry<Long, Long> delta : deltas.entrySet()) {
+                if (updateCounts[i++] == 0) {
+                    missingAccountIds.add(delta.getKey());
+                } else {
+                    balanceDeltas.put(delta.getKey(), BigDecimal.valueOf(delta.getValue(), MINOR_UNIT_SCALE));
+                }
+            }
+            AccountBalanceSummaryService summary = balanceSummary;
+            if (summary != null && !balanceDeltas.isEmpty()) {
+                summary.balancesChanged(connection, balanceDeltas);
+            }
+            connection.commit();
+            for (Long accountId : missingAccountIds) {
+                LOGGER.warn("Balance delta of {} was dropped, account {} doesn't exist",
+                        BigDecimal.valueOf(deltas.get(accountId), MINOR_UNIT_SCALE), accountId);
+            }
+            return missingAccountIds;
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Moves deltas of a failed generation to the current one, and completes their durable acknowledgements together
+     * with the same accounts of the current generation
+     */
+    private void requeue(Generation failed) {
+        generationLock.readLock().lock();
+        try {
+            Generation next = current;
+            failed.cells.forEach((accountId, failedCell) -> {
+                Cell nextCell = next.cell(accountId);
+                nextCell.delta.add(failedCell.delta.sum());
+                nextCell.durable.whenComplete((result, error) -> {
+                    if (error == null) {
+                        failedCell.durable.complete(null);
+                    } else {
+                        failedCell.durable.completeExceptionally(error);
+                    }
+                });
+            });
+        } finally {
+            generationLock.readLock().unlock();
+        }
+    }
+
+    private static class Generation {
+        private final ConcurrentHashMap<Long, Cell> cells = new ConcurrentHashMap<>();
+
+        Cell cell(long accountId) {
+            Cell cell = cells.get(accountId);
+            return cell != null ? cell : cells.computeIfAbsent(accountId, id -> new Cell());
+        }
+    }
+
+    /**
+     * Accumulated delta of one account and the acknowledgement of its durable write
+     */
+    private static class Cell {
+        private final LongAdder delta = new LongAdder();
+        private final CompletableFuture<Void> durable = new CompletableFuture<>();
+    }
+}
@@ -0,0 +1,33 @@
+package com.bobocode;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+
+/**
+ * A row of {@code account_balance_summary}, or an aggregate of such rows. {@code gender} or {@code creationMonth} is
+ * {@code null} when the summary covers all of its values.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class BalanceSummary {
+    private final String gender;
+    private final LocalDate creationMonth;
+    private final long accountCount;
+    private final BigDecimal totalBalance;
+
+    /**
+     * Returns the average balance, accounts without balance count as zero
+     *
+     * @return average balance
+     */
+    public BigDecimal getAverageBalance() {
+        return accountCount == 0 ? BigDecimal.ZERO
+                : totalBalance.divide(BigDecimal.valueOf(accountCount), 4, RoundingMode.HALF_UP);
+    }
+}
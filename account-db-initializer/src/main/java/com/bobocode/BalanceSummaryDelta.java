@@ -0,0 +1,69 @@
+package com.bobocode;
+
+import com.bobocode.model.Account;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Changes of {@code account_balance_summary} rows collected within one transaction, and applied with
+ * {@link AccountBalanceSummaryService#apply(java.sql.Connection, BalanceSummaryDelta)} before it commits. Changes of
+ * the same summary row are merged, so a transaction that inserts thousands of accounts updates only a few rows.
+ */
+public class BalanceSummaryDelta {
+    private final Map<Group, Change> changes = new TreeMap<>(Comparator.comparing(Group::getGender)
+            .thenComparing(Group::getCreationMonth));
+
+    public void accountInserted(Account account) {
+        add(account.getGender().name(), account.getCreationTime(), 1, account.getBalance());
+    }
+
+    /**
+     * Adds a change of the summary row of an account
+     *
+     * @param gender       account gender
+     * @param creationTime account creation time
+     * @param countDelta   change of the number of accounts
+     * @param balanceDelta change of the total balance, {@code null} means zero
+     */
+    public void add(String gender, LocalDateTime creationTime, long countDelta, BigDecimal balanceDelta) {
+        Change change = changes.computeIfAbsent(new Group(gender, creationTime.toLocalDate().withDayOfMonth(1)),
+                group -> new Change());
+        change.countDelta += countDelta;
+        if (balanceDelta != null) {
+            change.balanceDelta = change.balanceDelta.add(balanceDelta);
+        }
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    public void clear() {
+        changes.clear();
+    }
+
+    Map<Group, Change> getChanges() {
+        return changes;
+    }
+
+    @Getter
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    static class Group {
+        private final String gender;
+        private final LocalDate creationMonth;
+    }
+
+    static class Change {
+        long countDelta;
+        BigDecimal balanceDelta = BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,25 @@
+package com.bobocode;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A summary of an {@link AccountBulkLoader} run
+ */
+@Getter
+@AllArgsConstructor
+public class BulkLoadResult {
+    private final AccountBulkLoader.Strategy strategy;
+    private final long rows;
+    private final long elapsedNanos;
+
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rows * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d rows loaded with %s in %d ms (%.0f rows/sec)",
+                rows, strategy, elapsedNanos / 1_000_000, getRowsPerSecond());
+    }
+}
@@ -0,0 +1,34 @@
+package com.bobocode;
+
+import java.sql.SQLException;
+
+/**
+ * {@link CompactAccountDbInitializer} creates an alternative {@code account} table with the same columns as
+ * {@link AccountDbInitializer}, but with smaller encodings. Use {@link CompactAccountMapper} to read and write it.
+ */
+public class CompactAccountDbInitializer extends DbInitializer {
+
+    /**
+     * Creates an {@code account} table. Unlike the table of {@link AccountDbInitializer}, {@code gender} is a
+     * mandatory {@code SMALLINT} that stores {@link com.bobocode.model.Gender} codes (0 for {@code MALE}, 1 for
+     * {@code FEMALE}), and {@code balance} is an optional {@code BIGINT} that stores the balance in minor units
+     * (cents). Other columns, the primary key {@code "account_pk"} and the unique constraint
+     * {@code "account_email_uq"} are the same.
+     *
+     * @throws SQLException
+     */
+    public void init() throws SQLException {
+        createTable("CREATE TABLE IF NOT EXISTS account(" +
+                "id             BIGINT , " +
+                "email          VARCHAR(255) NOT NULL, " +
+                "first_name     VARCHAR(255) NOT NULL, " +
+                "last_name      VARCHAR(255) NOT NULL, " +
+                "gender         SMALLINT NOT NULL CHECK (gender IN (0, 1)), " +
+                "birthday       DATE NOT NULL, " +
+                "balance        BIGINT, " +
+                "creation_time  TIMESTAMP NOT NULL DEFAULT now()," +
+                "CONSTRAINT account_pk PRIMARY KEY (id), " +
+                "CONSTRAINT account_email_uq UNIQUE (email)" +
+                ")");
+    }
+}
@@ -0,0 +1,170 @@
+package com.bobocode;
+
+import com.bobocode.model.Account;
+import com.bobocode.model.Gender;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+/**
+ * {@link CompactAccountMapper} converts between {@link Account} and rows of the table created by
+ * {@link CompactAccountDbInitializer}.
+ * <p>
+ * Besides mapping rows to {@link Account}s, it can read rows into a reusable {@link CompactAccountRow}. That path
+ * reads columns by index, skips string columns and keeps gender, balance and dates as primitives, so a scan that
+ * aggregates or filters rows allocates no {@link Account}, strings or {@link BigDecimal}s per row. It is not free of
+ * allocation: JDBC has no primitive accessor for dates, so each row still creates a {@link Date} and a
+ * {@link Timestamp} that are dropped right after their epoch millis are taken.
+ */
+public class CompactAccountMapper {
+    public static final String SELECT_COLUMNS = "id, email, first_name, last_name, gender, birthday, balance, " +
+            "creation_time";
+    public static final String INSERT_SQL = "INSERT INTO account (" + SELECT_COLUMNS + ") " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    public static final int MINOR_UNIT_SCALE = 2;
+
+    private static final Gender[] GENDERS_BY_CODE = {Gender.MALE, Gender.FEMALE};
+
+    private CompactAccountMapper() {
+    }
+
+    public static short encodeGender(Gender gender) {
+        switch (gender) {
+            case MALE:
+                return 0;
+            case FEMALE:
+                return 1;
+            default:
+                throw new IllegalArgumentException("Unknown gender: " + gender);
+        }
+    }
+
+    public static Gender decodeGender(int code) {
+        if (code < 0 || code >= GENDERS_BY_CODE.length) {
+            throw new IllegalArgumentException("Unknown gender code: " + code);
+        }
+        return GENDERS_BY_CODE[code];
+    }
+
+    /**
+     * Converts an amount to minor units
+     *
+     * @param amount amount with at most {@link #MINOR_UNIT_SCALE} fraction digits
+     * @return amount in minor units
+     * @throws ArithmeticException if the amount has more fraction digits or doesn't fit into {@code long}
+     */
+    public static long toMinorUnits(BigDecimal amount) {
+        return amount.movePointRight(MINOR_UNIT_SCALE).longValueExact();
+    }
+
+    public static BigDecimal fromMinorUnits(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, MINOR_UNIT_SCALE);
+    }
+
+    /**
+     * Binds all columns of {@link #INSERT_SQL}
+     *
+     * @param statement statement prepared from {@link #INSERT_SQL}
+     * @param account   account with id and creation time
+     * @throws SQLException if parameters can't be set
+     */
+    public static void bind(PreparedStatement statement, Account account) throws SQLException {
+        statement.setLong(1, account.getId());
+        statement.setString(2, account.getEmail());
+        statement.setString(3, account.getFirstName());
+        statement.setString(4, account.getLastName());
+        statement.setShort(5, encodeGender(account.getGender()));
+        statement.setDate(6, Date.valueOf(account.getBirthday()));
+        if (account.getBalance() == null) {
+            statement.setNull(7, Types.BIGINT);
+        } else {
+            statement.setLong(7, toMinorUnits(account.getBalance()));
+        }
+        statement.setTimestamp(8, Timestamp.valueOf(account.getCreationTime()));
+    }
+
+    /**
+     * Maps the current row of a result set of {@link #SELECT_COLUMNS}
+     *
+     * @param rs result set positioned on a row
+     * @return new account
+     * @throws SQLException if columns can't be read
+     */
+    public static Account map(ResultSet rs) throws SQLException {
+        Account account = new Account();
+        account.setId(rs.getLong(1));
+        account.setEmail(rs.getString(2));
+        account.setFirstName(rs.getString(3));
+        account.setLastName(rs.getString(4));
+        account.setGender(decodeGender(rs.getShort(5)));
+        account.setBirthday(rs.getDate(6).toLocalDate());
+        long balance = rs.getLong(7);
+        account.setBalance(rs.wasNull() ? null : fromMinorUnits(balance));
+        account.setCreationTime(rs.getTimestamp(8).toLocalDateTime());
+        return account;
+    }
+
+    /**
+     * Reads the numeric columns of the current row of a result set of {@link #SELECT_COLUMNS} into a reusable row.
+     * String columns are not read, and the date columns are read through a short-lived {@link Date} and
+     * {@link Timestamp}.
+     *
+     * @param rs  result set positioned on a row
+     * @param row row to overwrite
+     * @throws SQLException if columns can't be read
+     */
+    public static void read(ResultSet rs, CompactAccountRow row) throws SQLException {
+        row.id = rs.getLong(1);
+        row.gender = decodeGender(rs.getShort(5));
+        row.birthdayEpochMillis = rs.getDate(6).getTime();
+        row.balanceMinorUnits = rs.getLong(7);
+        row.hasBalance = !rs.wasNull();
+        row.creationEpochMillis = rs.getTimestamp(8).getTime();
+    }
+
+    /**
+     * A mutable view of one compact account row, meant to be reused while scanning a result set
+     */
+    public static class CompactAccountRow {
+        private long id;
+        private Gender gender;
+        private long birthdayEpochMillis;
+        private long balanceMinorUnits;
+        private boolean hasBalance;
+        private long creationEpochMillis;
+
+        public long getId() {
+            return id;
+        }
+
+        public Gender getGender() {
+            return gender;
+        }
+
+        public long getBirthdayEpochMillis() {
+            return birthdayEpochMillis;
+        }
+
+        /**
+         * Returns the balance in minor units, or zero if the account has no balance
+         *
+         * @return balance in minor units
+         */
+        public long getBalanceMinorUnits() {
+            return balanceMinorUnits;
+        }
+
+        public boolean hasBalance() {
+            return hasBalance;
+        }
+
+        public long getCreationEpochMillis() {
+            return creationEpochMillis;
+        }
+    }
+}
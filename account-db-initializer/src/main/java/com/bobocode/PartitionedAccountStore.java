@@ -0,0 +1,297 @@
+package com.bobocode;
+
+import com.bobocode.model.Account;
+import com.bobocode.model.Gender;
+import com.bobocode.util.JdbcException;
+import com.bobocode.util.JdbcUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+
+/**
+ * {@link PartitionedAccountStore} keeps accounts in monthly tables named after their creation month, e.g.
+ * {@code account_2026_10}. Every partition has the columns of {@code account} table created by
+ * {@link AccountDbInitializer}, its own primary key, and a check constraint that keeps rows within its month.
+ * <p>
+ * Partitions are created on demand when accounts are inserted. The {@code account_all} view is a {@code UNION ALL} of
+ * all partitions for ad-hoc queries. {@link #findByCreationTime(LocalDateTime, LocalDateTime)} prunes partitions
+ * outside the requested range, so a query over the last month reads one or two tables no matter how much history is
+ * stored. Old months are removed with {@link #archivePartitionsBefore(YearMonth, Path)}, which exports and drops whole
+ * tables instead of deleting rows.
+ * <p>
+ * Ids and emails are unique only within a partition. Partition DDL is serialized within one store instance.
+ */
+public class PartitionedAccountStore {
+    public static final String VIEW_NAME = "account_all";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PartitionedAccountStore.class);
+    private static final String PARTITION_PREFIX = "account_";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("uuuu_MM");
+    private static final String COLUMNS = "id, email, first_name, last_name, gender, birthday, balance, creation_time";
+    private static final String CREATE_PARTITION_SQL = "CREATE TABLE IF NOT EXISTS %1$s(" +
+            "id             BIGINT, " +
+            "email          VARCHAR(255) NOT NULL, " +
+            "first_name     VARCHAR(255) NOT NULL, " +
+            "last_name      VARCHAR(255) NOT NULL, " +
+            "gender         VARCHAR(255) NOT NULL, " +
+            "birthday       DATE NOT NULL, " +
+            "balance        DECIMAL(19, 4), " +
+            "creation_time  TIMESTAMP NOT NULL DEFAULT now(), " +
+            "CONSTRAINT %1$s_pk PRIMARY KEY (id), " +
+            "CONSTRAINT %1$s_email_uq UNIQUE (email), " +
+            "CONSTRAINT %1$s_month_ck " +
+            "CHECK (creation_time >= TIMESTAMP '%2$s' AND creation_time < TIMESTAMP '%3$s')" +
+            ")";
+    private static final String INSERT_SQL = "INSERT INTO %s (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_RANGE_SQL = "SELECT " + COLUMNS + " FROM %s " +
+            "WHERE creation_time >= ? AND creation_time < ?";
+    private static final String SELECT_PARTITIONS_SQL = "SELECT table_name FROM INFORMATION_SCHEMA.TABLES " +
+            "WHERE table_schema = 'PUBLIC' AND table_type = 'TABLE' AND table_name LIKE 'account\\_____\\___'";
+
+    private final DataSource dataSource;
+    private final NavigableMap<YearMonth, String> partitions = new ConcurrentSkipListMap<>();
+    private final Object ddlLock = new Object();
+
+    /**
+     * Creates a store and discovers existing partitions
+     *
+     * @param dataSource a data source
+     */
+    public PartitionedAccountStore(DataSource dataSource) {
+        this.dataSource = dataSource;
+        JdbcUtil.consumeConnection(dataSource, this::discoverPartitions);
+    }
+
+    public static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + PARTITION_SUFFIX.format(month);
+    }
+
+    /**
+     * Returns months that have a partition in ascending order
+     *
+     * @return partition months
+     */
+    public List<YearMonth> getPartitions() {
+        return new ArrayList<>(partitions.keySet());
+    }
+
+    /**
+     * Inserts accounts into the partitions of their creation months in one transaction. Missing partitions are
+     * created first, and accounts without creation time get the current time.
+     *
+     * @param accounts accounts with ids
+     */
+    public void insert(Collection<Account> accounts) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<YearMonth, List<Account>> accountsByMonth = new TreeMap<>();
+        for (Account account : accounts) {
+            if (account.getId() == null) {
+                throw new IllegalArgumentException("Account id is required: " + account);
+            }
+            if (account.getCreationTime() == null) {
+                account.setCreationTime(now);
+            }
+            accountsByMonth.computeIfAbsent(YearMonth.from(account.getCreationTime()), month -> new ArrayList<>())
+                    .add(account);
+        }
+        accountsByMonth.keySet().forEach(this::ensurePartition);
+        JdbcUtil.consumeConnection(dataSource, connection -> {
+            try {
+                insert(connection, accountsByMonth);
+            } catch (SQLException e) {
+                throw new JdbcException("Error inserting accounts into partitions", e);
+            }
+        });
+    }
+
+    /**
+     * Finds accounts created within {@code [from, to)}, reading only partitions of the months that overlap the range
+     *
+     * @param from inclusive start of the range
+     * @param to   exclusive end of the range
+     * @return accounts ordered by creation time
+     */
+    public List<Account> findByCreationTime(LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            return new ArrayList<>();
+        }
+        List<String> tables = new ArrayList<>(partitions.subMap(YearMonth.from(from), true,
+                YearMonth.from(to.minusNanos(1)), true).values());
+        if (tables.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String sql = tables.stream()
+                .map(table -> String.format(SELECT_RANGE_SQL, table))
+                .collect(Collectors.joining(" UNION ALL ", "", " ORDER BY creation_time"));
+        return JdbcUtil.applyConnection(dataSource, connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                int index = 1;
+                for (int i = 0; i < tables.size(); i++) {
+                    statement.setTimestamp(index++, Timestamp.valueOf(from));
+                    statement.setTimestamp(index++, Timestamp.valueOf(to));
+                }
+                try (ResultSet rs = statement.executeQuery()) {
+                    List<Account> accounts = new ArrayList<>();
+                    while (rs.next()) {
+                        accounts.add(map(rs));
+                    }
+                    return accounts;
+                }
+            } catch (SQLException e) {
+                throw new JdbcException("Error finding accounts by creation time", e);
+            }
+        });
+    }
+
+    /**
+     * Creates a partition and adds it to the view, if it does not exist yet
+     *
+     * @param month partition month
+     */
+    public void ensurePartition(YearMonth month) {
+        if (partitions.containsKey(month)) {
+            return;
+        }
+        synchronized (ddlLock) {
+            if (partitions.containsKey(month)) {
+                return;
+            }
+            String table = partitionName(month);
+            executeDdl(String.format(CREATE_PARTITION_SQL, table, Timestamp.valueOf(month.atDay(1).atStartOfDay()),
+                    Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay())));
+            partitions.put(month, table);
+            replaceView();
+            LOGGER.info("Account partition {} created", table);
+        }
+    }
+
+    /**
+     * Exports every partition of a month before {@code cutoff} into {@code <directory>/<partition>.csv} with
+     * {@code CSVWRITE}, and drops it. The partition is removed from the view before it is dropped.
+     *
+     * @param cutoff    first month to keep
+     * @param directory directory for archive files, must be writable by the database
+     * @return archive files
+     */
+    public List<Path> archivePartitionsBefore(YearMonth cutoff, Path directory) {
+        synchronized (ddlLock) {
+            Map<YearMonth, String> archived = new TreeMap<>(partitions.headMap(cutoff, false));
+            List<Path> files = new ArrayList<>();
+            for (String table : archived.values()) {
+                Path file = directory.resolve(table + ".csv").toAbsolutePath();
+                executeDdl(String.format("CALL CSVWRITE('%s', 'SELECT %s FROM %s', 'charset=UTF-8')",
+                        file.toString().replace("'", "''"), COLUMNS, table));
+                files.add(file);
+            }
+            archived.keySet().forEach(partitions::remove);
+            replaceView();
+            for (String table : archived.values()) {
+                executeDdl("DROP TABLE " + table);
+                LOGGER.info("Account partition {} archived and dropped", table);
+            }
+            return files;
+        }
+    }
+
+    private void discoverPartitions(Connection connection) {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(SELECT_PARTITIONS_SQL)) {
+            while (rs.next()) {
+                String table = rs.getString(1);
+                partitions.put(YearMonth.parse(table.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX), table);
+            }
+        } catch (SQLException e) {
+            throw new JdbcException("Can't discover account partitions", e);
+        }
+    }
+
+    private void insert(Connection connection, Map<YearMonth, List<Account>> accountsByMonth) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            for (Map.Entry<YearMonth, List<Account>> entry : accountsByMonth.entrySet()) {
+                try (PreparedStatement statement = connection.prepareStatement(
+                        String.format(INSERT_SQL, partitions.get(entry.getKey())))) {
+                    for (Account account : entry.getValue()) {
+                        bind(statement, account);
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Recreates the view over current partitions, or drops it if there are none. Must be called under the DDL lock.
+     */
+    private void replaceView() {
+        if (partitions.isEmpty()) {
+            executeDdl("DROP VIEW IF EXISTS " + VIEW_NAME);
+            return;
+        }
+        executeDdl(partitions.values().stream()
+                .map(table -> "SELECT " + COLUMNS + " FROM " + table)
+                .collect(Collectors.joining(" UNION ALL ", "CREATE OR REPLACE VIEW " + VIEW_NAME + " AS ", "")));
+    }
+
+    private void executeDdl(String sql) {
+        JdbcUtil.consumeConnection(dataSource, connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(sql);
+            } catch (SQLException e) {
+                throw new JdbcException("Error executing partition DDL: " + sql, e);
+            }
+        });
+    }
+
+    private static void bind(PreparedStatement statement, Account account) throws SQLException {
+        statement.setLong(1, account.getId());
+        statement.setString(2, account.getEmail());
+        statement.setString(3, account.getFirstName());
+        statement.setString(4, account.getLastName());
+        statement.setString(5, account.getGender().name());
+        statement.setDate(6, Date.valueOf(account.getBirthday()));
+        statement.setBigDecimal(7, account.getBalance());
+        statement.setTimestamp(8, Timestamp.valueOf(account.getCreationTime()));
+    }
+
+    private static Account map(ResultSet rs) throws SQLException {
+        Account account = new Account();
+        account.setId(rs.getLong(1));
+        account.setEmail(rs.getString(2));
+        account.setFirstName(rs.getString(3));
+        account.setLastName(rs.getString(4));
+        account.setGender(Gender.valueOf(rs.getString(5)));
+        account.setBirthday(rs.getDate(6).toLocalDate());
+        account.setBalance(rs.getBigDecimal(7));
+        account.setCreationTime(rs.getTimestamp(8).toLocalDateTime());
+        return account;
+    }
+}
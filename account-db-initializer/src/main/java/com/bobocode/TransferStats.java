@@ -0,0 +1,40 @@
+package com.bobocode;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Statistics of an {@link AccountTransferService}. A conflict is a transaction attempt that was rolled back because of
+ * a lock timeout, a deadlock or a serialization failure, and then retried. A failure is a transaction that was given
+ * up on, either because retries were exhausted or because of a non-retryable error.
+ */
+@Getter
+@AllArgsConstructor
+public class TransferStats {
+    private final long transfers;
+    private final long transactions;
+    private final long conflicts;
+    private final long failures;
+    private final long elapsedNanos;
+
+    public double getTransfersPerSecond() {
+        return elapsedNanos == 0 ? 0 : transfers * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    /**
+     * Returns the share of transaction attempts that ended with a conflict
+     *
+     * @return conflict rate from 0 to 1
+     */
+    public double getConflictRate() {
+        long attempts = transactions + conflicts + failures;
+        return attempts == 0 ? 0 : (double) conflicts / attempts;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("transfers=%d, transactions=%d, conflicts=%d, failures=%d, " +
+                        "transfersPerSec=%.0f, conflictRate=%.3f",
+                transfers, transactions, conflicts, failures, getTransfersPerSecond(), getConflictRate());
+    }
+}
@@ -0,0 +1,106 @@
+package com.bobocode;
+
+import com.bobocode.data.AccountGenerator;
+import com.bobocode.model.Account;
+import com.bobocode.util.JdbcException;
+import com.bobocode.util.JdbcUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static com.bobocode.util.JdbcUtil.executeSafely;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(JUnit4.class)
+public class AccountBalanceSummaryServiceTest extends AccountServiceTestBase {
+    private AccountBalanceSummaryService summaryService;
+
+    @Before
+    public void createSummaryTable() {
+        summaryService = new AccountBalanceSummaryService(getDataSource());
+        summaryService.createTable();
+    }
+
+    @After
+    public void dropSummaryTable() throws SQLException {
+        consumeStatement(statement -> executeSafely(statement, "DROP TABLE account_balance_summary;"));
+    }
+
+    @Test
+    public void testBalanceSummaryFollowsAccountChangesAndMatchesReconciliation() {
+        AccountBulkLoader loader = new AccountBulkLoader(getDataSource(), 10, 2, Long.MAX_VALUE);
+        loader.setBalanceSummary(summaryService);
+        AccountTransferService transferService = new AccountTransferService(getDataSource());
+        transferService.setBalanceSummary(summaryService);
+
+        List<Account> accounts = new AccountGenerator(17).stream(95).collect(Collectors.toList());
+        accounts.get(3).setBalance(null);
+        loader.load(accounts);
+        transferService.transferAll(List.of(new AccountTransfer(1, 2, BigDecimal.ONE),
+                new AccountTransfer(3, 50, BigDecimal.TEN)));
+        JdbcUtil.consumeConnection(getDataSource(), connection -> {
+            try (Statement statement = connection.createStatement()) {
+                connection.setAutoCommit(false);
+                summaryService.accountsDeleting(connection, List.of(5L, 6L));
+                statement.executeUpdate("DELETE FROM account WHERE id IN (5, 6)");
+                connection.commit();
+            } catch (SQLException e) {
+                throw new JdbcException("Can't delete accounts", e);
+            }
+        });
+        List<BalanceSummary> maintained = summaryService.getSummaries();
+        BalanceSummary maintainedTotal = summarizeAll(summaryService.summarizeByGender());
+
+        summaryService.reconcile(7);
+        List<BalanceSummary> reconciled = summaryService.getSummaries();
+
+        assertEquals(93, maintainedTotal.getAccountCount());
+        assertEquals(reconciled.size(), maintained.size());
+        for (int i = 0; i < reconciled.size(); i++) {
+            assertEquals(reconciled.get(i).getGender(), maintained.get(i).getGender());
+            assertEquals(reconciled.get(i).getCreationMonth(), maintained.get(i).getCreationMonth());
+            assertEquals(reconciled.get(i).getAccountCount(), maintained.get(i).getAccountCount());
+            assertEquals(0, reconciled.get(i).getTotalBalance().compareTo(maintained.get(i).getTotalBalance()));
+        }
+    }
+
+    @Test
+    public void testBalanceSummaryInsertOfAConcurrentlyCreatedRowFallsBackToUpdate() {
+        BalanceSummaryDelta delta = new BalanceSummaryDelta();
+        delta.add("MALE", LocalDateTime.of(2026, 10, 5, 12, 0), 1, BigDecimal.TEN);
+        Map.Entry<BalanceSummaryDelta.Group, BalanceSummaryDelta.Change> change =
+                delta.getChanges().entrySet().iterator().next();
+
+        JdbcUtil.consumeConnection(getDataSource(), connection -> {
+            try {
+                AccountBalanceSummaryService.insertOrUpdate(connection, change.getKey(), change.getValue());
+                connection.setAutoCommit(false);
+                AccountBalanceSummaryService.insertOrUpdate(connection, change.getKey(), change.getValue());
+                AccountBalanceSummaryService.insertOrUpdate(connection, change.getKey(), change.getValue());
+                connection.commit();
+            } catch (SQLException e) {
+                throw new JdbcException("Can't update summary", e);
+            }
+        });
+
+        List<BalanceSummary> summaries = summaryService.getSummaries();
+        assertEquals(1, summaries.size());
+        assertEquals(3, summaries.get(0).getAccountCount());
+        assertEquals(0, new BigDecimal("30").compareTo(summaries.get(0).getTotalBalance()));
+    }
+
+    private BalanceSummary summarizeAll(List<BalanceSummary> summaries) {
+        return new BalanceSummary(null, null, summaries.stream().mapToLong(BalanceSummary::getAccountCount).sum(),
+                summaries.stream().map(BalanceSummary::getTotalBalance).reduce(BigDecimal.ZERO, BigDecimal::add));
+    }
+}
@@ -0,0 +1,79 @@
+package com.bobocode;
+
+import com.bobocode.data.AccountGenerator;
+import com.bobocode.model.Account;
+import com.bobocode.util.JdbcException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.bobocode.util.JdbcUtil.executeQuerySafely;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(JUnit4.class)
+public class AccountBulkLoaderTest extends AccountServiceTestBase {
+
+    @Test
+    public void testBulkLoaderInsertsAccountsWithBothStrategies() throws SQLException {
+        AccountGenerator generator = new AccountGenerator(7);
+        List<Account> accounts = generator.stream(250).collect(Collectors.toList());
+        accounts.get(0).setBalance(null);
+        AccountBulkLoader batchedLoader = new AccountBulkLoader(getDataSource(), 100, 2, Long.MAX_VALUE);
+        AccountBulkLoader csvLoader = new AccountBulkLoader(getDataSource(), 100, 2, 0);
+
+        BulkLoadResult batchedResult = batchedLoader.load(accounts);
+        BulkLoadResult csvResult = csvLoader.load(generator.partition(500, 1, 2), 250);
+
+        assertEquals(AccountBulkLoader.Strategy.BATCHED_INSERT, batchedResult.getStrategy());
+        assertEquals(AccountBulkLoader.Strategy.CSV_READ, csvResult.getStrategy());
+        assertEquals(250, batchedResult.getRows());
+        assertEquals(250, csvResult.getRows());
+        assertEquals(Long.valueOf(250), accounts.get(249).getId());
+        consumeStatement(statement -> {
+            ResultSet resultSet = executeQuerySafely(statement, "SELECT COUNT(*) AS accounts, " +
+                    "COUNT(balance) AS balances, MAX(id) AS max_id FROM account;");
+            getNextSafely(resultSet);
+
+            assertEquals(500, getIntSafely(resultSet, "accounts"));
+            assertEquals(499, getIntSafely(resultSet, "balances"));
+            assertEquals(500, getIntSafely(resultSet, "max_id"));
+        });
+    }
+
+    @Test
+    public void testFailedBatchedLoadKeepsCommittedBatchesAndReportsThem() throws SQLException {
+        List<Account> accounts = new AccountGenerator(7).stream(35).collect(Collectors.toList());
+        accounts.get(30).setEmail(accounts.get(0).getEmail());
+        AccountBulkLoader loader = new AccountBulkLoader(getDataSource(), 5, 2, Long.MAX_VALUE);
+
+        try {
+            loader.load(accounts);
+            fail("Exception was not thrown");
+        } catch (JdbcException e) {
+            assertTrue(e.getMessage().contains("30 accounts were committed"));
+        }
+        consumeStatement(statement -> {
+            ResultSet resultSet = executeQuerySafely(statement, "SELECT COUNT(*) AS accounts FROM account;");
+            getNextSafely(resultSet);
+
+            assertEquals(30, getIntSafely(resultSet, "accounts"));
+        });
+    }
+
+    @Test
+    public void testCsvReadIsUsedOnlyForEmbeddedH2() {
+        assertTrue(AccountBulkLoader.isEmbeddedH2("jdbc:h2:mem:accounts;DB_CLOSE_DELAY=-1"));
+        assertTrue(AccountBulkLoader.isEmbeddedH2("jdbc:h2:file:/data/accounts"));
+        assertFalse(AccountBulkLoader.isEmbeddedH2("jdbc:h2:tcp://db-host/~/accounts"));
+        assertFalse(AccountBulkLoader.isEmbeddedH2("jdbc:h2:ssl://db-host/~/accounts"));
+        assertFalse(AccountBulkLoader.isEmbeddedH2("jdbc:postgresql://db-host/accounts"));
+    }
+}
@@ -0,0 +1,40 @@
+package com.bobocode;
+
+import com.bobocode.data.AccountGenerator;
+import com.bobocode.model.Account;
+import org.junit.After;
+import org.junit.BeforeClass;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.bobocode.util.JdbcUtil.executeSafely;
+
+/**
+ * A base class of tests of services that work with the {@code account} table. Every test class gets its own database
+ * initialized by {@link AccountDbInitializer}, and the table is emptied after each test.
+ */
+public abstract class AccountServiceTestBase extends DbInitializerTestBase {
+
+    @BeforeClass
+    public static void init() throws SQLException {
+        initDataSource(new AccountDbInitializer());
+    }
+
+    @After
+    public void deleteAccounts() throws SQLException {
+        consumeStatement(statement -> executeSafely(statement, "DELETE FROM account;"));
+    }
+
+    /**
+     * Generates accounts with a given balance and inserts them with ids starting from 1
+     */
+    List<Account> insertAccounts(long seed, int count, BigDecimal balance) {
+        List<Account> accounts = new AccountGenerator(seed).stream(count).collect(Collectors.toList());
+        accounts.forEach(account -> account.setBalance(balance));
+        new AccountBulkLoader(getDataSource()).load(accounts);
+        return accounts;
+    }
+}
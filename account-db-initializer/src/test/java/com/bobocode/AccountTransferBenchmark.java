@@ -0,0 +1,101 @@
+package com.bobocode;
+
+import com.bobocode.data.AccountGenerator;
+import com.bobocode.util.JdbcException;
+import com.bobocode.util.JdbcUtil;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs random transfers from several threads through {@link AccountTransferService} and prints throughput and conflict
+ * rate. A share of transfers touches a few hot accounts to create lock contention. After the run the total balance is
+ * checked to be unchanged.
+ * <p>
+ * Run it as a plain Java program with optional arguments: threads, transfers per thread, accounts, hot accounts and
+ * percentage of hot transfers, e.g. {@code AccountTransferBenchmark 8 2000 10000 4 20}.
+ */
+public class AccountTransferBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int transfersPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        int accountCount = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+        int hotAccounts = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+        int hotPercent = args.length > 4 ? Integer.parseInt(args[4]) : 20;
+
+        DataSource dataSource = JdbcUtil.createInMemoryH2DataSource("transfer_benchmark");
+        AccountDbInitializer initializer = new AccountDbInitializer();
+        initializer.setDataSource(dataSource);
+        initializer.init();
+        new AccountBulkLoader(dataSource).load(new AccountGenerator(42).stream(accountCount), accountCount);
+        BigDecimal totalBefore = totalBalance(dataSource);
+
+        AccountTransferService transferService = new AccountTransferService(dataSource);
+        for (int batchSize : new int[]{1, 10, 50}) {
+            transferService.resetStats();
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                SplittableRandom random = new SplittableRandom(t);
+                futures.add(executor.submit(() -> {
+                    List<AccountTransfer> batch = new ArrayList<>(batchSize);
+                    for (int i = 0; i < transfersPerThread; i++) {
+                        long from = pickAccount(random, accountCount, hotAccounts, hotPercent);
+                        long to = pickAccount(random, accountCount, hotAccounts, hotPercent);
+                        if (from != to) {
+                            batch.add(new AccountTransfer(from, to, BigDecimal.valueOf(random.nextInt(1, 100))));
+                        }
+                        if (batch.size() == batchSize) {
+                            transferIgnoringOverdrafts(transferService, batch);
+                            batch.clear();
+                        }
+                    }
+                    transferIgnoringOverdrafts(transferService, batch);
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+            System.out.printf("batch=%-3d %s%n", batchSize, transferService.getStats());
+        }
+
+        BigDecimal totalAfter = totalBalance(dataSource);
+        System.out.printf("total balance before=%s, after=%s%n", totalBefore, totalAfter);
+    }
+
+    private static void transferIgnoringOverdrafts(AccountTransferService transferService,
+                                                   List<AccountTransfer> batch) {
+        try {
+            transferService.transferAll(batch);
+        } catch (IllegalStateException e) {
+            // the batch was rolled back and is counted as a failure
+        }
+    }
+
+    private static long pickAccount(SplittableRandom random, int accountCount, int hotAccounts, int hotPercent) {
+        return random.nextInt(100) < hotPercent ? 1 + random.nextInt(hotAccounts) : 1 + random.nextInt(accountCount);
+    }
+
+    private static BigDecimal totalBalance(DataSource dataSource) {
+        return JdbcUtil.applyConnection(dataSource, connection -> {
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT SUM(balance) FROM account")) {
+                rs.next();
+                return rs.getBigDecimal(1);
+            } catch (SQLException e) {
+                throw new JdbcException("Can't calculate total balance", e);
+            }
+        });
+    }
+}
@@ -0,0 +1,140 @@
+package com.bobocode;
+
+import com.bobocode.util.JdbcException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.bobocode.util.JdbcUtil.executeQuerySafely;
+import static com.bobocode.util.JdbcUtil.executeSafely;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(JUnit4.class)
+public class AccountTransferServiceTest extends AccountServiceTestBase {
+
+    @Test
+    public void testTransfersMoveBalanceAndRollBackOverdraftBatch() throws SQLException {
+        insertAccounts(11, 3, BigDecimal.valueOf(100));
+        AccountTransferService transferService = new AccountTransferService(getDataSource());
+
+        transferService.transferAll(List.of(new AccountTransfer(1, 2, BigDecimal.valueOf(30)),
+                new AccountTransfer(2, 3, BigDecimal.valueOf(130))));
+        try {
+            transferService.transfer(3, 1, BigDecimal.valueOf(500));
+            fail("Exception was not thrown");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().startsWith("Insufficient funds"));
+        }
+        consumeStatement(statement -> {
+            ResultSet resultSet = executeQuerySafely(statement, "SELECT balance FROM account ORDER BY id;");
+
+            assertEquals(List.of("70.0000", "0.0000", "230.0000"), fetchValues(resultSet, "balance"));
+        });
+        assertEquals(2, transferService.getStats().getTransfers());
+        assertEquals(1, transferService.getStats().getFailures());
+    }
+
+    @Test
+    public void testTransfersOfAccountsWithoutBalanceAreRejected() throws SQLException {
+        insertAccounts(11, 2, BigDecimal.valueOf(100));
+        consumeStatement(statement -> executeSafely(statement, "UPDATE account SET balance = NULL WHERE id = 2;"));
+        AccountTransferService transferService = new AccountTransferService(getDataSource());
+
+        try {
+            transferService.transfer(1, 2, BigDecimal.TEN);
+            fail("Exception was not thrown");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().startsWith("Account has no balance"));
+        }
+        consumeStatement(statement -> {
+            ResultSet resultSet = executeQuerySafely(statement, "SELECT balance FROM account ORDER BY id;");
+
+            assertEquals(Arrays.asList("100.0000", null), fetchValues(resultSet, "balance"));
+        });
+    }
+
+    /**
+     * Another connection holds the row lock of an account past the lock timeout, so the transfer times out at least
+     * once and is retried until the lock is released
+     */
+    @Test
+    public void testTransferConflictingWithALockIsRetried() throws Exception {
+        insertAccounts(11, 2, BigDecimal.valueOf(100));
+        AccountTransferService transferService = new AccountTransferService(getDataSource(), 50, 10,
+                Duration.ofMillis(5), Duration.ofMillis(50));
+
+        try (Connection lockHolder = getDataSource().getConnection()) {
+            lockAccount(lockHolder, 1);
+            CompletableFuture<Integer> transfer = CompletableFuture.supplyAsync(() ->
+                    transferService.transferAll(List.of(new AccountTransfer(1, 2, BigDecimal.valueOf(30)))));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (transferService.getStats().getConflicts() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            lockHolder.commit();
+            transfer.get(10, TimeUnit.SECONDS);
+        }
+
+        consumeStatement(statement -> {
+            ResultSet resultSet = executeQuerySafely(statement, "SELECT balance FROM account ORDER BY id;");
+
+            assertEquals(List.of("70.0000", "130.0000"), fetchValues(resultSet, "balance"));
+        });
+        TransferStats stats = transferService.getStats();
+        assertTrue(stats.getConflicts() > 0);
+        assertTrue(stats.getConflictRate() > 0);
+        assertEquals(1, stats.getTransactions());
+        assertEquals(0, stats.getFailures());
+    }
+
+    @Test
+    public void testTransferIsGivenUpWhenRetriesAreExhausted() throws SQLException {
+        insertAccounts(11, 2, BigDecimal.valueOf(100));
+        AccountTransferService transferService = new AccountTransferService(getDataSource(), 50, 1,
+                Duration.ofMillis(5), Duration.ofMillis(50));
+
+        try (Connection lockHolder = getDataSource().getConnection()) {
+            lockAccount(lockHolder, 2);
+            try {
+                transferService.transfer(1, 2, BigDecimal.valueOf(30));
+                fail("Exception was not thrown");
+            } catch (JdbcException e) {
+                assertTrue(e.getMessage().endsWith("after 2 attempts"));
+            }
+            lockHolder.rollback();
+        }
+
+        consumeStatement(statement -> {
+            ResultSet resultSet = executeQuerySafely(statement, "SELECT balance FROM account ORDER BY id;");
+
+            assertEquals(List.of("100.0000", "100.0000"), fetchValues(resultSet, "balance"));
+        });
+        assertEquals(1, transferService.getStats().getConflicts());
+        assertEquals(1, transferService.getStats().getFailures());
+    }
+
+    /**
+     * Locks an account row in a transaction left open. Lock waits of connections opened afterwards are shortened, so
+     * conflicting transfers time out quickly.
+     */
+    private void lockAccount(Connection connection, long accountId) throws SQLException {
+        consumeStatement(statement -> executeSafely(statement, "SET DEFAULT_LOCK_TIMEOUT 200;"));
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.executeQuery("SELECT balance FROM account WHERE id = " + accountId + " FOR UPDATE;").close();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.bobocode;
+
+import com.bobocode.util.JdbcException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.bobocode.util.JdbcUtil.executeQuerySafely;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(JUnit4.class)
+public class BalanceDeltaAccumulatorTest extends AccountServiceTestBase {
+
+    @Test
+    public void testDeltaAccumulatorFlushesAggregatedDeltas() throws Exception {
+        insertAccounts(13, 2, BigDecimal.ZERO);
+
+        try (BalanceDeltaAccumulator accumulator = new BalanceDeltaAccumulator(getDataSource(), Duration.ofHours(1),
+                BalanceDeltaAccumulator.AckMode.DURABLE, 10_000)) {
+            List<CompletableFuture<Void>> acks = IntStream.range(0, 1000).parallel()
+                    .mapToObj(i -> accumulator.add(1 + i % 2, 5))
+                    .collect(Collectors.toList());
+
+            assertEquals(2500, accumulator.getPendingMinorUnits(1));
+            assertFalse(acks.get(0).isDone());
+            accumulator.flush();
+            CompletableFuture.allOf(acks.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+            accumulator.add(2, 10_001).get(10, TimeUnit.SECONDS);
+
+            assertEquals(1, accumulator.getForcedFlushCount());
+            consumeStatement(statement -> {
+                ResultSet resultSet = executeQuerySafely(statement, "SELECT balance FROM account ORDER BY id;");
+
+                assertEquals(List.of("25.0000", "125.0100"), fetchValues(resultSet, "balance"));
+            });
+        }
+    }
+
+    @Test
+    public void testDeltaAccumulatorFailsAcksOfMissingAccountsAndRejectsAddsAfterClose() throws Exception {
+        insertAccounts(13, 1, BigDecimal.ZERO);
+
+        BalanceDeltaAccumulator accumulator = new BalanceDeltaAccumulator(getDataSource(), Duration.ofHours(1),
+                BalanceDeltaAccumulator.AckMode.DURABLE, 10_000);
+        try {
+            CompletableFuture<Void> existing = accumulator.add(1, 150);
+            CompletableFuture<Void> missing = accumulator.add(-1, 250);
+            accumulator.flush();
+
+            existing.get(10, TimeUnit.SECONDS);
+            try {
+                missing.get(10, TimeUnit.SECONDS);
+                fail("Delta of a missing account was acknowledged");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof JdbcException);
+                assertTrue(e.getCause().getMessage().contains("2.50"));
+            }
+            accumulator.close();
+            try {
+                accumulator.add(1, 1);
+                fail("Delta was added after close");
+            } catch (IllegalStateException expected) {
+            }
+            consumeStatement(statement -> {
+                ResultSet resultSet = executeQuerySafely(statement, "SELECT balance FROM account;");
+
+                assertEquals(List.of("1.5000"), fetchValues(resultSet, "balance"));
+            });
+        } finally {
+            accumulator.close();
+        }
+    }
+
+    @Test
+    public void testDeltasOfAFlushFailedByTheSummaryAreRolledBackAndRequeued() throws Exception {
+        insertAccounts(13, 1, BigDecimal.ZERO);
+
+        try (BalanceDeltaAccumulator accumulator = new BalanceDeltaAccumulator(getDataSource(), Duration.ofHours(1),
+                BalanceDeltaAccumulator.AckMode.DURABLE, 10_000)) {
+            CompletableFuture<Void> ack = accumulator.add(1, 150);
+            accumulator.setBalanceSummary(new AccountBalanceSummaryService(getDataSource()) {
+                @Override
+                public void balancesChanged(Connection connection, Map<Long, BigDecimal> balanceDeltas) {
+                    throw new IllegalStateException("Summary is unavailable");
+                }
+            });
+            try {
+                accumulator.flush();
+                fail("Exception was not thrown");
+            } catch (IllegalStateException expected) {
+            }
+
+            assertEquals(150, accumulator.getPendingMinorUnits(1));
+            assertFalse(ack.isDone());
+            consumeStatement(statement -> {
+                ResultSet resultSet = executeQuerySafely(statement, "SELECT balance FROM account;");
+
+                assertEquals(List.of("0.0000"), fetchValues(resultSet, "balance"));
+            });
+
+            accumulator.setBalanceSummary(null);
+            accumulator.flush();
+            ack.get(10, TimeUnit.SECONDS);
+            consumeStatement(statement -> {
+                ResultSet resultSet = executeQuerySafely(statement, "SELECT balance FROM account;");
+
+                assertEquals(List.of("1.5000"), fetchValues(resultSet, "balance"));
+            });
+        }
+    }
+}
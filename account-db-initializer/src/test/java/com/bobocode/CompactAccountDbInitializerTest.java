@@ -0,0 +1,107 @@
+package com.bobocode;
+
+import com.bobocode.data.AccountGenerator;
+import com.bobocode.model.Account;
+import com.bobocode.model.Gender;
+import com.bobocode.util.JdbcException;
+import com.bobocode.util.JdbcUtil;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class CompactAccountDbInitializerTest extends DbInitializerTestBase {
+
+    @BeforeClass
+    public static void init() throws SQLException {
+        initDataSource(new CompactAccountDbInitializer());
+    }
+
+    @Test
+    public void testGenderColumnIsMandatorySmallint() throws SQLException {
+        ColumnMetadata gender = loadCatalog().getTable("account").findColumn("gender").orElseThrow();
+
+        assertEquals("SMALLINT", gender.getTypeName());
+        assertFalse(gender.isNullable());
+    }
+
+    @Test
+    public void testBalanceColumnIsOptionalBigint() throws SQLException {
+        ColumnMetadata balance = loadCatalog().getTable("account").findColumn("balance").orElseThrow();
+
+        assertEquals("BIGINT", balance.getTypeName());
+        assertTrue(balance.isNullable());
+    }
+
+    @Test
+    public void testMapperRoundTrip() throws SQLException {
+        List<Account> accounts = new AccountGenerator(19).stream(10).collect(Collectors.toList());
+        for (int i = 0; i < accounts.size(); i++) {
+            accounts.get(i).setId((long) i + 1);
+        }
+        accounts.get(0).setBalance(null);
+        List<Account> loaded = new ArrayList<>();
+        List<CompactAccountMapper.CompactAccountRow> rows = new ArrayList<>();
+        JdbcUtil.consumeConnection(getDataSource(), connection -> {
+            try (PreparedStatement insert = connection.prepareStatement(CompactAccountMapper.INSERT_SQL);
+                 Statement select = connection.createStatement()) {
+                for (Account account : accounts) {
+                    CompactAccountMapper.bind(insert, account);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+                try (ResultSet rs = select.executeQuery("SELECT " + CompactAccountMapper.SELECT_COLUMNS +
+                        " FROM account ORDER BY id")) {
+                    while (rs.next()) {
+                        loaded.add(CompactAccountMapper.map(rs));
+                        CompactAccountMapper.CompactAccountRow row = new CompactAccountMapper.CompactAccountRow();
+                        CompactAccountMapper.read(rs, row);
+                        rows.add(row);
+                    }
+                }
+                select.execute("DELETE FROM account");
+            } catch (SQLException e) {
+                throw new JdbcException("Can't insert accounts", e);
+            }
+        });
+
+        assertEquals(accounts.size(), loaded.size());
+        assertNull(loaded.get(0).getBalance());
+        assertFalse(rows.get(0).hasBalance());
+        for (int i = 0; i < accounts.size(); i++) {
+            Account expected = accounts.get(i);
+            Account actual = loaded.get(i);
+            assertEquals(expected.getEmail(), actual.getEmail());
+            assertEquals(expected.getGender(), actual.getGender());
+            assertEquals(expected.getGender(), rows.get(i).getGender());
+            assertEquals(expected.getBirthday(), actual.getBirthday());
+            assertEquals(expected.getCreationTime(), actual.getCreationTime());
+            if (i > 0) {
+                assertEquals(0, expected.getBalance().compareTo(actual.getBalance()));
+                assertEquals(CompactAccountMapper.toMinorUnits(expected.getBalance()),
+                        rows.get(i).getBalanceMinorUnits());
+            }
+        }
+    }
+
+    @Test
+    public void testGenderCodesAreStable() {
+        assertEquals(0, CompactAccountMapper.encodeGender(Gender.MALE));
+        assertEquals(1, CompactAccountMapper.encodeGender(Gender.FEMALE));
+        assertEquals(Gender.FEMALE, CompactAccountMapper.decodeGender(1));
+    }
+}
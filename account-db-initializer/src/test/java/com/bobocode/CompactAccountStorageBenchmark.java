@@ -0,0 +1,188 @@
+package com.bobocode;
+
+import com.bobocode.data.AccountGenerator;
+import com.bobocode.model.Account;
+import com.bobocode.model.Gender;
+import com.bobocode.util.H2Profile;
+import com.bobocode.util.JdbcUtil;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Compares the {@code account} table of {@link AccountDbInitializer} with the compact one of
+ * {@link CompactAccountDbInitializer}: size of the compacted database file with the table, growth of the file after
+ * an index on {@code (gender, balance)} is added, and speed of full scans that sum balances by gender, both mapping
+ * every row to an {@link Account} and reading rows into a reusable {@link CompactAccountMapper.CompactAccountRow}.
+ * Each schema gets a fresh file-backed database. File sizes are used because {@code DISK_SPACE_USED} is not
+ * implemented for MVStore tables in this H2 version.
+ * <p>
+ * Run it as a plain Java program with an optional number of accounts, e.g.
+ * {@code CompactAccountStorageBenchmark 200000}.
+ */
+public class CompactAccountStorageBenchmark {
+    private static final String INSERT_SQL = "INSERT INTO account (id, email, first_name, last_name, gender, " +
+            "birthday, balance, creation_time) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_SQL = "SELECT " + CompactAccountMapper.SELECT_COLUMNS + " FROM account";
+    private static final int BATCH_SIZE = 1_000;
+    private static final int SCANS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int accountCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        System.out.printf("%-10s %14s %14s %16s %16s%n", "schema", "file bytes", "index bytes", "account scan/s",
+                "row scan/s");
+        for (int round = 0; round < 2; round++) { // the first round warms up the JIT
+            for (boolean compact : new boolean[]{false, true}) {
+                Path directory = Files.createTempDirectory("compact-account-benchmark");
+                try {
+                    String[] result = run(directory.resolve("accounts"), compact, accountCount);
+                    if (round > 0) {
+                        System.out.printf("%-10s %14s %14s %16s %16s%n", compact ? "compact" : "current",
+                                result[0], result[1], result[2], result[3]);
+                    }
+                } finally {
+                    deleteDirectory(directory);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns table size, index size, account mapping scans per second and reusable row scans per second
+     */
+    private static String[] run(Path databasePath, boolean compact, int accountCount)
+            throws SQLException, IOException {
+        DataSource dataSource = JdbcUtil.createFileH2DataSource(databasePath, H2Profile.BULK_LOAD);
+        DbInitializer initializer = compact ? new CompactAccountDbInitializer() : new AccountDbInitializer();
+        initializer.setDataSource(dataSource);
+        initializer.init();
+        Path databaseFile = databasePath.resolveSibling(databasePath.getFileName() + ".mv.db");
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            insert(connection, compact, new AccountGenerator(42).stream(accountCount).iterator());
+            statement.execute("SHUTDOWN COMPACT");
+        }
+        long tableBytes = Files.size(databaseFile);
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE INDEX account_gender_balance_idx ON account(gender, balance)");
+            statement.execute("SHUTDOWN COMPACT");
+        }
+        long indexBytes = Files.size(databaseFile) - tableBytes;
+
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            long start = System.nanoTime();
+            for (int i = 0; i < SCANS; i++) {
+                sumByGenderMappingAccounts(statement, compact);
+            }
+            double accountScans = SCANS * 1_000_000_000.0 / (System.nanoTime() - start);
+            String rowScans = "-";
+            if (compact) {
+                start = System.nanoTime();
+                for (int i = 0; i < SCANS; i++) {
+                    sumByGenderReadingRows(statement);
+                }
+                rowScans = String.format("%.2f", SCANS * 1_000_000_000.0 / (System.nanoTime() - start));
+            }
+            statement.execute("SHUTDOWN");
+            return new String[]{Long.toString(tableBytes), Long.toString(indexBytes),
+                    String.format("%.2f", accountScans), rowScans};
+        }
+    }
+
+    private static void insert(Connection connection, boolean compact, Iterator<Account> accounts)
+            throws SQLException {
+        connection.setAutoCommit(false);
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+            long id = 0;
+            while (accounts.hasNext()) {
+                Account account = accounts.next();
+                account.setId(++id);
+                if (compact) {
+                    CompactAccountMapper.bind(statement, account);
+                } else {
+                    bindCurrent(statement, account);
+                }
+                statement.addBatch();
+                if (id % BATCH_SIZE == 0) {
+                    statement.executeBatch();
+                    connection.commit();
+                }
+            }
+            statement.executeBatch();
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private static void bindCurrent(PreparedStatement statement, Account account) throws SQLException {
+        statement.setLong(1, account.getId());
+        statement.setString(2, account.getEmail());
+        statement.setString(3, account.getFirstName());
+        statement.setString(4, account.getLastName());
+        statement.setString(5, account.getGender().name());
+        statement.setDate(6, Date.valueOf(account.getBirthday()));
+        statement.setBigDecimal(7, account.getBalance());
+        statement.setTimestamp(8, Timestamp.valueOf(account.getCreationTime()));
+    }
+
+    private static BigDecimal[] sumByGenderMappingAccounts(Statement statement, boolean compact) throws SQLException {
+        BigDecimal[] sums = {BigDecimal.ZERO, BigDecimal.ZERO};
+        try (ResultSet rs = statement.executeQuery(SELECT_SQL)) {
+            while (rs.next()) {
+                Account account = compact ? CompactAccountMapper.map(rs) : mapCurrent(rs);
+                if (account.getBalance() != null) {
+                    int index = account.getGender().ordinal();
+                    sums[index] = sums[index].add(account.getBalance());
+                }
+            }
+        }
+        return sums;
+    }
+
+    private static long[] sumByGenderReadingRows(Statement statement) throws SQLException {
+        long[] sums = new long[2];
+        CompactAccountMapper.CompactAccountRow row = new CompactAccountMapper.CompactAccountRow();
+        try (ResultSet rs = statement.executeQuery(SELECT_SQL)) {
+            while (rs.next()) {
+                CompactAccountMapper.read(rs, row);
+                sums[row.getGender().ordinal()] += row.getBalanceMinorUnits();
+            }
+        }
+        return sums;
+    }
+
+    private static Account mapCurrent(ResultSet rs) throws SQLException {
+        Account account = new Account();
+        account.setId(rs.getLong("id"));
+        account.setEmail(rs.getString("email"));
+        account.setFirstName(rs.getString("first_name"));
+        account.setLastName(rs.getString("last_name"));
+        account.setGender(Gender.valueOf(rs.getString("gender")));
+        account.setBirthday(rs.getDate("birthday").toLocalDate());
+        account.setBalance(rs.getBigDecimal("balance"));
+        account.setCreationTime(rs.getTimestamp("creation_time").toLocalDateTime());
+        return account;
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
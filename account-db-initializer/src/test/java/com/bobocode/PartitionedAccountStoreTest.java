@@ -0,0 +1,67 @@
+package com.bobocode;
+
+import com.bobocode.data.AccountGenerator;
+import com.bobocode.model.Account;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.bobocode.util.JdbcUtil.executeQuerySafely;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class PartitionedAccountStoreTest extends AccountServiceTestBase {
+
+    @Test
+    public void testPartitionedStorePrunesAndArchivesMonthlyPartitions() throws Exception {
+        LocalDateTime reference = LocalDateTime.of(2026, 10, 15, 12, 0);
+        List<Account> accounts = new AccountGenerator(23, reference).stream(60).collect(Collectors.toList());
+        for (int i = 0; i < accounts.size(); i++) {
+            accounts.get(i).setId((long) i + 1);
+            accounts.get(i).setCreationTime(reference.minusMonths(i % 3).minusHours(i));
+        }
+        PartitionedAccountStore store = new PartitionedAccountStore(getDataSource());
+        Path archiveDirectory = Files.createTempDirectory("account-archive");
+
+        try {
+            store.insert(accounts);
+
+            assertEquals(List.of(YearMonth.of(2026, 8), YearMonth.of(2026, 9), YearMonth.of(2026, 10)),
+                    new PartitionedAccountStore(getDataSource()).getPartitions());
+            List<Account> october = store.findByCreationTime(LocalDateTime.of(2026, 10, 1, 0, 0),
+                    LocalDateTime.of(2026, 11, 1, 0, 0));
+            assertEquals(20, october.size());
+            assertTrue(october.stream().allMatch(account -> account.getCreationTime().getMonthValue() == 10));
+            consumeStatement(statement -> {
+                ResultSet resultSet = executeQuerySafely(statement, "SELECT COUNT(*) AS accounts FROM account_all;");
+                getNextSafely(resultSet);
+
+                assertEquals(60, getIntSafely(resultSet, "accounts"));
+            });
+
+            List<Path> archives = store.archivePartitionsBefore(YearMonth.of(2026, 10), archiveDirectory);
+
+            assertEquals(2, archives.size());
+            assertEquals(21, Files.readAllLines(archives.get(0)).size());
+            assertEquals(List.of(YearMonth.of(2026, 10)), store.getPartitions());
+            assertEquals(20, store.findByCreationTime(LocalDateTime.of(2026, 1, 1, 0, 0),
+                    LocalDateTime.of(2027, 1, 1, 0, 0)).size());
+        } finally {
+            store.archivePartitionsBefore(YearMonth.of(9999, 1), archiveDirectory);
+            try (Stream<Path> files = Files.list(archiveDirectory)) {
+                files.forEach(file -> file.toFile().delete());
+            }
+            Files.delete(archiveDirectory);
+        }
+    }
+}
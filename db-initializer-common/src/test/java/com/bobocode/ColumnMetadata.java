@@ -0,0 +1,20 @@
+package com.bobocode;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A table column loaded by {@link SchemaCatalog}. Ordinal position starts with 1.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class ColumnMetadata {
+    private final String name;
+    private final int ordinalPosition;
+    private final String typeName;
+    private final boolean nullable;
+    private final String defaultValue;
+    private final int maxLength;
+}
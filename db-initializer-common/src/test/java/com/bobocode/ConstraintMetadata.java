@@ -0,0 +1,18 @@
+package com.bobocode;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * A primary key or unique constraint loaded by {@link SchemaCatalog}
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class ConstraintMetadata {
+    private final String name;
+    private final List<String> columns;
+}
@@ -0,0 +1,31 @@
+package com.bobocode;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * A JFR event emitted by {@link DbInitializer} for the whole initialization and for each executed DDL script.
+ * Initialization happens rarely, so all events are recorded by default.
+ */
+@Name("com.bobocode.db.Initialization")
+@Label("DB Initialization")
+@Category({"Bobocode", "DB Initializer"})
+@Description("Database schema initialization step")
+@Threshold("0 ms")
+class DbInitializationEvent extends Event {
+    @Label("Initializer")
+    String initializer;
+
+    @Label("Step")
+    String step;
+
+    @Label("SQL")
+    String sql;
+
+    @Label("Success")
+    boolean success;
+}
@@ -1,13 +1,19 @@
 package com.bobocode;
 
+import com.bobocode.util.FileReader;
+import com.bobocode.util.SqlScriptExecutor;
+import com.bobocode.util.metrics.SqlNormalizer;
+
 import javax.sql.DataSource;
+import java.io.StringReader;
 import java.sql.SQLException;
 
-import static com.bobocode.util.JdbcUtil.consumeStatement;
-import static com.bobocode.util.JdbcUtil.executeSafely;
+import static com.bobocode.util.JdbcUtil.consumeConnection;
 
 abstract class DbInitializer {
+    private static final int MAX_EVENT_SQL_LENGTH = 1024;
     private DataSource dataSource;
+    private int ddlParallelism = 1;
 
     abstract void init() throws SQLException;
 
@@ -15,12 +21,108 @@ abstract class DbInitializer {
         this.dataSource = dataSource;
     }
 
+    /**
+     * Sets how many statements of a migration script may run concurrently. Scripts run sequentially by default, because
+     * H2 serializes sessions of a database unless {@code MULTI_THREADED} is enabled, so extra connections and threads
+     * cost time without a gain (see {@code ParallelDdlBenchmark}). Enable it only for a database that was measured
+     * to benefit.
+     *
+     * @param ddlParallelism number of concurrent statements, {@code 1} for sequential execution
+     */
+    void setDdlParallelism(int ddlParallelism) {
+        if (ddlParallelism < 1) {
+            throw new IllegalArgumentException("DDL parallelism must be positive: " + ddlParallelism);
+        }
+        this.ddlParallelism = ddlParallelism;
+    }
+
     private DataSource getDataSource() {
         return dataSource;
     }
 
+    /**
+     * Runs {@link #init()} and records it as a {@link DbInitializationEvent}
+     *
+     * @throws SQLException
+     */
+    public void initialize() throws SQLException {
+        DbInitializationEvent event = new DbInitializationEvent();
+        event.begin();
+        boolean success = false;
+        try {
+            init();
+            success = true;
+        } finally {
+            commitEvent(event, "init", null, success);
+        }
+    }
+
+    /**
+     * Applies pending versioned scripts from {@link MigrationRunner#DEFAULT_LOCATION}, skipping the ones that have
+     * already been applied to the database. With {@link #setDdlParallelism(int)} greater than one, independent tables
+     * and indexes of a script are created concurrently.
+     */
+    public void migrate() {
+        DbInitializationEvent event = new DbInitializationEvent();
+        event.begin();
+        boolean success = false;
+        try {
+            new MigrationRunner(getDataSource(), MigrationRunner.DEFAULT_LOCATION, ddlParallelism).migrate();
+            success = true;
+        } finally {
+            commitEvent(event, "migrate", null, success);
+        }
+    }
+
+    /**
+     * Executes SQL statements separated by {@code ;} one by one
+     *
+     * @param createTablesSql SQL script
+     * @throws SQLException
+     */
     public void createTable(String createTablesSql) throws SQLException {
-        consumeStatement(getDataSource(), statement ->
-                executeSafely(statement, createTablesSql));
+        DbInitializationEvent event = new DbInitializationEvent();
+        event.begin();
+        boolean success = false;
+        try {
+            consumeConnection(getDataSource(), connection ->
+                    SqlScriptExecutor.execute(connection, new StringReader(createTablesSql)));
+            success = true;
+        } finally {
+            commitEvent(event, "createTable", createTablesSql, success);
+        }
+    }
+
+    /**
+     * Executes an SQL script from resources while reading it, so the script is never loaded into memory as a whole
+     *
+     * @param resourcePath a name of the script file
+     */
+    public void executeScript(String resourcePath) {
+        DbInitializationEvent event = new DbInitializationEvent();
+        event.begin();
+        boolean success = false;
+        try {
+            consumeConnection(getDataSource(), connection ->
+                    SqlScriptExecutor.execute(connection, FileReader.openResourceReader(resourcePath)));
+            success = true;
+        } finally {
+            commitEvent(event, "executeScript " + resourcePath, null, success);
+        }
+    }
+
+    private void commitEvent(DbInitializationEvent event, String step, String sql, boolean success) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.initializer = getClass().getSimpleName();
+            event.step = step;
+            event.sql = sql == null ? null : shorten(SqlNormalizer.normalize(sql));
+            event.success = success;
+            event.commit();
+        }
+    }
+
+    private static String shorten(String sql) {
+        return sql.length() > MAX_EVENT_SQL_LENGTH ? sql.substring(0, MAX_EVENT_SQL_LENGTH) + "..." : sql;
     }
 }
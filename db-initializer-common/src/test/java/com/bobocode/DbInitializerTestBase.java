@@ -2,6 +2,7 @@ package com.bobocode;
 
 import com.bobocode.util.JdbcException;
 import com.bobocode.util.JdbcUtil;
+import org.junit.ClassRule;
 
 import javax.sql.DataSource;
 import java.sql.ResultSet;
@@ -11,18 +12,32 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Consumer;
 
-abstract class DbInitializerTestBase {
+public abstract class DbInitializerTestBase {
 
-    private static DataSource dataSource;
+    @ClassRule
+    public static final IsolatedDatabases databases = new IsolatedDatabases();
 
     static void initDataSource(DbInitializer dbInitializer) throws SQLException {
-        dataSource = JdbcUtil.createDefaultInMemoryH2DataSource();
+        DataSource dataSource = databases.current();
         dbInitializer.setDataSource(dataSource);
-        dbInitializer.init();
+        DbSnapshotCache.restoreOrInitialize(dbInitializer, dataSource);
+    }
+
+    DataSource getDataSource() {
+        return databases.get(getClass());
+    }
+
+    /**
+     * Loads metadata of the whole test database with a few bulk queries
+     *
+     * @return schema catalog
+     */
+    SchemaCatalog loadCatalog() {
+        return SchemaCatalog.load(getDataSource());
     }
 
     void consumeStatement(Consumer<Statement> statement) throws SQLException {
-        JdbcUtil.consumeStatement(dataSource, statement);
+        JdbcUtil.consumeStatement(getDataSource(), statement);
     }
 
     List<String> fetchValues(ResultSet resultSet, String columnName)  {
@@ -0,0 +1,212 @@
+package com.bobocode;
+
+import com.bobocode.util.FileReader;
+import com.bobocode.util.JdbcException;
+import com.bobocode.util.JdbcUtil;
+import com.bobocode.util.ParallelDdlExecutor;
+import com.bobocode.util.SqlScriptExecutor;
+import com.bobocode.util.SqlScriptParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+/**
+ * {@link DbSnapshotCache} initializes a database schema once and reuses the result. After the first initialization,
+ * the database is saved with H2 {@code SCRIPT} into a compressed template file, which is named after the initializer
+ * and the checksum of everything that defines the schema. Later, new in-memory databases are restored from the
+ * template with {@code RUNSCRIPT} instead of being initialized from scratch. A changed initializer or migration
+ * script produces a new checksum, so a stale template is never used.
+ * <p>
+ * A restored database never runs the {@link DbInitializer}, so exercise tests would pass without calling the
+ * student's {@code init()}. On the exercise schemas a restore takes about as long as the DDL itself (~190 ms for a
+ * few tables), so templates of {@link DbInitializer}s are used only when {@code bobocode.snapshot.initializers} is
+ * {@code true}. Callbacks passed to {@link #restoreOrInitialize(DataSource, String, long, SchemaInitializer)} are
+ * test fixtures, and their templates are used by default.
+ * <p>
+ * Templates are stored in {@code bobocode-db-snapshots} directory under {@code java.io.tmpdir}, unless
+ * {@code bobocode.snapshot.dir} system property is set. Setting {@code bobocode.snapshot.disabled} to {@code true}
+ * turns the cache off. Databases other than H2 are always initialized from scratch.
+ * <p>
+ * Restore time and hit rate are logged for each database and available via {@link #getStats()}.
+ */
+public class DbSnapshotCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DbSnapshotCache.class);
+    private static final String SNAPSHOT_DIR_PROPERTY = "bobocode.snapshot.dir";
+    private static final String SNAPSHOT_DISABLED_PROPERTY = "bobocode.snapshot.disabled";
+    private static final String SNAPSHOT_INITIALIZERS_PROPERTY = "bobocode.snapshot.initializers";
+    /**
+     * Classes that take part in every initialization besides the initializer class hierarchy
+     */
+    private static final Class<?>[] SCHEMA_CLASSES = {MigrationRunner.class, MigrationScanner.class,
+            MigrationScript.class, SqlScriptParser.class, SqlScriptExecutor.class, ParallelDdlExecutor.class,
+            FileReader.class};
+    private static final String SCRIPT_SQL = "SCRIPT TO ? COMPRESSION DEFLATE";
+    private static final String RUNSCRIPT_SQL = "RUNSCRIPT FROM ? COMPRESSION DEFLATE";
+
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+    private static final LongAdder restoreNanos = new LongAdder();
+
+    /**
+     * Initializes the database of a given data source with a callback
+     */
+    @FunctionalInterface
+    public interface SchemaInitializer {
+        void initialize(DataSource dataSource) throws SQLException;
+    }
+
+    /**
+     * Initializes an empty database with a given {@link DbInitializer}. Only when
+     * {@code bobocode.snapshot.initializers} is {@code true}, the database is restored from the template of the
+     * initializer instead. The checksum covers the initializer class with its superclasses, the classes that run
+     * migration scripts, and all migration scripts.
+     *
+     * @param dbInitializer an initializer with a data source set
+     * @param dataSource    a data source of an empty database
+     * @throws SQLException
+     */
+    public static void restoreOrInitialize(DbInitializer dbInitializer, DataSource dataSource) throws SQLException {
+        if (!Boolean.getBoolean(SNAPSHOT_INITIALIZERS_PROPERTY)) {
+            misses.increment();
+            dbInitializer.initialize();
+            return;
+        }
+        restoreOrInitialize(dataSource, dbInitializer.getClass().getSimpleName(), checksum(dbInitializer.getClass()),
+                ignored -> dbInitializer.initialize());
+    }
+
+    /**
+     * Restores an empty database from a template, or initializes it and creates the template
+     *
+     * @param dataSource  a data source of an empty database
+     * @param name        template name
+     * @param checksum    checksum of everything that defines the schema
+     * @param initializer a callback that initializes the database when there is no template yet
+     * @throws SQLException
+     */
+    public static void restoreOrInitialize(DataSource dataSource, String name, long checksum,
+                                           SchemaInitializer initializer) throws SQLException {
+        if (Boolean.getBoolean(SNAPSHOT_DISABLED_PROPERTY) || !isH2(dataSource)) {
+            initializer.initialize(dataSource);
+            return;
+        }
+        Path snapshot = getSnapshotDirectory().resolve(String.format("%s-%08x.sql.zip", name, checksum));
+        if (Files.exists(snapshot)) {
+            restore(dataSource, name, snapshot);
+        } else {
+            misses.increment();
+            initializer.initialize(dataSource);
+            save(dataSource, snapshot);
+            LOGGER.info("Created snapshot {} ({})", snapshot, getStats());
+        }
+    }
+
+    /**
+     * Computes a checksum of a string, e.g. of a DDL script
+     *
+     * @param sql SQL script
+     * @return CRC32 checksum
+     */
+    public static long checksum(String sql) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(sql.getBytes(StandardCharsets.UTF_8));
+        return crc32.getValue();
+    }
+
+    public static SnapshotStats getStats() {
+        return new SnapshotStats(hits.sum(), misses.sum(), restoreNanos.sum());
+    }
+
+    private static void restore(DataSource dataSource, String name, Path snapshot) throws SQLException {
+        long start = System.nanoTime();
+        try (Connection connection = JdbcUtil.getConnection(dataSource);
+             PreparedStatement statement = connection.prepareStatement(RUNSCRIPT_SQL)) {
+            statement.setString(1, snapshot.toString());
+            statement.execute();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        hits.increment();
+        restoreNanos.add(elapsedNanos);
+        LOGGER.info("Restored {} from snapshot in {} ms ({})", name, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                getStats());
+    }
+
+    /**
+     * Writes a template into a temporary file first, so concurrent runs never read a partially written template
+     */
+    private static void save(DataSource dataSource, Path snapshot) throws SQLException {
+        try {
+            Files.createDirectories(snapshot.getParent());
+            Path temporaryFile = Files.createTempFile(snapshot.getParent(), snapshot.getFileName().toString(), ".tmp");
+            try (Connection connection = JdbcUtil.getConnection(dataSource);
+                 PreparedStatement statement = connection.prepareStatement(SCRIPT_SQL)) {
+                statement.setString(1, temporaryFile.toString());
+                statement.execute();
+            }
+            Files.move(temporaryFile, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't save snapshot " + snapshot, e);
+        }
+    }
+
+    private static boolean isH2(DataSource dataSource) throws SQLException {
+        try (Connection connection = JdbcUtil.getConnection(dataSource)) {
+            return connection.getMetaData().getURL().startsWith("jdbc:h2:");
+        }
+    }
+
+    private static Path getSnapshotDirectory() {
+        String directory = System.getProperty(SNAPSHOT_DIR_PROPERTY);
+        return directory != null ? Paths.get(directory)
+                : Paths.get(System.getProperty("java.io.tmpdir"), "bobocode-db-snapshots");
+    }
+
+    /**
+     * Computes a checksum of the class files of the initializer, its superclasses and {@link #SCHEMA_CLASSES}, and of
+     * all migration scripts
+     */
+    private static long checksum(Class<?> initializerClass) {
+        CRC32 crc32 = new CRC32();
+        for (Class<?> type = initializerClass; type != Object.class; type = type.getSuperclass()) {
+            updateWithClassFile(crc32, type);
+        }
+        for (Class<?> type : SCHEMA_CLASSES) {
+            updateWithClassFile(crc32, type);
+        }
+        for (MigrationScript script : MigrationScanner.scan(MigrationRunner.DEFAULT_LOCATION)) {
+            crc32.update(script.getResourcePath().getBytes(StandardCharsets.UTF_8));
+            long scriptChecksum = MigrationRunner.checksum(script.getResourcePath());
+            for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+                crc32.update((int) (scriptChecksum >>> shift));
+            }
+        }
+        return crc32.getValue();
+    }
+
+    private static void updateWithClassFile(CRC32 crc32, Class<?> type) {
+        String classFileName = type.getName().replace('.', '/') + ".class";
+        try (InputStream classFile = type.getClassLoader().getResourceAsStream(classFileName)) {
+            if (classFile == null) {
+                throw new JdbcException("Can't find class file " + classFileName);
+            }
+            crc32.update(classFile.readAllBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't read class file " + classFileName, e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.bobocode;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * A foreign key loaded by {@link SchemaCatalog}. Columns and referenced columns are in key order.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class ForeignKeyMetadata {
+    private final String name;
+    private final String table;
+    private final List<String> columns;
+    private final String referencedTable;
+    private final List<String> referencedColumns;
+}
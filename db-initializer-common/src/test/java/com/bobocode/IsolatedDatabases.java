@@ -0,0 +1,129 @@
+package com.bobocode;
+
+import com.bobocode.util.JdbcException;
+import com.bobocode.util.JdbcUtil;
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.bobocode.util.JdbcUtil.executeSafely;
+
+/**
+ * {@link IsolatedDatabases} hands out uniquely named in-memory H2 databases, so test classes never share state and
+ * can run in parallel threads or forks.
+ * <p>
+ * Used as a {@link org.junit.ClassRule}, it creates a database for each test class before its {@code @BeforeClass}
+ * methods and shuts it down after the class. Inside the class the database is available via {@link #current()} in
+ * static methods and via {@link #get(Class)} elsewhere. A single rule instance declared in a base class serves all
+ * its subclasses.
+ * <p>
+ * {@link #forCurrentThread()} gives a database per thread for code that does not run under the rule.
+ */
+public class IsolatedDatabases implements TestRule {
+    private static final AtomicLong sequence = new AtomicLong();
+    private static final ThreadLocal<DataSource> threadDatabases = new ThreadLocal<>();
+
+    private final Map<Class<?>, DataSource> classDatabases = new ConcurrentHashMap<>();
+    private final ThreadLocal<Class<?>> currentTestClass = new ThreadLocal<>();
+
+    /**
+     * Creates a new empty database with a unique name that starts with a given prefix
+     *
+     * @param prefix database name prefix
+     * @return data source of the new database
+     */
+    public static DataSource create(String prefix) {
+        return JdbcUtil.createInMemoryH2DataSource(prefix + "_" + sequence.incrementAndGet());
+    }
+
+    /**
+     * Closes a database created by this class and frees its memory
+     *
+     * @param dataSource data source of the database
+     */
+    public static void shutdown(DataSource dataSource) {
+        try {
+            JdbcUtil.consumeStatement(dataSource, statement -> executeSafely(statement, "SHUTDOWN"));
+        } catch (SQLException e) {
+            throw new JdbcException("Can't shut down the database", e);
+        }
+    }
+
+    /**
+     * Returns a database of the current thread, creating it on the first call
+     *
+     * @return data source of the thread database
+     */
+    public static DataSource forCurrentThread() {
+        DataSource dataSource = threadDatabases.get();
+        if (dataSource == null) {
+            dataSource = create("thread");
+            threadDatabases.set(dataSource);
+        }
+        return dataSource;
+    }
+
+    /**
+     * Shuts down the database of the current thread, if there is one
+     */
+    public static void releaseCurrentThread() {
+        DataSource dataSource = threadDatabases.get();
+        if (dataSource != null) {
+            threadDatabases.remove();
+            shutdown(dataSource);
+        }
+    }
+
+    @Override
+    public Statement apply(Statement base, Description description) {
+        Class<?> testClass = description.getTestClass();
+        return new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                DataSource dataSource = create(testClass.getSimpleName());
+                classDatabases.put(testClass, dataSource);
+                currentTestClass.set(testClass);
+                try {
+                    base.evaluate();
+                } finally {
+                    currentTestClass.remove();
+                    classDatabases.remove(testClass);
+                    shutdown(dataSource);
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns a database of the test class that is being run by the current thread. Use it in {@code @BeforeClass}.
+     *
+     * @return data source of the class database
+     */
+    public DataSource current() {
+        Class<?> testClass = currentTestClass.get();
+        if (testClass == null) {
+            throw new IllegalStateException("No test class is running in " + Thread.currentThread().getName());
+        }
+        return get(testClass);
+    }
+
+    /**
+     * Returns a database of a given test class
+     *
+     * @param testClass a test class that is being run
+     * @return data source of the class database
+     */
+    public DataSource get(Class<?> testClass) {
+        DataSource dataSource = classDatabases.get(testClass);
+        if (dataSource == null) {
+            throw new IllegalStateException("No database for " + testClass.getName());
+        }
+        return dataSource;
+    }
+}
@@ -0,0 +1,265 @@
+package com.bobocode;
+
+import com.bobocode.util.FileReader;
+import com.bobocode.util.JdbcException;
+import com.bobocode.util.JdbcUtil;
+import com.bobocode.util.ParallelDdlExecutor;
+import com.bobocode.util.SqlScriptExecutor;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * {@link MigrationRunner} applies versioned SQL scripts from a classpath location (by default {@code db/migration})
+ * exactly once. Applied versions and checksums of their scripts are recorded in {@code migration.schema_history}
+ * table, which lives in a separate schema so it never shows up among the application tables.
+ * <p>
+ * When the database is up to date, a run costs a metadata lookup and a single history query, and no DDL is parsed or
+ * executed. A script that was changed after it had been applied is reported with a {@link MigrationException}.
+ * <p>
+ * Pending scripts are applied while holding a lock row in {@code migration.schema_lock}, so concurrent migrators of
+ * the same database apply every script once. A migrator that can't get the lock within the lock timeout fails. The lock
+ * is released when the run ends, but not when the process dies in the middle of a run, in which case the row has to be
+ * reset manually with {@code UPDATE migration.schema_lock SET locked = FALSE}.
+ * <p>
+ * Every script runs in one transaction together with its history row, so a failed script is never recorded as
+ * applied. Databases that commit DDL implicitly (e.g. H2, MySQL, Oracle) keep DDL statements that ran before the
+ * failed one, while DML statements and the history row are rolled back.
+ * <p>
+ * With parallelism greater than one, independent statements of a script run concurrently on separate connections
+ * (see {@link ParallelDdlExecutor}), and only the history row is written in the transaction.
+ */
+public class MigrationRunner {
+    public static final String DEFAULT_LOCATION = "db/migration";
+
+    private static final String CREATE_HISTORY_SCHEMA_SQL = "CREATE SCHEMA IF NOT EXISTS migration";
+    private static final String CREATE_HISTORY_TABLE_SQL = "CREATE TABLE IF NOT EXISTS migration.schema_history (" +
+            "version           VARCHAR(50) NOT NULL, " +
+            "description       VARCHAR(255) NOT NULL, " +
+            "script            VARCHAR(1000) NOT NULL, " +
+            "checksum          BIGINT NOT NULL, " +
+            "installed_on      TIMESTAMP NOT NULL DEFAULT now(), " +
+            "execution_time_ms BIGINT NOT NULL, " +
+            "CONSTRAINT schema_history_pk PRIMARY KEY (version))";
+    private static final String CREATE_LOCK_TABLE_SQL = "CREATE TABLE IF NOT EXISTS migration.schema_lock " +
+            "AS SELECT FALSE AS locked";
+    private static final String ACQUIRE_LOCK_SQL = "UPDATE migration.schema_lock SET locked = TRUE WHERE locked = FALSE";
+    private static final String RELEASE_LOCK_SQL = "UPDATE migration.schema_lock SET locked = FALSE";
+    private static final Duration DEFAULT_LOCK_TIMEOUT = Duration.ofMinutes(1);
+    private static final long LOCK_RETRY_INTERVAL_MS = 100;
+    private static final String SELECT_HISTORY_SQL = "SELECT version, checksum FROM migration.schema_history";
+    private static final String INSERT_HISTORY_SQL = "INSERT INTO migration.schema_history " +
+            "(version, description, script, checksum, execution_time_ms) VALUES (?, ?, ?, ?, ?)";
+
+    private final DataSource dataSource;
+    private final String location;
+    private final int parallelism;
+    private final Duration lockTimeout;
+
+    public MigrationRunner(DataSource dataSource) {
+        this(dataSource, DEFAULT_LOCATION);
+    }
+
+    public MigrationRunner(DataSource dataSource, String location) {
+        this(dataSource, location, 1);
+    }
+
+    public MigrationRunner(DataSource dataSource, String location, int parallelism) {
+        this(dataSource, location, parallelism, DEFAULT_LOCK_TIMEOUT);
+    }
+
+    /**
+     * @param lockTimeout how long to wait for another migrator of the same database to finish
+     */
+    public MigrationRunner(DataSource dataSource, String location, int parallelism, Duration lockTimeout) {
+        this.dataSource = dataSource;
+        this.location = location;
+        this.parallelism = parallelism;
+        this.lockTimeout = lockTimeout;
+    }
+
+    /**
+     * Applies all pending migration scripts in version order
+     *
+     * @return scripts applied by this run, empty if the database was already up to date
+     */
+    public List<MigrationScript> migrate() {
+        List<MigrationScript> scripts = MigrationScanner.scan(location);
+        return JdbcUtil.applyConnection(dataSource, connection -> migrate(connection, scripts));
+    }
+
+    private List<MigrationScript> migrate(Connection connection, List<MigrationScript> scripts) {
+        try {
+            createHistoryTablesIfMissing(connection);
+            if (findPendingScripts(scripts, selectHistory(connection)).isEmpty()) {
+                return new ArrayList<>();
+            }
+            acquireLock(connection);
+            try {
+                // another migrator may have applied some of the scripts while this one was waiting for the lock
+                List<MigrationScript> pendingScripts = findPendingScripts(scripts, selectHistory(connection));
+                for (MigrationScript script : pendingScripts) {
+                    apply(connection, script);
+                }
+                return pendingScripts;
+            } finally {
+                releaseLock(connection);
+            }
+        } catch (SQLException e) {
+            throw new MigrationException("Error running migrations from " + location, e);
+        }
+    }
+
+    /**
+     * Returns scripts that are missing in the history, and checks that the applied ones were not changed
+     */
+    private List<MigrationScript> findPendingScripts(List<MigrationScript> scripts, Map<String, Long> appliedChecksums) {
+        List<MigrationScript> pendingScripts = new ArrayList<>();
+        for (MigrationScript script : scripts) {
+            Long appliedChecksum = appliedChecksums.get(script.getVersion());
+            if (appliedChecksum == null) {
+                pendingScripts.add(script);
+            } else if (appliedChecksum != checksum(script.getResourcePath())) {
+                throw new MigrationException(String.format("Migration %s was changed after it had been applied: %s",
+                        script.getVersion(), script.getResourcePath()));
+            }
+        }
+        return pendingScripts;
+    }
+
+    /**
+     * Creates the history and lock tables, unless database metadata shows they already exist
+     */
+    private void createHistoryTablesIfMissing(Connection connection) throws SQLException {
+        if (tableExists(connection, "migration", "schema_history") && tableExists(connection, "migration", "schema_lock")) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_HISTORY_SCHEMA_SQL);
+            statement.execute(CREATE_HISTORY_TABLE_SQL);
+            statement.execute(CREATE_LOCK_TABLE_SQL);
+        }
+    }
+
+    private static boolean tableExists(Connection connection, String schema, String table) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        if (metaData.storesUpperCaseIdentifiers()) {
+            schema = schema.toUpperCase();
+            table = table.toUpperCase();
+        }
+        try (ResultSet rs = metaData.getTables(null, schema, table, new String[]{"TABLE"})) {
+            return rs.next();
+        }
+    }
+
+    private void acquireLock(Connection connection) throws SQLException {
+        long deadline = System.nanoTime() + lockTimeout.toNanos();
+        try (Statement statement = connection.createStatement()) {
+            while (statement.executeUpdate(ACQUIRE_LOCK_SQL) == 0) {
+                if (System.nanoTime() - deadline >= 0) {
+                    throw new MigrationException(String.format("Can't acquire migration lock in %d ms. If no other " +
+                            "migrator is running, reset migration.schema_lock", lockTimeout.toMillis()));
+                }
+                try {
+                    Thread.sleep(LOCK_RETRY_INTERVAL_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new MigrationException("Interrupted while waiting for migration lock", e);
+                }
+            }
+        }
+    }
+
+    private void releaseLock(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(RELEASE_LOCK_SQL);
+        }
+    }
+
+    private Map<String, Long> selectHistory(Connection connection) throws SQLException {
+        Map<String, Long> appliedChecksums = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(SELECT_HISTORY_SQL)) {
+            while (rs.next()) {
+                appliedChecksums.put(rs.getString(1), rs.getLong(2));
+            }
+        }
+        return appliedChecksums;
+    }
+
+    /**
+     * Runs a script and records it in the history in one transaction
+     */
+    private void apply(Connection connection, MigrationScript script) throws SQLException {
+        long checksum = checksum(script.getResourcePath());
+        long start = System.currentTimeMillis();
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            if (parallelism > 1) {
+                new ParallelDdlExecutor(dataSource, parallelism)
+                        .execute(FileReader.openResourceReader(script.getResourcePath()));
+            } else {
+                SqlScriptExecutor.execute(connection, FileReader.openResourceReader(script.getResourcePath()));
+            }
+            insertHistory(connection, script, checksum, System.currentTimeMillis() - start);
+            connection.commit();
+        } catch (JdbcException e) {
+            connection.rollback();
+            throw new MigrationException(String.format("Migration %s failed: %s",
+                    script.getVersion(), script.getResourcePath()), e);
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static void insertHistory(Connection connection, MigrationScript script, long checksum,
+                                      long executionTimeMs) throws SQLException {
+        try (PreparedStatement insertStatement = connection.prepareStatement(INSERT_HISTORY_SQL)) {
+            insertStatement.setString(1, script.getVersion());
+            insertStatement.setString(2, script.getDescription());
+            insertStatement.setString(3, script.getResourcePath());
+            insertStatement.setLong(4, checksum);
+            insertStatement.setLong(5, executionTimeMs);
+            insertStatement.executeUpdate();
+        }
+    }
+
+    /**
+     * Computes CRC32 of the script lines joined with {@code \n}, reading the script line by line
+     */
+    static long checksum(String resourcePath) {
+        CRC32 crc32 = new CRC32();
+        try (BufferedReader reader = new BufferedReader(FileReader.openResourceReader(resourcePath))) {
+            String line = reader.readLine();
+            while (line != null) {
+                crc32.update(line.getBytes(StandardCharsets.UTF_8));
+                line = reader.readLine();
+                if (line != null) {
+                    crc32.update('\n');
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't read migration script " + resourcePath, e);
+        }
+        return crc32.getValue();
+    }
+}
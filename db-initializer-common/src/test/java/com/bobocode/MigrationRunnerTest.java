@@ -0,0 +1,146 @@
+package com.bobocode;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class MigrationRunnerTest {
+    private static final String LOCATION = "db/migration_runner_test/";
+    private static int databaseCount;
+
+    private JdbcDataSource dataSource;
+    private Connection keepAlive;
+
+    @Before
+    public void createDatabase() throws SQLException {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:migration_runner_test_" + databaseCount++ + ";DB_CLOSE_DELAY=-1");
+        keepAlive = dataSource.getConnection();
+    }
+
+    @After
+    public void dropDatabase() throws SQLException {
+        try (Statement statement = keepAlive.createStatement()) {
+            statement.execute("SHUTDOWN");
+        }
+        keepAlive.close();
+    }
+
+    @Test
+    public void testPendingScriptsAreAppliedInVersionOrder() throws SQLException {
+        List<MigrationScript> appliedScripts = new MigrationRunner(dataSource, LOCATION + "ordered").migrate();
+
+        assertThat(versions(appliedScripts), contains("1", "1.1", "2", "10"));
+        assertThat(selectStrings("SELECT version FROM migration.schema_history"),
+                containsInAnyOrder("1", "1.1", "2", "10"));
+        assertThat(selectStrings("SELECT COUNT(*) FROM broker"), contains("1"));
+    }
+
+    @Test
+    public void testOnlyPendingScriptsAreApplied() {
+        new MigrationRunner(dataSource, LOCATION + "partial").migrate();
+
+        List<MigrationScript> appliedScripts = new MigrationRunner(dataSource, LOCATION + "ordered").migrate();
+
+        assertThat(versions(appliedScripts), contains("1.1", "2", "10"));
+        assertThat(new MigrationRunner(dataSource, LOCATION + "ordered").migrate(), is(empty()));
+    }
+
+    @Test
+    public void testChangedScriptIsReported() throws SQLException {
+        new MigrationRunner(dataSource, LOCATION + "ordered").migrate();
+        execute("UPDATE migration.schema_history SET checksum = checksum + 1 WHERE version = '2'");
+
+        try {
+            new MigrationRunner(dataSource, LOCATION + "ordered").migrate();
+            throw new AssertionError("Changed migration was not reported");
+        } catch (MigrationException e) {
+            assertThat(e.getMessage(), containsString("Migration 2 was changed"));
+        }
+    }
+
+    @Test
+    public void testFailedScriptIsNotRecordedAndItsDataIsRolledBack() throws SQLException {
+        try {
+            new MigrationRunner(dataSource, LOCATION + "failing").migrate();
+            throw new AssertionError("Failed migration was not reported");
+        } catch (MigrationException e) {
+            assertThat(e.getMessage(), containsString("Migration 2 failed"));
+        }
+
+        assertThat(selectStrings("SELECT version FROM migration.schema_history"), contains("1"));
+        assertThat(selectStrings("SELECT COUNT(*) FROM broker"), contains("0"));
+        assertThat(selectStrings("SELECT locked FROM migration.schema_lock"), contains("FALSE"));
+    }
+
+    @Test
+    public void testConcurrentMigratorsApplyEveryScriptOnce() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<MigrationScript>>> runs = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                runs.add(executor.submit(() -> new MigrationRunner(dataSource, LOCATION + "ordered").migrate()));
+            }
+            List<String> appliedVersions = new ArrayList<>();
+            for (Future<List<MigrationScript>> run : runs) {
+                appliedVersions.addAll(versions(run.get()));
+            }
+
+            assertThat(appliedVersions, containsInAnyOrder("1", "1.1", "2", "10"));
+            assertThat(selectStrings("SELECT COUNT(*) FROM broker"), contains("1"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testHeldLockTimesOut() throws SQLException {
+        new MigrationRunner(dataSource, LOCATION + "partial").migrate();
+        execute("UPDATE migration.schema_lock SET locked = TRUE");
+
+        try {
+            new MigrationRunner(dataSource, LOCATION + "ordered", 1, Duration.ofMillis(200)).migrate();
+            throw new AssertionError("Migration ran without the lock");
+        } catch (MigrationException e) {
+            assertThat(e.getMessage(), containsString("Can't acquire migration lock"));
+        }
+        assertThat(selectStrings("SELECT version FROM migration.schema_history"), contains("1"));
+    }
+
+    private static List<String> versions(List<MigrationScript> scripts) {
+        return scripts.stream().map(MigrationScript::getVersion).collect(Collectors.toList());
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Statement statement = keepAlive.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private List<String> selectStrings(String sql) throws SQLException {
+        List<String> values = new ArrayList<>();
+        try (Statement statement = keepAlive.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            while (rs.next()) {
+                values.add(rs.getString(1));
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,92 @@
+package com.bobocode;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * {@link MigrationScanner} discovers versioned {@link MigrationScript}s in a classpath location. Both plain directories
+ * and jar files are supported.
+ */
+class MigrationScanner {
+
+    /**
+     * Finds all versioned migration scripts in a given classpath location
+     *
+     * @param location classpath directory, e.g. {@code db/migration}
+     * @return scripts ordered by version
+     */
+    static List<MigrationScript> scan(String location) {
+        List<String> resourcePaths = new ArrayList<>();
+        try {
+            Enumeration<URL> locationUrls = MigrationScanner.class.getClassLoader().getResources(location);
+            while (locationUrls.hasMoreElements()) {
+                resourcePaths.addAll(listResources(locationUrls.nextElement(), location));
+            }
+        } catch (IOException | URISyntaxException e) {
+            throw new MigrationException("Can't scan migration location: " + location, e);
+        }
+        return toSortedScripts(resourcePaths);
+    }
+
+    private static List<String> listResources(URL locationUrl, String location) throws IOException, URISyntaxException {
+        if ("jar".equals(locationUrl.getProtocol())) {
+            return listJarResources(locationUrl, location);
+        }
+        File directory = Paths.get(locationUrl.toURI()).toFile();
+        String[] fileNames = directory.list();
+        List<String> resourcePaths = new ArrayList<>();
+        if (fileNames != null) {
+            for (String fileName : fileNames) {
+                resourcePaths.add(location + "/" + fileName);
+            }
+        }
+        return resourcePaths;
+    }
+
+    private static List<String> listJarResources(URL locationUrl, String location) throws IOException {
+        JarURLConnection connection = (JarURLConnection) locationUrl.openConnection();
+        connection.setUseCaches(false);
+        List<String> resourcePaths = new ArrayList<>();
+        try (JarFile jarFile = connection.getJarFile()) {
+            String prefix = location.endsWith("/") ? location : location + "/";
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                String name = entries.nextElement().getName();
+                if (name.startsWith(prefix) && name.indexOf('/', prefix.length()) < 0 && name.length() > prefix.length()) {
+                    resourcePaths.add(name);
+                }
+            }
+        }
+        return resourcePaths;
+    }
+
+    private static List<MigrationScript> toSortedScripts(List<String> resourcePaths) {
+        Map<String, MigrationScript> scriptsByVersion = new HashMap<>();
+        for (String resourcePath : resourcePaths) {
+            MigrationScript script = MigrationScript.fromResourcePath(resourcePath);
+            if (script == null) {
+                continue;
+            }
+            MigrationScript duplicate = scriptsByVersion.put(script.getVersion(), script);
+            if (duplicate != null && !duplicate.getResourcePath().equals(resourcePath)) {
+                throw new MigrationException(String.format("Found more than one migration with version %s: %s, %s",
+                        script.getVersion(), duplicate.getResourcePath(), resourcePath));
+            }
+        }
+        List<MigrationScript> scripts = new ArrayList<>(scriptsByVersion.values());
+        Collections.sort(scripts);
+        return scripts;
+    }
+}
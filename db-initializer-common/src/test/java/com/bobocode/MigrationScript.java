@@ -0,0 +1,53 @@
+package com.bobocode;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * {@link MigrationScript} is a versioned SQL script found in the migration location. Script file names follow
+ * the {@code V<version>__<description>.sql} convention, where version consists of numbers separated by dots or
+ * underscores, e.g. {@code V1__table_initialization.sql} or {@code V1_2__add_index.sql}.
+ */
+@Getter
+@ToString(of = {"version", "description"})
+public class MigrationScript implements Comparable<MigrationScript> {
+    private static final Pattern FILE_NAME_PATTERN = Pattern.compile("V(\\d+(?:[._]\\d+)*)__(.+)\\.sql");
+
+    private final String version;
+    private final String description;
+    private final String resourcePath;
+    private final int[] versionParts;
+
+    private MigrationScript(String version, String description, String resourcePath) {
+        this.version = version;
+        this.description = description;
+        this.resourcePath = resourcePath;
+        this.versionParts = Arrays.stream(version.split("\\.")).mapToInt(Integer::parseInt).toArray();
+    }
+
+    /**
+     * Creates a script from a resource path, if its file name follows the naming convention
+     *
+     * @param resourcePath classpath resource path, e.g. {@code db/migration/V1__init.sql}
+     * @return migration script, or {@code null} if the file is not a versioned migration
+     */
+    static MigrationScript fromResourcePath(String resourcePath) {
+        String fileName = resourcePath.substring(resourcePath.lastIndexOf('/') + 1);
+        Matcher matcher = FILE_NAME_PATTERN.matcher(fileName);
+        if (!matcher.matches()) {
+            return null;
+        }
+        String version = matcher.group(1).replace('_', '.');
+        String description = matcher.group(2).replace('_', ' ');
+        return new MigrationScript(version, description, resourcePath);
+    }
+
+    @Override
+    public int compareTo(MigrationScript other) {
+        return Arrays.compare(versionParts, other.versionParts);
+    }
+}
@@ -0,0 +1,322 @@
+package com.bobocode;
+
+import com.bobocode.util.JdbcException;
+import com.bobocode.util.JdbcUtil;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * {@link SchemaCatalog} is an immutable in-memory view of H2 schema metadata: tables, columns, primary keys, unique
+ * constraints and foreign keys. The whole schema is loaded with four bulk {@code INFORMATION_SCHEMA} queries instead of
+ * a query per table, column or constraint, so validation and introspection become map lookups.
+ * <p>
+ * {@link #refresh()} reloads only the tables that were created, changed or dropped since the catalog was loaded, which
+ * H2 tracks in {@code INFORMATION_SCHEMA.TABLES.LAST_MODIFICATION}. H2 also updates it on every {@code INSERT},
+ * {@code UPDATE} and {@code DELETE}, so a table whose data changed has its metadata reloaded as well, even if its
+ * definition is the same. Refreshing a catalog between DML-heavy steps therefore costs about as much as loading it.
+ * {@link #refreshTables(Collection)} reloads given tables unconditionally. Both return a new catalog.
+ */
+public class SchemaCatalog {
+    private static final String DEFAULT_SCHEMA = "PUBLIC";
+    private static final String SELECT_TABLES_SQL = "SELECT TABLE_NAME, LAST_MODIFICATION " +
+            "FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = ? AND TABLE_TYPE = 'TABLE'";
+    private static final String SELECT_COLUMNS_SQL = "SELECT TABLE_NAME, COLUMN_NAME, ORDINAL_POSITION, TYPE_NAME, " +
+            "IS_NULLABLE, COLUMN_DEFAULT, CHARACTER_MAXIMUM_LENGTH FROM INFORMATION_SCHEMA.COLUMNS " +
+            "WHERE TABLE_SCHEMA = ?%s ORDER BY TABLE_NAME, ORDINAL_POSITION";
+    private static final String SELECT_CONSTRAINTS_SQL = "SELECT TABLE_NAME, CONSTRAINT_NAME, CONSTRAINT_TYPE, " +
+            "COLUMN_LIST FROM INFORMATION_SCHEMA.CONSTRAINTS " +
+            "WHERE TABLE_SCHEMA = ? AND CONSTRAINT_TYPE IN ('PRIMARY_KEY', 'UNIQUE')%s ORDER BY TABLE_NAME, CONSTRAINT_NAME";
+    private static final String SELECT_FOREIGN_KEYS_SQL = "SELECT FKTABLE_NAME, FK_NAME, FKCOLUMN_NAME, PKTABLE_NAME, " +
+            "PKCOLUMN_NAME FROM INFORMATION_SCHEMA.CROSS_REFERENCES " +
+            "WHERE FKTABLE_SCHEMA = ?%s ORDER BY FKTABLE_NAME, FK_NAME, ORDINAL_POSITION";
+
+    private final DataSource dataSource;
+    private final String schema;
+    private final Map<String, TableMetadata> tables;
+    private final Map<String, List<ForeignKeyMetadata>> referencingForeignKeys;
+
+    private SchemaCatalog(DataSource dataSource, String schema, Map<String, TableMetadata> tables) {
+        this.dataSource = dataSource;
+        this.schema = schema;
+        this.tables = Collections.unmodifiableMap(new TreeMap<>(tables));
+        this.referencingForeignKeys = indexReferencingForeignKeys(this.tables.values());
+    }
+
+    /**
+     * Loads metadata of all tables of {@code PUBLIC} schema
+     *
+     * @param dataSource a data source
+     * @return schema catalog
+     */
+    public static SchemaCatalog load(DataSource dataSource) {
+        return load(dataSource, DEFAULT_SCHEMA);
+    }
+
+    /**
+     * Loads metadata of all tables of a given schema
+     *
+     * @param dataSource a data source
+     * @param schema     schema name
+     * @return schema catalog
+     */
+    public static SchemaCatalog load(DataSource dataSource, String schema) {
+        return JdbcUtil.applyConnection(dataSource, connection -> {
+            try {
+                Map<String, Long> tableVersions = selectTableVersions(connection, schema);
+                return new SchemaCatalog(dataSource, schema, loadTables(connection, schema, tableVersions, false));
+            } catch (SQLException e) {
+                throw new JdbcException("Can't load metadata of schema " + schema, e);
+            }
+        });
+    }
+
+    /**
+     * Reloads tables that were created or changed, including changes of their data, and removes dropped ones. When
+     * nothing has changed, the same catalog is returned.
+     *
+     * @return refreshed catalog
+     */
+    public SchemaCatalog refresh() {
+        return JdbcUtil.applyConnection(dataSource, connection -> {
+            try {
+                Map<String, Long> tableVersions = selectTableVersions(connection, schema);
+                Map<String, Long> changedTableVersions = new HashMap<>();
+                tableVersions.forEach((tableName, lastModification) -> {
+                    TableMetadata table = tables.get(tableName);
+                    if (table == null || table.getLastModification() != lastModification) {
+                        changedTableVersions.put(tableName, lastModification);
+                    }
+                });
+                if (changedTableVersions.isEmpty() && tableVersions.keySet().equals(tables.keySet())) {
+                    return this;
+                }
+                Map<String, TableMetadata> refreshedTables = new HashMap<>(tables);
+                refreshedTables.keySet().retainAll(tableVersions.keySet());
+                refreshedTables.putAll(loadTables(connection, schema, changedTableVersions, true));
+                return new SchemaCatalog(dataSource, schema, refreshedTables);
+            } catch (SQLException e) {
+                throw new JdbcException("Can't refresh metadata of schema " + schema, e);
+            }
+        });
+    }
+
+    /**
+     * Reloads given tables. Tables that do not exist anymore are removed from the catalog.
+     *
+     * @param tableNames names of tables to reload
+     * @return refreshed catalog
+     */
+    public SchemaCatalog refreshTables(Collection<String> tableNames) {
+        return JdbcUtil.applyConnection(dataSource, connection -> {
+            try {
+                Map<String, Long> tableVersions = selectTableVersions(connection, schema);
+                tableVersions.keySet().retainAll(tableNames);
+                Map<String, TableMetadata> refreshedTables = new HashMap<>(tables);
+                refreshedTables.keySet().removeAll(tableNames);
+                refreshedTables.putAll(loadTables(connection, schema, tableVersions, true));
+                return new SchemaCatalog(dataSource, schema, refreshedTables);
+            } catch (SQLException e) {
+                throw new JdbcException("Can't refresh metadata of schema " + schema, e);
+            }
+        });
+    }
+
+    public String getSchema() {
+        return schema;
+    }
+
+    public Set<String> getTableNames() {
+        return tables.keySet();
+    }
+
+    public Collection<TableMetadata> getTables() {
+        return tables.values();
+    }
+
+    public Optional<TableMetadata> findTable(String tableName) {
+        return Optional.ofNullable(tables.get(tableName));
+    }
+
+    public TableMetadata getTable(String tableName) {
+        return findTable(tableName).orElseThrow(
+                () -> new IllegalArgumentException(String.format("Table %s not found in schema %s", tableName, schema)));
+    }
+
+    /**
+     * Returns foreign keys of other tables that reference a given table
+     *
+     * @param tableName referenced table name
+     * @return foreign keys, empty if the table is not referenced
+     */
+    public List<ForeignKeyMetadata> getReferencingForeignKeys(String tableName) {
+        return referencingForeignKeys.getOrDefault(tableName, List.of());
+    }
+
+    private static Map<String, Long> selectTableVersions(Connection connection, String schema) throws SQLException {
+        Map<String, Long> tableVersions = new HashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(SELECT_TABLES_SQL)) {
+            statement.setString(1, schema);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    tableVersions.put(rs.getString(1), rs.getLong(2));
+                }
+            }
+        }
+        return tableVersions;
+    }
+
+    /**
+     * Loads given tables with three queries. When {@code filterByName} is false, the queries read the whole schema,
+     * which is cheaper than a long {@code IN} list.
+     */
+    private static Map<String, TableMetadata> loadTables(Connection connection, String schema,
+                                                         Map<String, Long> tableVersions, boolean filterByName)
+            throws SQLException {
+        if (tableVersions.isEmpty()) {
+            return Map.of();
+        }
+        List<String> tableNames = new ArrayList<>(tableVersions.keySet());
+        Map<String, List<ColumnMetadata>> columns = selectColumns(connection, schema, tableNames, filterByName);
+        Map<String, List<String[]>> constraints = selectConstraints(connection, schema, tableNames, filterByName);
+        Map<String, List<ForeignKeyMetadata>> foreignKeys = selectForeignKeys(connection, schema, tableNames,
+                filterByName);
+
+        Map<String, TableMetadata> tables = new HashMap<>();
+        for (String tableName : tableNames) {
+            List<ColumnMetadata> tableColumns = columns.getOrDefault(tableName, List.of());
+            Map<String, ColumnMetadata> columnsByName = new LinkedHashMap<>();
+            tableColumns.forEach(column -> columnsByName.put(column.getName(), column));
+            ConstraintMetadata primaryKey = null;
+            List<ConstraintMetadata> uniqueConstraints = new ArrayList<>();
+            for (String[] constraint : constraints.getOrDefault(tableName, List.of())) {
+                ConstraintMetadata constraintMetadata = new ConstraintMetadata(constraint[0],
+                        List.of(constraint[2].split(",")));
+                if ("PRIMARY_KEY".equals(constraint[1])) {
+                    primaryKey = constraintMetadata;
+                } else {
+                    uniqueConstraints.add(constraintMetadata);
+                }
+            }
+            tables.put(tableName, new TableMetadata(tableName, tableVersions.get(tableName), List.copyOf(tableColumns),
+                    Collections.unmodifiableMap(columnsByName), primaryKey, List.copyOf(uniqueConstraints),
+                    List.copyOf(foreignKeys.getOrDefault(tableName, List.of()))));
+        }
+        return tables;
+    }
+
+    private static Map<String, List<ColumnMetadata>> selectColumns(Connection connection, String schema,
+                                                                   List<String> tableNames, boolean filterByName)
+            throws SQLException {
+        Map<String, List<ColumnMetadata>> columns = new HashMap<>();
+        try (PreparedStatement statement = prepareFilteredStatement(connection, SELECT_COLUMNS_SQL, "TABLE_NAME",
+                schema, tableNames, filterByName);
+             ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                columns.computeIfAbsent(rs.getString(1), t -> new ArrayList<>())
+                        .add(new ColumnMetadata(rs.getString(2), rs.getInt(3), rs.getString(4),
+                                "YES".equals(rs.getString(5)), rs.getString(6), rs.getInt(7)));
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Returns rows of {@code [name, type, column list]} grouped by table
+     */
+    private static Map<String, List<String[]>> selectConstraints(Connection connection, String schema,
+                                                                 List<String> tableNames, boolean filterByName)
+            throws SQLException {
+        Map<String, List<String[]>> constraints = new HashMap<>();
+        try (PreparedStatement statement = prepareFilteredStatement(connection, SELECT_CONSTRAINTS_SQL, "TABLE_NAME",
+                schema, tableNames, filterByName);
+             ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                constraints.computeIfAbsent(rs.getString(1), t -> new ArrayList<>())
+                        .add(new String[]{rs.getString(2), rs.getString(3), rs.getString(4)});
+            }
+        }
+        return constraints;
+    }
+
+    private static Map<String, List<ForeignKeyMetadata>> selectForeignKeys(Connection connection, String schema,
+                                                                           List<String> tableNames,
+                                                                           boolean filterByName) throws SQLException {
+        Map<String, List<ForeignKeyMetadata>> foreignKeys = new HashMap<>();
+        try (PreparedStatement statement = prepareFilteredStatement(connection, SELECT_FOREIGN_KEYS_SQL,
+                "FKTABLE_NAME", schema, tableNames, filterByName);
+             ResultSet rs = statement.executeQuery()) {
+            String currentTable = null;
+            String currentName = null;
+            String referencedTable = null;
+            List<String> columns = new ArrayList<>();
+            List<String> referencedColumns = new ArrayList<>();
+            while (rs.next()) {
+                String table = rs.getString(1);
+                String name = rs.getString(2);
+                if (currentName != null && !(table.equals(currentTable) && name.equals(currentName))) {
+                    foreignKeys.computeIfAbsent(currentTable, t -> new ArrayList<>()).add(new ForeignKeyMetadata(
+                            currentName, currentTable, List.copyOf(columns), referencedTable,
+                            List.copyOf(referencedColumns)));
+                    columns.clear();
+                    referencedColumns.clear();
+                }
+                currentTable = table;
+                currentName = name;
+                columns.add(rs.getString(3));
+                referencedTable = rs.getString(4);
+                referencedColumns.add(rs.getString(5));
+            }
+            if (currentName != null) {
+                foreignKeys.computeIfAbsent(currentTable, t -> new ArrayList<>()).add(new ForeignKeyMetadata(
+                        currentName, currentTable, List.copyOf(columns), referencedTable,
+                        List.copyOf(referencedColumns)));
+            }
+        }
+        return foreignKeys;
+    }
+
+    private static PreparedStatement prepareFilteredStatement(Connection connection, String sqlTemplate,
+                                                              String tableColumn, String schema,
+                                                              List<String> tableNames, boolean filterByName)
+            throws SQLException {
+        String filter = "";
+        if (filterByName) {
+            String[] placeholders = new String[tableNames.size()];
+            Arrays.fill(placeholders, "?");
+            filter = String.format(" AND %s IN (%s)", tableColumn, String.join(", ", placeholders));
+        }
+        PreparedStatement statement = connection.prepareStatement(String.format(sqlTemplate, filter));
+        statement.setString(1, schema);
+        if (filterByName) {
+            for (int i = 0; i < tableNames.size(); i++) {
+                statement.setString(i + 2, tableNames.get(i));
+            }
+        }
+        return statement;
+    }
+
+    private static Map<String, List<ForeignKeyMetadata>> indexReferencingForeignKeys(Collection<TableMetadata> tables) {
+        return tables.stream()
+                .flatMap(table -> table.getForeignKeys().stream())
+                .collect(Collectors.collectingAndThen(
+                        Collectors.groupingBy(ForeignKeyMetadata::getReferencedTable,
+                                Collectors.collectingAndThen(Collectors.toList(), List::copyOf)),
+                        Collections::unmodifiableMap));
+    }
+}
@@ -0,0 +1,99 @@
+package com.bobocode;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+
+import static com.bobocode.util.JdbcUtil.consumeStatement;
+import static com.bobocode.util.JdbcUtil.executeSafely;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class SchemaCatalogTest {
+    private DataSource dataSource;
+
+    @Before
+    public void createSchema() throws SQLException {
+        dataSource = IsolatedDatabases.create("schema_catalog_test");
+        execute("CREATE TABLE broker (id BIGINT PRIMARY KEY, username VARCHAR(255) NOT NULL)",
+                "CREATE TABLE sales_group (id BIGINT PRIMARY KEY, name VARCHAR(255))");
+    }
+
+    @After
+    public void dropSchema() {
+        IsolatedDatabases.shutdown(dataSource);
+    }
+
+    @Test
+    public void testRefreshWithoutChangesReturnsTheSameCatalog() {
+        SchemaCatalog catalog = SchemaCatalog.load(dataSource);
+
+        assertThat(catalog.refresh(), sameInstance(catalog));
+    }
+
+    @Test
+    public void testRefreshReloadsOnlyChangedTables() throws SQLException {
+        SchemaCatalog catalog = SchemaCatalog.load(dataSource);
+        TableMetadata salesGroup = catalog.getTable("sales_group");
+
+        execute("ALTER TABLE broker ADD COLUMN email VARCHAR(100)",
+                "CREATE TABLE broker_sales_group (broker_id BIGINT REFERENCES broker(id), " +
+                        "sales_group_id BIGINT REFERENCES sales_group(id))");
+        SchemaCatalog refreshed = catalog.refresh();
+
+        assertThat(refreshed.getTableNames(), contains("broker", "broker_sales_group", "sales_group"));
+        assertThat(refreshed.getTable("broker").findColumn("email").map(ColumnMetadata::getMaxLength),
+                equalTo(Optional.of(100)));
+        assertThat(refreshed.getTable("sales_group"), sameInstance(salesGroup));
+        assertThat(refreshed.getReferencingForeignKeys("sales_group"), hasSize(1));
+        assertThat(catalog.getTable("broker").findColumn("email").isPresent(), is(false));
+    }
+
+    @Test
+    public void testRefreshRemovesDroppedTables() throws SQLException {
+        SchemaCatalog catalog = SchemaCatalog.load(dataSource);
+
+        execute("DROP TABLE sales_group");
+
+        assertThat(catalog.refresh().getTableNames(), contains("broker"));
+    }
+
+    @Test
+    public void testRefreshReloadsTablesChangedByDml() throws SQLException {
+        SchemaCatalog catalog = SchemaCatalog.load(dataSource);
+        TableMetadata broker = catalog.getTable("broker");
+
+        execute("INSERT INTO sales_group VALUES (1, 'buyers')");
+        SchemaCatalog refreshed = catalog.refresh();
+
+        assertThat(refreshed, not(sameInstance(catalog)));
+        assertThat(refreshed.getTable("broker"), sameInstance(broker));
+        assertThat(refreshed.getTable("sales_group"), not(sameInstance(catalog.getTable("sales_group"))));
+    }
+
+    @Test
+    public void testRefreshTablesReloadsGivenTablesUnconditionally() throws SQLException {
+        SchemaCatalog catalog = SchemaCatalog.load(dataSource);
+        TableMetadata salesGroup = catalog.getTable("sales_group");
+
+        execute("DROP TABLE broker");
+        SchemaCatalog refreshed = catalog.refreshTables(List.of("broker", "sales_group"));
+
+        assertThat(refreshed.getTableNames(), contains("sales_group"));
+        assertThat(refreshed.getTable("sales_group"), not(sameInstance(salesGroup)));
+        assertThat(refreshed.getTable("sales_group").getColumns(), hasSize(2));
+    }
+
+    private void execute(String... sql) throws SQLException {
+        consumeStatement(dataSource, statement -> {
+            for (String statementSql : sql) {
+                executeSafely(statement, statementSql);
+            }
+        });
+    }
+}
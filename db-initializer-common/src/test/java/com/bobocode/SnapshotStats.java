@@ -0,0 +1,31 @@
+package com.bobocode;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Usage statistics of {@link DbSnapshotCache}. A hit is a database restored from a template, and a miss is a database
+ * initialized from scratch.
+ */
+@Getter
+@AllArgsConstructor
+public class SnapshotStats {
+    private final long hits;
+    private final long misses;
+    private final long totalRestoreNanos;
+
+    public double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public double getAverageRestoreMillis() {
+        return hits == 0 ? 0 : totalRestoreNanos / 1_000_000.0 / hits;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d, misses=%d, hitRate=%.2f, avgRestoreMs=%.1f",
+                hits, misses, getHitRate(), getAverageRestoreMillis());
+    }
+}
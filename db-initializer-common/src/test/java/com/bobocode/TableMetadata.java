@@ -0,0 +1,34 @@
+package com.bobocode;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A table loaded by {@link SchemaCatalog}, together with its columns and constraints. Columns are ordered by their
+ * position and also indexed by name.
+ */
+@Getter
+@AllArgsConstructor
+@ToString(of = {"name", "columns"})
+public class TableMetadata {
+    private final String name;
+    private final long lastModification;
+    private final List<ColumnMetadata> columns;
+    private final Map<String, ColumnMetadata> columnsByName;
+    private final ConstraintMetadata primaryKey;
+    private final List<ConstraintMetadata> uniqueConstraints;
+    private final List<ForeignKeyMetadata> foreignKeys;
+
+    public Optional<ColumnMetadata> findColumn(String columnName) {
+        return Optional.ofNullable(columnsByName.get(columnName));
+    }
+
+    public Optional<ConstraintMetadata> findPrimaryKey() {
+        return Optional.ofNullable(primaryKey);
+    }
+}
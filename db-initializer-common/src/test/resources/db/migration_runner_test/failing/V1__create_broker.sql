@@ -0,0 +1 @@
+CREATE TABLE broker (id BIGINT PRIMARY KEY);
@@ -0,0 +1,2 @@
+INSERT INTO broker (id) VALUES (1);
+INSERT INTO missing (id) VALUES (1);
@@ -0,0 +1 @@
+CREATE INDEX broker_name_idx ON broker(name);
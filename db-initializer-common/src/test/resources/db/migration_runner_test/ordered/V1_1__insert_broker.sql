@@ -0,0 +1 @@
+INSERT INTO broker (id) VALUES (1);
@@ -0,0 +1 @@
+ALTER TABLE broker ADD COLUMN name VARCHAR(255);
@@ -0,0 +1,83 @@
+package com.bobocode.data;
+
+import com.bobocode.model.Account;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class AccountGeneratorTest {
+    private static final LocalDateTime REFERENCE_TIME = LocalDateTime.of(2026, 10, 1, 0, 0);
+
+    @Test
+    public void testSameSeedGivesSameAccounts() {
+        assertThat(generate(new AccountGenerator(7, REFERENCE_TIME).stream(1_000)),
+                equalTo(generate(new AccountGenerator(7, REFERENCE_TIME).stream(1_000))));
+    }
+
+    @Test
+    public void testParallelStreamGivesSameAccounts() {
+        AccountGenerator generator = new AccountGenerator(7, REFERENCE_TIME);
+
+        assertThat(generate(generator.stream(10_000).parallel()), equalTo(generate(generator.stream(10_000))));
+    }
+
+    @Test
+    public void testPartitionsTogetherEqualTheWholeStream() {
+        AccountGenerator generator = new AccountGenerator(11, REFERENCE_TIME);
+        List<String> whole = generate(generator.stream(1_001));
+
+        for (int partitions : new int[]{1, 3, 7, 2_000}) {
+            List<String> concatenated = generate(IntStream.range(0, partitions).boxed()
+                    .flatMap(partition -> generator.partition(1_001, partition, partitions)));
+            assertThat(concatenated, equalTo(whole));
+        }
+    }
+
+    @Test
+    public void testDifferentSeedsGiveDifferentAccounts() {
+        List<String> first = generate(new AccountGenerator(1, REFERENCE_TIME).stream(1_000));
+        List<String> second = generate(new AccountGenerator(2, REFERENCE_TIME).stream(1_000));
+
+        long sameAccounts = IntStream.range(0, first.size()).filter(i -> first.get(i).equals(second.get(i))).count();
+        assertThat(sameAccounts, is(0L));
+    }
+
+    @Test
+    public void testNeighbouringIndexesAreUnrelated() {
+        List<Account> accounts = new AccountGenerator(0, REFERENCE_TIME).stream(1_000).collect(Collectors.toList());
+
+        long sameBalanceAsNext = IntStream.range(0, accounts.size() - 1)
+                .filter(i -> accounts.get(i).getBalance().equals(accounts.get(i + 1).getBalance()))
+                .count();
+        assertThat(sameBalanceAsNext, lessThan(5L));
+    }
+
+    @Test
+    public void testEmailsAreUniqueAndValuesAreInRange() {
+        List<Account> accounts = new AccountGenerator(3, REFERENCE_TIME).stream(5_000).collect(Collectors.toList());
+
+        Set<String> emails = accounts.stream().map(Account::getEmail).collect(Collectors.toSet());
+        assertThat(emails, hasSize(5_000));
+        for (Account account : accounts) {
+            assertThat(account.getCreationTime(), allOf(greaterThan(REFERENCE_TIME.minusYears(1).minusDays(1)),
+                    lessThanOrEqualTo(REFERENCE_TIME)));
+            assertThat(account.getBirthday(), lessThanOrEqualTo(REFERENCE_TIME.toLocalDate().minusDays(18 * 365)));
+            assertThat(account.getBalance().signum(), greaterThanOrEqualTo(0));
+        }
+    }
+
+    /**
+     * Accounts are compared by id only, and generated accounts have no id, so their string forms are compared
+     */
+    private static List<String> generate(Stream<Account> accounts) {
+        return accounts.map(Account::toString).collect(Collectors.toList());
+    }
+}
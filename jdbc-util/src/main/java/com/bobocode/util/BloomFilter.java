@@ -0,0 +1,116 @@
+package com.bobocode.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * {@link BloomFilter} is a thread-safe set of strings that can answer "definitely absent" or "possibly present". It
+ * never gives a false negative, and gives a false positive with a probability that depends on how full it is. Elements
+ * can't be removed.
+ * <p>
+ * The filter is sized for an expected number of elements and a target false-positive probability. Bit positions are
+ * derived from one 64-bit hash of the UTF-8 bytes with double hashing, so adding or checking an element hashes it only
+ * once.
+ */
+public class BloomFilter {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final AtomicLongArray words;
+    private final long bitSize;
+    private final int hashCount;
+
+    /**
+     * Creates a filter with the optimal number of bits and hash functions
+     *
+     * @param expectedElements         expected number of elements
+     * @param falsePositiveProbability target false-positive probability when the filter holds the expected elements
+     */
+    public BloomFilter(long expectedElements, double falsePositiveProbability) {
+        if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException("False positive probability must be between 0 and 1");
+        }
+        long elements = Math.max(1, expectedElements);
+        long bits = (long) Math.ceil(-elements * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+        int words = Math.toIntExact((Math.max(64, bits) + 63) / 64);
+        this.words = new AtomicLongArray(words);
+        this.bitSize = words * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitSize / elements * Math.log(2)));
+    }
+
+    public void add(String value) {
+        long hash = hash(value);
+        int first = (int) hash;
+        int second = (int) (hash >>> 32) | 1;
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = Math.floorMod(first + (long) i * second, bitSize);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = words.get(word);
+            while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+                current = words.get(word);
+            }
+        }
+    }
+
+    /**
+     * Checks whether a value might have been added
+     *
+     * @param value value to check
+     * @return {@code false} if the value was definitely not added
+     */
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        int first = (int) hash;
+        int second = (int) (hash >>> 32) | 1;
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = Math.floorMod(first + (long) i * second, bitSize);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Estimates the current false-positive probability from the share of set bits
+     *
+     * @return false-positive probability from 0 to 1
+     */
+    public double getExpectedFalsePositiveProbability() {
+        return Math.pow((double) getSetBitCount() / bitSize, hashCount);
+    }
+
+    public long getSetBitCount() {
+        long count = 0;
+        for (int i = 0; i < words.length(); i++) {
+            count += Long.bitCount(words.get(i));
+        }
+        return count;
+    }
+
+    public long getBitSize() {
+        return bitSize;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    /**
+     * 64-bit FNV-1a over UTF-8 bytes, followed by a finalizer that spreads the bits across the whole word
+     */
+    private static long hash(String value) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
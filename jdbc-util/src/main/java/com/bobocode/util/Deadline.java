@@ -0,0 +1,81 @@
+package com.bobocode.util;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * {@link Deadline} is a point in time (based on {@link System#nanoTime()}) before which an operation has to complete.
+ * Callers create a deadline from their remaining time budget and pass it down, so every nested call can bound its
+ * own waiting by the time that is actually left.
+ */
+public final class Deadline {
+    private static final Deadline NONE = new Deadline(0L, true);
+
+    private final long deadlineNanos;
+    private final boolean unbounded;
+
+    private Deadline(long deadlineNanos, boolean unbounded) {
+        this.deadlineNanos = deadlineNanos;
+        this.unbounded = unbounded;
+    }
+
+    /**
+     * Returns a deadline that never expires
+     *
+     * @return unbounded deadline
+     */
+    public static Deadline none() {
+        return NONE;
+    }
+
+    /**
+     * Creates a deadline that expires after a given time budget
+     *
+     * @param budget remaining time budget
+     * @return new deadline
+     */
+    public static Deadline after(Duration budget) {
+        Objects.requireNonNull(budget);
+        return new Deadline(System.nanoTime() + budget.toNanos(), false);
+    }
+
+    /**
+     * Returns the earlier of this deadline and a deadline that expires after a given timeout
+     *
+     * @param timeout an additional bound, ignored if {@code null}
+     * @return the earlier deadline
+     */
+    public Deadline shortenTo(Duration timeout) {
+        if (timeout == null) {
+            return this;
+        }
+        Deadline timeoutDeadline = after(timeout);
+        if (unbounded || timeoutDeadline.deadlineNanos - deadlineNanos < 0) {
+            return timeoutDeadline;
+        }
+        return this;
+    }
+
+    public boolean isUnbounded() {
+        return unbounded;
+    }
+
+    public boolean isExpired() {
+        return !unbounded && remainingNanos() <= 0;
+    }
+
+    /**
+     * Returns nanoseconds left before this deadline, negative if the deadline has already passed,
+     * or {@link Long#MAX_VALUE} for an unbounded deadline
+     *
+     * @return remaining time in nanoseconds
+     */
+    public long remainingNanos() {
+        return unbounded ? Long.MAX_VALUE : deadlineNanos - System.nanoTime();
+    }
+
+    @Override
+    public String toString() {
+        return unbounded ? "Deadline[none]" : "Deadline[remaining=" + Duration.ofNanos(remainingNanos()) + "]";
+    }
+}
@@ -0,0 +1,203 @@
+package com.bobocode.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * {@link EmailExistenceService} checks whether an email is already stored in a unique column, e.g.
+ * {@code account.email} or {@code users.email}. Most signup checks are for new emails, so a {@link BloomFilter} of all
+ * stored emails answers them without a database round trip. Only when the filter reports a possible hit the database
+ * is queried.
+ * <p>
+ * The filter is built by a streaming scan of the column when the service is created. Emails inserted later must be
+ * reported with {@link #recordInsert(String)}, otherwise they are treated as absent. Deleted emails stay in the filter
+ * and only cost a database query, until the filter is rebuilt with {@link #rebuild()}. Emails recorded while a rebuild
+ * is scanning the column are replayed into the new filter, so they are not lost. Emails are compared exactly, like the
+ * unique constraint does.
+ */
+public class EmailExistenceService {
+    public static final double DEFAULT_FALSE_POSITIVE_PROBABILITY = 0.01;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EmailExistenceService.class);
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+    private static final int SCAN_FETCH_SIZE = 1_000;
+    /**
+     * Spare capacity for emails inserted after the filter is built
+     */
+    private static final double GROWTH_FACTOR = 1.5;
+
+    private final DataSource dataSource;
+    private final String scanSql;
+    private final String existsSql;
+    private final String countSql;
+    private final double falsePositiveProbability;
+    private volatile BloomFilter filter;
+    /**
+     * Emails recorded during a running rebuild, {@code null} when no rebuild is running
+     */
+    private volatile Queue<String> insertsDuringRebuild;
+
+    private final LongAdder filterMisses = new LongAdder();
+    private final LongAdder databaseHits = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    public EmailExistenceService(DataSource dataSource, String table, String column) {
+        this(dataSource, table, column, DEFAULT_FALSE_POSITIVE_PROBABILITY);
+    }
+
+    /**
+     * Creates the service and builds its filter
+     *
+     * @param dataSource               a data source
+     * @param table                    table name
+     * @param column                   unique email column
+     * @param falsePositiveProbability target false-positive probability of the filter
+     */
+    public EmailExistenceService(DataSource dataSource, String table, String column,
+                                 double falsePositiveProbability) {
+        if (!IDENTIFIER.matcher(table).matches() || !IDENTIFIER.matcher(column).matches()) {
+            throw new IllegalArgumentException(String.format("Invalid table or column name: %s.%s", table, column));
+        }
+        this.dataSource = dataSource;
+        this.scanSql = String.format("SELECT %s FROM %s", column, table);
+        this.existsSql = String.format("SELECT 1 FROM %s WHERE %s = ?", table, column);
+        this.countSql = String.format("SELECT COUNT(*) FROM %s", table);
+        this.falsePositiveProbability = falsePositiveProbability;
+        rebuild();
+    }
+
+    /**
+     * Checks whether an email is stored
+     *
+     * @param email email to check
+     * @return {@code true} if the email is stored
+     */
+    public boolean exists(String email) {
+        if (!filter.mightContain(email)) {
+            filterMisses.increment();
+            return false;
+        }
+        boolean exists = JdbcUtil.applyConnection(dataSource, connection -> queryExists(connection, email));
+        if (exists) {
+            databaseHits.increment();
+        } else {
+            falsePositives.increment();
+        }
+        return exists;
+    }
+
+    /**
+     * Adds an email that was just inserted to the filter
+     *
+     * @param email inserted email
+     */
+    public void recordInsert(String email) {
+        Queue<String> pendingInserts = insertsDuringRebuild;
+        if (pendingInserts != null) {
+            pendingInserts.add(email);
+        }
+        filter.add(email); // read after the queue, so an insert missed by the replay goes to the new filter
+    }
+
+    /**
+     * Replaces the filter with a new one that is built from the current column values and sized for them. Emails
+     * recorded with {@link #recordInsert(String)} during the scan are added to both the old and the new filter.
+     */
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        Queue<String> pendingInserts = new ConcurrentLinkedQueue<>();
+        insertsDuringRebuild = pendingInserts;
+        BloomFilter newFilter;
+        try {
+            newFilter = JdbcUtil.applyConnection(dataSource, this::scan);
+        } catch (RuntimeException e) {
+            insertsDuringRebuild = null;
+            throw e;
+        }
+        filter = newFilter;
+        for (String email = pendingInserts.poll(); email != null; email = pendingInserts.poll()) {
+            newFilter.add(email);
+        }
+        insertsDuringRebuild = null;
+        LOGGER.info("Email filter of {} bits with {} hash functions built in {} ms", newFilter.getBitSize(),
+                newFilter.getHashCount(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Returns the false-positive probability of the filter estimated from its fill ratio
+     *
+     * @return expected false-positive rate from 0 to 1
+     */
+    public double getExpectedFalsePositiveRate() {
+        return filter.getExpectedFalsePositiveProbability();
+    }
+
+    /**
+     * Returns the share of checks of absent emails that still went to the database
+     *
+     * @return observed false-positive rate from 0 to 1
+     */
+    public double getObservedFalsePositiveRate() {
+        long negatives = filterMisses.sum() + falsePositives.sum();
+        return negatives == 0 ? 0 : (double) falsePositives.sum() / negatives;
+    }
+
+    /**
+     * Returns the number of checks answered by the filter alone
+     *
+     * @return number of checks without a database query
+     */
+    public long getFilterMissCount() {
+        return filterMisses.sum();
+    }
+
+    public long getDatabaseHitCount() {
+        return databaseHits.sum();
+    }
+
+    public long getFalsePositiveCount() {
+        return falsePositives.sum();
+    }
+
+    private BloomFilter scan(Connection connection) {
+        try (Statement statement = connection.createStatement()) {
+            long count;
+            try (ResultSet rs = statement.executeQuery(countSql)) {
+                rs.next();
+                count = rs.getLong(1);
+            }
+            BloomFilter newFilter = new BloomFilter((long) (count * GROWTH_FACTOR) + 1, falsePositiveProbability);
+            statement.setFetchSize(SCAN_FETCH_SIZE);
+            try (ResultSet rs = statement.executeQuery(scanSql)) {
+                while (rs.next()) {
+                    newFilter.add(rs.getString(1));
+                }
+            }
+            return newFilter;
+        } catch (SQLException e) {
+            throw new JdbcException("Error scanning emails", e);
+        }
+    }
+
+    private boolean queryExists(Connection connection, String email) {
+        try (PreparedStatement statement = connection.prepareStatement(existsSql)) {
+            statement.setString(1, email);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next();
+            }
+        } catch (SQLException e) {
+            throw new JdbcException("Error checking email", e);
+        }
+    }
+}
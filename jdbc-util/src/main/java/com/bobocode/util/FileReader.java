@@ -1,49 +1,176 @@
 package com.bobocode.util;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.URISyntaxException;
 import java.net.URL;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
 import java.util.Objects;
-import java.util.stream.Stream;
-
-import static java.util.stream.Collectors.joining;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * {@link FileReader} provides an API that allow to read whole file into a {@link String} by file name.
+ * <p>
+ * Resources are read through the class loader, so resources packed into jars are supported as well. Files located on
+ * a file system are memory-mapped and decoded directly from the mapping. Other resources are read from a
+ * {@link URLConnection} into a single buffer sized by the content length. A leading UTF-8 byte order mark is skipped.
  */
 public class FileReader {
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+    private static final Map<String, String> CACHE = new ConcurrentHashMap<>();
 
     /**
-     * Returns a {@link String} that contains whole text from the file specified by name.
+     * Returns a {@link String} that contains whole text from the file specified by name. Line terminators are
+     * normalized to {@code \n}, and a trailing line terminator is dropped, as joining the file lines with {@code \n}
+     * would do.
      *
      * @param fileName a name of a text file
      * @return string that holds whole file content
      */
     public static String readWholeFileFromResources(String fileName) {
-        Path filePath = createPathFromFileName(fileName);
-        try (Stream<String> fileLinesStream = openFileLinesStream(filePath)) {
-            return fileLinesStream.collect(joining("\n"));
-        }
+        URL fileUrl = getResourceUrl(fileName);
+        CharBuffer content = "file".equals(fileUrl.getProtocol()) ? mapFile(fileUrl) : readUrl(fileUrl);
+        return normalize(content);
+    }
+
+    /**
+     * Same as {@link #readWholeFileFromResources(String)}, but keeps the content in an in-process cache keyed by
+     * resource name, so the file is read only once per JVM. Use it for files that do not change at runtime, such as
+     * initialization scripts.
+     *
+     * @param fileName a name of a text file
+     * @return string that holds whole file content
+     */
+    public static String readWholeFileFromResourcesCached(String fileName) {
+        Objects.requireNonNull(fileName);
+        return CACHE.computeIfAbsent(fileName, FileReader::readWholeFileFromResources);
+    }
+
+    /**
+     * Removes all files from the cache used by {@link #readWholeFileFromResourcesCached(String)}
+     */
+    public static void clearCache() {
+        CACHE.clear();
     }
 
-    private static Stream<String> openFileLinesStream(Path filePath) {
+    /**
+     * Opens a buffered UTF-8 {@link Reader} of a resource specified by name. Unlike
+     * {@link #readWholeFileFromResources(String)}, the content is not loaded into memory, and line terminators are
+     * kept as they are.
+     *
+     * @param fileName a name of a text file
+     * @return reader of the file content
+     */
+    public static Reader openResourceReader(String fileName) {
+        Objects.requireNonNull(fileName);
+        InputStream inputStream = FileReader.class.getClassLoader().getResourceAsStream(fileName);
+        if (inputStream == null) {
+            throw new FileReaderException("Resource not found: " + fileName, null);
+        }
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
         try {
-            return Files.lines(filePath);
+            skipByteOrderMark(reader);
         } catch (IOException e) {
-            throw new FileReaderException("Cannot create stream of file lines!", e);
+            closeQuietly(reader);
+            throw new FileReaderException("Cannot read file " + fileName, e);
+        }
+        return reader;
+    }
+
+    private static void skipByteOrderMark(BufferedReader reader) throws IOException {
+        reader.mark(1);
+        if (reader.read() != BYTE_ORDER_MARK) {
+            reader.reset();
         }
     }
 
-    private static Path createPathFromFileName(String fileName) {
+    private static URL getResourceUrl(String fileName) {
         Objects.requireNonNull(fileName);
         URL fileUrl = FileReader.class.getClassLoader().getResource(fileName);
-        try {
-            return Paths.get(fileUrl.toURI());
+        if (fileUrl == null) {
+            throw new FileReaderException("Resource not found: " + fileName, null);
+        }
+        return fileUrl;
+    }
+
+    private static CharBuffer mapFile(URL fileUrl) {
+        try (FileChannel channel = FileChannel.open(Paths.get(fileUrl.toURI()), StandardOpenOption.READ)) {
+            ByteBuffer mappedFile = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return StandardCharsets.UTF_8.decode(mappedFile);
         } catch (URISyntaxException e) {
-            throw new FileReaderException("Invalid file URL",e);
+            throw new FileReaderException("Invalid file URL", e);
+        } catch (IOException e) {
+            throw new FileReaderException("Cannot read file " + fileUrl, e);
+        }
+    }
+
+    private static CharBuffer readUrl(URL fileUrl) {
+        try {
+            URLConnection connection = fileUrl.openConnection();
+            connection.setUseCaches(false); // otherwise a shared JarFile is kept open
+            long contentLength = connection.getContentLengthLong();
+            try (InputStream inputStream = connection.getInputStream()) {
+                byte[] bytes = contentLength >= 0 ? readFully(inputStream, contentLength) : inputStream.readAllBytes();
+                return StandardCharsets.UTF_8.decode(ByteBuffer.wrap(bytes));
+            }
+        } catch (IOException e) {
+            throw new FileReaderException("Cannot read file " + fileUrl, e);
+        }
+    }
+
+    private static byte[] readFully(InputStream inputStream, long contentLength) throws IOException {
+        if (contentLength > Integer.MAX_VALUE) {
+            throw new IOException("File is too large: " + contentLength + " bytes");
+        }
+        byte[] bytes = new byte[(int) contentLength];
+        int read = inputStream.readNBytes(bytes, 0, bytes.length);
+        if (read != bytes.length) {
+            throw new IOException(String.format("Expected %d bytes, but read %d", bytes.length, read));
+        }
+        return bytes;
+    }
+
+    /**
+     * Skips a byte order mark, replaces {@code \r\n} and {@code \r} with {@code \n} and drops the last line
+     * terminator. The result never exceeds the decoded content, so the builder is sized by it once.
+     */
+    private static String normalize(CharBuffer content) {
+        int start = content.remaining() > 0 && content.get(0) == BYTE_ORDER_MARK ? 1 : 0;
+        int end = content.remaining();
+        if (end > start && content.get(end - 1) == '\n') {
+            end -= end - 1 > start && content.get(end - 2) == '\r' ? 2 : 1;
+        } else if (end > start && content.get(end - 1) == '\r') {
+            end--;
+        }
+        StringBuilder builder = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = content.get(i);
+            if (c == '\r') {
+                builder.append('\n');
+                if (i + 1 < end && content.get(i + 1) == '\n') {
+                    i++;
+                }
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static void closeQuietly(Reader reader) {
+        try {
+            reader.close();
+        } catch (IOException ignored) {
         }
     }
 }
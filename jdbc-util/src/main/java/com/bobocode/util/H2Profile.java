@@ -0,0 +1,51 @@
+package com.bobocode.util;
+
+/**
+ * {@link H2Profile} is a named set of settings for a file-backed H2 database (MVStore engine):
+ * <ul>
+ * <li>{@code CACHE_SIZE} - page cache size in KB</li>
+ * <li>{@code WRITE_DELAY} - maximum delay in ms before committed changes are written to disk, larger values group
+ * more commits into one write</li>
+ * <li>{@code LOCK_MODE} - {@code 3} is read committed (default), {@code 0} disables locking and is safe only for a
+ * single writer</li>
+ * <li>{@code PAGE_SIZE} - page split size in bytes, larger pages make scans cheaper, smaller pages make random
+ * updates cheaper</li>
+ * </ul>
+ */
+public enum H2Profile {
+    /**
+     * Large cache and large pages for mostly reading workloads
+     */
+    READ_HEAVY(65536, 500, 3, 16384),
+    /**
+     * Small pages and a long write delay, so frequent small commits are grouped
+     */
+    WRITE_HEAVY(16384, 2000, 3, 4096),
+    /**
+     * No locking, very long write delay and large pages for a single thread loading data. Do not use it with
+     * concurrent writers.
+     */
+    BULK_LOAD(131072, 10000, 0, 65536);
+
+    private final int cacheSizeKb;
+    private final int writeDelayMillis;
+    private final int lockMode;
+    private final int pageSplitSize;
+
+    H2Profile(int cacheSizeKb, int writeDelayMillis, int lockMode, int pageSplitSize) {
+        this.cacheSizeKb = cacheSizeKb;
+        this.writeDelayMillis = writeDelayMillis;
+        this.lockMode = lockMode;
+        this.pageSplitSize = pageSplitSize;
+    }
+
+    /**
+     * Returns settings in the H2 URL format, e.g. {@code CACHE_SIZE=65536;WRITE_DELAY=500;LOCK_MODE=3;PAGE_SIZE=16384;}
+     *
+     * @return URL settings
+     */
+    public String toUrlSettings() {
+        return String.format("CACHE_SIZE=%d;WRITE_DELAY=%d;LOCK_MODE=%d;PAGE_SIZE=%d;",
+                cacheSizeKb, writeDelayMillis, lockMode, pageSplitSize);
+    }
+}
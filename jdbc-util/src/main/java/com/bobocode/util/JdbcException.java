@@ -1,6 +1,10 @@
 package com.bobocode.util;
 
 public class JdbcException extends RuntimeException {
+    public JdbcException(String message) {
+        super(message);
+    }
+
     public JdbcException(String message, Throwable cause) {
         super(message, cause);
     }
@@ -1,13 +1,19 @@
 package com.bobocode.util;
 
+import com.bobocode.util.jfr.ConnectionAcquireEvent;
+import com.bobocode.util.metrics.InstrumentedDataSource;
+import com.bobocode.util.metrics.JdbcMetrics;
+import com.bobocode.util.metrics.SlowQueryLog;
 import org.h2.jdbcx.JdbcDataSource;
 import org.postgresql.ds.PGSimpleDataSource;
 
 import javax.sql.DataSource;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.Duration;
 import java.util.Map;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -19,10 +25,22 @@ public class JdbcUtil {
 
     public static DataSource createDefaultInMemoryH2DataSource() {
         String url = formatH2ImMemoryDbUrl(DEFAULT_DATABASE_NAME);
-        return createInMemoryH2DataSource(url, DEFAULT_USERNAME, DEFAULT_PASSWORD);
+        return createH2DataSource(url, DEFAULT_USERNAME, DEFAULT_PASSWORD);
     }
 
-    private static DataSource createInMemoryH2DataSource(String url, String username, String pass) {
+    /**
+     * Creates a data source of a named in-memory H2 database. Databases with different names are fully isolated.
+     * The database lives until {@code SHUTDOWN} is executed, or the JVM exits.
+     *
+     * @param databaseName a name of the database
+     * @return data source
+     */
+    public static DataSource createInMemoryH2DataSource(String databaseName) {
+        String url = formatH2ImMemoryDbUrl(databaseName);
+        return createH2DataSource(url, DEFAULT_USERNAME, DEFAULT_PASSWORD);
+    }
+
+    private static DataSource createH2DataSource(String url, String username, String pass) {
         JdbcDataSource h2DataSource = new JdbcDataSource();
         h2DataSource.setUser(username);
         h2DataSource.setPassword(pass);
@@ -35,6 +53,25 @@ public class JdbcUtil {
         return String.format("jdbc:h2:mem:%s;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=false;DATABASE_TO_UPPER=false;", databaseName);
     }
 
+    /**
+     * Creates a data source of a file-backed H2 database tuned with a given profile. The database file is created on
+     * the first connection. The database stays open after the last connection is closed, so it is not reopened on
+     * every connection, until {@code SHUTDOWN} is executed or the JVM exits.
+     *
+     * @param databasePath a path to the database file without {@code .mv.db} extension
+     * @param profile      performance profile
+     * @return data source
+     */
+    public static DataSource createFileH2DataSource(Path databasePath, H2Profile profile) {
+        String url = formatH2FileDbUrl(databasePath, profile);
+        return createH2DataSource(url, DEFAULT_USERNAME, DEFAULT_PASSWORD);
+    }
+
+    private static String formatH2FileDbUrl(Path databasePath, H2Profile profile) {
+        return String.format("jdbc:h2:file:%s;DB_CLOSE_DELAY=-1;DATABASE_TO_UPPER=false;%s",
+                databasePath.toAbsolutePath(), profile.toUrlSettings());
+    }
+
     public static DataSource createDefaultPostgresDataSource() {
         String url = formatPostgresDbUrl(DEFAULT_DATABASE_NAME);
         return createPostgresDataSource(url, DEFAULT_USERNAME, DEFAULT_PASSWORD);
@@ -52,6 +89,40 @@ public class JdbcUtil {
         return String.format("jdbc:postgresql://localhost:5432/%s", databaseName);
     }
 
+    /**
+     * Wraps a data source with {@link InstrumentedDataSource} and exposes its metrics via JMX under a given name
+     *
+     * @param dataSource a data source to instrument
+     * @param name       a name of the JMX bean
+     * @return instrumented data source
+     */
+    public static InstrumentedDataSource instrument(DataSource dataSource, String name) {
+        InstrumentedDataSource instrumentedDataSource = new InstrumentedDataSource(dataSource);
+        instrumentedDataSource.getMetrics().registerMBean(name);
+        return instrumentedDataSource;
+    }
+
+    /**
+     * Wraps a data source with {@link InstrumentedDataSource} that also writes a {@link SlowQueryLog} record for every
+     * statement slower than a given threshold. Execution plans are captured using the original data source on a
+     * background thread, which is stopped by {@link InstrumentedDataSource#close()}.
+     *
+     * @param dataSource         a data source to instrument
+     * @param name               a name of the JMX bean
+     * @param slowQueryThreshold minimal duration of a logged statement
+     * @return instrumented data source
+     */
+    public static InstrumentedDataSource instrument(DataSource dataSource, String name, Duration slowQueryThreshold) {
+        SlowQueryLog slowQueryLog = SlowQueryLog.builder()
+                .threshold(slowQueryThreshold)
+                .explainDataSource(dataSource)
+                .build();
+        InstrumentedDataSource instrumentedDataSource =
+                new InstrumentedDataSource(dataSource, new JdbcMetrics(), slowQueryLog);
+        instrumentedDataSource.getMetrics().registerMBean(name);
+        return instrumentedDataSource;
+    }
+
     public static Map<String, String> getInMemoryDbPropertiesMap() {
         return Map.of(
                 "url", String.format("jdbc:h2:mem:%s", DEFAULT_DATABASE_NAME),
@@ -78,14 +149,14 @@ public class JdbcUtil {
     }
 
     public static void consumeStatement(DataSource dataSource, Consumer<Statement> consumer) throws SQLException {
-        try (Connection connection = dataSource.getConnection();
+        try (Connection connection = getConnection(dataSource);
              Statement statement = connection.createStatement()) {
             consumer.accept(statement);
         }
     }
 
     public static void consumeConnection(DataSource dataSource, Consumer<Connection> consumer) {
-        try (Connection connection = dataSource.getConnection()) {
+        try (Connection connection = getConnection(dataSource)) {
             consumer.accept(connection);
         } catch (SQLException e) {
             throw new JdbcException("Can't retrieve connection", e);
@@ -93,10 +164,36 @@ public class JdbcUtil {
     }
 
     public static <T> T applyConnection(DataSource dataSource, Function<Connection, T> function) {
-        try (Connection connection = dataSource.getConnection()) {
+        try (Connection connection = getConnection(dataSource)) {
             return function.apply(connection);
         } catch (SQLException e) {
             throw new JdbcException("Can't retrieve connection", e);
         }
     }
+
+    /**
+     * Acquires a connection and emits a {@link ConnectionAcquireEvent} if the acquisition took longer than the event
+     * threshold
+     *
+     * @param dataSource a data source
+     * @return a new connection
+     * @throws SQLException if connection can not be acquired
+     */
+    public static Connection getConnection(DataSource dataSource) throws SQLException {
+        ConnectionAcquireEvent event = new ConnectionAcquireEvent();
+        event.begin();
+        boolean success = false;
+        try {
+            Connection connection = dataSource.getConnection();
+            success = true;
+            return connection;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.dataSource = dataSource.getClass().getName();
+                event.success = success;
+                event.commit();
+            }
+        }
+    }
 }
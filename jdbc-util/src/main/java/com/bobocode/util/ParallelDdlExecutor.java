@@ -0,0 +1,221 @@
+package com.bobocode.util;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * {@link ParallelDdlExecutor} runs a DDL script on several connections at once. Dependencies between statements are
+ * derived from the script:
+ * <ul>
+ * <li>{@code CREATE TABLE} and {@code ALTER TABLE} wait for the tables they reference via {@code REFERENCES}, and
+ * for all previous statements on the same table</li>
+ * <li>{@code CREATE INDEX} waits for the last {@code CREATE}/{@code ALTER} of its table</li>
+ * <li>any other statement (e.g. {@code INSERT}, {@code CREATE SCHEMA}) is a barrier that waits for all previous
+ * statements and is awaited by all following ones</li>
+ * </ul>
+ * Every dependency points to an earlier statement, so the graph is always acyclic, and script order is one of its
+ * valid execution orders. Tables are compared by name without schema, which can only add dependencies.
+ * <p>
+ * When a statement fails, its dependents are skipped, independent statements still complete, and the failure is
+ * reported as a {@link SqlScriptException}.
+ */
+public class ParallelDdlExecutor {
+    private static final String NAME = "((?:\"[^\"]+\"|[\\w$]+)(?:\\s*\\.\\s*(?:\"[^\"]+\"|[\\w$]+))?)";
+    private static final Pattern CREATE_TABLE = Pattern.compile("^CREATE\\s+(?:(?:GLOBAL|LOCAL|TEMPORARY|TEMP|" +
+            "UNLOGGED|CACHED|MEMORY)\\s+)*TABLE\\s+(?:IF\\s+NOT\\s+EXISTS\\s+)?" + NAME, Pattern.CASE_INSENSITIVE);
+    private static final Pattern ALTER_TABLE = Pattern.compile("^ALTER\\s+TABLE\\s+(?:IF\\s+EXISTS\\s+)?" +
+            "(?:ONLY\\s+)?" + NAME, Pattern.CASE_INSENSITIVE);
+    private static final Pattern CREATE_INDEX = Pattern.compile("^CREATE\\s+(?:(?:UNIQUE|HASH|SPATIAL)\\s+)*" +
+            "INDEX\\b.*?\\bON\\s+(?:ONLY\\s+)?" + NAME, Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern REFERENCES = Pattern.compile("\\bREFERENCES\\s+" + NAME, Pattern.CASE_INSENSITIVE);
+    private static final Pattern NAME_PART = Pattern.compile("\"([^\"]+)\"|([\\w$]+)");
+
+    private final DataSource dataSource;
+    private final int parallelism;
+
+    public ParallelDdlExecutor(DataSource dataSource, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        this.dataSource = dataSource;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Executes all statements of a script, running independent ones concurrently. The reader is closed afterwards.
+     *
+     * @param script script reader
+     * @return number of executed statements
+     */
+    public int execute(Reader script) {
+        List<SqlScriptStatement> statements = parse(script);
+        List<Set<Integer>> dependencies = buildDependencyGraph(statements);
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "ddl-executor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Map<Thread, Connection> connections = new ConcurrentHashMap<>();
+        try {
+            List<CompletableFuture<Void>> futures = new ArrayList<>(statements.size());
+            for (int i = 0; i < statements.size(); i++) {
+                SqlScriptStatement statement = statements.get(i);
+                CompletableFuture<?>[] parents = dependencies.get(i).stream()
+                        .map(futures::get)
+                        .toArray(CompletableFuture<?>[]::new);
+                futures.add(CompletableFuture.allOf(parents)
+                        .thenRunAsync(() -> executeStatement(statement, connections), executor));
+            }
+            awaitAll(futures);
+            return statements.size();
+        } finally {
+            executor.shutdownNow();
+            connections.values().forEach(ParallelDdlExecutor::closeQuietly);
+        }
+    }
+
+    private static List<SqlScriptStatement> parse(Reader script) {
+        List<SqlScriptStatement> statements = new ArrayList<>();
+        try (Reader reader = script) {
+            new SqlScriptParser(reader).forEachRemaining(statements::add);
+        } catch (IOException e) {
+            throw new JdbcException("Can't close SQL script", e);
+        }
+        return statements;
+    }
+
+    /**
+     * Builds a list of dependencies for each statement. A dependency is an index of an earlier statement.
+     */
+    static List<Set<Integer>> buildDependencyGraph(List<SqlScriptStatement> statements) {
+        List<Set<Integer>> dependencies = new ArrayList<>(statements.size());
+        Map<String, Integer> lastWriters = new HashMap<>();
+        Map<String, List<Integer>> readersSinceLastWrite = new HashMap<>();
+        int barrier = -1;
+        for (int i = 0; i < statements.size(); i++) {
+            String sql = statements.get(i).getSql();
+            Set<Integer> statementDependencies = new TreeSet<>();
+            if (barrier >= 0) {
+                statementDependencies.add(barrier);
+            }
+            String writtenTable = matchTable(CREATE_TABLE, sql);
+            if (writtenTable == null) {
+                writtenTable = matchTable(ALTER_TABLE, sql);
+            }
+            String indexedTable = writtenTable == null ? matchTable(CREATE_INDEX, sql) : null;
+            if (writtenTable != null) {
+                addIfPresent(statementDependencies, lastWriters.get(writtenTable));
+                statementDependencies.addAll(readersSinceLastWrite.getOrDefault(writtenTable, List.of()));
+                Matcher referencesMatcher = REFERENCES.matcher(sql);
+                while (referencesMatcher.find()) {
+                    String referencedTable = normalizeTableName(referencesMatcher.group(1));
+                    if (!referencedTable.equals(writtenTable)) {
+                        addIfPresent(statementDependencies, lastWriters.get(referencedTable));
+                        readersSinceLastWrite.computeIfAbsent(referencedTable, t -> new ArrayList<>()).add(i);
+                    }
+                }
+                lastWriters.put(writtenTable, i);
+                readersSinceLastWrite.remove(writtenTable);
+            } else if (indexedTable != null) {
+                addIfPresent(statementDependencies, lastWriters.get(indexedTable));
+                readersSinceLastWrite.computeIfAbsent(indexedTable, t -> new ArrayList<>()).add(i);
+            } else {
+                for (int previous = Math.max(barrier, 0); previous < i; previous++) {
+                    statementDependencies.add(previous);
+                }
+                barrier = i;
+                lastWriters.clear();
+                readersSinceLastWrite.clear();
+            }
+            dependencies.add(statementDependencies);
+        }
+        return dependencies;
+    }
+
+    private static String matchTable(Pattern pattern, String sql) {
+        Matcher matcher = pattern.matcher(sql);
+        return matcher.find() ? normalizeTableName(matcher.group(1)) : null;
+    }
+
+    /**
+     * Drops the schema, removes quotes from a quoted name and lowercases an unquoted one
+     */
+    private static String normalizeTableName(String qualifiedName) {
+        Matcher matcher = NAME_PART.matcher(qualifiedName);
+        String tableName = null;
+        while (matcher.find()) {
+            tableName = matcher.group(1) != null ? matcher.group(1) : matcher.group(2).toLowerCase(Locale.ROOT);
+        }
+        return tableName;
+    }
+
+    private static void addIfPresent(Set<Integer> dependencies, Integer dependency) {
+        if (dependency != null) {
+            dependencies.add(dependency);
+        }
+    }
+
+    private void executeStatement(SqlScriptStatement scriptStatement, Map<Thread, Connection> connections) {
+        try (Statement statement = getThreadConnection(connections).createStatement()) {
+            statement.execute(scriptStatement.getSql());
+        } catch (SQLException e) {
+            throw new SqlScriptException(scriptStatement, e);
+        }
+    }
+
+    private Connection getThreadConnection(Map<Thread, Connection> connections) throws SQLException {
+        Connection connection = connections.get(Thread.currentThread());
+        if (connection == null) {
+            connection = JdbcUtil.getConnection(dataSource);
+            connections.put(Thread.currentThread(), connection);
+        }
+        return connection;
+    }
+
+    /**
+     * Waits for all statements and rethrows the failure of the earliest failed statement. Dependents of a failed
+     * statement fail with the same exception, so the earliest one is the root cause.
+     */
+    private static void awaitAll(List<CompletableFuture<Void>> futures) {
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            for (CompletableFuture<Void> future : futures) {
+                if (future.isCompletedExceptionally()) {
+                    try {
+                        future.join();
+                    } catch (CompletionException failure) {
+                        Throwable cause = failure.getCause();
+                        throw cause instanceof RuntimeException ? (RuntimeException) cause : failure;
+                    }
+                }
+            }
+            throw e;
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.bobocode.util;
+
+/**
+ * Thrown when a statement of an SQL script fails or can't be parsed. Provides the failed statement, so the error can
+ * be traced back to the script line.
+ */
+public class SqlScriptException extends JdbcException {
+    private final SqlScriptStatement statement;
+
+    public SqlScriptException(SqlScriptStatement statement, Throwable cause) {
+        super(String.format("Error executing statement #%d at line %d: %s",
+                statement.getIndex() + 1, statement.getLineNumber(), statement.getSql()), cause);
+        this.statement = statement;
+    }
+
+    public SqlScriptException(SqlScriptStatement statement, String problem) {
+        super(String.format("%s in statement #%d at line %d: %s",
+                problem, statement.getIndex() + 1, statement.getLineNumber(), statement.getSql()));
+        this.statement = statement;
+    }
+
+    public SqlScriptStatement getStatement() {
+        return statement;
+    }
+}
@@ -0,0 +1,97 @@
+package com.bobocode.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link SqlScriptExecutor} runs an SQL script statement by statement using JDBC batches. The script is parsed with
+ * {@link SqlScriptParser} while it is being executed, so memory usage does not depend on the script size. Unlike
+ * passing a whole script to {@link Statement#execute(String)}, it also works with drivers that accept only one
+ * statement per call (e.g. PostgreSQL).
+ * <p>
+ * When a statement fails, a {@link SqlScriptException} points to its index and line in the script.
+ */
+public class SqlScriptExecutor {
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    /**
+     * Executes all statements of a script. The reader is closed afterwards.
+     *
+     * @param connection a connection to run the script on
+     * @param script     script reader
+     * @return number of executed statements
+     */
+    public static int execute(Connection connection, Reader script) {
+        return execute(connection, script, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Executes all statements of a script in batches of a given size. The reader is closed afterwards.
+     *
+     * @param connection a connection to run the script on
+     * @param script     script reader
+     * @param batchSize  maximum number of statements sent to the database at once
+     * @return number of executed statements
+     */
+    public static int execute(Connection connection, Reader script, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        SqlScriptParser parser = new SqlScriptParser(script);
+        List<SqlScriptStatement> batch = new ArrayList<>(batchSize);
+        int executed = 0;
+        try (Reader reader = script;
+             Statement statement = connection.createStatement()) {
+            while (parser.hasNext()) {
+                SqlScriptStatement scriptStatement = parser.next();
+                statement.addBatch(scriptStatement.getSql());
+                batch.add(scriptStatement);
+                if (batch.size() == batchSize) {
+                    executed += executeBatch(statement, batch);
+                }
+            }
+            if (!batch.isEmpty()) {
+                executed += executeBatch(statement, batch);
+            }
+            return executed;
+        } catch (SQLException e) {
+            throw new JdbcException("Can't execute SQL script", e);
+        } catch (IOException e) {
+            throw new JdbcException("Can't close SQL script", e);
+        }
+    }
+
+    private static int executeBatch(Statement statement, List<SqlScriptStatement> batch) throws SQLException {
+        try {
+            statement.executeBatch();
+            return batch.size();
+        } catch (BatchUpdateException e) {
+            throw new SqlScriptException(batch.get(findFailedStatement(e, batch.size())), e);
+        } finally {
+            batch.clear();
+        }
+    }
+
+    /**
+     * Drivers either stop at the first failed statement and return counts of the preceding ones, or continue and
+     * mark failed statements with {@link Statement#EXECUTE_FAILED}.
+     */
+    private static int findFailedStatement(BatchUpdateException e, int batchSize) {
+        int[] updateCounts = e.getUpdateCounts();
+        if (updateCounts == null) {
+            return 0;
+        }
+        for (int i = 0; i < updateCounts.length; i++) {
+            if (updateCounts[i] == Statement.EXECUTE_FAILED) {
+                return i;
+            }
+        }
+        return Math.min(updateCounts.length, batchSize - 1);
+    }
+}
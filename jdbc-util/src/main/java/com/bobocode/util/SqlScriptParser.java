@@ -0,0 +1,266 @@
+package com.bobocode.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * {@link SqlScriptParser} splits an SQL script into individual statements while reading it from a {@link Reader}, so
+ * only the current statement is kept in memory. Statements are separated by {@code ;}. Separators inside single-quoted
+ * strings, double-quoted identifiers, PostgreSQL dollar-quoted bodies ({@code $$ ... $$}, {@code $tag$ ... $tag$}),
+ * line comments ({@code --}) and block comments ({@code /* ... *&#47;}, possibly nested) are ignored. Comments are
+ * dropped from the statement text, and the last statement does not need a trailing separator. An unterminated string,
+ * identifier, dollar-quoted body or block comment fails with {@link SqlScriptException}.
+ */
+public class SqlScriptParser implements Iterator<SqlScriptStatement> {
+    private static final int BUFFER_SIZE = 8192;
+    private static final int EOF = -1;
+
+    private final Reader reader;
+    private char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private int lineNumber = 1;
+    private int statementIndex;
+    private SqlScriptStatement next;
+
+    public SqlScriptParser(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Returns a lazy stream of statements. Closing the stream closes the reader.
+     *
+     * @param reader script reader
+     * @return stream of statements
+     */
+    public static Stream<SqlScriptStatement> stream(Reader reader) {
+        SqlScriptParser parser = new SqlScriptParser(reader);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(parser, Spliterator.ORDERED | Spliterator.NONNULL),
+                false).onClose(parser::close);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = readStatement();
+        }
+        return next != null;
+    }
+
+    @Override
+    public SqlScriptStatement next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        SqlScriptStatement statement = next;
+        next = null;
+        return statement;
+    }
+
+    private void close() {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private SqlScriptStatement readStatement() {
+        StringBuilder sql = new StringBuilder();
+        int startLine = 0;
+        int c;
+        while ((c = read()) != EOF) {
+            if (c == ';') {
+                if (sql.length() > 0) {
+                    return newStatement(sql, startLine);
+                }
+                continue;
+            }
+            if (c == '-' && peek(0) == '-') {
+                skipLineComment();
+                appendSeparator(sql);
+                continue;
+            }
+            if (c == '/' && peek(0) == '*') {
+                int commentLine = lineNumber;
+                read();
+                if (!skipBlockComment()) {
+                    throw unterminated("block comment", sql, sql.length() > 0 ? startLine : commentLine);
+                }
+                appendSeparator(sql);
+                continue;
+            }
+            if (sql.length() == 0) {
+                if (Character.isWhitespace(c)) {
+                    continue;
+                }
+                startLine = lineNumber;
+            }
+            sql.append((char) c);
+            if (c == '\'' || c == '"') {
+                if (!copyQuoted(sql, (char) c)) {
+                    throw unterminated(c == '\'' ? "string literal" : "quoted identifier", sql, startLine);
+                }
+            } else if (c == '$' && !copyDollarQuotedIfPresent(sql)) {
+                throw unterminated("dollar-quoted string", sql, startLine);
+            }
+        }
+        return sql.length() > 0 ? newStatement(sql, startLine) : null;
+    }
+
+    private SqlScriptStatement newStatement(StringBuilder sql, int startLine) {
+        int end = sql.length();
+        while (end > 0 && Character.isWhitespace(sql.charAt(end - 1))) {
+            end--;
+        }
+        return new SqlScriptStatement(statementIndex++, startLine, sql.substring(0, end));
+    }
+
+    private SqlScriptException unterminated(String construct, StringBuilder sql, int startLine) {
+        return new SqlScriptException(new SqlScriptStatement(statementIndex, startLine, sql.toString().trim()),
+                "Unterminated " + construct);
+    }
+
+    private void appendSeparator(StringBuilder sql) {
+        if (sql.length() > 0 && !Character.isWhitespace(sql.charAt(sql.length() - 1))) {
+            sql.append(' ');
+        }
+    }
+
+    private void skipLineComment() {
+        int c;
+        while ((c = peek(0)) != EOF && c != '\n') {
+            read();
+        }
+    }
+
+    /**
+     * Skips a block comment, the opening {@code /*} is already consumed
+     *
+     * @return {@code false} if the script ends inside the comment
+     */
+    private boolean skipBlockComment() {
+        int depth = 1;
+        int c;
+        while (depth > 0 && (c = read()) != EOF) {
+            if (c == '*' && peek(0) == '/') {
+                read();
+                depth--;
+            } else if (c == '/' && peek(0) == '*') {
+                read();
+                depth++;
+            }
+        }
+        return depth == 0;
+    }
+
+    /**
+     * Copies a quoted string or identifier. A doubled quote is an escaped quote.
+     *
+     * @return {@code false} if the script ends before the closing quote
+     */
+    private boolean copyQuoted(StringBuilder sql, char quote) {
+        int c;
+        while ((c = read()) != EOF) {
+            sql.append((char) c);
+            if (c == quote) {
+                if (peek(0) == quote) {
+                    sql.append((char) read());
+                } else {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a {@code $} starts a dollar-quote tag, and copies the whole quoted body if it does. Otherwise
+     * (e.g. a {@code $1} parameter) nothing is consumed.
+     *
+     * @return {@code false} if the script ends before the closing tag
+     */
+    private boolean copyDollarQuotedIfPresent(StringBuilder sql) {
+        int tagLength = 0;
+        int c;
+        while ((c = peek(tagLength)) != EOF && isTagCharacter((char) c, tagLength == 0)) {
+            tagLength++;
+        }
+        if (c != '$') {
+            return true;
+        }
+        StringBuilder tag = new StringBuilder("$");
+        for (int i = 0; i <= tagLength; i++) {
+            tag.append((char) read());
+        }
+        sql.append(tag, 1, tag.length());
+        String closingTag = tag.toString();
+        int matched = 0;
+        while ((c = read()) != EOF) {
+            sql.append((char) c);
+            matched = c == closingTag.charAt(matched) ? matched + 1 : (c == '$' ? 1 : 0);
+            if (matched == closingTag.length()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isTagCharacter(char c, boolean first) {
+        return c == '_' || Character.isLetter(c) || (!first && Character.isDigit(c));
+    }
+
+    private int read() {
+        if (!fill(1)) {
+            return EOF;
+        }
+        char c = buffer[position++];
+        if (c == '\n') {
+            lineNumber++;
+        }
+        return c;
+    }
+
+    private int peek(int offset) {
+        if (!fill(offset + 1)) {
+            return EOF;
+        }
+        return buffer[position + offset];
+    }
+
+    /**
+     * Makes sure that at least {@code count} characters are buffered, unless the end of the script is reached. The
+     * buffer grows when a lookahead, e.g. a long dollar-quote tag, doesn't fit into it.
+     */
+    private boolean fill(int count) {
+        if (limit - position >= count) {
+            return true;
+        }
+        System.arraycopy(buffer, position, buffer, 0, limit - position);
+        limit -= position;
+        position = 0;
+        if (count > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(count, buffer.length * 2));
+        }
+        try {
+            while (limit < count) {
+                int read = reader.read(buffer, limit, buffer.length - limit);
+                if (read == EOF) {
+                    return false;
+                }
+                limit += read;
+            }
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't read SQL script", e);
+        }
+    }
+}
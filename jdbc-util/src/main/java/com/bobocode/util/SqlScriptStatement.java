@@ -0,0 +1,18 @@
+package com.bobocode.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A single statement of an SQL script produced by {@link SqlScriptParser}. The index is zero-based, and the line
+ * number is the line of the script where the statement starts.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class SqlScriptStatement {
+    private final int index;
+    private final int lineNumber;
+    private final String sql;
+}
@@ -0,0 +1,252 @@
+package com.bobocode.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link StripedLongMap} is a thread-safe map with primitive {@code long} keys, built for lookups that vastly outnumber
+ * updates. Reads take no locks and allocate nothing: each stripe is an immutable open-addressing table published
+ * through a volatile field. Writes copy the tables of the stripes they touch under the stripe lock, so a write costs
+ * time proportional to the stripe size, and a batch of writes copies every touched stripe only once.
+ * <p>
+ * Values can't be {@code null}.
+ */
+public class StripedLongMap<V> {
+    private static final int MIN_CAPACITY = 8;
+
+    private final Stripe<V>[] stripes;
+    private final int stripeShift;
+
+    public StripedLongMap() {
+        this(16);
+    }
+
+    /**
+     * @param stripeCount number of independently copied stripes, rounded up to a power of two
+     */
+    @SuppressWarnings("unchecked")
+    public StripedLongMap(int stripeCount) {
+        if (stripeCount < 1 || stripeCount > 1 << 16) {
+            throw new IllegalArgumentException("Stripe count must be between 1 and 65536");
+        }
+        int count = Integer.highestOneBit(stripeCount - 1 << 1 | 1);
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe<>();
+        }
+        this.stripeShift = 64 - Integer.numberOfTrailingZeros(count);
+    }
+
+    public V get(long key) {
+        long hash = mix(key);
+        return stripes[stripeIndex(hash)].table.get(key, hash);
+    }
+
+    public void put(long key, V value) {
+        update(new long[0], new long[]{key}, new Object[]{value});
+    }
+
+    public void remove(long key) {
+        update(new long[]{key}, new long[0], new Object[0]);
+    }
+
+    /**
+     * Removes {@code removedKeys} and then puts {@code entries}, copying every touched stripe once. Readers may see the
+     * changes of one stripe before those of another.
+     *
+     * @param removedKeys keys to remove
+     * @param entries     entries to put
+     */
+    public void update(Collection<Long> removedKeys, Map<Long, V> entries) {
+        long[] removed = removedKeys.stream().mapToLong(Long::longValue).toArray();
+        long[] keys = new long[entries.size()];
+        Object[] values = new Object[entries.size()];
+        int i = 0;
+        for (Map.Entry<Long, V> entry : entries.entrySet()) {
+            keys[i] = entry.getKey();
+            values[i++] = entry.getValue();
+        }
+        update(removed, keys, values);
+    }
+
+    /**
+     * Replaces the whole content of the map
+     *
+     * @param entries new entries
+     */
+    public void replaceAll(Map<Long, V> entries) {
+        List<List<Map.Entry<Long, V>>> entriesByStripe = new ArrayList<>();
+        for (int i = 0; i < stripes.length; i++) {
+            entriesByStripe.add(new ArrayList<>());
+        }
+        for (Map.Entry<Long, V> entry : entries.entrySet()) {
+            entriesByStripe.get(stripeIndex(mix(entry.getKey()))).add(entry);
+        }
+        for (int i = 0; i < stripes.length; i++) {
+            Stripe<V> stripe = stripes[i];
+            synchronized (stripe) {
+                Table<V> table = new Table<>(entriesByStripe.get(i).size());
+                for (Map.Entry<Long, V> entry : entriesByStripe.get(i)) {
+                    table.putFresh(entry.getKey(), mix(entry.getKey()), entry.getValue());
+                }
+                stripe.table = table;
+            }
+        }
+    }
+
+    public void clear() {
+        for (Stripe<V> stripe : stripes) {
+            synchronized (stripe) {
+                stripe.table = new Table<>(0);
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe<V> stripe : stripes) {
+            size += stripe.table.size;
+        }
+        return size;
+    }
+
+    /**
+     * Splits removals and puts by stripe first, so every stripe is copied once and each of its entries is checked
+     * against the sorted removals of that stripe only
+     */
+    @SuppressWarnings("unchecked")
+    private void update(long[] removedKeys, long[] keys, Object[] values) {
+        int[] removedCounts = new int[stripes.length];
+        int[] putCounts = new int[stripes.length];
+        for (long key : removedKeys) {
+            removedCounts[stripeIndex(mix(key))]++;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (values[i] == null) {
+                throw new NullPointerException("Null value for key " + keys[i]);
+            }
+            putCounts[stripeIndex(mix(keys[i]))]++;
+        }
+        long[][] removedByStripe = new long[stripes.length][];
+        int[][] putsByStripe = new int[stripes.length][];
+        for (int s = 0; s < stripes.length; s++) {
+            removedByStripe[s] = new long[removedCounts[s]];
+            putsByStripe[s] = new int[putCounts[s]];
+            removedCounts[s] = 0;
+            putCounts[s] = 0;
+        }
+        for (long key : removedKeys) {
+            int s = stripeIndex(mix(key));
+            removedByStripe[s][removedCounts[s]++] = key;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            int s = stripeIndex(mix(keys[i]));
+            putsByStripe[s][putCounts[s]++] = i;
+        }
+        for (int s = 0; s < stripes.length; s++) {
+            long[] removed = removedByStripe[s];
+            int[] puts = putsByStripe[s];
+            if (removed.length == 0 && puts.length == 0) {
+                continue;
+            }
+            Arrays.sort(removed);
+            Stripe<V> stripe = stripes[s];
+            synchronized (stripe) {
+                Table<V> current = stripe.table;
+                Table<V> copy = new Table<>(current.size + puts.length);
+                for (int i = 0; i < current.keys.length; i++) {
+                    if (current.values[i] != null && Arrays.binarySearch(removed, current.keys[i]) < 0) {
+                        copy.putFresh(current.keys[i], mix(current.keys[i]), (V) current.values[i]);
+                    }
+                }
+                for (int i : puts) {
+                    copy.put(keys[i], mix(keys[i]), (V) values[i]);
+                }
+                stripe.table = copy;
+            }
+        }
+    }
+
+    private int stripeIndex(long hash) {
+        return stripeShift == 64 ? 0 : (int) (hash >>> stripeShift);
+    }
+
+    /**
+     * The finalization mix of MurmurHash3, spreads ids that differ in a few low bits over all bits. High bits select
+     * the stripe, low bits the slot.
+     */
+    static long mix(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static class Stripe<V> {
+        private volatile Table<V> table = new Table<>(0);
+    }
+
+    /**
+     * A linear probing table, which is not changed after it is published. A {@code null} value marks a free slot.
+     */
+    private static class Table<V> {
+        private final long[] keys;
+        private final Object[] values;
+        private final int mask;
+        private int size;
+
+        private Table(int expectedSize) {
+            int capacity = Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, expectedSize * 2 - 1)) << 1);
+            this.keys = new long[capacity];
+            this.values = new Object[capacity];
+            this.mask = capacity - 1;
+        }
+
+        @SuppressWarnings("unchecked")
+        private V get(long key, long hash) {
+            for (int i = (int) hash & mask; ; i = i + 1 & mask) {
+                Object value = values[i];
+                if (value == null) {
+                    return null;
+                }
+                if (keys[i] == key) {
+                    return (V) value;
+                }
+            }
+        }
+
+        private void put(long key, long hash, V value) {
+            for (int i = (int) hash & mask; ; i = i + 1 & mask) {
+                if (values[i] == null) {
+                    keys[i] = key;
+                    values[i] = value;
+                    size++;
+                    return;
+                }
+                if (keys[i] == key) {
+                    values[i] = value;
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Puts a key that is known to be absent
+         */
+        private void putFresh(long key, long hash, V value) {
+            int i = (int) hash & mask;
+            while (values[i] != null) {
+                i = i + 1 & mask;
+            }
+            keys[i] = key;
+            values[i] = value;
+            size++;
+        }
+    }
+}
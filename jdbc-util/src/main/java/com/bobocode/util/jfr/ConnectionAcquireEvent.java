@@ -0,0 +1,27 @@
+package com.bobocode.util.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A JFR event emitted by {@link com.bobocode.util.JdbcUtil} every time it acquires a connection from a
+ * {@link javax.sql.DataSource}. Only acquisitions longer than the threshold (10 ms by default) are recorded.
+ */
+@Name("com.bobocode.jdbc.ConnectionAcquire")
+@Label("JDBC Connection Acquire")
+@Category({"Bobocode", "JDBC"})
+@Description("Time spent waiting for a JDBC connection")
+@Threshold("10 ms")
+@StackTrace(false)
+public class ConnectionAcquireEvent extends Event {
+    @Label("Data Source")
+    public String dataSource;
+
+    @Label("Success")
+    public boolean success;
+}
@@ -0,0 +1,34 @@
+package com.bobocode.util.metrics;
+
+/**
+ * {@link BindValueRedactor} decides how a bind parameter value appears in a {@link SlowQueryRecord}.
+ */
+@FunctionalInterface
+public interface BindValueRedactor {
+    /**
+     * Shows all values as they are. Use only for non-sensitive data.
+     */
+    BindValueRedactor NONE = (index, value) -> String.valueOf(value);
+
+    /**
+     * Hides all values, keeping only their types
+     */
+    BindValueRedactor ALL = (index, value) -> value == null ? "null" : "<" + value.getClass().getSimpleName() + ">";
+
+    /**
+     * Shows numbers, dates and booleans, and hides character and binary values, which are most likely to hold
+     * personal data
+     */
+    BindValueRedactor STRINGS = (index, value) -> value instanceof CharSequence || value instanceof byte[]
+            ? ALL.redact(index, value)
+            : String.valueOf(value);
+
+    /**
+     * Returns a printable representation of a bind value
+     *
+     * @param index 1-based parameter index
+     * @param value bind value, may be {@code null}
+     * @return printable value
+     */
+    String redact(int index, Object value);
+}
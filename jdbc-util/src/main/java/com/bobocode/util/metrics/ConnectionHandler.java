@@ -0,0 +1,64 @@
+package com.bobocode.util.metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+
+/**
+ * A dynamic proxy handler for {@link Connection} that instruments created statements and times commits.
+ */
+class ConnectionHandler implements InvocationHandler {
+    private final Connection target;
+    private final JdbcMetrics metrics;
+    private final SlowQueryLog slowQueryLog;
+    private final long acquireNanos;
+
+    private ConnectionHandler(Connection target, JdbcMetrics metrics, SlowQueryLog slowQueryLog, long acquireNanos) {
+        this.target = target;
+        this.metrics = metrics;
+        this.slowQueryLog = slowQueryLog;
+        this.acquireNanos = acquireNanos;
+    }
+
+    static Connection proxy(Connection connection, JdbcMetrics metrics, SlowQueryLog slowQueryLog, long acquireNanos) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                new ConnectionHandler(connection, metrics, slowQueryLog, acquireNanos));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "prepareStatement":
+            case "prepareCall":
+                String sql = (String) args[0];
+                Statement preparedStatement = (Statement) invokeTarget(method, args);
+                return StatementHandler.proxy(preparedStatement, method.getReturnType(), metrics, slowQueryLog,
+                        acquireNanos, sql);
+            case "createStatement":
+                Statement statement = (Statement) invokeTarget(method, args);
+                return StatementHandler.proxy(statement, Statement.class, metrics, slowQueryLog, acquireNanos, null);
+            case "commit":
+                long start = System.nanoTime();
+                invokeTarget(method, args);
+                metrics.recordCommit(System.nanoTime() - start);
+                return null;
+            case "rollback":
+                Object result = invokeTarget(method, args);
+                metrics.recordRollback();
+                return result;
+            default:
+                return invokeTarget(method, args);
+        }
+    }
+
+    private Object invokeTarget(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
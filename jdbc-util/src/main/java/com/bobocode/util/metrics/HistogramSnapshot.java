@@ -0,0 +1,21 @@
+package com.bobocode.util.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * An immutable summary of a {@link LatencyHistogram}. All values are in the unit they were recorded in.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class HistogramSnapshot {
+    private final long count;
+    private final long mean;
+    private final long p50;
+    private final long p90;
+    private final long p99;
+    private final long p999;
+    private final long max;
+}
@@ -0,0 +1,119 @@
+package com.bobocode.util.metrics;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.logging.Logger;
+
+/**
+ * {@link InstrumentedDataSource} is a {@link DataSource} wrapper that measures where the time goes inside JDBC calls.
+ * It records connection acquire time, and for each normalized SQL statement execute time, fetch time (time spent in
+ * {@link java.sql.ResultSet#next()}), rows read, rows affected and batch sizes. Commit latency and rollbacks are
+ * counted per data source. All numbers are collected into {@link JdbcMetrics} that is available via
+ * {@link #getMetrics()} and JMX. Statements crossing a latency threshold can be reported to an optional
+ * {@link SlowQueryLog}, which is closed together with this data source.
+ * <p>
+ * Counters and histograms are updated without locks, but the wrapper is not free of allocation. Connections,
+ * statements and result sets are {@link java.lang.reflect.Proxy} instances, so every call through them allocates an
+ * argument array and is dispatched by reflection, and recording a measurement allocates a few short-lived objects.
+ * Use it to find where time goes, not as a zero-overhead production probe.
+ */
+public class InstrumentedDataSource implements DataSource, AutoCloseable {
+    private final DataSource delegate;
+    private final JdbcMetrics metrics;
+    private final SlowQueryLog slowQueryLog;
+
+    public InstrumentedDataSource(DataSource delegate) {
+        this(delegate, new JdbcMetrics());
+    }
+
+    public InstrumentedDataSource(DataSource delegate, JdbcMetrics metrics) {
+        this(delegate, metrics, null);
+    }
+
+    public InstrumentedDataSource(DataSource delegate, JdbcMetrics metrics, SlowQueryLog slowQueryLog) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    public JdbcMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return slow query log, or {@code null} if slow queries are not logged
+     */
+    public SlowQueryLog getSlowQueryLog() {
+        return slowQueryLog;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = delegate.getConnection();
+        return instrument(connection, System.nanoTime() - start);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = delegate.getConnection(username, password);
+        return instrument(connection, System.nanoTime() - start);
+    }
+
+    private Connection instrument(Connection connection, long acquireNanos) {
+        metrics.recordConnectionAcquire(acquireNanos);
+        return ConnectionHandler.proxy(connection, metrics, slowQueryLog, acquireNanos);
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return delegate.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        delegate.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        delegate.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return delegate.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return delegate.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return delegate.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || delegate.isWrapperFor(iface);
+    }
+
+    /**
+     * Stops the {@link SlowQueryLog} explain thread, if any. The delegate data source is not closed.
+     */
+    @Override
+    public void close() {
+        if (slowQueryLog != null) {
+            slowQueryLog.close();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.bobocode.util.metrics;
+
+import com.bobocode.util.JdbcException;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * {@link JdbcMetrics} is a registry of JDBC timings collected by {@link InstrumentedDataSource}. It holds connection
+ * acquire and commit latencies, and per normalized SQL statistics. The number of tracked statements is bounded,
+ * statements above the limit are aggregated under {@link #OTHER_STATEMENTS}.
+ */
+public class JdbcMetrics implements JdbcMetricsMXBean {
+    public static final String OTHER_STATEMENTS = "<other>";
+    private static final int DEFAULT_MAX_STATEMENTS = 1000;
+
+    private final LatencyHistogram connectionAcquireTime = new LatencyHistogram();
+    private final LatencyHistogram commitTime = new LatencyHistogram();
+    private final LongAdder rollbacks = new LongAdder();
+    private final Map<String, StatementMetrics> statements = new ConcurrentHashMap<>();
+    private final int maxStatements;
+
+    public JdbcMetrics() {
+        this(DEFAULT_MAX_STATEMENTS);
+    }
+
+    public JdbcMetrics(int maxStatements) {
+        this.maxStatements = maxStatements;
+    }
+
+    /**
+     * Returns statistics holder for a given normalized SQL
+     *
+     * @param normalizedSql SQL shape produced by {@link SqlNormalizer}
+     * @return statement metrics
+     */
+    public StatementMetrics statement(String normalizedSql) {
+        StatementMetrics metrics = statements.get(normalizedSql);
+        if (metrics != null) {
+            return metrics;
+        }
+        String key = statements.size() < maxStatements ? normalizedSql : OTHER_STATEMENTS;
+        return statements.computeIfAbsent(key, StatementMetrics::new);
+    }
+
+    public void recordConnectionAcquire(long nanos) {
+        connectionAcquireTime.record(nanos);
+    }
+
+    public void recordCommit(long nanos) {
+        commitTime.record(nanos);
+    }
+
+    public void recordRollback() {
+        rollbacks.increment();
+    }
+
+    /**
+     * Returns a point-in-time view of all collected metrics. Statements are ordered by total execution count.
+     *
+     * @return metrics snapshot
+     */
+    @Override
+    public JdbcMetricsSnapshot getSnapshot() {
+        List<StatementSnapshot> statementSnapshots = statements.values().stream()
+                .map(StatementMetrics::snapshot)
+                .sorted(Comparator.comparingLong((StatementSnapshot s) -> s.getExecuteTime().getCount()).reversed())
+                .collect(toList());
+        return new JdbcMetricsSnapshot(connectionAcquireTime.snapshot(), commitTime.snapshot(),
+                rollbacks.sum(), statementSnapshots);
+    }
+
+    @Override
+    public long getConnectionAcquireCount() {
+        return connectionAcquireTime.getCount();
+    }
+
+    @Override
+    public long getConnectionAcquireP99Nanos() {
+        return connectionAcquireTime.snapshot().getP99();
+    }
+
+    @Override
+    public long getCommitCount() {
+        return commitTime.getCount();
+    }
+
+    @Override
+    public long getCommitP99Nanos() {
+        return commitTime.snapshot().getP99();
+    }
+
+    @Override
+    public long getRollbackCount() {
+        return rollbacks.sum();
+    }
+
+    @Override
+    public int getStatementCount() {
+        return statements.size();
+    }
+
+    /**
+     * Registers these metrics in the platform MBean server under {@code com.bobocode.jdbc:type=JdbcMetrics,name=...}.
+     * An MBean already registered under the same name, e.g. by a previously instrumented data source, is replaced.
+     *
+     * @param name a name that distinguishes this data source
+     * @return registered object name
+     */
+    public ObjectName registerMBean(String name) {
+        try {
+            ObjectName objectName = new ObjectName("com.bobocode.jdbc:type=JdbcMetrics,name=" + ObjectName.quote(name));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(this, objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new JdbcException("Can't register JDBC metrics MBean: " + name, e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.bobocode.util.metrics;
+
+/**
+ * JMX view of {@link JdbcMetrics}
+ */
+public interface JdbcMetricsMXBean {
+
+    JdbcMetricsSnapshot getSnapshot();
+
+    long getConnectionAcquireCount();
+
+    long getConnectionAcquireP99Nanos();
+
+    long getCommitCount();
+
+    long getCommitP99Nanos();
+
+    long getRollbackCount();
+
+    int getStatementCount();
+}
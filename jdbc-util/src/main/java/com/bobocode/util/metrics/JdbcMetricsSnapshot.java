@@ -0,0 +1,20 @@
+package com.bobocode.util.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * An immutable view of {@link JdbcMetrics}. All latencies are in nanoseconds.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class JdbcMetricsSnapshot {
+    private final HistogramSnapshot connectionAcquireTime;
+    private final HistogramSnapshot commitTime;
+    private final long rollbacks;
+    private final List<StatementSnapshot> statements;
+}
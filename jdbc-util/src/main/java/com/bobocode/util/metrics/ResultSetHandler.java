@@ -0,0 +1,74 @@
+package com.bobocode.util.metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * A dynamic proxy handler for {@link ResultSet} that accumulates time spent in {@link ResultSet#next()} and counts
+ * rows. Totals are reported once, when the result set is exhausted or closed.
+ */
+class ResultSetHandler implements InvocationHandler {
+    private final ResultSet target;
+    private final FetchListener listener;
+    private long fetchNanos;
+    private long rows;
+    private boolean recorded;
+
+    interface FetchListener {
+        void onFetched(long fetchNanos, long rows) throws SQLException;
+    }
+
+    private ResultSetHandler(ResultSet target, FetchListener listener) {
+        this.target = target;
+        this.listener = listener;
+    }
+
+    static ResultSet proxy(ResultSet resultSet, FetchListener listener) {
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, new ResultSetHandler(resultSet, listener));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "next":
+                return next();
+            case "close":
+                recordFetch();
+                return invokeTarget(method, args);
+            default:
+                return invokeTarget(method, args);
+        }
+    }
+
+    private boolean next() throws Throwable {
+        long start = System.nanoTime();
+        boolean hasNext = target.next();
+        fetchNanos += System.nanoTime() - start;
+        if (hasNext) {
+            rows++;
+        } else {
+            recordFetch();
+        }
+        return hasNext;
+    }
+
+    private void recordFetch() throws SQLException {
+        if (!recorded) {
+            recorded = true;
+            listener.onFetched(fetchNanos, rows);
+        }
+    }
+
+    private Object invokeTarget(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
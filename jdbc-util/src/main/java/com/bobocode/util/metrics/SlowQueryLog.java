@@ -0,0 +1,188 @@
+package com.bobocode.util.metrics;
+
+import lombok.Builder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * {@link SlowQueryLog} writes a structured {@link SlowQueryRecord} for every statement executed through an
+ * {@link InstrumentedDataSource} that takes longer than a threshold. A record holds the SQL, redacted bind values,
+ * rows returned or affected, execute and fetch time, and the time the connection was waited for.
+ * <p>
+ * When an explain data source is configured, the execution plan is captured asynchronously with {@code EXPLAIN} on a
+ * separate connection, so the slow caller is never delayed. Records are sampled and rate-limited, and plans are
+ * dropped when the explain queue is full, so the log can not become a bottleneck itself.
+ */
+public class SlowQueryLog implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(SlowQueryLog.class);
+    private static final Duration DEFAULT_THRESHOLD = Duration.ofMillis(500);
+    private static final int DEFAULT_MAX_RECORDS_PER_SECOND = 10;
+    private static final int EXPLAIN_QUEUE_CAPACITY = 64;
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final long thresholdNanos;
+    private final double sampleRate;
+    private final int maxRecordsPerSecond;
+    private final BindValueRedactor redactor;
+    private final DataSource explainDataSource;
+    private final Consumer<SlowQueryRecord> sink;
+    private final ThreadPoolExecutor explainExecutor;
+    /**
+     * The current second in the high 32 bits and the number of records written in it in the low 32 bits, so both are
+     * changed by a single CAS
+     */
+    private final AtomicLong permits = new AtomicLong();
+
+    /**
+     * @param threshold           minimal execute plus fetch time of a logged statement, 500 ms by default
+     * @param sampleRate          a share of slow statements that are logged, 1.0 by default
+     * @param maxRecordsPerSecond an upper bound of records per second, 10 by default
+     * @param redactor            bind values redaction policy, {@link BindValueRedactor#STRINGS} by default
+     * @param explainDataSource   a non-instrumented data source used to capture plans, plans are skipped if null
+     * @param sink                record consumer, records are written to the log by default
+     */
+    @Builder
+    private SlowQueryLog(Duration threshold, Double sampleRate, Integer maxRecordsPerSecond,
+                         BindValueRedactor redactor, DataSource explainDataSource, Consumer<SlowQueryRecord> sink) {
+        this.thresholdNanos = (threshold != null ? threshold : DEFAULT_THRESHOLD).toNanos();
+        this.sampleRate = sampleRate != null ? sampleRate : 1.0;
+        this.maxRecordsPerSecond = maxRecordsPerSecond != null ? maxRecordsPerSecond : DEFAULT_MAX_RECORDS_PER_SECOND;
+        this.redactor = redactor != null ? redactor : BindValueRedactor.STRINGS;
+        this.explainDataSource = explainDataSource;
+        this.sink = sink != null ? sink : record -> logger.warn(record.toLogLine());
+        this.explainExecutor = explainDataSource != null ? createExplainExecutor() : null;
+    }
+
+    private static ThreadPoolExecutor createExplainExecutor() {
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(EXPLAIN_QUEUE_CAPACITY), runnable -> {
+            Thread thread = new Thread(runnable, "slow-query-explain");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    boolean isSlow(long totalNanos) {
+        return totalNanos >= thresholdNanos;
+    }
+
+    /**
+     * Reports a slow statement execution, the caller checks {@link #isSlow(long)} first. Does nothing if the statement
+     * is not sampled, or the rate limit is hit.
+     */
+    void report(String sql, Object[] bindValues, boolean query, long rows,
+                long executeNanos, long fetchNanos, long connectionWaitNanos) {
+        if (!isSampled() || !tryAcquirePermit()) {
+            return;
+        }
+        SlowQueryRecord record = SlowQueryRecord.builder()
+                .sql(sql)
+                .bindValues(redact(bindValues))
+                .query(query)
+                .rows(rows)
+                .executeNanos(executeNanos)
+                .fetchNanos(fetchNanos)
+                .connectionWaitNanos(connectionWaitNanos)
+                .build();
+        if (explainExecutor != null && isExplainable(sql)) {
+            submitExplain(record, bindValues);
+        } else {
+            sink.accept(record);
+        }
+    }
+
+    private boolean isSampled() {
+        return sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    private boolean tryAcquirePermit() {
+        long second = System.nanoTime() / NANOS_PER_SECOND & 0xFFFFFFFFL;
+        while (true) {
+            long state = permits.get();
+            long records = state >>> 32 == second ? state & 0xFFFFFFFFL : 0;
+            if (records >= maxRecordsPerSecond) {
+                return false;
+            }
+            if (permits.compareAndSet(state, second << 32 | records + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private List<String> redact(Object[] bindValues) {
+        if (bindValues == null) {
+            return Collections.emptyList();
+        }
+        List<String> redacted = new ArrayList<>(bindValues.length);
+        for (int i = 0; i < bindValues.length; i++) {
+            redacted.add(redactor.redact(i + 1, bindValues[i]));
+        }
+        return redacted;
+    }
+
+    private void submitExplain(SlowQueryRecord record, Object[] bindValues) {
+        Object[] binds = bindValues == null ? new Object[0] : bindValues.clone();
+        try {
+            explainExecutor.execute(() -> sink.accept(record.toBuilder().plan(explain(record.getSql(), binds)).build()));
+        } catch (RejectedExecutionException e) {
+            sink.accept(record);
+        }
+    }
+
+    private String explain(String sql, Object[] bindValues) {
+        try (Connection connection = explainDataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < bindValues.length; i++) {
+                statement.setObject(i + 1, bindValues[i]);
+            }
+            return readPlan(statement.executeQuery());
+        } catch (SQLException e) {
+            return "<explain failed: " + e.getMessage() + ">";
+        }
+    }
+
+    private String readPlan(ResultSet resultSet) throws SQLException {
+        try (ResultSet rs = resultSet) {
+            StringBuilder plan = new StringBuilder();
+            while (rs.next()) {
+                if (plan.length() > 0) {
+                    plan.append('\n');
+                }
+                plan.append(rs.getString(1));
+            }
+            return plan.toString();
+        }
+    }
+
+    private static boolean isExplainable(String sql) {
+        String statement = sql.trim().toUpperCase(Locale.ROOT);
+        return statement.startsWith("SELECT") || statement.startsWith("WITH")
+                || statement.startsWith("UPDATE") || statement.startsWith("DELETE")
+                || statement.startsWith("INSERT") || statement.startsWith("MERGE");
+    }
+
+    @Override
+    public void close() {
+        if (explainExecutor != null) {
+            explainExecutor.shutdown();
+        }
+    }
+}
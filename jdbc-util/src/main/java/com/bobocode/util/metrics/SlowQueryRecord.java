@@ -0,0 +1,58 @@
+package com.bobocode.util.metrics;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SlowQueryRecord} describes a single statement execution that crossed the {@link SlowQueryLog} threshold.
+ * Timings are in nanoseconds. The plan is {@code null} when it was not captured.
+ */
+@Getter
+@Builder(toBuilder = true)
+@ToString
+public class SlowQueryRecord {
+    private final String sql;
+    private final List<String> bindValues;
+    private final boolean query;
+    private final long rows;
+    private final long executeNanos;
+    private final long fetchNanos;
+    private final long connectionWaitNanos;
+    private final String plan;
+
+    public long getTotalNanos() {
+        return executeNanos + fetchNanos;
+    }
+
+    /**
+     * Formats this record as a single logfmt line
+     *
+     * @return structured log line
+     */
+    public String toLogLine() {
+        StringBuilder line = new StringBuilder(256)
+                .append("slow_query total_ms=").append(toMillis(getTotalNanos()))
+                .append(" execute_ms=").append(toMillis(executeNanos))
+                .append(" fetch_ms=").append(toMillis(fetchNanos))
+                .append(" connection_wait_ms=").append(toMillis(connectionWaitNanos))
+                .append(query ? " rows_returned=" : " rows_affected=").append(rows)
+                .append(" sql=").append(quote(sql))
+                .append(" binds=").append(quote(String.valueOf(bindValues)));
+        if (plan != null) {
+            line.append(" plan=").append(quote(plan));
+        }
+        return line.toString();
+    }
+
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private static String quote(String value) {
+        return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + '"';
+    }
+}
@@ -0,0 +1,114 @@
+package com.bobocode.util.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * {@link SqlNormalizer} reduces an SQL string to its shape: string and numeric literals are replaced with {@code ?},
+ * comments are dropped, whitespace is collapsed, and {@code IN} lists of literals or parameters are reduced to a single
+ * {@code ?}. Statements that differ only in literal values or in the length of an {@code IN} list are therefore
+ * aggregated together.
+ * Normalized values are cached, since applications usually issue a bounded set of distinct SQL strings.
+ */
+public class SqlNormalizer {
+    private static final int MAX_CACHED_STATEMENTS = 4096;
+    private static final Map<String, String> cache = new ConcurrentHashMap<>();
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bIN ?\\( ?\\?(?: ?, ?\\?)* ?\\)");
+
+    /**
+     * Returns normalized SQL shape
+     *
+     * @param sql original SQL
+     * @return SQL with literals replaced by {@code ?}
+     */
+    public static String normalize(String sql) {
+        if (sql == null) {
+            return "";
+        }
+        String normalized = cache.get(sql);
+        if (normalized == null) {
+            normalized = doNormalize(sql);
+            if (cache.size() < MAX_CACHED_STATEMENTS) {
+                cache.put(sql, normalized);
+            }
+        }
+        return normalized;
+    }
+
+    private static String doNormalize(String sql) {
+        StringBuilder result = new StringBuilder(sql.length());
+        int length = sql.length();
+        int i = 0;
+        boolean pendingSpace = false;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = result.length() > 0;
+                i++;
+                continue;
+            }
+            if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? length : end;
+                pendingSpace = result.length() > 0;
+                continue;
+            }
+            if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+                pendingSpace = result.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                result.append(' ');
+                pendingSpace = false;
+            }
+            if (c == '\'') {
+                i = skipQuoted(sql, i);
+                result.append('?');
+            } else if (c == '"') {
+                int end = skipQuotedIdentifier(sql, i);
+                result.append(sql, i, end);
+                i = end;
+            } else if (Character.isDigit(c) && !isIdentifierPart(result)) {
+                while (i < length && (Character.isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                result.append('?');
+            } else {
+                result.append(c);
+                i++;
+            }
+        }
+        return IN_LIST.matcher(result).replaceAll("IN (?)");
+    }
+
+    private static int skipQuoted(String sql, int start) {
+        int i = start + 1;
+        while (i < sql.length()) {
+            if (sql.charAt(i) == '\'') {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == '\'') {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipQuotedIdentifier(String sql, int start) {
+        int end = sql.indexOf('"', start + 1);
+        return end < 0 ? sql.length() : end + 1;
+    }
+
+    private static boolean isIdentifierPart(StringBuilder result) {
+        if (result.length() == 0) {
+            return false;
+        }
+        char previous = result.charAt(result.length() - 1);
+        return Character.isLetterOrDigit(previous) || previous == '_';
+    }
+}
@@ -0,0 +1,210 @@
+package com.bobocode.util.metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * A dynamic proxy handler for {@link Statement}, {@link java.sql.PreparedStatement} and
+ * {@link java.sql.CallableStatement}. Prepared statements are bound to a single {@link StatementMetrics}, while plain
+ * statements resolve metrics from the SQL passed to each execute call. Bind values are captured only when a
+ * {@link SlowQueryLog} is configured.
+ */
+class StatementHandler implements InvocationHandler {
+    private final Statement target;
+    private final JdbcMetrics metrics;
+    private final SlowQueryLog slowQueryLog;
+    private final long connectionWaitNanos;
+    private StatementMetrics statementMetrics;
+    private String sql;
+    private Object[] bindValues;
+    private int bindCount;
+    private int batchSize;
+    /**
+     * Execute time of the last call, reported with a result set obtained later by {@code getResultSet}
+     */
+    private long lastExecuteNanos;
+
+    private StatementHandler(Statement target, JdbcMetrics metrics, SlowQueryLog slowQueryLog,
+                             long connectionWaitNanos, String sql) {
+        this.target = target;
+        this.metrics = metrics;
+        this.slowQueryLog = slowQueryLog;
+        this.connectionWaitNanos = connectionWaitNanos;
+        this.sql = sql;
+        if (sql != null) {
+            this.statementMetrics = metrics.statement(SqlNormalizer.normalize(sql));
+        }
+    }
+
+    static Statement proxy(Statement statement, Class<?> statementInterface, JdbcMetrics metrics,
+                           SlowQueryLog slowQueryLog, long connectionWaitNanos, String sql) {
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{statementInterface},
+                new StatementHandler(statement, metrics, slowQueryLog, connectionWaitNanos, sql));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String methodName = method.getName();
+        switch (methodName) {
+            case "executeQuery":
+                return executeQuery(method, args);
+            case "execute":
+                return executeAny(method, args);
+            case "executeUpdate":
+            case "executeLargeUpdate":
+                return executeUpdate(method, args);
+            case "executeBatch":
+            case "executeLargeBatch":
+                return executeBatch(method, args);
+            case "addBatch":
+                if (args != null && args.length == 1) {
+                    resolveStatementMetrics(args);
+                }
+                batchSize++;
+                return invokeTarget(method, args);
+            case "clearBatch":
+                batchSize = 0;
+                return invokeTarget(method, args);
+            case "clearParameters":
+                bindValues = null;
+                bindCount = 0;
+                return invokeTarget(method, args);
+            case "getResultSet":
+                return wrapResultSet((ResultSet) invokeTarget(method, args), lastExecuteNanos);
+            default:
+                if (slowQueryLog != null && isBindValueSetter(methodName, args)) {
+                    captureBindValue((Integer) args[0], methodName.equals("setNull") ? null : args[1]);
+                }
+                return invokeTarget(method, args);
+        }
+    }
+
+    private ResultSet executeQuery(Method method, Object[] args) throws Throwable {
+        resolveStatementMetrics(args);
+        long start = System.nanoTime();
+        ResultSet resultSet = (ResultSet) execute(method, args);
+        return wrapResultSet(resultSet, System.nanoTime() - start);
+    }
+
+    private Object executeAny(Method method, Object[] args) throws Throwable {
+        resolveStatementMetrics(args);
+        long start = System.nanoTime();
+        boolean hasResultSet = (Boolean) execute(method, args);
+        long executeNanos = System.nanoTime() - start;
+        if (!hasResultSet) {
+            long affectedRows = Math.max(target.getUpdateCount(), 0);
+            statementMetrics.recordRowsAffected(affectedRows);
+            reportIfSlow(false, executeNanos, 0L, () -> affectedRows);
+        }
+        return hasResultSet;
+    }
+
+    private Object executeUpdate(Method method, Object[] args) throws Throwable {
+        resolveStatementMetrics(args);
+        long start = System.nanoTime();
+        Number affectedRows = (Number) execute(method, args);
+        long executeNanos = System.nanoTime() - start;
+        statementMetrics.recordRowsAffected(affectedRows.longValue());
+        reportIfSlow(false, executeNanos, 0L, affectedRows::longValue);
+        return affectedRows;
+    }
+
+    private Object executeBatch(Method method, Object[] args) throws Throwable {
+        resolveStatementMetrics(args);
+        statementMetrics.recordBatch(batchSize);
+        batchSize = 0;
+        long start = System.nanoTime();
+        Object result = execute(method, args);
+        long executeNanos = System.nanoTime() - start;
+        long affectedRows = 0;
+        if (result instanceof int[]) {
+            for (int rows : (int[]) result) {
+                affectedRows += Math.max(rows, 0);
+            }
+        } else if (result instanceof long[]) {
+            for (long rows : (long[]) result) {
+                affectedRows += Math.max(rows, 0);
+            }
+        }
+        statementMetrics.recordRowsAffected(affectedRows);
+        long totalRows = affectedRows;
+        reportIfSlow(false, executeNanos, 0L, () -> totalRows);
+        return result;
+    }
+
+    private Object execute(Method method, Object[] args) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            Object result = invokeTarget(method, args);
+            lastExecuteNanos = System.nanoTime() - start;
+            statementMetrics.recordExecution(lastExecuteNanos);
+            return result;
+        } catch (SQLException e) {
+            statementMetrics.recordError();
+            throw e;
+        }
+    }
+
+    private void resolveStatementMetrics(Object[] args) {
+        if (args != null && args.length > 0 && args[0] instanceof String) {
+            sql = (String) args[0];
+            statementMetrics = metrics.statement(SqlNormalizer.normalize(sql));
+        } else if (statementMetrics == null) {
+            statementMetrics = metrics.statement(JdbcMetrics.OTHER_STATEMENTS);
+        }
+    }
+
+    private ResultSet wrapResultSet(ResultSet resultSet, long executeNanos) {
+        if (resultSet == null) {
+            return null;
+        }
+        StatementMetrics resultSetMetrics = statementMetrics;
+        return ResultSetHandler.proxy(resultSet, (fetchNanos, rows) -> {
+            resultSetMetrics.recordFetch(fetchNanos, rows);
+            reportIfSlow(true, executeNanos, fetchNanos, () -> rows);
+        });
+    }
+
+    private void reportIfSlow(boolean query, long executeNanos, long fetchNanos, RowCount rowCount)
+            throws SQLException {
+        if (slowQueryLog != null && slowQueryLog.isSlow(executeNanos + fetchNanos)) {
+            Object[] binds = bindValues == null ? null : Arrays.copyOf(bindValues, bindCount);
+            slowQueryLog.report(sql, binds, query, rowCount.get(), executeNanos, fetchNanos, connectionWaitNanos);
+        }
+    }
+
+    private interface RowCount {
+        long get() throws SQLException;
+    }
+
+    private static boolean isBindValueSetter(String methodName, Object[] args) {
+        return methodName.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer;
+    }
+
+    private void captureBindValue(int index, Object value) {
+        if (index < 1) {
+            return;
+        }
+        if (bindValues == null) {
+            bindValues = new Object[Math.max(index, 4)];
+        } else if (bindValues.length < index) {
+            bindValues = Arrays.copyOf(bindValues, Math.max(index, bindValues.length * 2));
+        }
+        bindValues[index - 1] = value;
+        bindCount = Math.max(bindCount, index);
+    }
+
+    private Object invokeTarget(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
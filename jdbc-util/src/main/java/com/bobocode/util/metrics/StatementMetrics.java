@@ -0,0 +1,48 @@
+package com.bobocode.util.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link StatementMetrics} accumulates execution statistics of a single normalized SQL statement.
+ */
+public class StatementMetrics {
+    private final String sql;
+    private final LatencyHistogram executeTime = new LatencyHistogram();
+    private final LatencyHistogram fetchTime = new LatencyHistogram();
+    private final LatencyHistogram batchSize = new LatencyHistogram();
+    private final LongAdder rowsRead = new LongAdder();
+    private final LongAdder rowsAffected = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    StatementMetrics(String sql) {
+        this.sql = sql;
+    }
+
+    public void recordExecution(long nanos) {
+        executeTime.record(nanos);
+    }
+
+    public void recordFetch(long nanos, long rows) {
+        fetchTime.record(nanos);
+        rowsRead.add(rows);
+    }
+
+    public void recordBatch(int statements) {
+        batchSize.record(statements);
+    }
+
+    public void recordRowsAffected(long rows) {
+        if (rows > 0) {
+            rowsAffected.add(rows);
+        }
+    }
+
+    public void recordError() {
+        errors.increment();
+    }
+
+    StatementSnapshot snapshot() {
+        return new StatementSnapshot(sql, executeTime.snapshot(), fetchTime.snapshot(), batchSize.snapshot(),
+                rowsRead.sum(), rowsAffected.sum(), errors.sum());
+    }
+}
@@ -0,0 +1,21 @@
+package com.bobocode.util.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * An immutable view of {@link StatementMetrics}. Execute and fetch times are in nanoseconds.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class StatementSnapshot {
+    private final String sql;
+    private final HistogramSnapshot executeTime;
+    private final HistogramSnapshot fetchTime;
+    private final HistogramSnapshot batchSize;
+    private final long rowsRead;
+    private final long rowsAffected;
+    private final long errors;
+}
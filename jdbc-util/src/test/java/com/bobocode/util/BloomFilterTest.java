@@ -0,0 +1,99 @@
+package com.bobocode.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class BloomFilterTest {
+
+    @Test
+    public void testAddedValuesAreNeverReportedAbsent() {
+        BloomFilter filter = new BloomFilter(100_000, 0.01);
+        Random random = new Random(7);
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            values.add(Long.toHexString(random.nextLong()) + "@mail.com");
+        }
+        values.add("");
+        values.add("\u0436\u0443\u043a@mail.com");
+        values.forEach(filter::add);
+
+        for (String value : values) {
+            assertThat(value, filter.mightContain(value), is(true));
+        }
+    }
+
+    @Test
+    public void testOverfilledFilterStillHasNoFalseNegatives() {
+        BloomFilter filter = new BloomFilter(10, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("user" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("user" + i), is(true));
+        }
+        assertThat(filter.getExpectedFalsePositiveProbability(), greaterThan(0.5));
+    }
+
+    @Test
+    public void testFalsePositiveRateIsCloseToTarget() {
+        BloomFilter filter = new BloomFilter(50_000, 0.01);
+        for (int i = 0; i < 50_000; i++) {
+            filter.add("user" + i + "@mail.com");
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("new" + i + "@mail.com")) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives / 100_000.0, lessThan(0.02));
+        assertThat(filter.getExpectedFalsePositiveProbability(), closeTo(0.01, 0.005));
+    }
+
+    @Test
+    public void testFilterIsSizedForExpectedElements() {
+        BloomFilter filter = new BloomFilter(1_000, 0.01);
+
+        assertThat(filter.getBitSize(), allOf(greaterThanOrEqualTo(9_586L), lessThan(9_586L + 64)));
+        assertThat(filter.getHashCount(), is(7));
+        assertThat(filter.getSetBitCount(), is(0L));
+        assertThat(filter.mightContain("anything"), is(false));
+    }
+
+    @Test
+    public void testConcurrentAddsAreNotLost() throws InterruptedException {
+        BloomFilter filter = new BloomFilter(40_000, 0.01);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int thread = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    filter.add(thread + ":" + i);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (int t = 0; t < 4; t++) {
+            for (int i = 0; i < 10_000; i++) {
+                assertThat(filter.mightContain(t + ":" + i), is(true));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testProbabilityMustBeBetweenZeroAndOne() {
+        new BloomFilter(100, 1.0);
+    }
+}
@@ -0,0 +1,147 @@
+package com.bobocode.util;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class EmailExistenceServiceTest {
+    private ScanHookDataSource dataSource;
+    private Connection keepAlive;
+
+    @Before
+    public void setUp() throws SQLException {
+        dataSource = new ScanHookDataSource();
+        dataSource.setURL("jdbc:h2:mem:email_existence_service_test");
+        keepAlive = dataSource.getConnection();
+        execute("CREATE TABLE users (id BIGINT AUTO_INCREMENT PRIMARY KEY, email VARCHAR(255) NOT NULL UNIQUE)");
+        execute("INSERT INTO users (email) SELECT CONCAT('user', x, '@mail.com') FROM SYSTEM_RANGE(1, 1000)");
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        keepAlive.close();
+    }
+
+    @Test
+    public void testAbsentEmailsSkipTheDatabase() {
+        EmailExistenceService emailService = new EmailExistenceService(dataSource, "users", "email");
+
+        assertThat(emailService.exists("user1@mail.com"), is(true));
+        assertThat(emailService.exists("user1000@mail.com"), is(true));
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(emailService.exists("new" + i + "@mail.com"), is(false));
+        }
+        assertThat(emailService.getDatabaseHitCount(), equalTo(2L));
+        assertThat(emailService.getFilterMissCount(), greaterThan(9_500L));
+        assertThat(emailService.getObservedFalsePositiveRate(), lessThan(0.05));
+        assertThat(emailService.getExpectedFalsePositiveRate(), lessThan(0.05));
+    }
+
+    @Test
+    public void testStoredEmailsAreNeverReportedAbsent() {
+        EmailExistenceService emailService = new EmailExistenceService(dataSource, "users", "email");
+
+        for (int i = 1; i <= 1000; i++) {
+            assertThat(emailService.exists("user" + i + "@mail.com"), is(true));
+        }
+        assertThat(emailService.getFilterMissCount(), is(0L));
+    }
+
+    @Test
+    public void testRecordedInsertsAreFound() throws SQLException {
+        EmailExistenceService emailService = new EmailExistenceService(dataSource, "users", "email");
+        execute("INSERT INTO users (email) VALUES ('jane@mail.com')");
+
+        assertThat(emailService.exists("jane@mail.com"), is(false));
+        emailService.recordInsert("jane@mail.com");
+        assertThat(emailService.exists("jane@mail.com"), is(true));
+    }
+
+    @Test
+    public void testRebuildDropsDeletedEmails() throws SQLException {
+        EmailExistenceService emailService = new EmailExistenceService(dataSource, "users", "email");
+        execute("DELETE FROM users WHERE id > 10");
+
+        emailService.rebuild();
+        for (int i = 11; i <= 1000; i++) {
+            emailService.exists("user" + i + "@mail.com");
+        }
+        assertThat(emailService.getFalsePositiveCount(), lessThan(20L));
+        assertThat(emailService.exists("user10@mail.com"), is(true));
+    }
+
+    @Test
+    public void testInsertsRecordedDuringRebuildAreKept() throws SQLException {
+        EmailExistenceService emailService = new EmailExistenceService(dataSource, "users", "email");
+        dataSource.afterScan = () -> {
+            execute("INSERT INTO users (email) VALUES ('late@mail.com')");
+            emailService.recordInsert("late@mail.com");
+        };
+
+        emailService.rebuild();
+        assertThat(emailService.exists("late@mail.com"), is(true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTableNameIsValidated() {
+        new EmailExistenceService(dataSource, "users; DROP TABLE users", "email");
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Statement statement = keepAlive.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private interface SqlAction {
+        void run() throws SQLException;
+    }
+
+    /**
+     * Runs an action right after the email scan query is executed, before its rows are read
+     */
+    private static class ScanHookDataSource extends JdbcDataSource {
+        private SqlAction afterScan;
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connection = super.getConnection();
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        Object result = invoke(connection, method, args);
+                        return method.getName().equals("createStatement") ? hook((Statement) result) : result;
+                    });
+        }
+
+        private Statement hook(Statement statement) {
+            return (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Statement.class},
+                    (proxy, method, args) -> {
+                        Object result = invoke(statement, method, args);
+                        if (method.getName().equals("executeQuery") && args[0].equals("SELECT email FROM users")
+                                && afterScan != null) {
+                            afterScan.run();
+                        }
+                        return result;
+                    });
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
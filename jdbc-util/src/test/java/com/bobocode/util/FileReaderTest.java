@@ -0,0 +1,67 @@
+package com.bobocode.util;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class FileReaderTest {
+
+    @Test
+    public void testCrLfTerminatorsAreNormalizedAndTheLastOneIsDropped() {
+        String content = FileReader.readWholeFileFromResources("file-reader/crlf.sql");
+
+        assertThat(content, equalTo("CREATE TABLE a (id BIGINT);\nCREATE TABLE b (id BIGINT);"));
+    }
+
+    @Test
+    public void testMixedTerminatorsMatchJoiningLines() {
+        String content = FileReader.readWholeFileFromResources("file-reader/mixed.sql");
+
+        assertThat(content, equalTo("line1\nline2\nline3\n\nline5"));
+    }
+
+    @Test
+    public void testCrLfSplitByTheReadBufferIsOneTerminator() {
+        String content = FileReader.readWholeFileFromResources("file-reader/boundary.sql");
+
+        assertThat(content.length(), is(8193));
+        assertThat(content.substring(8190), equalTo("x\ny"));
+    }
+
+    @Test
+    public void testByteOrderMarkIsSkipped() throws IOException {
+        assertThat(FileReader.readWholeFileFromResources("file-reader/bom.sql"), equalTo("SELECT '\u0436';"));
+        try (BufferedReader reader = new BufferedReader(FileReader.openResourceReader("file-reader/bom.sql"))) {
+            assertThat(reader.readLine(), equalTo("SELECT '\u0436';"));
+        }
+    }
+
+    @Test
+    public void testResourceReaderKeepsLineTerminators() throws IOException {
+        try (Reader reader = FileReader.openResourceReader("file-reader/crlf.sql")) {
+            String content = new BufferedReader(reader).lines().collect(Collectors.joining("|"));
+            assertThat(content, equalTo("CREATE TABLE a (id BIGINT);|CREATE TABLE b (id BIGINT);"));
+        }
+    }
+
+    @Test
+    public void testCachedFileIsReadOnceUntilTheCacheIsCleared() {
+        String content = FileReader.readWholeFileFromResourcesCached("file-reader/crlf.sql");
+
+        assertThat(content, equalTo(FileReader.readWholeFileFromResources("file-reader/crlf.sql")));
+        assertThat(FileReader.readWholeFileFromResourcesCached("file-reader/crlf.sql"), sameInstance(content));
+        FileReader.clearCache();
+        assertThat(FileReader.readWholeFileFromResourcesCached("file-reader/crlf.sql"), not(sameInstance(content)));
+    }
+
+    @Test(expected = FileReaderException.class)
+    public void testMissingResourceIsReported() {
+        FileReader.readWholeFileFromResources("file-reader/missing.sql");
+    }
+}
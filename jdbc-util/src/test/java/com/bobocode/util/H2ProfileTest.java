@@ -0,0 +1,82 @@
+package com.bobocode.util;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class H2ProfileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * {@code PAGE_SIZE} is not listed in {@code INFORMATION_SCHEMA.SETTINGS} of MVStore databases, the other settings
+     * of every profile must be in effect after the database is opened
+     */
+    @Test
+    public void testFileDatabaseAppliesProfileSettings() throws SQLException {
+        for (H2Profile profile : H2Profile.values()) {
+            Map<String, String> expected = parseUrlSettings(profile.toUrlSettings());
+            DataSource dataSource = JdbcUtil.createFileH2DataSource(folder.getRoot().toPath()
+                    .resolve(profile.name().toLowerCase()), profile);
+
+            try (Connection connection = dataSource.getConnection()) {
+                Map<String, String> settings = selectSettings(connection);
+
+                assertThat(profile.name(), settings.get("WRITE_DELAY"), equalTo(expected.get("WRITE_DELAY")));
+                assertThat(profile.name(), settings.get("LOCK_MODE"), equalTo(expected.get("LOCK_MODE")));
+                assertThat(profile.name(), settings.get("CACHE_SIZE"), equalTo(expected.get("CACHE_SIZE")));
+                assertThat(profile.name(), Integer.parseInt(settings.get("info.CACHE_MAX_SIZE")) * 1024,
+                        equalTo(Integer.parseInt(expected.get("CACHE_SIZE"))));
+                shutdown(connection);
+            }
+            assertThat(folder.getRoot().toPath().resolve(profile.name().toLowerCase() + ".mv.db").toFile().exists(),
+                    is(true));
+        }
+    }
+
+    @Test
+    public void testUrlSettingsListEverySetting() {
+        for (H2Profile profile : H2Profile.values()) {
+            assertThat(parseUrlSettings(profile.toUrlSettings()).keySet(),
+                    containsInAnyOrder("CACHE_SIZE", "WRITE_DELAY", "LOCK_MODE", "PAGE_SIZE"));
+        }
+    }
+
+    private static Map<String, String> parseUrlSettings(String urlSettings) {
+        Map<String, String> settings = new HashMap<>();
+        for (String setting : urlSettings.split(";")) {
+            String[] nameAndValue = setting.split("=");
+            settings.put(nameAndValue[0], nameAndValue[1]);
+        }
+        return settings;
+    }
+
+    private static Map<String, String> selectSettings(Connection connection) throws SQLException {
+        Map<String, String> settings = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT name, value FROM INFORMATION_SCHEMA.SETTINGS")) {
+            while (rs.next()) {
+                settings.put(rs.getString(1), rs.getString(2));
+            }
+        }
+        return settings;
+    }
+
+    private static void shutdown(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SHUTDOWN");
+        }
+    }
+}
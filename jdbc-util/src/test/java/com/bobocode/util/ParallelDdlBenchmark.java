@@ -0,0 +1,76 @@
+package com.bobocode.util;
+
+import org.h2.jdbcx.JdbcDataSource;
+
+import javax.sql.DataSource;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Compares {@link SqlScriptExecutor} with {@link ParallelDdlExecutor} on a script of independent tables, each filled
+ * by {@code CREATE TABLE ... AS SELECT} and followed by two indexes, so statements are expensive enough for
+ * concurrency to matter. H2 serializes sessions of a database unless {@code MULTI_THREADED=TRUE} is set, so both modes
+ * are measured.
+ * <p>
+ * Run it as a plain Java program with optional numbers of tables and rows per table, e.g.
+ * {@code ParallelDdlBenchmark 16 100000}.
+ */
+public class ParallelDdlBenchmark {
+    private static final int[] PARALLELISMS = {1, 2, 4};
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws SQLException {
+        int tables = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        String script = buildScript(tables, rows);
+        System.out.printf("cpus: %d%n", Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-16s %12s %10s%n", "database", "parallelism", "ms");
+        int database = 0;
+        for (int round = 0; round < 2; round++) { // the first round warms up the JIT
+            for (boolean multiThreaded : new boolean[]{false, true}) {
+                for (int parallelism : PARALLELISMS) {
+                    long total = 0;
+                    for (int i = 0; i < ROUNDS; i++) {
+                        JdbcDataSource dataSource = new JdbcDataSource();
+                        dataSource.setURL(String.format("jdbc:h2:mem:ddl_benchmark_%d;DB_CLOSE_DELAY=-1;" +
+                                "MULTI_THREADED=%s", database++, multiThreaded ? "TRUE" : "FALSE"));
+                        total += run(dataSource, script, parallelism);
+                    }
+                    if (round > 0) {
+                        System.out.printf("%-16s %12d %10d%n", multiThreaded ? "multi-threaded" : "default",
+                                parallelism, total / ROUNDS / 1_000_000);
+                    }
+                }
+            }
+        }
+    }
+
+    private static long run(DataSource dataSource, String script, int parallelism) throws SQLException {
+        try (Connection keepAlive = dataSource.getConnection()) {
+            long start = System.nanoTime();
+            if (parallelism == 1) {
+                SqlScriptExecutor.execute(keepAlive, new StringReader(script));
+            } else {
+                new ParallelDdlExecutor(dataSource, parallelism).execute(new StringReader(script));
+            }
+            long elapsed = System.nanoTime() - start;
+            try (Statement statement = keepAlive.createStatement()) {
+                statement.execute("SHUTDOWN");
+            }
+            return elapsed;
+        }
+    }
+
+    private static String buildScript(int tables, int rows) {
+        StringBuilder script = new StringBuilder();
+        for (int i = 0; i < tables; i++) {
+            script.append(String.format("CREATE TABLE t%1$d AS SELECT x AS id, RAND() AS v, CONCAT('name', x) AS name " +
+                    "FROM SYSTEM_RANGE(1, %2$d);%n", i, rows));
+            script.append(String.format("CREATE INDEX t%1$d_v_idx ON t%1$d(v);%n", i));
+            script.append(String.format("CREATE INDEX t%1$d_name_idx ON t%1$d(name);%n", i));
+        }
+        return script.toString();
+    }
+}
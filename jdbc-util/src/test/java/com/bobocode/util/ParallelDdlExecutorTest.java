@@ -0,0 +1,134 @@
+package com.bobocode.util;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ParallelDdlExecutorTest {
+
+    @Test
+    public void testIndependentTablesHaveNoDependencies() {
+        List<Set<Integer>> graph = graph(
+                "CREATE TABLE a (id BIGINT)",
+                "CREATE TABLE IF NOT EXISTS b (id BIGINT)",
+                "CREATE TABLE \"C\" (id BIGINT)");
+
+        assertThat(graph.get(0), is(empty()));
+        assertThat(graph.get(1), is(empty()));
+        assertThat(graph.get(2), is(empty()));
+    }
+
+    @Test
+    public void testForeignKeyReferencesWaitForReferencedTable() {
+        List<Set<Integer>> graph = graph(
+                "CREATE TABLE broker (id BIGINT PRIMARY KEY)",
+                "CREATE TABLE sales_group (id BIGINT PRIMARY KEY)",
+                "CREATE TABLE broker_sales_group (broker_id BIGINT REFERENCES public.broker, " +
+                        "sales_group_id BIGINT, FOREIGN KEY (sales_group_id) REFERENCES \"sales_group\"(id))",
+                "ALTER TABLE Broker ADD COLUMN name VARCHAR(255)");
+
+        assertThat(graph.get(2), contains(0, 1));
+        assertThat(graph.get(3), contains(0, 2));
+    }
+
+    @Test
+    public void testIndexesWaitForTheirTableAndLaterAltersWaitForIndexes() {
+        List<Set<Integer>> graph = graph(
+                "CREATE TABLE account (id BIGINT, email VARCHAR(255))",
+                "CREATE TABLE profile (id BIGINT)",
+                "CREATE UNIQUE INDEX account_email_idx ON account(email)",
+                "CREATE INDEX profile_id_idx ON profile(id)",
+                "ALTER TABLE account ADD COLUMN balance DECIMAL");
+
+        assertThat(graph.get(2), contains(0));
+        assertThat(graph.get(3), contains(1));
+        assertThat(graph.get(4), contains(0, 2));
+    }
+
+    @Test
+    public void testUnclassifiedStatementsAreBarriers() {
+        List<Set<Integer>> graph = graph(
+                "CREATE TABLE a (id BIGINT)",
+                "CREATE TABLE b (id BIGINT)",
+                "INSERT INTO a VALUES (1)",
+                "CREATE TABLE c (id BIGINT)",
+                "CREATE INDEX a_id_idx ON a(id)",
+                "CREATE SCHEMA reporting");
+
+        assertThat(graph.get(2), contains(0, 1));
+        assertThat(graph.get(3), contains(2));
+        assertThat(graph.get(4), contains(2));
+        assertThat(graph.get(5), contains(2, 3, 4));
+    }
+
+    @Test
+    public void testEveryDependencyPointsToAnEarlierStatement() {
+        List<Set<Integer>> graph = graph(
+                "CREATE TABLE a (id BIGINT PRIMARY KEY)",
+                "CREATE TABLE b (a_id BIGINT REFERENCES a)",
+                "CREATE INDEX b_idx ON b(a_id)",
+                "COMMENT ON TABLE a IS 'a'",
+                "ALTER TABLE b ADD CONSTRAINT b_a_fk FOREIGN KEY (a_id) REFERENCES a(id)");
+
+        for (int i = 0; i < graph.size(); i++) {
+            for (Integer dependency : graph.get(i)) {
+                assertThat(dependency, lessThan(i));
+            }
+        }
+    }
+
+    @Test
+    public void testExecuteCreatesAllObjectsAndReportsTheRootFailure() throws SQLException {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:parallel_ddl_executor_test;DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            int executed = new ParallelDdlExecutor(dataSource, 3).execute(new StringReader(
+                    "CREATE TABLE a (id BIGINT PRIMARY KEY);" +
+                            "CREATE TABLE b (a_id BIGINT REFERENCES a(id));" +
+                            "CREATE INDEX b_idx ON b(a_id);" +
+                            "CREATE TABLE c (id BIGINT);"));
+            assertThat(executed, is(4));
+            try (ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES " +
+                    "WHERE TABLE_SCHEMA = 'PUBLIC'")) {
+                rs.next();
+                assertThat(rs.getInt(1), is(3));
+            }
+
+            try {
+                new ParallelDdlExecutor(dataSource, 3).execute(new StringReader(
+                        "CREATE TABLE d (id BIGINT REFERENCES missing(id));" +
+                                "CREATE INDEX d_idx ON d(id);" +
+                                "CREATE TABLE e (id BIGINT);"));
+                throw new AssertionError("Script with a broken statement was executed");
+            } catch (SqlScriptException e) {
+                assertThat(e.getMessage(), containsString("missing"));
+            }
+            try (ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES " +
+                    "WHERE TABLE_NAME = 'E'")) {
+                rs.next();
+                assertThat(rs.getInt(1), is(1));
+            }
+            statement.execute("SHUTDOWN");
+        }
+    }
+
+    private static List<Set<Integer>> graph(String... sql) {
+        List<SqlScriptStatement> statements = new ArrayList<>();
+        for (int i = 0; i < sql.length; i++) {
+            statements.add(new SqlScriptStatement(i, i + 1, sql[i]));
+        }
+        return ParallelDdlExecutor.buildDependencyGraph(statements);
+    }
+}
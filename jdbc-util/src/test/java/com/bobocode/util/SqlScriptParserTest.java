@@ -0,0 +1,118 @@
+package com.bobocode.util;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class SqlScriptParserTest {
+
+    @Test
+    public void testStatementsAreSplitBySemicolons() {
+        List<SqlScriptStatement> statements = parse("CREATE TABLE a (id BIGINT);\n" +
+                ";;\n" +
+                "  INSERT INTO a\n  VALUES (1);\n" +
+                "SELECT * FROM a");
+
+        assertThat(sql(statements), contains("CREATE TABLE a (id BIGINT)", "INSERT INTO a\n  VALUES (1)",
+                "SELECT * FROM a"));
+        assertThat(statements.get(1).getIndex(), is(1));
+        assertThat(statements.get(1).getLineNumber(), is(3));
+        assertThat(statements.get(2).getLineNumber(), is(5));
+    }
+
+    @Test
+    public void testEmptyScriptHasNoStatements() {
+        assertThat(parse("  \n ; -- nothing here\n/* or here */"), is(empty()));
+    }
+
+    @Test
+    public void testLineCommentsAreDropped() {
+        assertThat(sql(parse("SELECT 1 -- first; 'not a string\nFROM dual;\n-- SELECT 2;\nSELECT 3;")),
+                contains("SELECT 1 \nFROM dual", "SELECT 3"));
+    }
+
+    @Test
+    public void testNestedBlockCommentsAreDropped() {
+        assertThat(sql(parse("SELECT /* outer /* inner; */ still comment; */ 1;/**/SELECT 2;")),
+                contains("SELECT  1", "SELECT 2"));
+        assertThat(sql(parse("SELECT 1/* comment */+ 2;")), contains("SELECT 1 + 2"));
+    }
+
+    @Test
+    public void testSemicolonsInsideStringsAreKept() {
+        assertThat(sql(parse("INSERT INTO t VALUES ('a;b', 'it''s; -- not a comment', '/* nor this */');SELECT 1;")),
+                contains("INSERT INTO t VALUES ('a;b', 'it''s; -- not a comment', '/* nor this */')", "SELECT 1"));
+    }
+
+    @Test
+    public void testQuotedIdentifiersAreKept() {
+        assertThat(sql(parse("CREATE TABLE \"odd;name\" (\"say \"\"hi\"\";\" INT);SELECT 1;")),
+                contains("CREATE TABLE \"odd;name\" (\"say \"\"hi\"\";\" INT)", "SELECT 1"));
+    }
+
+    @Test
+    public void testDollarQuotedBodiesAreKept() {
+        String function = "CREATE FUNCTION f() RETURNS INT AS $$ BEGIN RETURN 1; END; $$ LANGUAGE plpgsql";
+        String tagged = "CREATE FUNCTION g() RETURNS TEXT AS $body$ SELECT $$;$$ || 'x;'; $body$ LANGUAGE sql";
+
+        assertThat(sql(parse(function + ";" + tagged + ";SELECT 1;")), contains(function, tagged, "SELECT 1"));
+    }
+
+    @Test
+    public void testPositionalParametersAreNotDollarQuotes() {
+        assertThat(sql(parse("SELECT $1 + $2;SELECT $a$;$a$;")), contains("SELECT $1 + $2", "SELECT $a$;$a$"));
+    }
+
+    @Test
+    public void testStatementsLongerThanTheBufferAreParsed() {
+        String longString = String.join("", Collections.nCopies(20_000, "x;"));
+        String longTag = "$" + String.join("", Collections.nCopies(10_000, "t")) + "$";
+        String dollarQuoted = "SELECT " + longTag + " ; " + longTag;
+
+        assertThat(sql(parse("SELECT '" + longString + "';" + dollarQuoted + ";")),
+                contains("SELECT '" + longString + "'", dollarQuoted));
+    }
+
+    @Test
+    public void testUnterminatedStringFailsWithItsLine() {
+        try {
+            parse("SELECT 1;\n\nSELECT 'abc;\nSELECT 2;");
+            throw new AssertionError("Unterminated string was parsed");
+        } catch (SqlScriptException e) {
+            assertThat(e.getMessage(), startsWith("Unterminated string literal in statement #2 at line 3"));
+            assertThat(e.getStatement().getSql(), startsWith("SELECT 'abc;"));
+        }
+    }
+
+    @Test(expected = SqlScriptException.class)
+    public void testUnterminatedIdentifierFails() {
+        parse("SELECT \"abc FROM t;");
+    }
+
+    @Test(expected = SqlScriptException.class)
+    public void testUnterminatedDollarQuoteFails() {
+        parse("DO $$ BEGIN NULL; END;");
+    }
+
+    @Test(expected = SqlScriptException.class)
+    public void testUnterminatedBlockCommentFails() {
+        parse("SELECT 1; /* outer /* inner */ SELECT 2;");
+    }
+
+    private static List<SqlScriptStatement> parse(String script) {
+        try (Stream<SqlScriptStatement> statements = SqlScriptParser.stream(new StringReader(script))) {
+            return statements.collect(Collectors.toList());
+        }
+    }
+
+    private static List<String> sql(List<SqlScriptStatement> statements) {
+        return statements.stream().map(SqlScriptStatement::getSql).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,172 @@
+package com.bobocode.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class StripedLongMapTest {
+
+    @Test
+    public void testGetReturnsPutValuesAndNullForMissingKeys() {
+        StripedLongMap<String> map = new StripedLongMap<>();
+        map.put(1L, "one");
+        map.put(-7L, "minus seven");
+        map.put(0L, "zero");
+        map.put(1L, "uno");
+
+        assertThat(map.get(1L), equalTo("uno"));
+        assertThat(map.get(-7L), equalTo("minus seven"));
+        assertThat(map.get(0L), equalTo("zero"));
+        assertThat(map.get(2L), nullValue());
+        assertThat(map.size(), is(3));
+    }
+
+    @Test
+    public void testProbingFindsAllKeysOfOneStripe() {
+        StripedLongMap<Long> map = new StripedLongMap<>(1);
+        Map<Long, Long> entries = LongStream.range(0, 10_000).boxed()
+                .collect(Collectors.toMap(key -> key << 16, key -> key));
+        map.update(Collections.emptySet(), entries);
+
+        entries.forEach((key, value) -> assertThat(map.get(key), equalTo(value)));
+        assertThat(map.get(10_000L << 16), nullValue());
+        assertThat(map.size(), is(10_000));
+    }
+
+    @Test
+    public void testProbingWrapsAroundTheEndOfTheTable() {
+        StripedLongMap<String> map = new StripedLongMap<>(1);
+        List<Long> lastSlotKeys = keysWithSlot(7, 3);
+        for (Long key : lastSlotKeys) {
+            map.put(key, "value" + key);
+        }
+
+        for (Long key : lastSlotKeys) {
+            assertThat(map.get(key), equalTo("value" + key));
+        }
+        assertThat(map.get(keysWithSlot(7, 4).get(3)), nullValue());
+    }
+
+    @Test
+    public void testRemoveThenReinsertKeepsCollidingKeysReachable() {
+        StripedLongMap<String> map = new StripedLongMap<>(1);
+        List<Long> keys = keysWithSlot(7, 3);
+        keys.forEach(key -> map.put(key, "first"));
+
+        map.remove(keys.get(0));
+        assertThat(map.get(keys.get(0)), nullValue());
+        assertThat(map.get(keys.get(1)), equalTo("first"));
+        assertThat(map.get(keys.get(2)), equalTo("first"));
+
+        map.put(keys.get(0), "second");
+        assertThat(map.get(keys.get(0)), equalTo("second"));
+        assertThat(map.get(keys.get(2)), equalTo("first"));
+        assertThat(map.size(), is(3));
+    }
+
+    @Test
+    public void testUpdateRemovesAndPutsInOneBatch() {
+        StripedLongMap<Long> map = new StripedLongMap<>(8);
+        map.update(Collections.emptySet(), LongStream.range(0, 80_000).boxed()
+                .collect(Collectors.toMap(key -> key, key -> key)));
+        List<Long> removed = LongStream.range(0, 80_000).filter(key -> key % 2 == 0).boxed()
+                .collect(Collectors.toList());
+        Map<Long, Long> puts = new HashMap<>();
+        puts.put(0L, -1L);
+        puts.put(100_000L, 100_000L);
+
+        map.update(removed, puts);
+
+        assertThat(map.get(0L), equalTo(-1L));
+        assertThat(map.get(2L), nullValue());
+        assertThat(map.get(3L), equalTo(3L));
+        assertThat(map.get(100_000L), equalTo(100_000L));
+        assertThat(map.size(), is(40_002));
+    }
+
+    @Test
+    public void testReplaceAllDropsPreviousEntries() {
+        StripedLongMap<String> map = new StripedLongMap<>(4);
+        map.put(1L, "one");
+        map.put(2L, "two");
+        Map<Long, String> entries = new HashMap<>();
+        entries.put(2L, "deux");
+        entries.put(3L, "trois");
+
+        map.replaceAll(entries);
+
+        assertThat(map.get(1L), nullValue());
+        assertThat(map.get(2L), equalTo("deux"));
+        assertThat(map.get(3L), equalTo("trois"));
+        assertThat(map.size(), is(2));
+
+        map.clear();
+        assertThat(map.size(), is(0));
+        assertThat(map.get(2L), nullValue());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullValuesAreRejected() {
+        new StripedLongMap<String>().put(1L, null);
+    }
+
+    @Test
+    public void testReadersAlwaysSeeKeysThatAreNeverRemoved() throws InterruptedException {
+        StripedLongMap<Long> map = new StripedLongMap<>(4);
+        map.update(Collections.emptySet(), LongStream.range(0, 1_000).boxed()
+                .collect(Collectors.toMap(key -> key, key -> key)));
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong misses = new AtomicLong();
+        List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            Thread reader = new Thread(() -> {
+                while (running.get()) {
+                    for (long key = 0; key < 1_000; key++) {
+                        if (map.get(key) == null) {
+                            misses.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+        for (long key = 1_000; key < 3_000; key++) {
+            map.put(key, key);
+            if (key % 2 == 0) {
+                map.remove(key);
+            }
+        }
+        running.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertThat(misses.get(), is(0L));
+        assertThat(map.size(), is(2_000));
+    }
+
+    /**
+     * Returns keys that hash into the given slot of a table with the minimal capacity of 8
+     */
+    private static List<Long> keysWithSlot(int slot, int count) {
+        List<Long> keys = new ArrayList<>();
+        for (long key = 1; keys.size() < count; key++) {
+            if ((StripedLongMap.mix(key) & 7) == slot) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,60 @@
+package com.bobocode.util.jfr;
+
+import com.bobocode.util.JdbcUtil;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ConnectionAcquireEventTest {
+    private static final String EVENT_NAME = "com.bobocode.jdbc.ConnectionAcquire";
+
+    @Test
+    public void testAcquisitionIsRecordedWhenThresholdIsLowered() throws IOException, SQLException {
+        List<RecordedEvent> events = recordAcquisition(Duration.ZERO);
+
+        assertThat(events, hasSize(1));
+        assertThat(events.get(0).getString("dataSource"), equalTo(JdbcDataSource.class.getName()));
+        assertThat(events.get(0).getBoolean("success"), is(true));
+    }
+
+    @Test
+    public void testAcquisitionBelowThresholdIsNotRecorded() throws IOException, SQLException {
+        List<RecordedEvent> events = recordAcquisition(Duration.ofHours(1));
+
+        assertThat(events, is(empty()));
+    }
+
+    private static List<RecordedEvent> recordAcquisition(Duration threshold) throws IOException, SQLException {
+        DataSource dataSource = JdbcUtil.createInMemoryH2DataSource("connection_acquire_event_test");
+        Path dump = Files.createTempFile("connection-acquire", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(EVENT_NAME).withThreshold(threshold);
+            recording.start();
+            try (Connection connection = JdbcUtil.getConnection(dataSource)) {
+                assertThat(connection.isValid(1), is(true));
+            }
+            recording.stop();
+            recording.dump(dump);
+            return RecordingFile.readAllEvents(dump).stream()
+                    .filter(event -> event.getEventType().getName().equals(EVENT_NAME))
+                    .collect(Collectors.toList());
+        } finally {
+            Files.delete(dump);
+        }
+    }
+}
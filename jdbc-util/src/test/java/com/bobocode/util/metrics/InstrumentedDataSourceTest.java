@@ -0,0 +1,173 @@
+package com.bobocode.util.metrics;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class InstrumentedDataSourceTest {
+    private final List<SlowQueryRecord> records = new CopyOnWriteArrayList<>();
+    private InstrumentedDataSource dataSource;
+    private Connection connection;
+
+    @Before
+    public void setUp() throws SQLException {
+        JdbcDataSource h2DataSource = new JdbcDataSource();
+        h2DataSource.setURL("jdbc:h2:mem:instrumented_data_source_test");
+        SlowQueryLog slowQueryLog = SlowQueryLog.builder()
+                .threshold(Duration.ZERO)
+                .maxRecordsPerSecond(Integer.MAX_VALUE)
+                .sink(records::add)
+                .build();
+        dataSource = new InstrumentedDataSource(h2DataSource, new JdbcMetrics(), slowQueryLog);
+        connection = dataSource.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE account (id BIGINT PRIMARY KEY, balance INT)");
+            statement.executeUpdate("INSERT INTO account VALUES (1, 10), (2, 20), (3, 30)");
+        }
+        records.clear();
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void testConnectionAcquireIsRecorded() {
+        assertThat(dataSource.getMetrics().getSnapshot().getConnectionAcquireTime().getCount(), is(1L));
+    }
+
+    @Test
+    public void testExecuteUpdateRecordsRowsAffected() {
+        StatementSnapshot insert = statement("INSERT INTO account VALUES (?, ?), (?, ?), (?, ?)");
+
+        assertThat(insert.getExecuteTime().getCount(), is(1L));
+        assertThat(insert.getRowsAffected(), is(3L));
+    }
+
+    @Test
+    public void testExecuteQueryRecordsFetchedRows() throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT * FROM account WHERE balance > ?")) {
+            statement.setInt(1, 15);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                }
+            }
+        }
+
+        StatementSnapshot select = statement("SELECT * FROM account WHERE balance > ?");
+        assertThat(select.getExecuteTime().getCount(), is(1L));
+        assertThat(select.getFetchTime().getCount(), is(1L));
+        assertThat(select.getRowsRead(), is(2L));
+        assertThat(records, hasSize(1));
+        assertThat(records.get(0).isQuery(), is(true));
+        assertThat(records.get(0).getRows(), is(2L));
+        assertThat(records.get(0).getBindValues(), contains("15"));
+    }
+
+    @Test
+    public void testExecuteRecordsRowsAffectedOfAnUpdate() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            assertThat(statement.execute("UPDATE account SET balance = balance + 1"), is(false));
+        }
+
+        StatementSnapshot update = statement("UPDATE account SET balance = balance + ?");
+        assertThat(update.getExecuteTime().getCount(), is(1L));
+        assertThat(update.getRowsAffected(), is(3L));
+        assertThat(records, hasSize(1));
+        assertThat(records.get(0).getRows(), is(3L));
+    }
+
+    @Test
+    public void testResultSetOfExecuteIsReportedWithExecuteTime() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            assertThat(statement.execute("SELECT * FROM account"), is(true));
+            try (ResultSet resultSet = statement.getResultSet()) {
+                while (resultSet.next()) {
+                }
+            }
+        }
+
+        StatementSnapshot select = statement("SELECT * FROM account");
+        assertThat(select.getRowsRead(), is(3L));
+        assertThat(records, hasSize(1));
+        assertThat(records.get(0).getRows(), is(3L));
+        assertThat(records.get(0).getExecuteNanos(), greaterThan(0L));
+    }
+
+    @Test
+    public void testBatchRecordsSizeAndRowsAffected() throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("INSERT INTO account VALUES (?, ?)")) {
+            for (int id = 4; id <= 5; id++) {
+                statement.setLong(1, id);
+                statement.setInt(2, 0);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+
+        StatementSnapshot insert = statement("INSERT INTO account VALUES (?, ?)");
+        assertThat(insert.getBatchSize().getCount(), is(1L));
+        assertThat(insert.getBatchSize().getMax(), is(2L));
+        assertThat(insert.getRowsAffected(), is(2L));
+    }
+
+    @Test
+    public void testFailedStatementIsCountedAsError() {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeQuery("SELECT * FROM missing_table");
+            throw new AssertionError("Query of a missing table succeeded");
+        } catch (SQLException e) {
+            assertThat(statement("SELECT * FROM missing_table").getErrors(), is(1L));
+        }
+    }
+
+    @Test
+    public void testCommitsAndRollbacksAreCounted() throws SQLException {
+        connection.setAutoCommit(false);
+        connection.commit();
+        connection.rollback();
+
+        JdbcMetricsSnapshot snapshot = dataSource.getMetrics().getSnapshot();
+        assertThat(snapshot.getCommitTime().getCount(), is(1L));
+        assertThat(snapshot.getRollbacks(), is(1L));
+    }
+
+    @Test
+    public void testRegisteringMBeanWithTheSameNameReplacesThePreviousOne() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new JdbcMetrics().registerMBean("instrumented-data-source-test");
+        try {
+            JdbcMetrics replacement = new JdbcMetrics();
+            replacement.recordRollback();
+
+            assertThat(replacement.registerMBean("instrumented-data-source-test"), equalTo(objectName));
+            assertThat(server.getAttribute(objectName, "RollbackCount"), equalTo(1L));
+        } finally {
+            server.unregisterMBean(objectName);
+        }
+    }
+
+    private StatementSnapshot statement(String normalizedSql) {
+        return dataSource.getMetrics().getSnapshot().getStatements().stream()
+                .filter(statement -> statement.getSql().equals(normalizedSql))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No metrics of " + normalizedSql));
+    }
+}
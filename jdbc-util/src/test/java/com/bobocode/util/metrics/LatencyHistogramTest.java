@@ -0,0 +1,88 @@
+package com.bobocode.util.metrics;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testEmptyHistogramReportsZeros() {
+        HistogramSnapshot snapshot = new LatencyHistogram().snapshot();
+
+        assertThat(snapshot.getCount(), is(0L));
+        assertThat(snapshot.getMean(), is(0L));
+        assertThat(snapshot.getP50(), is(0L));
+        assertThat(snapshot.getP999(), is(0L));
+        assertThat(snapshot.getMax(), is(0L));
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 0; value < 8; value++) {
+            histogram.record(value);
+        }
+        histogram.record(-5);
+
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.getCount(), is(9L));
+        assertThat(snapshot.getP50(), is(3L));
+        assertThat(snapshot.getMax(), is(7L));
+    }
+
+    @Test
+    public void testPercentilesOfUniformValuesAreWithinRelativeError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value);
+        }
+
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.getCount(), is(100_000L));
+        assertThat(snapshot.getMean(), is(50_000L));
+        assertWithinRelativeError(snapshot.getP50(), 50_000);
+        assertWithinRelativeError(snapshot.getP90(), 90_000);
+        assertWithinRelativeError(snapshot.getP99(), 99_000);
+        assertWithinRelativeError(snapshot.getP999(), 99_900);
+        assertThat(snapshot.getMax(), is(100_000L));
+    }
+
+    @Test
+    public void testPercentilesOfSkewedValuesAreWithinRelativeError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 9_900; i++) {
+            histogram.record(1_000_000);
+        }
+        for (int i = 0; i < 100; i++) {
+            histogram.record(250_000_000);
+        }
+
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertWithinRelativeError(snapshot.getP50(), 1_000_000);
+        assertWithinRelativeError(snapshot.getP99(), 1_000_000);
+        assertThat(snapshot.getP999(), is(250_000_000L));
+        assertThat(snapshot.getMax(), is(250_000_000L));
+    }
+
+    @Test
+    public void testEveryValueFallsIntoABucketWithinRelativeError() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            long value = random.nextLong() >>> 1 + random.nextInt(63);
+            long upperBound = LatencyHistogram.bucketUpperBound(LatencyHistogram.bucketIndex(value));
+
+            assertThat(upperBound, greaterThanOrEqualTo(value));
+            assertThat((double) (upperBound - value), lessThanOrEqualTo(value * 0.125));
+        }
+        assertThat(LatencyHistogram.bucketUpperBound(LatencyHistogram.bucketIndex(Long.MAX_VALUE)),
+                is(Long.MAX_VALUE));
+    }
+
+    private static void assertWithinRelativeError(long actual, long expected) {
+        assertThat((double) actual, closeTo(expected, expected * 0.125));
+    }
+}
@@ -0,0 +1,141 @@
+package com.bobocode.util.metrics;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class SlowQueryLogTest {
+    private static final String SQL = "SELECT * FROM account WHERE id = ?";
+    private final List<SlowQueryRecord> records = new CopyOnWriteArrayList<>();
+
+    @Test
+    public void testStatementIsSlowFromTheThresholdOn() {
+        SlowQueryLog slowQueryLog = SlowQueryLog.builder().threshold(Duration.ofMillis(10)).build();
+
+        assertThat(slowQueryLog.isSlow(TimeUnit.MILLISECONDS.toNanos(10) - 1), is(false));
+        assertThat(slowQueryLog.isSlow(TimeUnit.MILLISECONDS.toNanos(10)), is(true));
+    }
+
+    @Test
+    public void testFastStatementsAreNotLogged() throws SQLException {
+        SlowQueryLog slowQueryLog = SlowQueryLog.builder()
+                .threshold(Duration.ofHours(1))
+                .sink(records::add)
+                .build();
+        execute(slowQueryLog, "SET @counter = 1");
+        assertThat(records, is(empty()));
+
+        execute(SlowQueryLog.builder().threshold(Duration.ZERO).sink(records::add).build(), "SET @counter = 1");
+        assertThat(records, hasSize(1));
+        assertThat(records.get(0).getSql(), equalTo("SET @counter = 1"));
+    }
+
+    @Test
+    public void testSampleRateLimitsTheShareOfLoggedStatements() {
+        SlowQueryLog nothingSampled = unlimited().sampleRate(0.0).build();
+        reportTimes(nothingSampled, 1_000);
+        assertThat(records, is(empty()));
+
+        SlowQueryLog halfSampled = unlimited().sampleRate(0.5).build();
+        reportTimes(halfSampled, 10_000);
+        assertThat(records.size(), allOf(greaterThan(4_500), lessThan(5_500)));
+    }
+
+    @Test
+    public void testRateLimitBoundsRecordsPerSecond() {
+        SlowQueryLog slowQueryLog = SlowQueryLog.builder()
+                .maxRecordsPerSecond(5)
+                .sink(records::add)
+                .build();
+        reportTimes(slowQueryLog, 100);
+
+        // the loop may cross a second boundary, which grants another 5 permits
+        assertThat(records.size(), allOf(greaterThanOrEqualTo(5), lessThanOrEqualTo(10)));
+    }
+
+    @Test
+    public void testRateLimitIsNotExceededByConcurrentReporters() throws InterruptedException {
+        SlowQueryLog slowQueryLog = SlowQueryLog.builder()
+                .maxRecordsPerSecond(50)
+                .sink(records::add)
+                .build();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread(() -> reportTimes(slowQueryLog, 10_000));
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long seconds = TimeUnit.NANOSECONDS.toSeconds(records.get(records.size() - 1).getExecuteNanos()
+                - records.get(0).getExecuteNanos()) + 2;
+        assertThat((long) records.size(), allOf(greaterThanOrEqualTo(50L), lessThanOrEqualTo(50 * seconds)));
+    }
+
+    @Test
+    public void testStringBindValuesAreRedactedByDefault() {
+        SlowQueryLog slowQueryLog = SlowQueryLog.builder().sink(records::add).build();
+        report(slowQueryLog, new Object[]{42L, "john@mail.com", null, LocalDate.of(2020, 1, 1), new byte[]{1}});
+
+        assertThat(records.get(0).getBindValues(), contains("42", "<String>", "null", "2020-01-01", "<byte[]>"));
+    }
+
+    @Test
+    public void testRedactionPolicyIsConfigurable() {
+        Object[] bindValues = {42L, "john@mail.com"};
+        report(SlowQueryLog.builder().redactor(BindValueRedactor.NONE).sink(records::add).build(), bindValues);
+        report(SlowQueryLog.builder().redactor(BindValueRedactor.ALL).sink(records::add).build(), bindValues);
+        report(SlowQueryLog.builder()
+                .redactor((index, value) -> index == 2 ? "***" : String.valueOf(value))
+                .sink(records::add)
+                .build(), bindValues);
+
+        assertThat(records.get(0).getBindValues(), contains("42", "john@mail.com"));
+        assertThat(records.get(1).getBindValues(), contains("<Long>", "<String>"));
+        assertThat(records.get(2).getBindValues(), contains("42", "***"));
+    }
+
+    private SlowQueryLog.SlowQueryLogBuilder unlimited() {
+        return SlowQueryLog.builder()
+                .maxRecordsPerSecond(Integer.MAX_VALUE)
+                .sink(records::add);
+    }
+
+    /**
+     * Reports slow statements with the current time as execute time, so records tell when they were reported
+     */
+    private static void reportTimes(SlowQueryLog slowQueryLog, int times) {
+        for (int i = 0; i < times; i++) {
+            slowQueryLog.report(SQL, null, true, 1, System.nanoTime(), 0, 0);
+        }
+    }
+
+    private static void report(SlowQueryLog slowQueryLog, Object[] bindValues) {
+        slowQueryLog.report(SQL, bindValues, true, 1, TimeUnit.SECONDS.toNanos(1), 0, 0);
+    }
+
+    private static void execute(SlowQueryLog slowQueryLog, String sql) throws SQLException {
+        JdbcDataSource h2DataSource = new JdbcDataSource();
+        h2DataSource.setURL("jdbc:h2:mem:slow_query_log_test");
+        try (InstrumentedDataSource dataSource =
+                     new InstrumentedDataSource(h2DataSource, new JdbcMetrics(), slowQueryLog);
+             Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.bobocode.util.metrics;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class SqlNormalizerTest {
+
+    @Test
+    public void testLiteralsAreReplacedWithPlaceholders() {
+        assertThat(SqlNormalizer.normalize("SELECT * FROM account WHERE id = 42 AND balance > 10.50"),
+                equalTo("SELECT * FROM account WHERE id = ? AND balance > ?"));
+        assertThat(SqlNormalizer.normalize("SELECT * FROM account WHERE last_name = 'O''Brien'"),
+                equalTo("SELECT * FROM account WHERE last_name = ?"));
+    }
+
+    @Test
+    public void testIdentifiersAreKept() {
+        assertThat(SqlNormalizer.normalize("SELECT t1.col_2, \"Column 3\" FROM table1 t1 WHERE t1.x = '5'"),
+                equalTo("SELECT t1.col_2, \"Column 3\" FROM table1 t1 WHERE t1.x = ?"));
+    }
+
+    @Test
+    public void testWhitespaceIsCollapsed() {
+        assertThat(SqlNormalizer.normalize("  SELECT\n\t*\r\n  FROM   account  "),
+                equalTo("SELECT * FROM account"));
+    }
+
+    @Test
+    public void testInListsOfAnyLengthHaveTheSameShape() {
+        String expected = "SELECT * FROM account WHERE id IN (?) AND email IN (?)";
+
+        assertThat(SqlNormalizer.normalize("SELECT * FROM account WHERE id IN (1) AND email IN ('a')"),
+                equalTo(expected));
+        assertThat(SqlNormalizer.normalize("SELECT * FROM account WHERE id in (1, 2,3) AND email IN ( 'a' , 'b' )"),
+                equalTo(expected));
+        assertThat(SqlNormalizer.normalize("SELECT * FROM account WHERE id IN (?, ?, ?) AND email IN (?)"),
+                equalTo(expected));
+    }
+
+    @Test
+    public void testInListsWithExpressionsAreKept() {
+        assertThat(SqlNormalizer.normalize("SELECT * FROM account WHERE id IN (SELECT account_id FROM card)"),
+                equalTo("SELECT * FROM account WHERE id IN (SELECT account_id FROM card)"));
+        assertThat(SqlNormalizer.normalize("INSERT INTO account VALUES (1, 'a')"),
+                equalTo("INSERT INTO account VALUES (?, ?)"));
+    }
+
+    @Test
+    public void testCommentsAreDropped() {
+        assertThat(SqlNormalizer.normalize("SELECT id -- 'unterminated\nFROM /* it's a comment */ account"),
+                equalTo("SELECT id FROM account"));
+        assertThat(SqlNormalizer.normalize("/* request 17 */ SELECT 1"), equalTo("SELECT ?"));
+        assertThat(SqlNormalizer.normalize("SELECT '-- not a comment', '/* nor this */' FROM account"),
+                equalTo("SELECT ?, ? FROM account"));
+    }
+}
@@ -0,0 +1,2 @@
+CREATE TABLE a (id BIGINT);
+CREATE TABLE b (id BIGINT);
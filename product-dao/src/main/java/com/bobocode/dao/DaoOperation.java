@@ -0,0 +1,13 @@
+package com.bobocode.dao;
+
+/**
+ * Types of operations performed by {@link ProductDao}
+ */
+public enum DaoOperation {
+    SAVE,
+    FIND_ALL,
+    FIND_ONE,
+    EXISTS,
+    UPDATE,
+    REMOVE
+}
@@ -0,0 +1,31 @@
+package com.bobocode.dao;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * A JFR event emitted by {@link ProductDaoImpl} for every DAO operation that took longer than the threshold
+ * (20 ms by default). The threshold can be changed per recording using the event name.
+ */
+@Name("com.bobocode.dao.DaoOperation")
+@Label("DAO Operation")
+@Category({"Bobocode", "DAO"})
+@Description("A single Data Access Object operation")
+@Threshold("20 ms")
+class DaoOperationEvent extends Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("SQL")
+    String sql;
+
+    @Label("Rows")
+    long rows;
+
+    @Label("Success")
+    boolean success;
+}
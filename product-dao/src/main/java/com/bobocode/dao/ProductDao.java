@@ -1,8 +1,10 @@
 package com.bobocode.dao;
 
 import com.bobocode.model.Product;
+import com.bobocode.util.Deadline;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * {@link ProductDao} is an Data Access Object pattern (DAO) that encapsulates all database access and manipulation logic.
@@ -31,6 +33,23 @@ public interface ProductDao {
      */
     Product findOne(Long id);
 
+    /**
+     * Returns a product by its id, or an empty optional if there is no such product. Unlike {@link #findOne(Long)}
+     * a missing product is not treated as an error, which makes it a cheap choice for lookups that often miss.
+     *
+     * @param id product identifier (primary key)
+     * @return optional product
+     */
+    Optional<Product> findById(Long id);
+
+    /**
+     * Checks if a product with a given id exists, without fetching its columns
+     *
+     * @param id product identifier (primary key)
+     * @return {@code true} if the product exists
+     */
+    boolean exists(Long id);
+
     /**
      * Updates existing product.
      *
@@ -44,4 +63,18 @@ public interface ProductDao {
      * @param product stored product
      */
     void remove(Product product);
+
+    /**
+     * Returns a view of this DAO whose operations must complete before a given deadline. Statements are given a
+     * timeout derived from the remaining time and are cancelled when it expires, in which case
+     * {@link com.bobocode.exception.QueryTimeoutException} is thrown.
+     * <p>
+     * Getting a connection is not bounded by the deadline, because {@link javax.sql.DataSource} has no per-call
+     * timeout, so a pool timeout has to be configured on the data source itself. The time spent waiting for
+     * a connection still counts against the deadline, and no statement is started once it has passed.
+     *
+     * @param deadline a deadline shared by all operations called on the returned view
+     * @return deadline-bound DAO
+     */
+    ProductDao withDeadline(Deadline deadline);
 }
@@ -1,91 +1,171 @@
 package com.bobocode.dao;
 
 import com.bobocode.exception.DaoOperationException;
+import com.bobocode.exception.QueryTimeoutException;
 import com.bobocode.model.Product;
+import com.bobocode.util.Deadline;
 import com.bobocode.util.JdbcUtil;
+import com.bobocode.util.metrics.SqlNormalizer;
 
 import javax.sql.DataSource;
 import java.sql.*;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 
 public class ProductDaoImpl implements ProductDao {
     private static final String SAVE_PRODUCT_SQL = "INSERT INTO products (name, producer, price, expiration_date) VALUES (?, ?, ?, ?)";
     private static final String DELETE_PRODUCT_SQL = "DELETE FROM products WHERE id = ?";
     private static final String FIND_ALL_SQL = "SELECT * FROM products";
     private static final String FIND_ONE_SQL = "SELECT * FROM products WHERE id = ?";
+    private static final String EXISTS_SQL = "SELECT 1 FROM products WHERE id = ?";
     private static final String UPDATE_PRODUCT_SQL = "UPDATE products " +
             "SET name = ?, producer = ?, price = ?, expiration_date = ? WHERE id = ?";
 
-    private DataSource dataSource;
+    private static final String SQL_STATE_QUERY_CANCELED = "57014";
+
+    private final DataSource dataSource;
+    private final Map<DaoOperation, Duration> operationTimeouts;
+    private final Deadline deadline;
 
     public ProductDaoImpl(DataSource dataSource) {
+        this(dataSource, new ConcurrentHashMap<>(), Deadline.none());
+    }
+
+    private ProductDaoImpl(DataSource dataSource, Map<DaoOperation, Duration> operationTimeouts, Deadline deadline) {
         this.dataSource = dataSource;
+        this.operationTimeouts = operationTimeouts;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Sets a maximum duration of a given operation. The timeout is shared with all views created by
+     * {@link #withDeadline(Deadline)}.
+     *
+     * @param operation DAO operation
+     * @param timeout   maximum operation duration, {@code null} removes the timeout
+     */
+    public void setOperationTimeout(DaoOperation operation, Duration timeout) {
+        Objects.requireNonNull(operation);
+        if (timeout == null) {
+            operationTimeouts.remove(operation);
+        } else {
+            operationTimeouts.put(operation, timeout);
+        }
+    }
+
+    @Override
+    public ProductDao withDeadline(Deadline deadline) {
+        Objects.requireNonNull(deadline);
+        return new ProductDaoImpl(dataSource, operationTimeouts, deadline);
     }
 
     @Override
     public void save(Product product) {
         Objects.requireNonNull(product);
-        consumeConnection(connection ->
-                saveProduct(product, connection));
+        Deadline operationDeadline = startOperation(DaoOperation.SAVE);
+        recordOperation(DaoOperation.SAVE, SAVE_PRODUCT_SQL, () ->
+                consumeConnection(connection ->
+                        saveProduct(product, connection, operationDeadline)));
     }
 
     @Override
     public List<Product> findAll() {
-        return applyConnection(this::findAllProducts);
+        Deadline operationDeadline = startOperation(DaoOperation.FIND_ALL);
+        return recordOperation(DaoOperation.FIND_ALL, FIND_ALL_SQL, () ->
+                applyConnection(connection ->
+                        findAllProducts(connection, operationDeadline)), List::size);
     }
 
     @Override
     public Product findOne(Long id) {
         Objects.requireNonNull(id);
-        return applyConnection(connection ->
-                findOneProduct(id, connection));
+        Deadline operationDeadline = startOperation(DaoOperation.FIND_ONE);
+        return recordOperation(DaoOperation.FIND_ONE, FIND_ONE_SQL, () ->
+                applyConnection(connection ->
+                        findOneProduct(id, connection, operationDeadline)), product -> 1);
+    }
+
+    @Override
+    public Optional<Product> findById(Long id) {
+        Objects.requireNonNull(id);
+        Deadline operationDeadline = startOperation(DaoOperation.FIND_ONE);
+        return recordOperation(DaoOperation.FIND_ONE, FIND_ONE_SQL, () ->
+                applyConnection(connection ->
+                        findProductById(id, connection, operationDeadline)), product -> product.isPresent() ? 1 : 0);
+    }
+
+    @Override
+    public boolean exists(Long id) {
+        Objects.requireNonNull(id);
+        Deadline operationDeadline = startOperation(DaoOperation.EXISTS);
+        return recordOperation(DaoOperation.EXISTS, EXISTS_SQL, () ->
+                applyConnection(connection ->
+                        productExists(id, connection, operationDeadline)), exists -> exists ? 1 : 0);
     }
 
     @Override
     public void update(Product product) {
         throwIfProductIdIsNull(product);
-        consumeConnection(connection ->
-            updateProduct(product, connection));
+        Deadline operationDeadline = startOperation(DaoOperation.UPDATE);
+        recordOperation(DaoOperation.UPDATE, UPDATE_PRODUCT_SQL, () ->
+                consumeConnection(connection ->
+                        updateProduct(product, connection, operationDeadline)));
     }
 
     @Override
     public void remove(Product product) {
         throwIfProductIdIsNull(product);
-        consumeConnection(connection ->
-            removeProduct(product, connection));
+        Deadline operationDeadline = startOperation(DaoOperation.REMOVE);
+        recordOperation(DaoOperation.REMOVE, DELETE_PRODUCT_SQL, () ->
+                consumeConnection(connection ->
+                        removeProduct(product, connection, operationDeadline)));
+    }
+
+    private Deadline startOperation(DaoOperation operation) {
+        Deadline operationDeadline = deadline.shortenTo(operationTimeouts.get(operation));
+        if (operationDeadline.isExpired()) {
+            throw new QueryTimeoutException(String.format("Deadline exceeded before '%s' operation", operation));
+        }
+        return operationDeadline;
     }
 
-    private void saveProduct(Product product, Connection conn) {
-        try (PreparedStatement prepStatement = conn.prepareStatement(SAVE_PRODUCT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+    private void saveProduct(Product product, Connection conn, Deadline deadline) {
+        try (PreparedStatement prepStatement = conn.prepareStatement(SAVE_PRODUCT_SQL, Statement.RETURN_GENERATED_KEYS);
+             StatementTimeout timeout = StatementTimeout.start(prepStatement, deadline)) {
             fillInsertProductPreparedStatement(product, prepStatement);
             executeUpdate(prepStatement);
             updateProductId(product, prepStatement);
         } catch (SQLException e) {
-            throw new DaoOperationException("Error saving product: " + product, e);
+            throw daoOperationException("Error saving product: " + product, e);
         }
     }
 
-    private void updateProduct(Product product, Connection conn) {
-        try (PreparedStatement prepStatement = conn.prepareStatement(UPDATE_PRODUCT_SQL)) {
-            findOneProduct(product.getId(), conn);
+    private void updateProduct(Product product, Connection conn, Deadline deadline) {
+        try (PreparedStatement prepStatement = conn.prepareStatement(UPDATE_PRODUCT_SQL);
+             StatementTimeout timeout = StatementTimeout.start(prepStatement, deadline)) {
             fillUpdateProductPreparedStatement(product, prepStatement);
-            executeUpdate(prepStatement);
+            executeUpdateOfExistingProduct(prepStatement, product.getId());
         } catch (SQLException e) {
-            throw new DaoOperationException("Error executing 'update' statement", e);
+            throw daoOperationException("Error executing 'update' statement", e);
         }
     }
 
-    private void removeProduct(Product product, Connection conn) {
-        try (PreparedStatement prepStatement = conn.prepareStatement(DELETE_PRODUCT_SQL)) {
-            findOneProduct(product.getId(), conn);
+    private void removeProduct(Product product, Connection conn, Deadline deadline) {
+        try (PreparedStatement prepStatement = conn.prepareStatement(DELETE_PRODUCT_SQL);
+             StatementTimeout timeout = StatementTimeout.start(prepStatement, deadline)) {
             fillRemoveProductPreparedStatement(product, prepStatement);
-            executeUpdate(prepStatement);
+            executeUpdateOfExistingProduct(prepStatement, product.getId());
         } catch (SQLException e) {
-            throw new DaoOperationException("Error executing 'remove' statement", e);
+            throw daoOperationException("Error executing 'remove' statement", e);
         }
     }
 
@@ -102,6 +182,17 @@ public class ProductDaoImpl implements ProductDao {
         }
     }
 
+    /**
+     * Executes an update or delete by id. No affected rows means the product does not exist, which is reported
+     * without a separate existence check.
+     */
+    private void executeUpdateOfExistingProduct(PreparedStatement prepStatement, Long id) throws SQLException {
+        int affectedRows = prepStatement.executeUpdate();
+        if (affectedRows < 1) {
+            throw productNotFound(id);
+        }
+    }
+
     private void fillUpdateProductPreparedStatement(Product product, PreparedStatement pr) throws SQLException {
         fillInsertProductPreparedStatement(product, pr);
         pr.setLong(5, product.getId());
@@ -111,21 +202,43 @@ public class ProductDaoImpl implements ProductDao {
         pr.setLong(1, product.getId());
     }
 
-    private List<Product> findAllProducts(Connection conn) {
+    private List<Product> findAllProducts(Connection conn, Deadline deadline) {
         try (Statement statement = conn.createStatement();
+             StatementTimeout timeout = StatementTimeout.start(statement, deadline);
              ResultSet rs = statement.executeQuery(FIND_ALL_SQL)) {
             return collectProducts(rs);
         } catch (SQLException e) {
-            throw new DaoOperationException("Error executing 'find all' statement", e);
+            throw daoOperationException("Error executing 'find all' statement", e);
         }
     }
 
-    private Product findOneProduct(Long id, Connection conn) {
+    private Product findOneProduct(Long id, Connection conn, Deadline deadline) {
         try (PreparedStatement prepStatement = conn.prepareStatement(FIND_ONE_SQL);
+             StatementTimeout timeout = StatementTimeout.start(prepStatement, deadline);
              ResultSet rs = executeFindOneProductQuery(prepStatement, id)) {
             return fetchProduct(rs, id);
         } catch (SQLException e) {
-            throw new DaoOperationException("Error executing 'find one' statement", e);
+            throw daoOperationException("Error executing 'find one' statement", e);
+        }
+    }
+
+    private Optional<Product> findProductById(Long id, Connection conn, Deadline deadline) {
+        try (PreparedStatement prepStatement = conn.prepareStatement(FIND_ONE_SQL);
+             StatementTimeout timeout = StatementTimeout.start(prepStatement, deadline);
+             ResultSet rs = executeFindOneProductQuery(prepStatement, id)) {
+            return rs.next() ? Optional.of(parseProductRow(rs)) : Optional.empty();
+        } catch (SQLException e) {
+            throw daoOperationException("Error executing 'find by id' statement", e);
+        }
+    }
+
+    private boolean productExists(Long id, Connection conn, Deadline deadline) {
+        try (PreparedStatement prepStatement = conn.prepareStatement(EXISTS_SQL);
+             StatementTimeout timeout = StatementTimeout.start(prepStatement, deadline);
+             ResultSet rs = executeFindOneProductQuery(prepStatement, id)) {
+            return rs.next();
+        } catch (SQLException e) {
+            throw daoOperationException("Error executing 'exists' statement", e);
         }
     }
 
@@ -139,7 +252,7 @@ public class ProductDaoImpl implements ProductDao {
             throwIfNoProductFound(rs, id);
             return parseProductRow(rs);
         } catch (SQLException e) {
-            throw new DaoOperationException("Error parsing 'find one' result set", e);
+            throw daoOperationException("Error parsing 'find one' result set", e);
         }
     }
 
@@ -151,7 +264,7 @@ public class ProductDaoImpl implements ProductDao {
                 products.add(product);
             }
         } catch (SQLException e) {
-            throw new DaoOperationException("Error parsing 'find all' result set", e);
+            throw daoOperationException("Error parsing 'find all' result set", e);
         }
         return products;
     }
@@ -174,6 +287,38 @@ public class ProductDaoImpl implements ProductDao {
                 .build();
     }
 
+    private void recordOperation(DaoOperation operation, String sql, Runnable action) {
+        recordOperation(operation, sql, () -> {
+            action.run();
+            return null;
+        }, result -> 1);
+    }
+
+    /**
+     * Runs a DAO operation and emits a {@link DaoOperationEvent} if the operation took longer than the event threshold.
+     * Event fields are filled only when the event is going to be committed, so the disabled event costs almost nothing.
+     */
+    private <T> T recordOperation(DaoOperation operation, String sql, Supplier<T> action, ToLongFunction<T> rowCounter) {
+        DaoOperationEvent event = new DaoOperationEvent();
+        event.begin();
+        T result = null;
+        boolean success = false;
+        try {
+            result = action.get();
+            success = true;
+            return result;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = operation.name();
+                event.sql = SqlNormalizer.normalize(sql);
+                event.rows = success ? rowCounter.applyAsLong(result) : 0;
+                event.success = success;
+                event.commit();
+            }
+        }
+    }
+
     private void consumeConnection(Consumer<Connection> consumer) {
         JdbcUtil.consumeConnection(dataSource, consumer);
     }
@@ -182,13 +327,28 @@ public class ProductDaoImpl implements ProductDao {
         return JdbcUtil.applyConnection(dataSource, function);
     }
 
+    /**
+     * Wraps an {@link SQLException} into {@link QueryTimeoutException} if the statement was cancelled or timed out,
+     * and into {@link DaoOperationException} otherwise
+     */
+    private DaoOperationException daoOperationException(String message, SQLException e) {
+        if (e instanceof SQLTimeoutException || SQL_STATE_QUERY_CANCELED.equals(e.getSQLState())) {
+            return new QueryTimeoutException(message, e);
+        }
+        return new DaoOperationException(message, e);
+    }
+
     private void throwIfNoProductFound(ResultSet rs, Long id) throws SQLException {
         boolean productFound = rs.next();
         if (!productFound) {
-            throw new DaoOperationException(String.format("Product with id = %d does not exist", id));
+            throw productNotFound(id);
         }
     }
 
+    private DaoOperationException productNotFound(Long id) {
+        return DaoOperationException.withoutStackTrace(String.format("Product with id = %d does not exist", id));
+    }
+
     private void throwIfProductIdIsNull(Product product) {
         Objects.requireNonNull(product);
         if (product.getId() == null) {
@@ -0,0 +1,75 @@
+package com.bobocode.dao;
+
+import com.bobocode.exception.QueryTimeoutException;
+import com.bobocode.util.Deadline;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link StatementTimeout} bounds a single statement execution by a {@link Deadline}. It sets
+ * {@link Statement#setQueryTimeout(int)} as a driver-side backstop, and schedules {@link Statement#cancel()} at the
+ * exact deadline, since the query timeout only has a one second granularity. Closing it cancels the scheduled task.
+ */
+class StatementTimeout implements AutoCloseable {
+    private static final StatementTimeout NONE = new StatementTimeout(null);
+    private static final ScheduledThreadPoolExecutor canceller = createCanceller();
+
+    private final ScheduledFuture<?> cancelTask;
+
+    private StatementTimeout(ScheduledFuture<?> cancelTask) {
+        this.cancelTask = cancelTask;
+    }
+
+    private static ScheduledThreadPoolExecutor createCanceller() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "statement-timeout-canceller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    /**
+     * Applies a deadline to a statement that is about to be executed
+     *
+     * @param statement a statement
+     * @param deadline  operation deadline
+     * @return a handle that must be closed after the statement completes
+     * @throws SQLException          if query timeout can not be set
+     * @throws QueryTimeoutException if the deadline has already passed
+     */
+    static StatementTimeout start(Statement statement, Deadline deadline) throws SQLException {
+        if (deadline.isUnbounded()) {
+            return NONE;
+        }
+        long remainingNanos = deadline.remainingNanos();
+        if (remainingNanos <= 0) {
+            throw new QueryTimeoutException("Deadline exceeded before statement execution");
+        }
+        int timeoutSeconds = (int) Math.min(Integer.MAX_VALUE, TimeUnit.NANOSECONDS.toSeconds(remainingNanos) + 1);
+        statement.setQueryTimeout(timeoutSeconds);
+        ScheduledFuture<?> cancelTask = canceller.schedule(() -> cancelQuietly(statement),
+                remainingNanos, TimeUnit.NANOSECONDS);
+        return new StatementTimeout(cancelTask);
+    }
+
+    private static void cancelQuietly(Statement statement) {
+        try {
+            statement.cancel();
+        } catch (SQLException ignored) {
+            // statement is already closed or the driver does not support cancellation
+        }
+    }
+
+    @Override
+    public void close() {
+        if (cancelTask != null) {
+            cancelTask.cancel(false);
+        }
+    }
+}
@@ -8,4 +8,19 @@ public class DaoOperationException extends RuntimeException {
     public DaoOperationException(String message, Throwable cause) {
         super(message, cause);
     }
+
+    protected DaoOperationException(String message, Throwable cause, boolean writableStackTrace) {
+        super(message, cause, false, writableStackTrace);
+    }
+
+    /**
+     * Creates an exception that does not capture a stack trace. Use it for expected control-flow failures, like
+     * a missing entity, where filling the stack trace costs more than the database call itself.
+     *
+     * @param message exception message
+     * @return exception without a stack trace
+     */
+    public static DaoOperationException withoutStackTrace(String message) {
+        return new DaoOperationException(message, null, false);
+    }
 }
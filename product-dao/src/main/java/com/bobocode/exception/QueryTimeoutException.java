@@ -0,0 +1,15 @@
+package com.bobocode.exception;
+
+/**
+ * Thrown when a DAO operation runs out of its time budget, either before a statement is started, or because
+ * a running statement was cancelled by a timeout
+ */
+public class QueryTimeoutException extends DaoOperationException {
+    public QueryTimeoutException(String message) {
+        super(message);
+    }
+
+    public QueryTimeoutException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,121 @@
+package com.bobocode;
+
+import com.bobocode.dao.ProductDao;
+import com.bobocode.dao.ProductDaoImpl;
+import com.bobocode.model.Product;
+import com.bobocode.util.H2Profile;
+import com.bobocode.util.JdbcUtil;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+import static com.bobocode.util.JdbcUtil.consumeStatement;
+import static com.bobocode.util.JdbcUtil.executeSafely;
+
+/**
+ * Compares {@link H2Profile}s on the {@code products} workload: inserts, lookups by id, updates and full scans through
+ * {@link ProductDaoImpl} against a file-backed database. Each profile gets a fresh database in a temporary directory.
+ * <p>
+ * Run it as a plain Java program with an optional number of products, e.g. {@code ProductDaoProfileBenchmark 20000}.
+ */
+public class ProductDaoProfileBenchmark {
+    private static final String CREATE_PRODUCTS_TABLE_SQL = "CREATE TABLE IF NOT EXISTS products (" +
+            "id LONG AUTO_INCREMENT NOT NULL, " +
+            "name VARCHAR(255) NOT NULL, " +
+            "producer VARCHAR(255) NOT NULL, " +
+            "price DECIMAL(19, 4), " +
+            "expiration_date TIMESTAMP NOT NULL, " +
+            "creation_time TIMESTAMP NOT NULL DEFAULT now(), " +
+            "CONSTRAINT products_pk PRIMARY KEY (id))";
+    private static final int FULL_SCANS = 20;
+
+    public static void main(String[] args) throws Exception {
+        int productCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        System.out.printf("%-12s %12s %12s %12s %12s%n", "profile", "insert/s", "find/s", "update/s", "scan/s");
+        for (int round = 0; round < 2; round++) { // the first round warms up the JIT
+            for (H2Profile profile : H2Profile.values()) {
+                Path directory = Files.createTempDirectory("h2-profile-benchmark");
+                try {
+                    double[] result = run(JdbcUtil.createFileH2DataSource(directory.resolve("products"), profile),
+                            productCount);
+                    if (round > 0) {
+                        System.out.printf("%-12s %12.0f %12.0f %12.0f %12.1f%n",
+                                profile, result[0], result[1], result[2], result[3]);
+                    }
+                } finally {
+                    deleteDirectory(directory);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns operations per second of inserts, lookups, updates and full scans
+     */
+    private static double[] run(DataSource dataSource, int productCount) throws SQLException {
+        consumeStatement(dataSource, statement -> executeSafely(statement, CREATE_PRODUCTS_TABLE_SQL));
+        ProductDao productDao = new ProductDaoImpl(dataSource);
+        SplittableRandom random = new SplittableRandom(42);
+
+        List<Product> products = new ArrayList<>(productCount);
+        long start = System.nanoTime();
+        for (int i = 0; i < productCount; i++) {
+            Product product = generateProduct(random, i);
+            productDao.save(product);
+            products.add(product);
+        }
+        double inserts = opsPerSecond(productCount, start);
+
+        start = System.nanoTime();
+        for (int i = 0; i < productCount; i++) {
+            productDao.findOne(products.get(random.nextInt(productCount)).getId());
+        }
+        double finds = opsPerSecond(productCount, start);
+
+        start = System.nanoTime();
+        for (int i = 0; i < productCount; i++) {
+            Product product = products.get(random.nextInt(productCount));
+            product.setPrice(BigDecimal.valueOf(random.nextInt(10, 100)));
+            productDao.update(product);
+        }
+        double updates = opsPerSecond(productCount, start);
+
+        start = System.nanoTime();
+        for (int i = 0; i < FULL_SCANS; i++) {
+            productDao.findAll();
+        }
+        double scans = opsPerSecond(FULL_SCANS, start);
+
+        consumeStatement(dataSource, statement -> executeSafely(statement, "SHUTDOWN"));
+        return new double[]{inserts, finds, updates, scans};
+    }
+
+    private static Product generateProduct(SplittableRandom random, int index) {
+        return Product.builder()
+                .name("product-" + index)
+                .producer("producer-" + random.nextInt(100))
+                .price(BigDecimal.valueOf(random.nextInt(10, 100)))
+                .expirationDate(LocalDate.now().plusDays(random.nextInt(1, 1000)))
+                .build();
+    }
+
+    private static double opsPerSecond(int operations, long startNanos) {
+        return operations * 1_000_000_000.0 / (System.nanoTime() - startNanos);
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
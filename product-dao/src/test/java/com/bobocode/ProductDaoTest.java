@@ -3,11 +3,13 @@ package com.bobocode;
 import com.bobocode.dao.ProductDao;
 import com.bobocode.dao.ProductDaoImpl;
 import com.bobocode.exception.DaoOperationException;
+import com.bobocode.exception.QueryTimeoutException;
 import com.bobocode.model.Product;
-import com.bobocode.util.JdbcUtil;
+import com.bobocode.util.Deadline;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.commons.lang3.RandomUtils;
 import org.junit.BeforeClass;
+import org.junit.ClassRule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -17,9 +19,11 @@ import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.Month;
 import java.util.List;
+import java.util.Optional;
 
 import static com.bobocode.util.JdbcUtil.consumeStatement;
 import static com.bobocode.util.JdbcUtil.executeSafely;
@@ -27,28 +31,34 @@ import static org.junit.Assert.*;
 
 @RunWith(JUnit4.class)
 public class ProductDaoTest {
+    private static final String CREATE_PRODUCTS_TABLE_SQL = "CREATE TABLE IF NOT EXISTS products (\n" +
+            "  id               LONG AUTO_INCREMENT NOT NULL,\n" +
+            "  name             VARCHAR(255) NOT NULL,\n" +
+            "  producer         VARCHAR(255) NOT NULL,\n" +
+            "  price            DECIMAL(19, 4),\n" +
+            "  expiration_date  TIMESTAMP NOT NULL,\n" +
+            "  creation_time    TIMESTAMP NOT NULL DEFAULT now(),\n" +
+            "\n" +
+            "  CONSTRAINT products_pk PRIMARY KEY (id)\n" +
+            ");\n" +
+            "\n";
+
+    @ClassRule
+    public static final IsolatedDatabases databases = new IsolatedDatabases();
+
     private static ProductDao productDao;
 
     @BeforeClass
     public static void init() throws SQLException {
-        DataSource h2DataSource = JdbcUtil.createDefaultInMemoryH2DataSource();
-        createAccountTable(h2DataSource);
+        DataSource h2DataSource = databases.current();
+        DbSnapshotCache.restoreOrInitialize(h2DataSource, ProductDaoTest.class.getSimpleName(),
+                DbSnapshotCache.checksum(CREATE_PRODUCTS_TABLE_SQL), ProductDaoTest::createAccountTable);
         productDao = new ProductDaoImpl(h2DataSource);
     }
 
     private static void createAccountTable(DataSource dataSource) throws SQLException {
         consumeStatement(dataSource, statement ->
-                executeSafely(statement,"CREATE TABLE IF NOT EXISTS products (\n" +
-                "  id               LONG AUTO_INCREMENT NOT NULL,\n" +
-                "  name             VARCHAR(255) NOT NULL,\n" +
-                "  producer         VARCHAR(255) NOT NULL,\n" +
-                "  price            DECIMAL(19, 4),\n" +
-                "  expiration_date  TIMESTAMP NOT NULL,\n" +
-                "  creation_time    TIMESTAMP NOT NULL DEFAULT now(),\n" +
-                "\n" +
-                "  CONSTRAINT products_pk PRIMARY KEY (id)\n" +
-                ");\n" +
-                "\n"));
+                executeSafely(statement, CREATE_PRODUCTS_TABLE_SQL));
     }
 
     private Product generateTestProduct() {
@@ -163,6 +173,34 @@ public class ProductDaoTest {
         }
     }
 
+    @Test
+    public void testFindByIdOptional() {
+        Product testProduct = generateTestProduct();
+        productDao.save(testProduct);
+
+        Optional<Product> product = productDao.findById(testProduct.getId());
+
+        assertTrue(product.isPresent());
+        assertEquals(testProduct, product.get());
+        assertEquals(testProduct.getName(), product.get().getName());
+    }
+
+    @Test
+    public void testFindByNotExistingIdOptional() {
+        Optional<Product> product = productDao.findById(-1L);
+
+        assertFalse(product.isPresent());
+    }
+
+    @Test
+    public void testExists() {
+        Product testProduct = generateTestProduct();
+        productDao.save(testProduct);
+
+        assertTrue(productDao.exists(testProduct.getId()));
+        assertFalse(productDao.exists(-1L));
+    }
+
     @Test
     public void testUpdate() {
         Product testProduct = generateTestProduct();
@@ -273,4 +311,55 @@ public class ProductDaoTest {
             assertEquals(String.format("Product with id = %d does not exist", invalidId), e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testFindAllWithinDeadline() {
+        Product testProduct = generateTestProduct();
+        productDao.save(testProduct);
+
+        List<Product> products = productDao.withDeadline(Deadline.after(Duration.ofSeconds(10))).findAll();
+
+        assertTrue(products.contains(testProduct));
+    }
+
+    @Test
+    public void testExpiredDeadline() {
+        ProductDao expiredDao = productDao.withDeadline(Deadline.after(Duration.ZERO));
+
+        try {
+            expiredDao.findAll();
+            fail("Exception was't thrown");
+        } catch (Exception e) {
+            assertEquals(QueryTimeoutException.class, e.getClass());
+            assertEquals("Deadline exceeded before 'FIND_ALL' operation", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testStatementRunningPastDeadlineIsCancelled() throws SQLException {
+        DataSource slowDataSource = IsolatedDatabases.create("slow_products");
+        try {
+            consumeStatement(slowDataSource, statement -> {
+                executeSafely(statement, CREATE_PRODUCTS_TABLE_SQL.replace("products", "product_rows"));
+                executeSafely(statement, "INSERT INTO product_rows (name, producer, price, expiration_date) " +
+                        "SELECT CONCAT('product', x), 'producer', 10, now() FROM SYSTEM_RANGE(1, 1000)");
+                // H2 checks for cancellation every 128 scanned rows, so the delay is spread over many rows
+                executeSafely(statement, "CREATE ALIAS SLEEP FOR \"java.lang.Thread.sleep(long)\"");
+                executeSafely(statement, "CREATE VIEW products AS SELECT * FROM product_rows WHERE SLEEP(3) IS NULL");
+            });
+            ProductDao slowDao = new ProductDaoImpl(slowDataSource)
+                    .withDeadline(Deadline.after(Duration.ofMillis(300)));
+            long start = System.nanoTime();
+
+            try {
+                slowDao.findAll();
+                fail("Exception was't thrown");
+            } catch (Exception e) {
+                assertEquals(QueryTimeoutException.class, e.getClass());
+            }
+            assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(2)) < 0);
+        } finally {
+            IsolatedDatabases.shutdown(slowDataSource);
+        }
+    }
+}
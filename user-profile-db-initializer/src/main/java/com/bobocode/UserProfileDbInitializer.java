@@ -1,7 +1,5 @@
 package com.bobocode;
 
-import com.bobocode.util.FileReader;
-
 import java.sql.SQLException;
 
 /**
@@ -9,15 +7,14 @@ import java.sql.SQLException;
  * information about users and their profiles.
  */
 public class UserProfileDbInitializer extends DbInitializer {
-    private final static String TABLE_INITIALIZATION_SQL_FILE = "db/migration/table_initialization.sql"; // todo: see the file
+    // todo: see the file db/migration/V1__table_initialization.sql
 
     /**
-     * Reads the SQL script form the file and executes it
+     * Applies the versioned SQL scripts from {@code db/migration} that have not been applied to the database yet
      *
      * @throws SQLException
      */
     public void init() throws SQLException {
-        String createTablesSql = FileReader.readWholeFileFromResources(TABLE_INITIALIZATION_SQL_FILE);
-        createTable(createTablesSql);
+        migrate();
     }
 }
@@ -0,0 +1,16 @@
+package com.bobocode.dao;
+
+/**
+ * How {@link UserDao} loads profiles of the users it finds
+ */
+public enum FetchStrategy {
+    /**
+     * Users and profiles are read together with one {@code LEFT JOIN} query
+     */
+    JOIN,
+    /**
+     * Only users are read. A profile is loaded when it is first accessed, together with profiles of other users of
+     * the same result that are not loaded yet, with one {@code IN} query per batch.
+     */
+    LAZY_BATCH
+}
@@ -0,0 +1,36 @@
+package com.bobocode.dao;
+
+import com.bobocode.model.Profile;
+import com.bobocode.model.User;
+
+/**
+ * A {@link User} whose profile is loaded by a {@link ProfileBatchLoader} on the first call of {@link #getProfile()}.
+ * Setting a profile explicitly cancels loading. The profile may be read from several threads: the volatile loader
+ * reference publishes the profile, and loading itself is serialized by the loader.
+ */
+class LazyProfileUser extends User {
+    private volatile ProfileBatchLoader profileLoader;
+
+    LazyProfileUser(ProfileBatchLoader profileLoader) {
+        this.profileLoader = profileLoader;
+    }
+
+    @Override
+    public Profile getProfile() {
+        ProfileBatchLoader loader = profileLoader;
+        if (loader != null) {
+            loader.load(this);
+        }
+        return super.getProfile();
+    }
+
+    @Override
+    public void setProfile(Profile profile) {
+        super.setProfile(profile);
+        profileLoader = null;
+    }
+
+    boolean isProfileLoaded() {
+        return profileLoader == null;
+    }
+}
@@ -0,0 +1,95 @@
+package com.bobocode.dao;
+
+import com.bobocode.model.Profile;
+import com.bobocode.util.JdbcException;
+import com.bobocode.util.JdbcUtil;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Loads profiles of the users of one query result. When a profile of any user is requested, profiles of up to
+ * {@code batchSize} users that still wait for them are read with one {@code IN} query, starting with the requested user
+ * and continuing in result order. If the query fails, users of the batch stay pending and are loaded by a later request.
+ */
+class ProfileBatchLoader {
+    private static final String FIND_PROFILES_SQL = "SELECT user_id, city, job_position, company, education " +
+            "FROM profiles WHERE user_id IN (%s)";
+
+    private final DataSource dataSource;
+    private final int batchSize;
+    private final Map<Long, LazyProfileUser> pendingUsers = new LinkedHashMap<>();
+
+    ProfileBatchLoader(DataSource dataSource, int batchSize) {
+        this.dataSource = dataSource;
+        this.batchSize = batchSize;
+    }
+
+    synchronized void register(LazyProfileUser user) {
+        pendingUsers.put(user.getId(), user);
+    }
+
+    synchronized void load(LazyProfileUser user) {
+        if (user.isProfileLoaded() || pendingUsers.remove(user.getId()) == null) {
+            return;
+        }
+        List<LazyProfileUser> batch = new ArrayList<>();
+        batch.add(user);
+        Iterator<LazyProfileUser> iterator = pendingUsers.values().iterator();
+        while (batch.size() < batchSize && iterator.hasNext()) {
+            LazyProfileUser pendingUser = iterator.next();
+            iterator.remove();
+            if (!pendingUser.isProfileLoaded()) {
+                batch.add(pendingUser);
+            }
+        }
+        Map<Long, Profile> profiles;
+        try {
+            profiles = findProfiles(batch);
+        } catch (RuntimeException e) {
+            requeue(batch);
+            throw e;
+        }
+        for (LazyProfileUser batchUser : batch) {
+            if (!batchUser.isProfileLoaded()) {
+                batchUser.setProfile(profiles.get(batchUser.getId()));
+            }
+        }
+    }
+
+    /**
+     * Puts users of a failed batch back in front of the pending users, so the next request retries them
+     */
+    private void requeue(List<LazyProfileUser> batch) {
+        Map<Long, LazyProfileUser> remaining = new LinkedHashMap<>(pendingUsers);
+        pendingUsers.clear();
+        for (LazyProfileUser batchUser : batch) {
+            pendingUsers.put(batchUser.getId(), batchUser);
+        }
+        pendingUsers.putAll(remaining);
+    }
+
+    private Map<Long, Profile> findProfiles(List<LazyProfileUser> users) {
+        String sql = String.format(FIND_PROFILES_SQL, String.join(", ", Collections.nCopies(users.size(), "?")));
+        return JdbcUtil.applyConnection(dataSource, connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (int i = 0; i < users.size(); i++) {
+                    statement.setLong(i + 1, users.get(i).getId());
+                }
+                try (ResultSet rs = statement.executeQuery()) {
+                    Map<Long, Profile> profiles = new HashMap<>();
+                    while (rs.next()) {
+                        Profile profile = UserDaoImpl.mapProfile(rs, 1);
+                        profiles.put(profile.getUserId(), profile);
+                    }
+                    return profiles;
+                }
+            } catch (SQLException e) {
+                throw new JdbcException("Error loading profiles of users", e);
+            }
+        });
+    }
+}
@@ -0,0 +1,40 @@
+package com.bobocode.dao;
+
+import com.bobocode.model.User;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * {@link UserDao} is a Data Access Object (DAO) for users and their optional profiles stored in {@code users} and
+ * {@code profiles} tables. Profiles are fetched according to a {@link FetchStrategy}, so loading any number of users
+ * never issues a query per user.
+ */
+public interface UserDao {
+    /**
+     * Stores a new user together with the profile, if it has one, in one transaction. Sets generated id to the
+     * {@link User} instance and the profile.
+     *
+     * @param user new user
+     */
+    void save(User user);
+
+    /**
+     * Returns a user by id with the default fetch strategy of the DAO
+     *
+     * @param id user id
+     * @return optional user
+     */
+    Optional<User> findById(long id);
+
+    Optional<User> findById(long id, FetchStrategy fetchStrategy);
+
+    /**
+     * Returns all users with the default fetch strategy of the DAO
+     *
+     * @return users ordered by id
+     */
+    List<User> findAll();
+
+    List<User> findAll(FetchStrategy fetchStrategy);
+}
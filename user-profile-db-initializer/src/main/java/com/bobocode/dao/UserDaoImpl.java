@@ -0,0 +1,175 @@
+package com.bobocode.dao;
+
+import com.bobocode.model.Profile;
+import com.bobocode.model.User;
+import com.bobocode.util.JdbcException;
+import com.bobocode.util.JdbcUtil;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+public class UserDaoImpl implements UserDao {
+    private static final String SAVE_USER_SQL = "INSERT INTO users (first_name, last_name, email, birthday) " +
+            "VALUES (?, ?, ?, ?)";
+    private static final String SAVE_PROFILE_SQL = "INSERT INTO profiles " +
+            "(user_id, city, job_position, company, education) VALUES (?, ?, ?, ?, ?)";
+    private static final String SELECT_USERS_SQL = "SELECT u.id, u.first_name, u.last_name, u.email, u.birthday " +
+            "FROM users u";
+    private static final String SELECT_USERS_WITH_PROFILES_SQL = "SELECT u.id, u.first_name, u.last_name, u.email, " +
+            "u.birthday, p.user_id, p.city, p.job_position, p.company, p.education " +
+            "FROM users u LEFT JOIN profiles p ON p.user_id = u.id";
+    private static final String BY_ID_CONDITION = " WHERE u.id = ?";
+    private static final String ORDER_BY_ID = " ORDER BY u.id";
+    private static final int DEFAULT_BATCH_SIZE = 100;
+
+    private final DataSource dataSource;
+    private final FetchStrategy defaultFetchStrategy;
+    private final int batchSize;
+
+    public UserDaoImpl(DataSource dataSource) {
+        this(dataSource, FetchStrategy.JOIN, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param dataSource           a data source
+     * @param defaultFetchStrategy strategy of methods that don't take one
+     * @param batchSize            max number of profiles loaded by one query of {@link FetchStrategy#LAZY_BATCH}
+     */
+    public UserDaoImpl(DataSource dataSource, FetchStrategy defaultFetchStrategy, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.dataSource = dataSource;
+        this.defaultFetchStrategy = Objects.requireNonNull(defaultFetchStrategy);
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void save(User user) {
+        Objects.requireNonNull(user);
+        Profile profile = user.getProfile();
+        JdbcUtil.consumeConnection(dataSource, connection -> {
+            try {
+                connection.setAutoCommit(false);
+                try {
+                    user.setId(insertUser(connection, user));
+                    if (profile != null) {
+                        profile.setUserId(user.getId());
+                        insertProfile(connection, profile);
+                    }
+                    connection.commit();
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                throw new JdbcException("Error saving user: " + user, e);
+            }
+        });
+    }
+
+    @Override
+    public Optional<User> findById(long id) {
+        return findById(id, defaultFetchStrategy);
+    }
+
+    @Override
+    public Optional<User> findById(long id, FetchStrategy fetchStrategy) {
+        return find(fetchStrategy, BY_ID_CONDITION, id).stream().findFirst();
+    }
+
+    @Override
+    public List<User> findAll() {
+        return findAll(defaultFetchStrategy);
+    }
+
+    @Override
+    public List<User> findAll(FetchStrategy fetchStrategy) {
+        return find(fetchStrategy, "", null);
+    }
+
+    private List<User> find(FetchStrategy fetchStrategy, String condition, Long id) {
+        Objects.requireNonNull(fetchStrategy);
+        boolean join = fetchStrategy == FetchStrategy.JOIN;
+        String sql = (join ? SELECT_USERS_WITH_PROFILES_SQL : SELECT_USERS_SQL) + condition + ORDER_BY_ID;
+        ProfileBatchLoader profileLoader = join ? null : new ProfileBatchLoader(dataSource, batchSize);
+        return JdbcUtil.applyConnection(dataSource, connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                if (id != null) {
+                    statement.setLong(1, id);
+                }
+                try (ResultSet rs = statement.executeQuery()) {
+                    List<User> users = new ArrayList<>();
+                    while (rs.next()) {
+                        if (join) {
+                            User user = mapUser(rs, new User());
+                            rs.getLong(6);
+                            user.setProfile(rs.wasNull() ? null : mapProfile(rs, 6));
+                            users.add(user);
+                        } else {
+                            LazyProfileUser user = (LazyProfileUser) mapUser(rs, new LazyProfileUser(profileLoader));
+                            profileLoader.register(user);
+                            users.add(user);
+                        }
+                    }
+                    return users;
+                }
+            } catch (SQLException e) {
+                throw new JdbcException("Error finding users", e);
+            }
+        });
+    }
+
+    private static long insertUser(Connection connection, User user) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(SAVE_USER_SQL,
+                Statement.RETURN_GENERATED_KEYS)) {
+            statement.setString(1, user.getFirstName());
+            statement.setString(2, user.getLastName());
+            statement.setString(3, user.getEmail());
+            statement.setDate(4, Date.valueOf(user.getBirthday()));
+            statement.executeUpdate();
+            try (ResultSet keys = statement.getGeneratedKeys()) {
+                if (!keys.next()) {
+                    throw new SQLException("No id was generated");
+                }
+                return keys.getLong(1);
+            }
+        }
+    }
+
+    private static void insertProfile(Connection connection, Profile profile) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(SAVE_PROFILE_SQL)) {
+            statement.setLong(1, profile.getUserId());
+            statement.setString(2, profile.getCity());
+            statement.setString(3, profile.getJobPosition());
+            statement.setString(4, profile.getCompany());
+            statement.setString(5, profile.getEducation());
+            statement.executeUpdate();
+        }
+    }
+
+    private static User mapUser(ResultSet rs, User user) throws SQLException {
+        user.setId(rs.getLong(1));
+        user.setFirstName(rs.getString(2));
+        user.setLastName(rs.getString(3));
+        user.setEmail(rs.getString(4));
+        user.setBirthday(rs.getDate(5).toLocalDate());
+        return user;
+    }
+
+    static Profile mapProfile(ResultSet rs, int firstColumn) throws SQLException {
+        return Profile.builder()
+                .userId(rs.getLong(firstColumn))
+                .city(rs.getString(firstColumn + 1))
+                .jobPosition(rs.getString(firstColumn + 2))
+                .company(rs.getString(firstColumn + 3))
+                .education(rs.getString(firstColumn + 4))
+                .build();
+    }
+}
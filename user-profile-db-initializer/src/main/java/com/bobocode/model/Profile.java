@@ -0,0 +1,18 @@
+package com.bobocode.model;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = "userId")
+@ToString
+@Builder
+public class Profile {
+    private Long userId;
+    private String city;
+    private String jobPosition;
+    private String company;
+    private String education;
+}
@@ -0,0 +1,24 @@
+package com.bobocode.model;
+
+import lombok.*;
+
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = "id")
+@ToString(exclude = "profile")
+@Builder
+public class User {
+    private Long id;
+    private String firstName;
+    private String lastName;
+    private String email;
+    private LocalDate birthday;
+    /**
+     * An optional profile, {@code null} if the user has none
+     */
+    private Profile profile;
+}
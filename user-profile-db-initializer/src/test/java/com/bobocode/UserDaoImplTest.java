@@ -0,0 +1,118 @@
+package com.bobocode;
+
+import com.bobocode.dao.FetchStrategy;
+import com.bobocode.dao.UserDao;
+import com.bobocode.dao.UserDaoImpl;
+import com.bobocode.model.Profile;
+import com.bobocode.model.User;
+import com.bobocode.util.JdbcException;
+import com.bobocode.util.metrics.HistogramSnapshot;
+import com.bobocode.util.metrics.InstrumentedDataSource;
+import com.bobocode.util.metrics.StatementSnapshot;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.bobocode.util.JdbcUtil.executeSafely;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class UserDaoImplTest extends DbInitializerTestBase {
+
+    @BeforeClass
+    public static void init() throws SQLException {
+        initDataSource(new UserProfileDbInitializer());
+    }
+
+    @After
+    public void deleteUsers() throws SQLException {
+        consumeStatement(statement -> {
+            executeSafely(statement, "DELETE FROM profiles;");
+            executeSafely(statement, "DELETE FROM users;");
+        });
+    }
+
+    @Test
+    public void testUserDaoFetchesProfilesWithJoinOrLazyBatches() {
+        UserDao dao = new UserDaoImpl(getDataSource());
+        for (int i = 0; i < 10; i++) {
+            User user = User.builder().firstName("John").lastName("Doe").email("user" + i + "@mail.com")
+                    .birthday(LocalDate.of(1990, 1, 1 + i)).build();
+            if (i % 2 == 0) {
+                user.setProfile(Profile.builder().city("Kyiv").company("Company " + i).build());
+            }
+            dao.save(user);
+            assertThat(user.getId(), notNullValue());
+        }
+        InstrumentedDataSource instrumentedDataSource = new InstrumentedDataSource(getDataSource());
+        UserDao lazyDao = new UserDaoImpl(instrumentedDataSource, FetchStrategy.LAZY_BATCH, 4);
+
+        List<User> joinedUsers = dao.findAll();
+        List<User> lazyUsers = lazyDao.findAll();
+        assertThat(executedQueries(instrumentedDataSource), equalTo(1L));
+        assertThat(lazyUsers, equalTo(joinedUsers));
+        for (int i = 0; i < lazyUsers.size(); i++) {
+            Profile expected = joinedUsers.get(i).getProfile();
+            Profile actual = lazyUsers.get(i).getProfile();
+            assertThat(actual == null ? null : actual.getCompany(),
+                    equalTo(expected == null ? null : expected.getCompany()));
+        }
+        assertThat(executedQueries(instrumentedDataSource), equalTo(4L));
+        assertThat(joinedUsers.get(0).getProfile().getCity(), equalTo("Kyiv"));
+        assertThat(joinedUsers.get(1).getProfile(), nullValue());
+
+        User lazyUser = lazyDao.findById(joinedUsers.get(2).getId()).orElseThrow(AssertionError::new);
+        assertThat(lazyUser.getProfile().getCompany(), equalTo("Company 2"));
+        assertThat(dao.findById(-1L, FetchStrategy.LAZY_BATCH).isPresent(), is(false));
+    }
+
+    @Test
+    public void testLazyProfilesAreRetriedAfterAFailedBatch() {
+        UserDao dao = new UserDaoImpl(getDataSource());
+        for (int i = 0; i < 3; i++) {
+            User user = User.builder().firstName("John").lastName("Doe").email("retry" + i + "@mail.com")
+                    .birthday(LocalDate.of(1990, 1, 1)).build();
+            user.setProfile(Profile.builder().city("Lviv").company("Company " + i).build());
+            dao.save(user);
+        }
+        AtomicBoolean unavailable = new AtomicBoolean();
+        DataSource flakyDataSource = (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{DataSource.class}, (proxy, method, args) -> {
+                    if (unavailable.get() && method.getName().equals("getConnection")) {
+                        throw new SQLException("Database is unavailable");
+                    }
+                    try {
+                        return method.invoke(getDataSource(), args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        List<User> users = new UserDaoImpl(flakyDataSource, FetchStrategy.LAZY_BATCH, 2).findAll();
+
+        unavailable.set(true);
+        try {
+            users.get(0).getProfile();
+            throw new AssertionError("Profile was loaded from an unavailable database");
+        } catch (JdbcException expected) {
+        }
+        unavailable.set(false);
+        for (int i = 0; i < users.size(); i++) {
+            assertThat(users.get(i).getProfile().getCompany(), equalTo("Company " + i));
+        }
+    }
+
+    private static long executedQueries(InstrumentedDataSource dataSource) {
+        return dataSource.getMetrics().getSnapshot().getStatements().stream()
+                .map(StatementSnapshot::getExecuteTime)
+                .mapToLong(HistogramSnapshot::getCount)
+                .sum();
+    }
+}
@@ -0,0 +1,116 @@
+package com.bobocode;
+
+import com.bobocode.dao.FetchStrategy;
+import com.bobocode.dao.UserDaoImpl;
+import com.bobocode.model.User;
+import com.bobocode.util.JdbcUtil;
+import com.bobocode.util.metrics.HistogramSnapshot;
+import com.bobocode.util.metrics.InstrumentedDataSource;
+import com.bobocode.util.metrics.JdbcMetrics;
+import com.bobocode.util.metrics.StatementSnapshot;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Compares ways of loading all users and reading their profiles: a query per user (N+1), {@link FetchStrategy#JOIN},
+ * and {@link FetchStrategy#LAZY_BATCH} with several batch sizes. Both strategies are also measured when only every
+ * tenth profile is read. Half of the users have a profile, and the time of a load includes reading profiles.
+ * <p>
+ * Run it as a plain Java program with an optional number of users, e.g. {@code UserFetchStrategyBenchmark 50000}.
+ */
+public class UserFetchStrategyBenchmark {
+    private static final String FIND_PROFILE_SQL = "SELECT user_id, city, job_position, company, education " +
+            "FROM profiles WHERE user_id = ?";
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws SQLException {
+        int userCount = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        DataSource dataSource = JdbcUtil.createInMemoryH2DataSource("user_fetch_strategy_benchmark");
+        UserProfileDbInitializer initializer = new UserProfileDbInitializer();
+        initializer.setDataSource(dataSource);
+        initializer.init();
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO users (first_name, last_name, email, birthday) " +
+                    "SELECT 'John', 'Doe', CONCAT('user', x, '@mail.com'), DATE '1990-01-01' " +
+                    "FROM SYSTEM_RANGE(1, " + userCount + ")");
+            statement.execute("INSERT INTO profiles (user_id, city, job_position, company, education) " +
+                    "SELECT id, 'Kyiv', 'Developer', 'Company', 'University' FROM users WHERE MOD(id, 2) = 0");
+        }
+
+        System.out.printf("%-24s %12s %12s%n", "strategy", "ms/load", "queries");
+        for (int round = 0; round < 2; round++) { // the first round warms up the JIT
+            boolean print = round > 0;
+            run("N+1", dataSource, print, UserFetchStrategyBenchmark::loadWithQueryPerUser);
+            run("join, all profiles", dataSource, print,
+                    instrumented -> readProfiles(new UserDaoImpl(instrumented).findAll(FetchStrategy.JOIN), 1));
+            for (int batchSize : new int[]{10, 100, 1_000}) {
+                run("lazy batch " + batchSize + ", all", dataSource, print, instrumented -> readProfiles(
+                        new UserDaoImpl(instrumented, FetchStrategy.LAZY_BATCH, batchSize).findAll(), 1));
+            }
+            run("join, 10% profiles", dataSource, print,
+                    instrumented -> readProfiles(new UserDaoImpl(instrumented).findAll(FetchStrategy.JOIN), 10));
+            run("lazy batch 100, 10%", dataSource, print, instrumented -> readProfiles(
+                    new UserDaoImpl(instrumented, FetchStrategy.LAZY_BATCH, 100).findAll(), 10));
+        }
+    }
+
+    private static void run(String name, DataSource dataSource, boolean print, Function<DataSource, Integer> load) {
+        InstrumentedDataSource instrumented = new InstrumentedDataSource(dataSource);
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            load.apply(instrumented);
+        }
+        double millis = (System.nanoTime() - start) / 1_000_000.0 / ROUNDS;
+        if (print) {
+            System.out.printf("%-24s %12.1f %12d%n", name, millis, executedQueries(instrumented.getMetrics()) / ROUNDS);
+        }
+    }
+
+    /**
+     * Reads the profile of every {@code step}-th user, returns the number of users with a profile
+     */
+    private static int readProfiles(List<User> users, int step) {
+        int withProfile = 0;
+        for (int i = 0; i < users.size(); i += step) {
+            if (users.get(i).getProfile() != null) {
+                withProfile++;
+            }
+        }
+        return withProfile;
+    }
+
+    private static int loadWithQueryPerUser(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet users = statement.executeQuery("SELECT id FROM users ORDER BY id");
+             PreparedStatement profileStatement = connection.prepareStatement(FIND_PROFILE_SQL)) {
+            int withProfile = 0;
+            while (users.next()) {
+                profileStatement.setLong(1, users.getLong(1));
+                try (ResultSet profile = profileStatement.executeQuery()) {
+                    if (profile.next()) {
+                        withProfile++;
+                    }
+                }
+            }
+            return withProfile;
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long executedQueries(JdbcMetrics metrics) {
+        return metrics.getSnapshot().getStatements().stream()
+                .map(StatementSnapshot::getExecuteTime)
+                .mapToLong(HistogramSnapshot::getCount)
+                .sum();
+    }
+}
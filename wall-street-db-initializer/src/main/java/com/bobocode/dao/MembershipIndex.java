@@ -0,0 +1,244 @@
+package com.bobocode.dao;
+
+import com.bobocode.model.Membership;
+import com.bobocode.util.JdbcException;
+import com.bobocode.util.JdbcUtil;
+import lombok.AllArgsConstructor;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * {@link MembershipIndex} keeps one bitmap of broker ids per sales group in memory, so questions like "brokers in
+ * groups A and B but not C" are answered with a few word-wise bit operations instead of self-joins on
+ * {@code broker_sales_group}.
+ * <p>
+ * The index is filled by {@link #load()} with one streaming scan of the link table, and kept current by registering
+ * it as a {@link MembershipListener} of {@link WallStreetDaoImpl}. Changes made to the link table in other ways are
+ * not seen until the next {@link #load()}. Listener events that arrive while {@link #load()} is scanning are replayed
+ * over the loaded bitmaps before they replace the current ones, so no change is lost.
+ * <p>
+ * Bitmaps are {@link BitSet}s indexed by broker id, which take one bit per id up to the largest member, and broker
+ * ids must fit into {@code int}. A group therefore costs about {@code maxBrokerId / 8} bytes however few members it
+ * has: 1,000 groups over ids up to 10 million take about 1.25 GB. That is compact for the dense ids generated by
+ * {@code AUTO_INCREMENT} and a moderate number of groups, but not for sparse ids or many small groups.
+ * <p>
+ * {@code MembershipIndexBenchmark} in the tests compares queries of the index with the equivalent SQL.
+ */
+public class MembershipIndex implements MembershipListener {
+    private static final String SELECT_MEMBERSHIPS_SQL = "SELECT sales_group_id, broker_id FROM broker_sales_group";
+    private static final int FETCH_SIZE = 1_000;
+
+    private final DataSource dataSource;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<Long, BitSet> brokersBySalesGroup = new HashMap<>();
+    /**
+     * Events received during a running {@link #load()}, {@code null} when no load is running. Guarded by the lock.
+     */
+    private List<MembershipEvent> eventsDuringLoad;
+
+    public MembershipIndex(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Replaces the index content with memberships read from the database. Links and unlinks reported during the scan
+     * are applied to the loaded content in the order they were reported.
+     */
+    public synchronized void load() {
+        lock.writeLock().lock();
+        try {
+            eventsDuringLoad = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Map<Long, BitSet> loaded;
+        try {
+            loaded = JdbcUtil.applyConnection(dataSource, this::scan);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                eventsDuringLoad = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        lock.writeLock().lock();
+        try {
+            for (MembershipEvent event : eventsDuringLoad) {
+                if (event.linked) {
+                    link(loaded, event.memberships);
+                } else {
+                    unlink(loaded, event.memberships);
+                }
+            }
+            eventsDuringLoad = null;
+            brokersBySalesGroup = loaded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Map<Long, BitSet> scan(Connection connection) {
+        try (Statement statement = connection.createStatement()) {
+            statement.setFetchSize(FETCH_SIZE);
+            try (ResultSet rs = statement.executeQuery(SELECT_MEMBERSHIPS_SQL)) {
+                Map<Long, BitSet> bitmaps = new HashMap<>();
+                while (rs.next()) {
+                    bitmaps.computeIfAbsent(rs.getLong(1), salesGroupId -> new BitSet()).set(toBit(rs.getLong(2)));
+                }
+                return bitmaps;
+            }
+        } catch (SQLException e) {
+            throw new JdbcException("Error loading broker memberships", e);
+        }
+    }
+
+    @Override
+    public void linked(Collection<Membership> memberships) {
+        lock.writeLock().lock();
+        try {
+            link(brokersBySalesGroup, memberships);
+            if (eventsDuringLoad != null) {
+                eventsDuringLoad.add(new MembershipEvent(true, new ArrayList<>(memberships)));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void unlinked(Collection<Membership> memberships) {
+        lock.writeLock().lock();
+        try {
+            unlink(brokersBySalesGroup, memberships);
+            if (eventsDuringLoad != null) {
+                eventsDuringLoad.add(new MembershipEvent(false, new ArrayList<>(memberships)));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void link(Map<Long, BitSet> bitmaps, Collection<Membership> memberships) {
+        for (Membership membership : memberships) {
+            bitmaps.computeIfAbsent(membership.getSalesGroupId(), salesGroupId -> new BitSet())
+                    .set(toBit(membership.getBrokerId()));
+        }
+    }
+
+    private static void unlink(Map<Long, BitSet> bitmaps, Collection<Membership> memberships) {
+        for (Membership membership : memberships) {
+            BitSet brokers = bitmaps.get(membership.getSalesGroupId());
+            if (brokers != null) {
+                brokers.clear(toBit(membership.getBrokerId()));
+                if (brokers.isEmpty()) {
+                    bitmaps.remove(membership.getSalesGroupId());
+                }
+            }
+        }
+    }
+
+    public boolean isMember(long brokerId, long salesGroupId) {
+        lock.readLock().lock();
+        try {
+            BitSet brokers = brokersBySalesGroup.get(salesGroupId);
+            return brokers != null && brokers.get(toBit(brokerId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns brokers that belong to every group of {@code allOf}, to at least one group of {@code anyOf} if it is
+     * not empty, and to no group of {@code noneOf}
+     *
+     * @param allOf  required groups
+     * @param anyOf  alternative groups
+     * @param noneOf excluded groups
+     * @return broker ids in ascending order
+     * @throws IllegalArgumentException if both {@code allOf} and {@code anyOf} are empty
+     */
+    public long[] query(Collection<Long> allOf, Collection<Long> anyOf, Collection<Long> noneOf) {
+        return evaluate(allOf, anyOf, noneOf).stream().asLongStream().toArray();
+    }
+
+    /**
+     * Counts brokers that {@link #query(Collection, Collection, Collection)} would return, without materializing ids
+     */
+    public int count(Collection<Long> allOf, Collection<Long> anyOf, Collection<Long> noneOf) {
+        return evaluate(allOf, anyOf, noneOf).cardinality();
+    }
+
+    public long[] allOf(Collection<Long> salesGroupIds) {
+        return query(salesGroupIds, Collections.emptySet(), Collections.emptySet());
+    }
+
+    public long[] anyOf(Collection<Long> salesGroupIds) {
+        return query(Collections.emptySet(), salesGroupIds, Collections.emptySet());
+    }
+
+    private BitSet evaluate(Collection<Long> allOf, Collection<Long> anyOf, Collection<Long> noneOf) {
+        if (allOf.isEmpty() && anyOf.isEmpty()) {
+            throw new IllegalArgumentException("At least one required or alternative sales group must be given");
+        }
+        lock.readLock().lock();
+        try {
+            BitSet result = null;
+            for (Long salesGroupId : allOf) {
+                BitSet brokers = brokersBySalesGroup.get(salesGroupId);
+                if (brokers == null) {
+                    return new BitSet();
+                }
+                if (result == null) {
+                    result = (BitSet) brokers.clone();
+                } else {
+                    result.and(brokers);
+                }
+            }
+            if (!anyOf.isEmpty()) {
+                BitSet union = new BitSet();
+                for (Long salesGroupId : anyOf) {
+                    BitSet brokers = brokersBySalesGroup.get(salesGroupId);
+                    if (brokers != null) {
+                        union.or(brokers);
+                    }
+                }
+                if (result == null) {
+                    result = union;
+                } else {
+                    result.and(union);
+                }
+            }
+            for (Long salesGroupId : noneOf) {
+                BitSet brokers = brokersBySalesGroup.get(salesGroupId);
+                if (brokers != null) {
+                    result.andNot(brokers);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static int toBit(long brokerId) {
+        if (brokerId < 0 || brokerId > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Broker id is out of the index range: " + brokerId);
+        }
+        return (int) brokerId;
+    }
+
+    @AllArgsConstructor
+    private static class MembershipEvent {
+        private final boolean linked;
+        private final Collection<Membership> memberships;
+    }
+}
@@ -0,0 +1,15 @@
+package com.bobocode.dao;
+
+import com.bobocode.model.Membership;
+
+import java.util.Collection;
+
+/**
+ * Receives memberships changed through {@link WallStreetDao}. It is called after the change is committed, and an
+ * exception it throws is logged without affecting other listeners.
+ */
+public interface MembershipListener {
+    void linked(Collection<Membership> memberships);
+
+    void unlinked(Collection<Membership> memberships);
+}
@@ -0,0 +1,11 @@
+package com.bobocode.dao;
+
+import com.bobocode.model.SalesGroup;
+
+/**
+ * Receives sales groups changed through {@link WallStreetDao}. It is called after the change is committed, and an
+ * exception it throws is logged without affecting other listeners.
+ */
+public interface SalesGroupListener {
+    void salesGroupUpdated(SalesGroup salesGroup);
+}
@@ -0,0 +1,227 @@
+package com.bobocode.dao;
+
+import com.bobocode.model.Membership;
+import com.bobocode.model.SalesGroup;
+import com.bobocode.util.JdbcException;
+import com.bobocode.util.JdbcUtil;
+import com.bobocode.util.StripedLongMap;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * {@link TransactionLimitService} resolves the effective {@code max_transaction_amount} of a broker for a transaction
+ * type, combining all sales groups of the broker of that type according to a {@link Policy}.
+ * <p>
+ * Limits of all brokers are precomputed by {@link #load()} with one grouped join and kept in a {@link StripedLongMap}
+ * keyed by broker id and transaction type code, so a lookup is a lock-free probe of a primitive array without database
+ * access. Registered as a {@link MembershipListener} and {@link SalesGroupListener} of {@link WallStreetDaoImpl}, the
+ * service recomputes only the brokers affected by a change: the broker of a changed membership, or all members of an
+ * updated sales group. Changes made to the tables in other ways are not seen until the next {@link #load()}.
+ */
+public class TransactionLimitService implements MembershipListener, SalesGroupListener {
+    private static final String LIMITS_SQL = "SELECT bsg.broker_id, sg.transaction_type, " +
+            "%s(sg.max_transaction_amount) " +
+            "FROM broker_sales_group bsg JOIN sales_group sg ON sg.id = bsg.sales_group_id%s " +
+            "GROUP BY bsg.broker_id, sg.transaction_type";
+    private static final String BROKER_IDS_CONDITION = " WHERE bsg.broker_id IN (%s)";
+    private static final String GROUP_MEMBERS_SQL = "SELECT broker_id FROM broker_sales_group WHERE sales_group_id = ?";
+    private static final int TYPE_CODE_BITS = 16;
+    private static final int MAX_TYPE_CODE = (1 << TYPE_CODE_BITS) - 1;
+    private static final int IN_LIST_SIZE = 500;
+
+    /**
+     * How limits of several sales groups of the same transaction type are combined
+     */
+    public enum Policy {
+        /**
+         * The largest limit applies, any group of the broker allows the trade
+         */
+        MOST_PERMISSIVE("MAX"),
+        /**
+         * The smallest limit applies, every group of the broker must allow the trade
+         */
+        MOST_RESTRICTIVE("MIN");
+
+        private final String aggregate;
+
+        Policy(String aggregate) {
+            this.aggregate = aggregate;
+        }
+    }
+
+    private final DataSource dataSource;
+    private final Policy policy;
+    private final StripedLongMap<BigDecimal> limits = new StripedLongMap<>(64);
+    private final Map<String, Integer> typeCodes = new ConcurrentHashMap<>();
+    private final Object refreshLock = new Object();
+
+    public TransactionLimitService(DataSource dataSource) {
+        this(dataSource, Policy.MOST_PERMISSIVE);
+    }
+
+    public TransactionLimitService(DataSource dataSource, Policy policy) {
+        this.dataSource = dataSource;
+        this.policy = Objects.requireNonNull(policy);
+    }
+
+    /**
+     * Replaces all cached limits with limits computed from the database
+     */
+    public void load() {
+        synchronized (refreshLock) {
+            Map<Long, BigDecimal> loaded = JdbcUtil.applyConnection(dataSource, connection -> {
+                try (Statement statement = connection.createStatement();
+                     ResultSet rs = statement.executeQuery(String.format(LIMITS_SQL, policy.aggregate, ""))) {
+                    return collectLimits(rs);
+                } catch (SQLException e) {
+                    throw new JdbcException("Error loading transaction limits", e);
+                }
+            });
+            limits.replaceAll(loaded);
+        }
+    }
+
+    /**
+     * Returns the effective limit of a broker for a transaction type
+     *
+     * @param brokerId        broker id
+     * @param transactionType transaction type
+     * @return the limit, or {@code null} if no sales group of the broker has this transaction type
+     */
+    public BigDecimal getLimit(long brokerId, String transactionType) {
+        Integer typeCode = typeCodes.get(transactionType);
+        return typeCode == null ? null : limits.get(key(brokerId, typeCode));
+    }
+
+    public Optional<BigDecimal> findLimit(long brokerId, String transactionType) {
+        return Optional.ofNullable(getLimit(brokerId, transactionType));
+    }
+
+    /**
+     * Checks a trade amount against the effective limit. A broker without a limit for the type is not allowed to trade.
+     *
+     * @param brokerId        broker id
+     * @param transactionType transaction type
+     * @param amount          trade amount
+     * @return {@code true} if the amount doesn't exceed the limit
+     */
+    public boolean isAllowed(long brokerId, String transactionType, BigDecimal amount) {
+        BigDecimal limit = getLimit(brokerId, transactionType);
+        return limit != null && amount.compareTo(limit) <= 0;
+    }
+
+    @Override
+    public void linked(Collection<Membership> memberships) {
+        refreshBrokers(brokerIds(memberships));
+    }
+
+    @Override
+    public void unlinked(Collection<Membership> memberships) {
+        refreshBrokers(brokerIds(memberships));
+    }
+
+    @Override
+    public void salesGroupUpdated(SalesGroup salesGroup) {
+        Set<Long> brokerIds = JdbcUtil.applyConnection(dataSource, connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(GROUP_MEMBERS_SQL)) {
+                statement.setLong(1, salesGroup.getId());
+                try (ResultSet rs = statement.executeQuery()) {
+                    Set<Long> ids = new TreeSet<>();
+                    while (rs.next()) {
+                        ids.add(rs.getLong(1));
+                    }
+                    return ids;
+                }
+            } catch (SQLException e) {
+                throw new JdbcException("Error finding members of sales group: " + salesGroup.getId(), e);
+            }
+        });
+        refreshBrokers(brokerIds);
+    }
+
+    /**
+     * Recomputes limits of the given brokers. Refreshes are serialized, so a refresh that reads newer data is never
+     * overwritten by an older one.
+     *
+     * @param brokerIds broker ids
+     */
+    public void refreshBrokers(Collection<Long> brokerIds) {
+        if (brokerIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(new TreeSet<>(brokerIds));
+        synchronized (refreshLock) {
+            Map<Long, BigDecimal> refreshed = JdbcUtil.applyConnection(dataSource, connection -> {
+                try {
+                    return selectLimits(connection, ids);
+                } catch (SQLException e) {
+                    throw new JdbcException("Error refreshing transaction limits of brokers: " + ids, e);
+                }
+            });
+            List<Long> stale = new ArrayList<>();
+            for (Long brokerId : ids) {
+                for (Integer typeCode : typeCodes.values()) {
+                    stale.add(key(brokerId, typeCode));
+                }
+            }
+            limits.update(stale, refreshed);
+        }
+    }
+
+    private Map<Long, BigDecimal> selectLimits(Connection connection, List<Long> brokerIds) throws SQLException {
+        Map<Long, BigDecimal> result = new HashMap<>();
+        for (int from = 0; from < brokerIds.size(); from += IN_LIST_SIZE) {
+            List<Long> chunk = brokerIds.subList(from, Math.min(brokerIds.size(), from + IN_LIST_SIZE));
+            String condition = String.format(BROKER_IDS_CONDITION,
+                    String.join(", ", Collections.nCopies(chunk.size(), "?")));
+            try (PreparedStatement statement = connection.prepareStatement(
+                    String.format(LIMITS_SQL, policy.aggregate, condition))) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    statement.setLong(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = statement.executeQuery()) {
+                    result.putAll(collectLimits(rs));
+                }
+            }
+        }
+        return result;
+    }
+
+    private Map<Long, BigDecimal> collectLimits(ResultSet rs) throws SQLException {
+        Map<Long, BigDecimal> result = new HashMap<>();
+        while (rs.next()) {
+            result.put(key(rs.getLong(1), typeCode(rs.getString(2))), rs.getBigDecimal(3));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the code of a transaction type, assigning the next one to a new type. Must be called under the refresh
+     * lock, so codes are assigned one at a time.
+     */
+    private int typeCode(String transactionType) {
+        return typeCodes.computeIfAbsent(transactionType, type -> {
+            if (typeCodes.size() > MAX_TYPE_CODE) {
+                throw new IllegalStateException("Too many transaction types");
+            }
+            return typeCodes.size();
+        });
+    }
+
+    private static long key(long brokerId, int typeCode) {
+        return brokerId << TYPE_CODE_BITS | typeCode;
+    }
+
+    private static Set<Long> brokerIds(Collection<Membership> memberships) {
+        return memberships.stream().map(Membership::getBrokerId).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,89 @@
+package com.bobocode.dao;
+
+import com.bobocode.model.Broker;
+import com.bobocode.model.Membership;
+import com.bobocode.model.MembershipDiff;
+import com.bobocode.model.SalesGroup;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * {@link WallStreetDao} is a Data Access Object (DAO) for brokers, sales groups and their memberships stored in
+ * {@code broker}, {@code sales_group} and {@code broker_sales_group} tables. Brokers are always loaded together with
+ * their sales groups using a fixed number of queries, no matter how many brokers are loaded.
+ */
+public interface WallStreetDao {
+    /**
+     * Stores a new broker. Sets generated id to the {@link Broker} instance. Sales groups of the broker are ignored.
+     *
+     * @param broker new broker
+     */
+    void saveBroker(Broker broker);
+
+    /**
+     * Stores a new sales group. Sets generated id to the {@link SalesGroup} instance.
+     *
+     * @param salesGroup new sales group
+     */
+    void saveSalesGroup(SalesGroup salesGroup);
+
+    /**
+     * Updates name, transaction type and max transaction amount of a stored sales group
+     *
+     * @param salesGroup sales group with id
+     * @throws IllegalArgumentException if there is no sales group with such id
+     */
+    void updateSalesGroup(SalesGroup salesGroup);
+
+    /**
+     * Returns a broker with its sales groups loaded with a single join query
+     *
+     * @param brokerId broker id
+     * @return optional broker
+     */
+    Optional<Broker> findBroker(long brokerId);
+
+    /**
+     * Returns all brokers with their sales groups loaded with a single join query
+     *
+     * @return brokers ordered by id
+     */
+    List<Broker> findAllBrokers();
+
+    /**
+     * Returns brokers with given ids. Brokers are loaded with one query, and sales groups of all of them with another
+     * one.
+     *
+     * @param brokerIds broker ids
+     * @return found brokers ordered by id
+     */
+    List<Broker> findBrokers(Collection<Long> brokerIds);
+
+    /**
+     * Adds memberships with one batch of inserts in a single transaction
+     *
+     * @param memberships memberships to add
+     */
+    void link(Collection<Membership> memberships);
+
+    /**
+     * Removes memberships with one batch of deletes by the composite key in a single transaction. Listeners are
+     * notified only of memberships that existed and were deleted.
+     *
+     * @param memberships memberships to remove
+     */
+    void unlink(Collection<Membership> memberships);
+
+    /**
+     * Makes a broker a member of exactly the given sales groups. Current memberships are read under the broker row
+     * lock, and the difference is written with one batch, in one transaction.
+     *
+     * @param brokerId      broker id
+     * @param salesGroupIds sales groups the broker must belong to
+     * @return added and removed memberships
+     */
+    MembershipDiff replaceMemberships(long brokerId, Set<Long> salesGroupIds);
+}
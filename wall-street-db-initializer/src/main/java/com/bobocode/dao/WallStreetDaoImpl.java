@@ -0,0 +1,394 @@
+package com.bobocode.dao;
+
+import com.bobocode.model.Broker;
+import com.bobocode.model.Membership;
+import com.bobocode.model.MembershipDiff;
+import com.bobocode.model.SalesGroup;
+import com.bobocode.util.JdbcException;
+import com.bobocode.util.JdbcUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+public class WallStreetDaoImpl implements WallStreetDao {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WallStreetDaoImpl.class);
+    private static final String SAVE_BROKER_SQL = "INSERT INTO broker (username, first_name, last_name) VALUES (?, ?, ?)";
+    private static final String SAVE_SALES_GROUP_SQL = "INSERT INTO sales_group " +
+            "(name, transaction_type, max_transaction_amount) VALUES (?, ?, ?)";
+    private static final String UPDATE_SALES_GROUP_SQL = "UPDATE sales_group " +
+            "SET name = ?, transaction_type = ?, max_transaction_amount = ? WHERE id = ?";
+    private static final String FIND_BROKERS_WITH_GROUPS_SQL = "SELECT b.id, b.username, b.first_name, b.last_name, " +
+            "sg.id, sg.name, sg.transaction_type, sg.max_transaction_amount " +
+            "FROM broker b " +
+            "LEFT JOIN broker_sales_group bsg ON bsg.broker_id = b.id " +
+            "LEFT JOIN sales_group sg ON sg.id = bsg.sales_group_id";
+    private static final String FIND_BROKER_SQL = FIND_BROKERS_WITH_GROUPS_SQL + " WHERE b.id = ? ORDER BY sg.id";
+    private static final String FIND_ALL_BROKERS_SQL = FIND_BROKERS_WITH_GROUPS_SQL + " ORDER BY b.id, sg.id";
+    private static final String FIND_BROKERS_BY_IDS_SQL = "SELECT id, username, first_name, last_name FROM broker " +
+            "WHERE id IN (%s) ORDER BY id";
+    private static final String FIND_GROUPS_BY_BROKER_IDS_SQL = "SELECT bsg.broker_id, " +
+            "sg.id, sg.name, sg.transaction_type, sg.max_transaction_amount " +
+            "FROM broker_sales_group bsg JOIN sales_group sg ON sg.id = bsg.sales_group_id " +
+            "WHERE bsg.broker_id IN (%s) ORDER BY sg.id";
+    private static final String LINK_SQL = "INSERT INTO broker_sales_group (broker_id, sales_group_id) VALUES (?, ?)";
+    private static final String UNLINK_SQL = "DELETE FROM broker_sales_group WHERE broker_id = ? AND sales_group_id = ?";
+    private static final String LOCK_BROKER_SQL = "SELECT id FROM broker WHERE id = ? FOR UPDATE";
+    private static final String FIND_GROUP_IDS_SQL = "SELECT sales_group_id FROM broker_sales_group WHERE broker_id = ?";
+    private static final int IN_LIST_SIZE = 500;
+
+    private final DataSource dataSource;
+    private final List<MembershipListener> membershipListeners = new CopyOnWriteArrayList<>();
+    private final List<SalesGroupListener> salesGroupListeners = new CopyOnWriteArrayList<>();
+
+    public WallStreetDaoImpl(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public void addMembershipListener(MembershipListener membershipListener) {
+        membershipListeners.add(Objects.requireNonNull(membershipListener));
+    }
+
+    public void addSalesGroupListener(SalesGroupListener salesGroupListener) {
+        salesGroupListeners.add(Objects.requireNonNull(salesGroupListener));
+    }
+
+    @Override
+    public void saveBroker(Broker broker) {
+        Objects.requireNonNull(broker);
+        long id = applyConnection(connection -> insertReturningId(connection, SAVE_BROKER_SQL, statement -> {
+            statement.setString(1, broker.getUsername());
+            statement.setString(2, broker.getFirstName());
+            statement.setString(3, broker.getLastName());
+        }), "Error saving broker: " + broker);
+        broker.setId(id);
+    }
+
+    @Override
+    public void saveSalesGroup(SalesGroup salesGroup) {
+        Objects.requireNonNull(salesGroup);
+        long id = applyConnection(connection -> insertReturningId(connection, SAVE_SALES_GROUP_SQL, statement -> {
+            statement.setString(1, salesGroup.getName());
+            statement.setString(2, salesGroup.getTransactionType());
+            statement.setBigDecimal(3, salesGroup.getMaxTransactionAmount());
+        }), "Error saving sales group: " + salesGroup);
+        salesGroup.setId(id);
+    }
+
+    @Override
+    public void updateSalesGroup(SalesGroup salesGroup) {
+        Objects.requireNonNull(salesGroup.getId(), "Sales group id is required");
+        int updated = applyConnection(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(UPDATE_SALES_GROUP_SQL)) {
+                statement.setString(1, salesGroup.getName());
+                statement.setString(2, salesGroup.getTransactionType());
+                statement.setBigDecimal(3, salesGroup.getMaxTransactionAmount());
+                statement.setLong(4, salesGroup.getId());
+                return statement.executeUpdate();
+            }
+        }, "Error updating sales group: " + salesGroup);
+        if (updated == 0) {
+            throw new IllegalArgumentException("Sales group not found: " + salesGroup.getId());
+        }
+        notifyListeners(salesGroupListeners, listener -> listener.salesGroupUpdated(salesGroup));
+    }
+
+    @Override
+    public Optional<Broker> findBroker(long brokerId) {
+        return applyConnection(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(FIND_BROKER_SQL)) {
+                statement.setLong(1, brokerId);
+                try (ResultSet rs = statement.executeQuery()) {
+                    return collectBrokersWithGroups(rs).stream().findFirst();
+                }
+            }
+        }, "Error finding broker by id: " + brokerId);
+    }
+
+    @Override
+    public List<Broker> findAllBrokers() {
+        return applyConnection(connection -> {
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(FIND_ALL_BROKERS_SQL)) {
+                return collectBrokersWithGroups(rs);
+            }
+        }, "Error finding all brokers");
+    }
+
+    @Override
+    public List<Broker> findBrokers(Collection<Long> brokerIds) {
+        List<Long> ids = new ArrayList<>(new TreeSet<>(brokerIds));
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return applyConnection(connection -> {
+            Map<Long, Broker> brokers = new LinkedHashMap<>();
+            for (List<Long> chunk : chunks(ids)) {
+                try (PreparedStatement statement = prepareInQuery(connection, FIND_BROKERS_BY_IDS_SQL, chunk);
+                     ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        Broker broker = mapBroker(rs);
+                        brokers.put(broker.getId(), broker);
+                    }
+                }
+            }
+            List<Long> foundIds = new ArrayList<>(brokers.keySet());
+            for (List<Long> chunk : chunks(foundIds)) {
+                try (PreparedStatement statement = prepareInQuery(connection, FIND_GROUPS_BY_BROKER_IDS_SQL, chunk);
+                     ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        brokers.get(rs.getLong(1)).getSalesGroups().add(mapSalesGroup(rs, 2));
+                    }
+                }
+            }
+            return new ArrayList<>(brokers.values());
+        }, "Error finding brokers by ids");
+    }
+
+    @Override
+    public void link(Collection<Membership> memberships) {
+        List<Membership> linked = executeMembershipBatch(LINK_SQL, memberships, "Error linking memberships");
+        if (!linked.isEmpty()) {
+            notifyListeners(membershipListeners, listener -> listener.linked(linked));
+        }
+    }
+
+    @Override
+    public void unlink(Collection<Membership> memberships) {
+        List<Membership> unlinked = executeMembershipBatch(UNLINK_SQL, memberships, "Error unlinking memberships");
+        if (!unlinked.isEmpty()) {
+            notifyListeners(membershipListeners, listener -> listener.unlinked(unlinked));
+        }
+    }
+
+    @Override
+    public MembershipDiff replaceMemberships(long brokerId, Set<Long> salesGroupIds) {
+        Objects.requireNonNull(salesGroupIds);
+        MembershipDiff diff = inTransaction(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(LOCK_BROKER_SQL)) {
+                statement.setLong(1, brokerId);
+                try (ResultSet rs = statement.executeQuery()) {
+                    if (!rs.next()) {
+                        throw new IllegalArgumentException("Broker not found: " + brokerId);
+                    }
+                }
+            }
+            Set<Long> current = new TreeSet<>();
+            try (PreparedStatement statement = connection.prepareStatement(FIND_GROUP_IDS_SQL)) {
+                statement.setLong(1, brokerId);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        current.add(rs.getLong(1));
+                    }
+                }
+            }
+            Set<Long> added = new TreeSet<>(salesGroupIds);
+            added.removeAll(current);
+            Set<Long> removed = new TreeSet<>(current);
+            removed.removeAll(salesGroupIds);
+            writeDiff(connection, brokerId, added, removed);
+            return new MembershipDiff(brokerId, added, removed);
+        }, "Error replacing memberships of broker: " + brokerId);
+        if (!diff.isEmpty()) {
+            List<Membership> removed = toMemberships(brokerId, diff.getRemovedSalesGroupIds());
+            List<Membership> added = toMemberships(brokerId, diff.getAddedSalesGroupIds());
+            notifyListeners(membershipListeners, listener -> {
+                listener.unlinked(removed);
+                listener.linked(added);
+            });
+        }
+        return diff;
+    }
+
+    /**
+     * Notifies every listener of a committed change. A failing listener is logged and does not keep the change from
+     * the listeners after it, nor from the caller, which would otherwise see an exception for a committed change.
+     */
+    private static <L> void notifyListeners(List<L> listeners, Consumer<L> notification) {
+        for (L listener : listeners) {
+            try {
+                notification.accept(listener);
+            } catch (RuntimeException e) {
+                LOGGER.error("Listener {} failed", listener, e);
+            }
+        }
+    }
+
+    /**
+     * Sends the whole diff as one batch of at most two statements. Ids are numbers, so they are inlined safely.
+     */
+    private void writeDiff(Connection connection, long brokerId, Set<Long> added, Set<Long> removed)
+            throws SQLException {
+        if (added.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            if (!removed.isEmpty()) {
+                statement.addBatch(String.format("DELETE FROM broker_sales_group WHERE broker_id = %d " +
+                        "AND sales_group_id IN (%s)", brokerId, joinIds(removed)));
+            }
+            if (!added.isEmpty()) {
+                statement.addBatch("INSERT INTO broker_sales_group (broker_id, sales_group_id) VALUES " +
+                        added.stream()
+                                .map(salesGroupId -> String.format("(%d, %d)", brokerId, salesGroupId))
+                                .collect(Collectors.joining(", ")));
+            }
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * Executes a statement for every membership in one batch and transaction
+     *
+     * @return memberships whose statement changed a row, so deletes of missing links are not reported
+     */
+    private List<Membership> executeMembershipBatch(String sql, Collection<Membership> memberships,
+                                                    String errorMessage) {
+        Objects.requireNonNull(memberships);
+        List<Membership> sorted = sortedMemberships(memberships);
+        if (sorted.isEmpty()) {
+            return sorted;
+        }
+        return inTransaction(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (Membership membership : sorted) {
+                    statement.setLong(1, membership.getBrokerId());
+                    statement.setLong(2, membership.getSalesGroupId());
+                    statement.addBatch();
+                }
+                int[] updateCounts = statement.executeBatch();
+                List<Membership> changed = new ArrayList<>();
+                for (int i = 0; i < updateCounts.length; i++) {
+                    if (updateCounts[i] > 0 || updateCounts[i] == Statement.SUCCESS_NO_INFO) {
+                        changed.add(sorted.get(i));
+                    }
+                }
+                return changed;
+            }
+        }, errorMessage);
+    }
+
+    private static List<Membership> toMemberships(long brokerId, Set<Long> salesGroupIds) {
+        return salesGroupIds.stream()
+                .map(salesGroupId -> new Membership(brokerId, salesGroupId))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Orders memberships by key, so concurrent batches lock link rows in the same order
+     */
+    private static List<Membership> sortedMemberships(Collection<Membership> memberships) {
+        List<Membership> sorted = new ArrayList<>(new LinkedHashSet<>(memberships));
+        sorted.sort(Comparator.comparingLong(Membership::getBrokerId).thenComparingLong(Membership::getSalesGroupId));
+        return sorted;
+    }
+
+    private static List<Broker> collectBrokersWithGroups(ResultSet rs) throws SQLException {
+        Map<Long, Broker> brokers = new LinkedHashMap<>();
+        while (rs.next()) {
+            Broker broker = brokers.get(rs.getLong(1));
+            if (broker == null) {
+                broker = mapBroker(rs);
+                brokers.put(broker.getId(), broker);
+            }
+            rs.getLong(5);
+            if (!rs.wasNull()) {
+                broker.getSalesGroups().add(mapSalesGroup(rs, 5));
+            }
+        }
+        return new ArrayList<>(brokers.values());
+    }
+
+    private static Broker mapBroker(ResultSet rs) throws SQLException {
+        return Broker.builder()
+                .id(rs.getLong(1))
+                .username(rs.getString(2))
+                .firstName(rs.getString(3))
+                .lastName(rs.getString(4))
+                .build();
+    }
+
+    private static SalesGroup mapSalesGroup(ResultSet rs, int firstColumn) throws SQLException {
+        return SalesGroup.builder()
+                .id(rs.getLong(firstColumn))
+                .name(rs.getString(firstColumn + 1))
+                .transactionType(rs.getString(firstColumn + 2))
+                .maxTransactionAmount(rs.getBigDecimal(firstColumn + 3))
+                .build();
+    }
+
+    private static long insertReturningId(Connection connection, String sql, StatementBinder binder)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            binder.bind(statement);
+            statement.executeUpdate();
+            try (ResultSet keys = statement.getGeneratedKeys()) {
+                if (!keys.next()) {
+                    throw new SQLException("No id was generated");
+                }
+                return keys.getLong(1);
+            }
+        }
+    }
+
+    private static PreparedStatement prepareInQuery(Connection connection, String sql, List<Long> ids)
+            throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(
+                String.format(sql, String.join(", ", Collections.nCopies(ids.size(), "?"))));
+        for (int i = 0; i < ids.size(); i++) {
+            statement.setLong(i + 1, ids.get(i));
+        }
+        return statement;
+    }
+
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += IN_LIST_SIZE) {
+            chunks.add(ids.subList(from, Math.min(ids.size(), from + IN_LIST_SIZE)));
+        }
+        return chunks;
+    }
+
+    private static String joinIds(Set<Long> ids) {
+        return ids.stream().map(String::valueOf).collect(Collectors.joining(", "));
+    }
+
+    private <T> T applyConnection(ConnectionFunction<T> function, String errorMessage) {
+        try (Connection connection = JdbcUtil.getConnection(dataSource)) {
+            return function.apply(connection);
+        } catch (SQLException e) {
+            throw new JdbcException(errorMessage, e);
+        }
+    }
+
+    private <T> T inTransaction(ConnectionFunction<T> function, String errorMessage) {
+        return applyConnection(connection -> {
+            connection.setAutoCommit(false);
+            try {
+                T result = function.apply(connection);
+                connection.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }, errorMessage);
+    }
+
+    @FunctionalInterface
+    private interface ConnectionFunction<T> {
+        T apply(Connection connection) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface StatementBinder {
+        void bind(PreparedStatement statement) throws SQLException;
+    }
+}
@@ -0,0 +1,22 @@
+package com.bobocode.model;
+
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = "id")
+@ToString
+@Builder
+public class Broker {
+    private Long id;
+    private String username;
+    private String firstName;
+    private String lastName;
+    @Builder.Default
+    private List<SalesGroup> salesGroups = new ArrayList<>();
+}
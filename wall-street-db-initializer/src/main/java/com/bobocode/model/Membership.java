@@ -0,0 +1,15 @@
+package com.bobocode.model;
+
+import lombok.*;
+
+/**
+ * A row of {@code broker_sales_group} link table
+ */
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class Membership {
+    private final long brokerId;
+    private final long salesGroupId;
+}
@@ -0,0 +1,21 @@
+package com.bobocode.model;
+
+import lombok.*;
+
+import java.util.Set;
+
+/**
+ * Sales groups that were added to and removed from a broker by a membership replacement
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class MembershipDiff {
+    private final long brokerId;
+    private final Set<Long> addedSalesGroupIds;
+    private final Set<Long> removedSalesGroupIds;
+
+    public boolean isEmpty() {
+        return addedSalesGroupIds.isEmpty() && removedSalesGroupIds.isEmpty();
+    }
+}
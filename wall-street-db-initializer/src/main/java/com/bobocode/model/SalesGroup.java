@@ -0,0 +1,19 @@
+package com.bobocode.model;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = "id")
+@ToString
+@Builder
+public class SalesGroup {
+    private Long id;
+    private String name;
+    private String transactionType;
+    private BigDecimal maxTransactionAmount;
+}
@@ -0,0 +1,85 @@
+package com.bobocode;
+
+import com.bobocode.dao.MembershipIndex;
+import com.bobocode.util.JdbcUtil;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares latency of "brokers in groups A and B but not in C" answered by SQL over {@code broker_sales_group} against
+ * {@link MembershipIndex}. Both return the matching broker ids, groups are picked at random for every query. Queries
+ * are timed one by one, and percentiles include the cost of {@link System#nanoTime()} itself.
+ * <p>
+ * Run it as a plain Java program with optional numbers of brokers and index queries, e.g.
+ * {@code MembershipIndexBenchmark 50000 200000}.
+ */
+public class MembershipIndexBenchmark {
+    private static final int SALES_GROUPS = 200;
+    private static final int SQL_QUERIES = 2_000;
+    private static final String SQL = "SELECT a.broker_id FROM broker_sales_group a " +
+            "JOIN broker_sales_group b ON b.broker_id = a.broker_id AND b.sales_group_id = ? " +
+            "WHERE a.sales_group_id = ? AND NOT EXISTS (SELECT 1 FROM broker_sales_group c " +
+            "WHERE c.broker_id = a.broker_id AND c.sales_group_id = ?) ORDER BY a.broker_id";
+
+    public static void main(String[] args) throws SQLException {
+        int brokerCount = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int indexQueries = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        DataSource dataSource = JdbcUtil.createInMemoryH2DataSource("membership_index_benchmark");
+        WallStreetDbInitializer initializer = new WallStreetDbInitializer();
+        initializer.setDataSource(dataSource);
+        initializer.init();
+        Random random = new Random(42);
+        long sqlMatches = 0;
+        try (Connection connection = dataSource.getConnection()) {
+            TransactionLimitBenchmark.populate(connection, brokerCount, random);
+            long[] sqlLatencies = new long[SQL_QUERIES];
+            try (PreparedStatement statement = connection.prepareStatement(SQL)) {
+                for (int i = 0; i < SQL_QUERIES; i++) {
+                    long start = System.nanoTime();
+                    statement.setLong(1, 1 + random.nextInt(SALES_GROUPS));
+                    statement.setLong(2, 1 + random.nextInt(SALES_GROUPS));
+                    statement.setLong(3, 1 + random.nextInt(SALES_GROUPS));
+                    try (ResultSet rs = statement.executeQuery()) {
+                        while (rs.next()) {
+                            sqlMatches++;
+                        }
+                    }
+                    sqlLatencies[i] = System.nanoTime() - start;
+                }
+            }
+            TransactionLimitBenchmark.print("sql", sqlLatencies);
+        }
+
+        MembershipIndex index = new MembershipIndex(dataSource);
+        long loadStart = System.nanoTime();
+        index.load();
+        System.out.printf("index load: %d ms%n", (System.nanoTime() - loadStart) / 1_000_000);
+        long[][] groups = new long[indexQueries][];
+        for (int i = 0; i < indexQueries; i++) {
+            groups[i] = random.longs(3, 1, SALES_GROUPS + 1).toArray();
+        }
+        long[] indexLatencies = new long[indexQueries];
+        long indexMatches = 0;
+        for (int round = 0; round < 2; round++) { // the first round warms up the JIT
+            indexMatches = 0;
+            for (int i = 0; i < indexQueries; i++) {
+                long start = System.nanoTime();
+                List<Long> allOf = Arrays.asList(groups[i][0], groups[i][1]);
+                long[] brokers = index.query(allOf, Collections.emptySet(), Collections.singleton(groups[i][2]));
+                indexLatencies[i] = System.nanoTime() - start;
+                indexMatches += brokers.length;
+            }
+        }
+        TransactionLimitBenchmark.print("index", indexLatencies);
+        System.out.printf("matches per query: sql %.1f, index %.1f%n", (double) sqlMatches / SQL_QUERIES,
+                (double) indexMatches / indexQueries);
+    }
+}
@@ -0,0 +1,122 @@
+package com.bobocode;
+
+import com.bobocode.dao.MembershipIndex;
+import com.bobocode.dao.WallStreetDaoImpl;
+import com.bobocode.model.Broker;
+import com.bobocode.model.Membership;
+import com.bobocode.model.SalesGroup;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class MembershipIndexTest extends WallStreetDaoTestBase {
+
+    @Test
+    public void testMembershipIndexAnswersSetQueriesAndFollowsDaoChanges() {
+        WallStreetDaoImpl dao = new WallStreetDaoImpl(getDataSource());
+        Broker[] brokers = new Broker[4];
+        for (int i = 0; i < brokers.length; i++) {
+            brokers[i] = newBroker("broker" + i);
+            dao.saveBroker(brokers[i]);
+        }
+        SalesGroup a = newSalesGroup("a", "BUY", "10");
+        SalesGroup b = newSalesGroup("b", "BUY", "10");
+        SalesGroup c = newSalesGroup("c", "SELL", "10");
+        Arrays.asList(a, b, c).forEach(dao::saveSalesGroup);
+        dao.link(Arrays.asList(new Membership(brokers[0].getId(), a.getId()),
+                new Membership(brokers[0].getId(), b.getId()),
+                new Membership(brokers[1].getId(), a.getId()),
+                new Membership(brokers[1].getId(), b.getId()),
+                new Membership(brokers[1].getId(), c.getId()),
+                new Membership(brokers[2].getId(), a.getId())));
+
+        MembershipIndex index = new MembershipIndex(getDataSource());
+        index.load();
+        dao.addMembershipListener(index);
+        List<Long> abNotC = Arrays.asList(a.getId(), b.getId());
+        List<Long> notC = Collections.singletonList(c.getId());
+
+        assertThat(index.query(abNotC, Collections.emptySet(), notC), equalTo(new long[]{brokers[0].getId()}));
+        assertThat(index.anyOf(Arrays.asList(b.getId(), c.getId())),
+                equalTo(new long[]{brokers[0].getId(), brokers[1].getId()}));
+        assertThat(index.count(Collections.singletonList(a.getId()), Collections.emptySet(), notC), is(2));
+
+        dao.link(Collections.singletonList(new Membership(brokers[3].getId(), a.getId())));
+        dao.replaceMemberships(brokers[0].getId(), new HashSet<>(Arrays.asList(a.getId(), c.getId())));
+        dao.unlink(Collections.singletonList(new Membership(brokers[1].getId(), c.getId())));
+
+        assertThat(index.query(abNotC, Collections.emptySet(), notC), equalTo(new long[]{brokers[1].getId()}));
+        assertThat(index.allOf(Collections.singletonList(a.getId())), equalTo(new long[]{brokers[0].getId(),
+                brokers[1].getId(), brokers[2].getId(), brokers[3].getId()}));
+        assertThat(index.isMember(brokers[0].getId(), c.getId()), is(true));
+        assertThat(index.isMember(brokers[0].getId(), b.getId()), is(false));
+    }
+
+    @Test
+    public void testChangesReportedDuringLoadSurviveIt() {
+        WallStreetDaoImpl dao = new WallStreetDaoImpl(getDataSource());
+        Broker alice = newBroker("alice");
+        Broker bob = newBroker("bob");
+        dao.saveBroker(alice);
+        dao.saveBroker(bob);
+        SalesGroup buyers = newSalesGroup("buyers", "BUY", "100.00");
+        dao.saveSalesGroup(buyers);
+        dao.link(Collections.singletonList(new Membership(alice.getId(), buyers.getId())));
+        MembershipIndex index = new MembershipIndex(runAfterQuery(getDataSource(), () -> {
+            dao.link(Collections.singletonList(new Membership(bob.getId(), buyers.getId())));
+            dao.unlink(Collections.singletonList(new Membership(alice.getId(), buyers.getId())));
+        }));
+        dao.addMembershipListener(index);
+
+        index.load();
+
+        assertThat(index.isMember(bob.getId(), buyers.getId()), is(true));
+        assertThat(index.isMember(alice.getId(), buyers.getId()), is(false));
+    }
+
+    /**
+     * Wraps a data source to run an action right after any query is executed, so the query result misses its changes
+     */
+    private static DataSource runAfterQuery(DataSource dataSource, Runnable action) {
+        return proxy(DataSource.class, dataSource, (method, connection) -> method.getName().equals("getConnection")
+                ? runAfterQuery((Connection) connection, action) : connection);
+    }
+
+    private static Connection runAfterQuery(Connection connection, Runnable action) {
+        return proxy(Connection.class, connection, (method, statement) -> method.getName().equals("createStatement")
+                ? runAfterQuery((Statement) statement, action) : statement);
+    }
+
+    private static Statement runAfterQuery(Statement statement, Runnable action) {
+        return proxy(Statement.class, statement, (method, result) -> {
+            if (method.getName().equals("executeQuery")) {
+                action.run();
+            }
+            return result;
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, T target, BiFunction<Method, Object, Object> resultMapper) {
+        return type.cast(Proxy.newProxyInstance(MembershipIndexTest.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    try {
+                        return resultMapper.apply(method, method.invoke(target, args));
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }));
+    }
+}
@@ -0,0 +1,129 @@
+package com.bobocode;
+
+import com.bobocode.dao.TransactionLimitService;
+import com.bobocode.util.JdbcUtil;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares latency of resolving the effective transaction limit of a broker with the three-table join on every lookup
+ * against {@link TransactionLimitService}. Lookups are timed one by one, and percentiles include the cost of
+ * {@link System#nanoTime()} itself.
+ * <p>
+ * Run it as a plain Java program with optional numbers of brokers and cached lookups, e.g.
+ * {@code TransactionLimitBenchmark 20000 2000000}.
+ */
+public class TransactionLimitBenchmark {
+    private static final String[] TRANSACTION_TYPES = {"BUY", "SELL", "SHORT", "OPTION"};
+    private static final int SALES_GROUPS = 200;
+    private static final int GROUPS_PER_BROKER = 5;
+    private static final int JOIN_LOOKUPS = 20_000;
+    private static final String JOIN_SQL = "SELECT MAX(sg.max_transaction_amount) FROM broker_sales_group bsg " +
+            "JOIN sales_group sg ON sg.id = bsg.sales_group_id " +
+            "WHERE bsg.broker_id = ? AND sg.transaction_type = ?";
+
+    public static void main(String[] args) throws SQLException {
+        int brokerCount = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int cachedLookups = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+        DataSource dataSource = JdbcUtil.createInMemoryH2DataSource("transaction_limit_benchmark");
+        WallStreetDbInitializer initializer = new WallStreetDbInitializer();
+        initializer.setDataSource(dataSource);
+        initializer.init();
+        Random random = new Random(42);
+        try (Connection connection = dataSource.getConnection()) {
+            populate(connection, brokerCount, random);
+            long[] joinLatencies = new long[JOIN_LOOKUPS];
+            try (PreparedStatement statement = connection.prepareStatement(JOIN_SQL)) {
+                for (int i = 0; i < JOIN_LOOKUPS; i++) {
+                    long start = System.nanoTime();
+                    statement.setLong(1, 1 + random.nextInt(brokerCount));
+                    statement.setString(2, TRANSACTION_TYPES[random.nextInt(TRANSACTION_TYPES.length)]);
+                    try (ResultSet rs = statement.executeQuery()) {
+                        rs.next();
+                        rs.getBigDecimal(1);
+                    }
+                    joinLatencies[i] = System.nanoTime() - start;
+                }
+            }
+            print("join", joinLatencies);
+        }
+
+        TransactionLimitService limits = new TransactionLimitService(dataSource);
+        long loadStart = System.nanoTime();
+        limits.load();
+        System.out.printf("cache load: %d ms%n", (System.nanoTime() - loadStart) / 1_000_000);
+        long[] brokerIds = random.longs(cachedLookups, 1, brokerCount + 1).toArray();
+        int[] types = random.ints(cachedLookups, 0, TRANSACTION_TYPES.length).toArray();
+        long[] cachedLatencies = new long[cachedLookups];
+        int found = 0;
+        for (int round = 0; round < 2; round++) { // the first round warms up the JIT
+            found = 0;
+            for (int i = 0; i < cachedLookups; i++) {
+                long start = System.nanoTime();
+                BigDecimal limit = limits.getLimit(brokerIds[i], TRANSACTION_TYPES[types[i]]);
+                cachedLatencies[i] = System.nanoTime() - start;
+                if (limit != null) {
+                    found++;
+                }
+            }
+        }
+        print("cache", cachedLatencies);
+        System.out.printf("cache hits with a limit: %d of %d%n", found, cachedLookups);
+    }
+
+    static void populate(Connection connection, int brokerCount, Random random) throws SQLException {
+        connection.setAutoCommit(false);
+        try (PreparedStatement brokers = connection.prepareStatement(
+                "INSERT INTO broker (id, username, first_name, last_name) VALUES (?, ?, 'First', 'Last')");
+             PreparedStatement groups = connection.prepareStatement("INSERT INTO sales_group " +
+                     "(id, name, transaction_type, max_transaction_amount) VALUES (?, ?, ?, ?)");
+             PreparedStatement links = connection.prepareStatement(
+                     "MERGE INTO broker_sales_group (broker_id, sales_group_id) VALUES (?, ?)")) {
+            for (int id = 1; id <= SALES_GROUPS; id++) {
+                groups.setLong(1, id);
+                groups.setString(2, "group" + id);
+                groups.setString(3, TRANSACTION_TYPES[id % TRANSACTION_TYPES.length]);
+                groups.setBigDecimal(4, BigDecimal.valueOf(1 + random.nextInt(1_000_000), 2));
+                groups.addBatch();
+            }
+            groups.executeBatch();
+            for (int id = 1; id <= brokerCount; id++) {
+                brokers.setLong(1, id);
+                brokers.setString(2, "broker" + id);
+                brokers.addBatch();
+                for (int i = 0; i < GROUPS_PER_BROKER; i++) {
+                    links.setLong(1, id);
+                    links.setLong(2, 1 + random.nextInt(SALES_GROUPS));
+                    links.addBatch();
+                }
+                if (id % 1_000 == 0) {
+                    brokers.executeBatch();
+                    links.executeBatch();
+                }
+            }
+            brokers.executeBatch();
+            links.executeBatch();
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    static void print(String name, long[] latencies) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%-6s p50 %8d ns, p99 %8d ns, p99.9 %8d ns%n", name, percentile(sorted, 0.5),
+                percentile(sorted, 0.99), percentile(sorted, 0.999));
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * fraction))];
+    }
+}
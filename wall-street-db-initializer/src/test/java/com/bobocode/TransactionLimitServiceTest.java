@@ -0,0 +1,84 @@
+package com.bobocode;
+
+import com.bobocode.dao.TransactionLimitService;
+import com.bobocode.dao.WallStreetDaoImpl;
+import com.bobocode.model.Broker;
+import com.bobocode.model.Membership;
+import com.bobocode.model.SalesGroup;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class TransactionLimitServiceTest extends WallStreetDaoTestBase {
+    private WallStreetDaoImpl dao;
+    private Broker alice;
+    private Broker bob;
+    private SalesGroup small;
+    private SalesGroup large;
+    private SalesGroup sellers;
+    private TransactionLimitService limits;
+    private TransactionLimitService strictLimits;
+
+    /**
+     * Alice belongs to buying groups {@code small} and {@code large}, Bob only to {@code small}, and nobody to the
+     * selling group {@code sellers}. Both services are loaded and follow changes made through the DAO.
+     */
+    @Before
+    public void createMemberships() {
+        dao = new WallStreetDaoImpl(getDataSource());
+        alice = newBroker("alice");
+        bob = newBroker("bob");
+        dao.saveBroker(alice);
+        dao.saveBroker(bob);
+        small = newSalesGroup("small", "BUY", "100.00");
+        large = newSalesGroup("large", "BUY", "1000.00");
+        sellers = newSalesGroup("sellers", "SELL", "50.00");
+        Arrays.asList(small, large, sellers).forEach(dao::saveSalesGroup);
+        dao.link(Arrays.asList(new Membership(alice.getId(), small.getId()),
+                new Membership(alice.getId(), large.getId()), new Membership(bob.getId(), small.getId())));
+
+        limits = new TransactionLimitService(getDataSource());
+        strictLimits = new TransactionLimitService(getDataSource(), TransactionLimitService.Policy.MOST_RESTRICTIVE);
+        Arrays.asList(limits, strictLimits).forEach(service -> {
+            service.load();
+            dao.addMembershipListener(service);
+            dao.addSalesGroupListener(service);
+        });
+    }
+
+    @Test
+    public void testLimitsFollowPolicy() {
+        assertThat(limits.getLimit(alice.getId(), "BUY"), comparesEqualTo(new BigDecimal("1000")));
+        assertThat(strictLimits.getLimit(alice.getId(), "BUY"), comparesEqualTo(new BigDecimal("100")));
+        assertThat(limits.getLimit(alice.getId(), "SELL"), nullValue());
+        assertThat(limits.isAllowed(bob.getId(), "BUY", new BigDecimal("150")), is(false));
+    }
+
+    @Test
+    public void testLimitsAreRefreshedOnMembershipAndSalesGroupChanges() {
+        dao.link(Collections.singletonList(new Membership(bob.getId(), sellers.getId())));
+        dao.unlink(Collections.singletonList(new Membership(alice.getId(), large.getId())));
+        small.setMaxTransactionAmount(new BigDecimal("200.00"));
+        dao.updateSalesGroup(small);
+
+        assertThat(limits.getLimit(alice.getId(), "BUY"), comparesEqualTo(new BigDecimal("200")));
+        assertThat(limits.isAllowed(bob.getId(), "BUY", new BigDecimal("150")), is(true));
+        assertThat(limits.findLimit(bob.getId(), "SELL").isPresent(), is(true));
+    }
+
+    @Test
+    public void testLimitsAreRefreshedOnTransactionTypeChange() {
+        dao.link(Collections.singletonList(new Membership(bob.getId(), sellers.getId())));
+        sellers.setTransactionType("BUY");
+        dao.updateSalesGroup(sellers);
+
+        assertThat(limits.getLimit(bob.getId(), "SELL"), nullValue());
+        assertThat(strictLimits.getLimit(bob.getId(), "BUY"), comparesEqualTo(new BigDecimal("50")));
+    }
+}
@@ -0,0 +1,126 @@
+package com.bobocode;
+
+import com.bobocode.dao.MembershipListener;
+import com.bobocode.dao.TransactionLimitService;
+import com.bobocode.dao.WallStreetDao;
+import com.bobocode.dao.WallStreetDaoImpl;
+import com.bobocode.model.Broker;
+import com.bobocode.model.Membership;
+import com.bobocode.model.MembershipDiff;
+import com.bobocode.model.SalesGroup;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class WallStreetDaoImplTest extends WallStreetDaoTestBase {
+
+    @Test
+    public void testDaoFetchesBrokersWithSalesGroupsAndMaintainsMemberships() {
+        WallStreetDao dao = new WallStreetDaoImpl(getDataSource());
+        Broker alice = Broker.builder().username("alice").firstName("Alice").lastName("Smith").build();
+        Broker bob = Broker.builder().username("bob").firstName("Bob").lastName("Jones").build();
+        dao.saveBroker(alice);
+        dao.saveBroker(bob);
+        SalesGroup equities = newSalesGroup("equities", "BUY", "1000.00");
+        SalesGroup bonds = newSalesGroup("bonds", "SELL", "500.00");
+        SalesGroup futures = newSalesGroup("futures", "BUY", "250.00");
+        Arrays.asList(equities, bonds, futures).forEach(dao::saveSalesGroup);
+
+        dao.link(Arrays.asList(new Membership(alice.getId(), equities.getId()),
+                new Membership(alice.getId(), bonds.getId()), new Membership(bob.getId(), bonds.getId())));
+        Broker foundAlice = dao.findBroker(alice.getId()).orElseThrow(AssertionError::new);
+        assertThat(foundAlice.getSalesGroups(), contains(equities, bonds));
+        assertThat(dao.findAllBrokers(), contains(alice, bob));
+        List<Broker> brokers = dao.findBrokers(Arrays.asList(bob.getId(), alice.getId(), -1L));
+        assertThat(brokers, contains(alice, bob));
+        assertThat(brokers.get(1).getSalesGroups(), contains(bonds));
+
+        MembershipDiff diff = dao.replaceMemberships(alice.getId(),
+                new HashSet<>(Arrays.asList(bonds.getId(), futures.getId())));
+        assertThat(diff.getAddedSalesGroupIds(), contains(futures.getId()));
+        assertThat(diff.getRemovedSalesGroupIds(), contains(equities.getId()));
+        assertThat(dao.replaceMemberships(alice.getId(),
+                new HashSet<>(Arrays.asList(bonds.getId(), futures.getId()))).isEmpty(), is(true));
+
+        dao.unlink(Arrays.asList(new Membership(bob.getId(), bonds.getId())));
+        assertThat(dao.findBroker(bob.getId()).orElseThrow(AssertionError::new).getSalesGroups(), is(empty()));
+        assertThat(dao.findBroker(alice.getId()).orElseThrow(AssertionError::new).getSalesGroups().stream()
+                .map(SalesGroup::getName).collect(Collectors.toList()), contains("bonds", "futures"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDaoReplaceMembershipsRejectsUnknownBroker() {
+        new WallStreetDaoImpl(getDataSource()).replaceMemberships(-1L, new HashSet<>());
+    }
+
+    @Test
+    public void testUnlinkNotifiesOnlyDeletedMemberships() {
+        WallStreetDaoImpl dao = new WallStreetDaoImpl(getDataSource());
+        Broker alice = newBroker("alice");
+        dao.saveBroker(alice);
+        SalesGroup buyers = newSalesGroup("buyers", "BUY", "100.00");
+        SalesGroup sellers = newSalesGroup("sellers", "SELL", "100.00");
+        Arrays.asList(buyers, sellers).forEach(dao::saveSalesGroup);
+        dao.link(Collections.singletonList(new Membership(alice.getId(), buyers.getId())));
+        List<Collection<Membership>> unlinkEvents = new ArrayList<>();
+        dao.addMembershipListener(new MembershipListener() {
+            @Override
+            public void linked(Collection<Membership> memberships) {
+            }
+
+            @Override
+            public void unlinked(Collection<Membership> memberships) {
+                unlinkEvents.add(memberships);
+            }
+        });
+
+        dao.unlink(Arrays.asList(new Membership(alice.getId(), buyers.getId()),
+                new Membership(alice.getId(), sellers.getId())));
+        dao.unlink(Collections.singletonList(new Membership(alice.getId(), buyers.getId())));
+
+        assertThat(unlinkEvents, contains(Collections.singletonList(new Membership(alice.getId(), buyers.getId()))));
+    }
+
+    @Test
+    public void testFailingListenerDoesNotStopOtherListeners() {
+        WallStreetDaoImpl dao = new WallStreetDaoImpl(getDataSource());
+        Broker alice = newBroker("alice");
+        dao.saveBroker(alice);
+        SalesGroup buyers = newSalesGroup("buyers", "BUY", "100.00");
+        dao.saveSalesGroup(buyers);
+        TransactionLimitService limits = new TransactionLimitService(getDataSource());
+        limits.load();
+        dao.addMembershipListener(new MembershipListener() {
+            @Override
+            public void linked(Collection<Membership> memberships) {
+                throw new IllegalStateException("linked");
+            }
+
+            @Override
+            public void unlinked(Collection<Membership> memberships) {
+                throw new IllegalStateException("unlinked");
+            }
+        });
+        dao.addSalesGroupListener(salesGroup -> {
+            throw new IllegalStateException("salesGroupUpdated");
+        });
+        dao.addMembershipListener(limits);
+        dao.addSalesGroupListener(limits);
+
+        dao.link(Collections.singletonList(new Membership(alice.getId(), buyers.getId())));
+        buyers.setMaxTransactionAmount(new BigDecimal("200.00"));
+        dao.updateSalesGroup(buyers);
+
+        assertThat(limits.getLimit(alice.getId(), "BUY"), comparesEqualTo(new BigDecimal("200")));
+    }
+}
@@ -0,0 +1,40 @@
+package com.bobocode;
+
+import com.bobocode.model.Broker;
+import com.bobocode.model.SalesGroup;
+import org.junit.After;
+import org.junit.BeforeClass;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+
+import static com.bobocode.util.JdbcUtil.executeSafely;
+
+/**
+ * A base class of tests of DAOs and services that work with brokers and sales groups. Every test class gets its own
+ * database initialized by {@link WallStreetDbInitializer}, and all tables are emptied after each test.
+ */
+public abstract class WallStreetDaoTestBase extends DbInitializerTestBase {
+
+    @BeforeClass
+    public static void init() throws SQLException {
+        initDataSource(new WallStreetDbInitializer());
+    }
+
+    @After
+    public void deleteBrokersAndSalesGroups() throws SQLException {
+        consumeStatement(statement -> {
+            executeSafely(statement, "DELETE FROM broker_sales_group;");
+            executeSafely(statement, "DELETE FROM broker;");
+            executeSafely(statement, "DELETE FROM sales_group;");
+        });
+    }
+
+    static Broker newBroker(String username) {
+        return Broker.builder().username(username).firstName("First").lastName("Last").build();
+    }
+
+    static SalesGroup newSalesGroup(String name, String transactionType, String maxTransactionAmount) {
+        return new SalesGroup(null, name, transactionType, new BigDecimal(maxTransactionAmount));
+    }
+}
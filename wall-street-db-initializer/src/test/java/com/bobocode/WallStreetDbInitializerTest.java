@@ -313,4 +313,23 @@ public class WallStreetDbInitializerTest extends DbInitializerTestBase {
             assertThat(uniqueConstraintColumn, equalTo("broker_id,sales_group_id"));
         });
     }
+
+    @Test
+    public void testAppliedMigrationsAreNotRunAgain() {
+        List<MigrationScript> appliedScripts = new MigrationRunner(getDataSource()).migrate();
+
+        assertThat(appliedScripts, is(empty()));
+    }
+
+    @Test
+    public void testCatalogDescribesLinkTable() {
+        SchemaCatalog catalog = loadCatalog();
+        TableMetadata linkTable = catalog.getTable("broker_sales_group");
+
+        assertThat(catalog.getTableNames(), containsInAnyOrder("broker", "sales_group", "broker_sales_group"));
+        assertThat(linkTable.getPrimaryKey().getColumns(), contains("broker_id", "sales_group_id"));
+        assertThat(linkTable.getForeignKeys(), hasSize(2));
+        assertThat(catalog.getReferencingForeignKeys("broker").get(0).getName(),
+                equalTo("FK_broker_sales_group_broker"));
+    }
 }